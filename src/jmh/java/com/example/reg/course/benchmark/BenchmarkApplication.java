@@ -0,0 +1,28 @@
+package com.example.reg.course.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.enrollment.course.StudentCourseRegistrationProgramApplication;
+
+/**
+ * Starts the application without a web server against an embedded H2
+ * database, so service benchmarks run the real transactional paths
+ */
+final class BenchmarkApplication {
+
+	private BenchmarkApplication() {
+	}
+
+	static ConfigurableApplicationContext start(String... properties) {
+		return new SpringApplicationBuilder(StudentCourseRegistrationProgramApplication.class)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.properties("spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"logging.level.root=WARN")
+				.properties(properties)
+				.run();
+	}
+}
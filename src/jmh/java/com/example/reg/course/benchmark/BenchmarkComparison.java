@@ -0,0 +1,68 @@
+package com.example.reg.course.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prints the change of every benchmark between two JMH JSON result files.
+ * A positive change means slower for time modes and faster for throughput.
+ *
+ * Usage: BenchmarkComparison baseline.json current.json
+ */
+public final class BenchmarkComparison {
+
+	private BenchmarkComparison() {
+	}
+
+	private record Score(double value, double error, String unit) {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json>");
+			System.exit(2);
+		}
+		Map<String, Score> baseline = read(new File(args[0]));
+		Map<String, Score> current = read(new File(args[1]));
+
+		System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, Score> entry : new TreeMap<>(current).entrySet()) {
+			Score now = entry.getValue();
+			Score before = baseline.get(entry.getKey());
+			String change = before == null || before.value() == 0 ? "new"
+					: String.format("%+.1f%%", (now.value() - before.value()) / before.value() * 100);
+			System.out.printf("%-70s %14s %14s %9s%n", entry.getKey(),
+					before == null ? "-" : format(before), format(now), change);
+		}
+		for (String name : baseline.keySet()) {
+			if (!current.containsKey(name)) {
+				System.out.printf("%-70s %14s %14s %9s%n", name, format(baseline.get(name)), "-", "removed");
+			}
+		}
+	}
+
+	/** Benchmark name with its parameters -> primary score */
+	private static Map<String, Score> read(File file) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<>();
+		for (JsonNode run : new ObjectMapper().readTree(file)) {
+			StringBuilder name = new StringBuilder(run.path("benchmark").asText()
+					.replace("com.example.reg.course.benchmark.", ""));
+			run.path("params").fields().forEachRemaining(
+					param -> name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+			JsonNode metric = run.path("primaryMetric");
+			scores.put(name.toString(), new Score(metric.path("score").asDouble(),
+					metric.path("scoreError").asDouble(), metric.path("scoreUnit").asText()));
+		}
+		return scores;
+	}
+
+	private static String format(Score score) {
+		return String.format("%.3f %s", score.value(), score.unit());
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.reg.course.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentService;
+
+/**
+ * Enroll, deregister and swap through the service, one transaction per call.
+ * Every operation undoes itself, so the database stays the same size
+ * however long the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnrollmentBenchmark {
+
+	private static final long COURSE_A = 9001L;
+	private static final long COURSE_B = 9002L;
+	private static final int STUDENTS = 1_000;
+
+	private ConfigurableApplicationContext context;
+	private EnrollmentService enrollmentService;
+	private List<Long> studentIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start();
+		enrollmentService = context.getBean(EnrollmentService.class);
+		CourseRepository courseRepo = context.getBean(CourseRepository.class);
+		courseRepo.save(new Course(COURSE_A, "Benchmark A", "1 month", 100.0, (long) STUDENTS));
+		courseRepo.save(new Course(COURSE_B, "Benchmark B", "1 month", 100.0, (long) STUDENTS));
+
+		List<Student> students = new ArrayList<>();
+		for (int i = 0; i < STUDENTS; i++) {
+			students.add(new Student(null, "Bench", "Student" + i, "bench" + i));
+		}
+		studentIds = context.getBean(StudentRepository.class).saveAll(students).stream()
+				.map(Student::getStudentId).toList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/** Picks students round-robin so no two consecutive calls touch the same rows */
+	private Long nextStudent() {
+		Long id = studentIds.get(next);
+		next = (next + 1) % studentIds.size();
+		return id;
+	}
+
+	@Benchmark
+	public EnrollmentDto enrollThenDeregister() {
+		Long studentId = nextStudent();
+		EnrollmentDto enrolled = enrollmentService.enrollStudent(COURSE_A, studentId);
+		enrollmentService.deregisterCourse(COURSE_A, studentId);
+		return enrolled;
+	}
+
+	@Benchmark
+	public EnrollmentDto swapThereAndBack() {
+		Long studentId = nextStudent();
+		enrollmentService.enrollStudent(COURSE_A, studentId);
+		enrollmentService.updateCourseEnrollment(studentId, COURSE_A, COURSE_B);
+		EnrollmentDto back = enrollmentService.updateCourseEnrollment(studentId, COURSE_B, COURSE_A);
+		enrollmentService.deregisterCourse(COURSE_A, studentId);
+		return back;
+	}
+}
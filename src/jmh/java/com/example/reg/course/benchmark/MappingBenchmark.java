@@ -0,0 +1,62 @@
+package com.example.reg.course.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.StudentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.mapper.AutoMapper;
+
+/**
+ * MapStruct conversions between entities and DTOs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+	private final Course course = new Course(101L, "Core Java", "1 month", 3000.0, 20L);
+	private final Enrollment enrollment = new Enrollment(1L, 2L, 101L, EnrollmentStatus.WAITLISTED, 7L,
+			PaymentStatus.PENDING);
+	private final Student student = new Student(2L, "Ada", "Lovelace", "555-0100");
+	private final EnrollmentDto enrollmentDto = AutoMapper.MAPPER.mapToEnrollmentDto(enrollment);
+	private final StudentDto studentDto = AutoMapper.MAPPER.mapToStudentDto(student);
+
+	@Benchmark
+	public CourseDto courseToDto() {
+		return AutoMapper.MAPPER.mapToCourseDto(course);
+	}
+
+	@Benchmark
+	public EnrollmentDto enrollmentToDto() {
+		return AutoMapper.MAPPER.mapToEnrollmentDto(enrollment);
+	}
+
+	@Benchmark
+	public Enrollment dtoToEnrollment() {
+		return AutoMapper.MAPPER.enrollment(enrollmentDto);
+	}
+
+	@Benchmark
+	public Student dtoToStudent() {
+		return AutoMapper.MAPPER.mapToStudent(studentDto);
+	}
+}
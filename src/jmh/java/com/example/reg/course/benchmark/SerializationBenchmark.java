@@ -0,0 +1,69 @@
+package com.example.reg.course.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson serialization of the list responses, with the object mapper
+ * configured the way Spring MVC configures it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "10", "1000" })
+	public int size;
+
+	private ObjectMapper objectMapper;
+	private List<EnrollmentDto> enrollments;
+	private List<CourseDto> courses;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		enrollments = new ArrayList<>(size);
+		courses = new ArrayList<>(size);
+		for (long i = 0; i < size; i++) {
+			enrollments.add(new EnrollmentDto(i, 1_000 + i, 100 + i % 50,
+					i % 5 == 0 ? EnrollmentStatus.WAITLISTED : EnrollmentStatus.ENROLLED,
+					i % 5 == 0 ? i : null, PaymentStatus.PENDING, null));
+			courses.add(new CourseDto(100 + i, "Course " + i, "3 months", 2500.0 + i, 30L));
+		}
+	}
+
+	@Benchmark
+	public byte[] enrollmentList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(enrollments);
+	}
+
+	@Benchmark
+	public byte[] courseList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(courses);
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.reg.course.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentService;
+
+/**
+ * Waitlist promotion on a one-seat course with a queue of the given length.
+ * Each operation drops the seated student, which promotes the head of the
+ * queue, and puts them back at the tail, so the queue length never changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitlistPromotionBenchmark {
+
+	private static final long COURSE = 9101L;
+
+	@Param({ "10", "100", "1000" })
+	public int waitlistLength;
+
+	private ConfigurableApplicationContext context;
+	private EnrollmentService enrollmentService;
+
+	/** Seated student first, then the queue in promotion order */
+	private final Deque<Long> order = new ArrayDeque<>();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start();
+		enrollmentService = context.getBean(EnrollmentService.class);
+		context.getBean(CourseRepository.class).save(new Course(COURSE, "Benchmark", "1 month", 100.0, 1L));
+
+		List<Student> students = new ArrayList<>();
+		for (int i = 0; i <= waitlistLength; i++) {
+			students.add(new Student(null, "Bench", "Student" + i, "bench" + i));
+		}
+		for (Student student : context.getBean(StudentRepository.class).saveAll(students)) {
+			enrollmentService.enrollStudent(COURSE, student.getStudentId());
+			order.addLast(student.getStudentId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public EnrollmentDto promoteHead() {
+		Long seated = order.pollFirst();
+		enrollmentService.deregisterCourse(COURSE, seated);
+		order.addLast(seated);
+		return enrollmentService.enrollStudent(COURSE, seated);
+	}
+}
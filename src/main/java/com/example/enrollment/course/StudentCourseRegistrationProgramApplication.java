@@ -1,6 +1,7 @@
 package com.example.enrollment.course;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Contact;
@@ -10,6 +11,7 @@ import io.swagger.v3.oas.annotations.info.Info;
  * @author Radhakrishnan
  */
 @SpringBootApplication
+@EnableScheduling
 @OpenAPIDefinition(
 		info = @Info(
 				title = "Student Course Enrollment Project",
@@ -1,9 +1,10 @@
 package com.example.enrollment.course.controller;
 
-import java.util.Collection;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,29 +13,51 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.enrollment.course.dto.BatchEnrollmentResultDto;
 import com.example.enrollment.course.dto.CourseDto;
 import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.EnrollmentRequestDto;
+import com.example.enrollment.course.dto.PaymentDto;
+import com.example.enrollment.course.dto.PaymentRequestDto;
 import com.example.enrollment.course.dto.StudentDto;
+import com.example.enrollment.course.dto.SwapStatsDto;
+import com.example.enrollment.course.entity.Payment;
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.course.CourseSearchIndex;
+import com.example.enrollment.course.service.course.CourseSearchQuery;
 import com.example.enrollment.course.service.course.CourseService;
+import com.example.enrollment.course.service.enrollment.BatchEnrollmentService;
 import com.example.enrollment.course.service.enrollment.EnrollmentService;
+import com.example.enrollment.course.service.idempotency.IdempotencyFilter;
+import com.example.enrollment.course.service.payment.PaymentService;
 import com.example.enrollment.course.service.student.StudentService;
+import com.example.enrollment.course.service.student.StudentService.StudentPage;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 
 @Tag(
 		name = "CRUD REST APIs for Course Registration Resource",
-		description = "CRUD REST APIs - Add Student, List Available Courses, List Students, "
-				+ "Enroll Student, Deregister Course, Swap Course, Deregister Student, "
-				+ "List Enrollments"
+		description = "CRUD REST APIs - Add Student, List Available Courses, Search Courses, Watch Seats, List Students, Stream Students, Update Waitlist Priority, "
+				+ "Enroll Student, Bulk Enroll, Deregister Course, Swap Course, "
+				+ "Deregister Student, Bulk Deregister Students, List Enrollments, Swap Stats, Confirm Payment"
 		)
 @RestController
 @RequestMapping("/api/v1")
@@ -44,21 +67,101 @@ public class RegistrationController {
     private final CourseService courseService;
     private final StudentService studentService;
     private final EnrollmentService enrollmentService;
+    private final BatchEnrollmentService batchEnrollmentService;
+    private final PaymentService paymentService;
+
+    /** Response header carrying the cursor of the next student page */
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+    /** Response header carrying the number of courses a search matched */
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /** Request header that makes a repeated call return the first call's result */
+    static final String IDEMPOTENCY_KEY_HEADER = IdempotencyFilter.KEY_HEADER;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     // --- Courses ---
 
     @Operation(
     		summary = "Get Courses REST API",
-    		description = "List all the available courses in the database"
+    		description = "List all the available courses in the database. "
+    				+ "Supports If-None-Match and gzip Accept-Encoding"
     		)
     @ApiResponse(
     		responseCode = "200",
-    		description = "HTTP Status 200 Successful"
+    		description = "HTTP Status 200 Successful",
+    		content = @Content(
+    				mediaType = MediaType.APPLICATION_JSON_VALUE,
+    				array = @ArraySchema(schema = @Schema(implementation = CourseDto.class)))
+    		)
+    @ApiResponse(
+    		responseCode = "304",
+    		description = "HTTP Status 304 Not Modified"
     		)
     /** GET /api/courses */
     @GetMapping("/courses")
-    public ResponseEntity<Collection<CourseDto>> listCourses() {
-        return ResponseEntity.ok(courseService.searchCourses());
+    public ResponseEntity<byte[]> listCourses(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CourseCatalogCache.Snapshot catalog = courseService.courseCatalog();
+        if (catalog.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalog.etag()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(catalog.etag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalog.gzip());
+        }
+        return response.body(catalog.json());
+    }
+
+    @Operation(
+    		summary = "Search Courses REST API",
+    		description = "Search the catalog by course name words or word prefixes (q), fee range, "
+    				+ "duration range in days and free seats; sorted by ID, NAME, FEES, DURATION or SEATS "
+    				+ "and paged. The number of matches is returned in X-Total-Count"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    /** GET /api/courses/search?q=&minFees=&maxFees=&minDays=&maxDays=&withSeats=&sort=&desc=&page=&size= */
+    @GetMapping("/courses/search")
+    public ResponseEntity<List<CourseDto>> searchCourses(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Double minFees,
+            @RequestParam(required = false) Double maxFees,
+            @RequestParam(required = false) Integer minDays,
+            @RequestParam(required = false) Integer maxDays,
+            @RequestParam(defaultValue = "false") boolean withSeats,
+            @RequestParam(defaultValue = "ID") CourseSearchQuery.Sort sort,
+            @RequestParam(defaultValue = "false") boolean desc,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        CourseSearchIndex.Page result = courseService.searchCourses(new CourseSearchQuery(
+                q, minFees, maxFees, minDays, maxDays, withSeats, sort, desc, page, size));
+        return ResponseEntity.ok()
+            .header(TOTAL_COUNT_HEADER, String.valueOf(result.total()))
+            .body(result.courses());
+    }
+
+    @Operation(
+    		summary = "Watch Seats REST API",
+    		description = "Server-Sent Events stream of the given courses: one \"seats\" event per course "
+    				+ "with its available seats and waitlist depth, then one whenever they change, "
+    				+ "coalesced over enrollment.seat-stream.coalesce-ms. Replaces polling GET /courses"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    /** GET /api/courses/seats/stream?courseIds=1,2,3 */
+    @GetMapping(value = "/courses/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchSeats(@RequestParam List<Long> courseIds) {
+        return courseService.watchSeats(courseIds);
     }
 
     // --- Students ---
@@ -79,23 +182,69 @@ public class RegistrationController {
 
     @Operation(
     		summary = "Get Students REST API",
-    		description = "List all the saved students from the database"
+    		description = "List one page of saved students, ordered by id. "
+    				+ "Pass the X-Next-After header of a page as 'after' to get the next one"
     		)
     @ApiResponse(
     		responseCode = "200",
     		description = "HTTP Status 200 Successful"
     		)
-    /** GET /api/students */
+    /** GET /api/students?after=studentId&limit=n */
     @GetMapping("/students")
-    public ResponseEntity<Collection<StudentDto>> listStudents() {
-        return ResponseEntity.ok(studentService.listStudents());
+    public ResponseEntity<List<StudentDto>> listStudents(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        StudentPage page = studentService.listStudents(after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextAfter() != null) {
+            response.header(NEXT_AFTER_HEADER, String.valueOf(page.nextAfter()));
+        }
+        return response.body(page.students());
+    }
+
+    @Operation(
+    		summary = "Stream Students REST API",
+    		description = "Stream every saved student as NDJSON (default) or, with format=json, "
+    				+ "as one JSON array; memory use stays flat however many students there are"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    /** GET /api/students/stream?format=ndjson|json */
+    @GetMapping("/students/stream")
+    public ResponseEntity<StreamingResponseBody> streamStudents(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+            .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+            .body(out -> studentService.streamStudents(out, ndjson));
+    }
+
+    @Operation(
+    		summary = "Update Waitlist Priority REST API",
+    		description = "Set the tier (SENIOR, PROGRAM_MAJOR or STANDARD) the student waits in on every "
+    				+ "waitlist they join from now on; higher tiers are promoted first, each in arrival order"
+    		)
+    @ApiResponse(
+    		responseCode = "204",
+    		description = "HTTP Status 204 No Content"
+    		)
+    /** PUT /api/students/{studentId}/waitlist-priority?priority=SENIOR|PROGRAM_MAJOR|STANDARD */
+    @PutMapping("/students/{studentId}/waitlist-priority")
+    public ResponseEntity<Void> changeWaitlistPriority(
+            @PathVariable Long studentId,
+            @RequestParam WaitlistPriority priority) {
+        studentService.changeWaitlistPriority(studentId, priority);
+        return ResponseEntity.noContent().build();
     }
 
     // --- Enrollments ---
 
     @Operation(
     		summary = "Post Enrollment REST API",
-    		description = "Enroll a student to a course"
+    		description = "Enroll a student to a course. "
+    				+ "Repeating a call with the same Idempotency-Key returns the first response"
     		)
     @ApiResponse(
     		responseCode = "201",
@@ -120,9 +269,26 @@ public class RegistrationController {
             ).body(e);
     }
 
+    @Operation(
+    		summary = "Post Bulk Enrollment REST API",
+    		description = "Enroll many (student, course) pairs in one call; "
+    				+ "returns one result per pair in request order"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    /** POST /api/enrollments/batch */
+    @PostMapping("/enrollments/batch")
+    public ResponseEntity<List<BatchEnrollmentResultDto>> enrollBatch(
+            @RequestBody List<EnrollmentRequestDto> requests) {
+        return ResponseEntity.ok(batchEnrollmentService.enrollStudents(requests));
+    }
+
     @Operation(
     		summary = "Update Courses REST API",
-    		description = "Deregister from an enrolled course for the student"
+    		description = "Deregister from an enrolled course for the student. "
+    				+ "Repeating a call with the same Idempotency-Key returns the first response"
     		)
     @ApiResponse(
     		responseCode = "204",
@@ -153,14 +319,35 @@ public class RegistrationController {
         		HttpStatus.NO_CONTENT);
     }
 
+    @Operation(
+    		summary = "Bulk Delete Students REST API",
+    		description = "Delete many students and all their enrollments in one call, "
+    				+ "e.g. for end-of-term cleanup; unknown ids are skipped"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful, body is the number of students removed"
+    		)
+    /** POST /api/students/deregister */
+    @PostMapping("/students/deregister")
+    public ResponseEntity<Integer> deregisterStudents(@RequestBody List<Long> studentIds) {
+        return ResponseEntity.ok(enrollmentService.deregisterStudents(studentIds));
+    }
+
     @Operation(
     		summary = "Update Enrolled Course REST API",
-    		description = "Swap Enrolled Course for the student"
+    		description = "Swap Enrolled Course for the student. "
+    				+ "The student keeps the old course when the new one is full. "
+    				+ "Repeating a call with the same Idempotency-Key returns the first response"
     		)
     @ApiResponse(
     		responseCode = "200",
     		description = "HTTP Status 200 Successful"
     		)
+    @ApiResponse(
+    		responseCode = "409",
+    		description = "HTTP Status 409 Conflict, the new course has no free seat"
+    		)
     /** PUT /api/swap/{studentId}?from=oldCourse&to=newCourse */
     @PatchMapping("/swap/{studentId}")
     public ResponseEntity<EnrollmentDto> swapCourse(
@@ -188,4 +375,41 @@ public class RegistrationController {
         return ResponseEntity.ok(
             enrollmentService.retrieveEnrollments(studentId));
     }
+
+    @Operation(
+    		summary = "Get Swap Stats REST API",
+    		description = "Course swap attempts, retries and lock wait times since startup"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    /** GET /api/enrollments/swap-stats */
+    @GetMapping("/enrollments/swap-stats")
+    public ResponseEntity<SwapStatsDto> getSwapStats() {
+        return ResponseEntity.ok(enrollmentService.swapStats());
+    }
+
+    // --- Payments ---
+
+    @Operation(
+    		summary = "Post Payment REST API",
+    		description = "Confirm the payment of an enrolled seat, ending its hold. "
+    				+ "Repeating a call with the same Idempotency-Key returns the same payment"
+    		)
+    @ApiResponse(
+    		responseCode = "200",
+    		description = "HTTP Status 200 Successful"
+    		)
+    @ApiResponse(
+    		responseCode = "409",
+    		description = "HTTP Status 409 Conflict, the enrollment is waitlisted"
+    		)
+    /** POST /api/payments */
+    @PostMapping("/payments")
+    public ResponseEntity<PaymentDto> confirmPayment(
+            @RequestHeader(IDEMPOTENCY_KEY_HEADER) @NotBlank @Size(max = Payment.MAX_KEY_LENGTH) String idempotencyKey,
+            @Valid @RequestBody PaymentRequestDto payment) {
+        return ResponseEntity.ok(paymentService.confirmPayment(idempotencyKey, payment));
+    }
 }
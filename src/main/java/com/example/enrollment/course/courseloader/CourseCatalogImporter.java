@@ -0,0 +1,148 @@
+package com.example.enrollment.course.courseloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.entity.Course;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports a course catalog JSON array into the courses table.
+ *
+ * The file is read one course at a time with Jackson's streaming parser and
+ * written as chunked JDBC batches of a single upsert statement, so memory
+ * stays flat and there is no select per course. The first occurrence of a
+ * course id wins; later ones are skipped and reported.
+ *
+ * Every column is overwritten, available seats included. Use
+ * {@link CourseCatalogSync} to keep live seat counts.
+ *
+ * On MySQL, add rewriteBatchedStatements=true to the JDBC url so each batch
+ * goes out as one multi-row statement.
+ */
+@Slf4j
+@Component
+public class CourseCatalogImporter {
+
+	private static final String COLUMNS = "course_id, course_name, duration, fees, available_seats";
+
+	private static final String MYSQL_UPSERT = "INSERT INTO courses (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?) "
+			+ "ON DUPLICATE KEY UPDATE course_name = VALUES(course_name), duration = VALUES(duration), "
+			+ "fees = VALUES(fees), available_seats = VALUES(available_seats)";
+
+	private static final String POSTGRES_UPSERT = "INSERT INTO courses (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?) "
+			+ "ON CONFLICT (course_id) DO UPDATE SET course_name = EXCLUDED.course_name, "
+			+ "duration = EXCLUDED.duration, fees = EXCLUDED.fees, available_seats = EXCLUDED.available_seats";
+
+	private static final String H2_UPSERT = "MERGE INTO courses (" + COLUMNS + ") KEY (course_id) VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final CourseCatalogReader reader;
+
+	/** Resolved on first import, the database does not change afterwards */
+	private volatile String upsertSql;
+
+	public CourseCatalogImporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			@Value("${enrollment.course-catalog.batch-size:1000}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.reader = new CourseCatalogReader(objectMapper, batchSize);
+	}
+
+	/**
+	 * Outcome of one import
+	 * @param imported - courses inserted or updated
+	 * @param duplicateIds - course ids seen more than once, in file order
+	 * @param skipped - entries missing a required field
+	 * @param elapsedMs - wall time of the import
+	 */
+	public record Report(int imported, List<Long> duplicateIds, int skipped, long elapsedMs) {
+	}
+
+	/**
+	 * Upserts every course of the given catalog in one transaction
+	 * @param catalog - JSON array of courses
+	 * @return what was imported and what was skipped
+	 * @throws IOException when the file cannot be read or is not a JSON array
+	 */
+	@Transactional
+	public Report importCatalog(Resource catalog) throws IOException {
+		long start = System.nanoTime();
+		String sql = upsertSql();
+		AtomicInteger imported = new AtomicInteger();
+
+		CourseCatalogReader.Result result;
+		try (InputStream in = catalog.getInputStream()) {
+			result = reader.read(in, catalog.getDescription(), chunk -> imported.addAndGet(write(sql, chunk)));
+		}
+
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		if (!result.duplicateIds().isEmpty()) {
+			log.warn("Course catalog {} repeats course ids {}; kept the first of each",
+					catalog.getDescription(), result.duplicateIds());
+		}
+		if (result.skipped() > 0) {
+			log.warn("Course catalog {} has {} incomplete entries, skipped them", catalog.getDescription(), result.skipped());
+		}
+		log.info("Imported {} courses from {} in {} ms", imported.get(), catalog.getDescription(), elapsedMs);
+		return new Report(imported.get(), result.duplicateIds(), result.skipped(), elapsedMs);
+	}
+
+	private int write(String sql, List<Course> courses) {
+		if (courses.isEmpty()) {
+			return 0;
+		}
+		jdbcTemplate.batchUpdate(sql, courses, courses.size(), (ps, course) -> {
+			ps.setLong(1, course.getCourseId());
+			ps.setString(2, course.getCourseName());
+			ps.setString(3, course.getDuration());
+			ps.setDouble(4, course.getFees());
+			ps.setLong(5, course.getAvailableSeats());
+		});
+		return courses.size();
+	}
+
+	private String upsertSql() {
+		String sql = upsertSql;
+		if (sql == null) {
+			sql = upsertSqlFor(databaseName());
+			upsertSql = sql;
+		}
+		return sql;
+	}
+
+	private String databaseName() {
+		try {
+			return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+					DatabaseMetaData::getDatabaseProductName);
+		} catch (Exception ex) {
+			throw new IllegalStateException("Cannot determine the database for course upserts", ex);
+		}
+	}
+
+	private static String upsertSqlFor(String databaseName) {
+		String name = databaseName.toLowerCase(Locale.ROOT);
+		if (name.contains("mysql") || name.contains("mariadb")) {
+			return MYSQL_UPSERT;
+		}
+		if (name.contains("postgres")) {
+			return POSTGRES_UPSERT;
+		}
+		if (name.contains("h2")) {
+			return H2_UPSERT;
+		}
+		throw new IllegalStateException("No course upsert statement for database " + databaseName);
+	}
+}
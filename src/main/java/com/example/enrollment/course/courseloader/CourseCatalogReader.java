@@ -0,0 +1,84 @@
+package com.example.enrollment.course.courseloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.example.enrollment.course.entity.Course;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams the courses of a catalog JSON array in chunks.
+ * The first occurrence of a course id wins; later ones and entries missing
+ * a required field are left out and counted.
+ */
+class CourseCatalogReader {
+
+	private final ObjectMapper objectMapper;
+	private final int chunkSize;
+
+	CourseCatalogReader(ObjectMapper objectMapper, int chunkSize) {
+		this.objectMapper = objectMapper;
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * What was left out of a catalog
+	 * @param duplicateIds - course ids seen more than once, in file order
+	 * @param skipped - entries missing a required field
+	 */
+	record Result(List<Long> duplicateIds, int skipped) {
+	}
+
+	/**
+	 * @param in - catalog content, not closed here
+	 * @param description - names the catalog in errors
+	 * @param onChunk - receives the courses, at most chunkSize at a time
+	 * @return what was left out
+	 * @throws IOException when the content is not a JSON array of courses
+	 */
+	Result read(InputStream in, String description, Consumer<List<Course>> onChunk) throws IOException {
+		Set<Long> seen = new HashSet<>();
+		List<Long> duplicates = new ArrayList<>();
+		List<Course> chunk = new ArrayList<>(chunkSize);
+		int skipped = 0;
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)
+				.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IOException("Course catalog " + description + " is not a JSON array");
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				Course course = objectMapper.readValue(parser, Course.class);
+				if (!complete(course)) {
+					skipped++;
+					continue;
+				}
+				if (!seen.add(course.getCourseId())) {
+					duplicates.add(course.getCourseId());
+					continue;
+				}
+				chunk.add(course);
+				if (chunk.size() == chunkSize) {
+					onChunk.accept(chunk);
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+		}
+		if (!chunk.isEmpty()) {
+			onChunk.accept(chunk);
+		}
+		return new Result(List.copyOf(duplicates), skipped);
+	}
+
+	private static boolean complete(Course course) {
+		return course.getCourseId() != null && course.getCourseName() != null
+				&& course.getDuration() != null && course.getAvailableSeats() != null;
+	}
+}
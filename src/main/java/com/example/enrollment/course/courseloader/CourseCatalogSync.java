@@ -0,0 +1,274 @@
+package com.example.enrollment.course.courseloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.entity.CatalogSyncState;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.CourseSyncState;
+import com.example.enrollment.course.repository.CatalogSyncStateRepository;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.CourseSyncStateRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.CourseEnrolled;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies only what changed in a course catalog since it was last synced.
+ *
+ * A file whose hash matches the last sync is not parsed at all. Otherwise
+ * each course is compared with its stored content hash:
+ *  - new courses are inserted with their full capacity as available seats
+ *  - changed name, duration or fees are overwritten
+ *  - a changed capacity sets the available seats to the new capacity minus
+ *    the course's ENROLLED students (zero if it is already overfull), so
+ *    shrinking and then growing a course never hands out a seat twice
+ * Courses missing from the file are left alone.
+ *
+ * A course seen for the first time that already has a row (e.g. from an
+ * earlier full import) keeps its seat count; its capacity becomes the baseline.
+ */
+@Slf4j
+@Component
+public class CourseCatalogSync {
+
+	private static final String INSERT_SQL = "INSERT INTO courses "
+			+ "(course_id, course_name, duration, fees, available_seats) VALUES (?, ?, ?, ?, ?)";
+
+	private static final String UPDATE_SQL =
+			"UPDATE courses SET course_name = ?, duration = ?, fees = ? WHERE course_id = ?";
+
+	private static final String RESIZE_SQL = "UPDATE courses SET available_seats = GREATEST(? - "
+			+ "(SELECT COUNT(*) FROM enrollments e WHERE e.course_id = courses.course_id AND e.status = 'ENROLLED'), 0) "
+			+ "WHERE course_id = ?";
+
+	/** Seats spread across shards are recounted into the row; the shards are refilled on the catalog event */
+	private static final String CLEAR_SHARDS_SQL = "UPDATE course_seat_shards SET available_seats = 0 WHERE course_id = ?";
+
+	private final CourseRepository courseRepo;
+	private final EnrollmentRepository enrollmentRepo;
+	private final CourseSyncStateRepository courseStateRepo;
+	private final CatalogSyncStateRepository catalogStateRepo;
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManager entityManager;
+	private final ApplicationEventPublisher events;
+	private final CourseCatalogReader reader;
+
+	/** In-memory seat ledger, present only when enrollment.seat-ledger.enabled=true */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	public CourseCatalogSync(CourseRepository courseRepo, EnrollmentRepository enrollmentRepo,
+			CourseSyncStateRepository courseStateRepo,
+			CatalogSyncStateRepository catalogStateRepo, JdbcTemplate jdbcTemplate, EntityManager entityManager,
+			ApplicationEventPublisher events, ObjectMapper objectMapper,
+			@Value("${enrollment.course-catalog.batch-size:1000}") int batchSize) {
+		this.courseRepo = courseRepo;
+		this.enrollmentRepo = enrollmentRepo;
+		this.courseStateRepo = courseStateRepo;
+		this.catalogStateRepo = catalogStateRepo;
+		this.jdbcTemplate = jdbcTemplate;
+		this.entityManager = entityManager;
+		this.events = events;
+		this.reader = new CourseCatalogReader(objectMapper, batchSize);
+	}
+
+	/**
+	 * Outcome of one sync
+	 * @param unchanged - true if the file matched the last sync and was not read
+	 * @param added - courses inserted
+	 * @param updated - courses whose details or capacity changed
+	 * @param duplicateIds - course ids seen more than once, in file order
+	 * @param skipped - entries missing a required field
+	 * @param elapsedMs - wall time of the sync
+	 */
+	public record Report(boolean unchanged, int added, int updated, List<Long> duplicateIds, int skipped,
+			long elapsedMs) {
+	}
+
+	/**
+	 * Brings the courses table in line with the catalog, in one transaction
+	 * @param catalog - JSON array of courses
+	 * @return what changed
+	 * @throws IOException when the file cannot be read or is not a JSON array
+	 */
+	@Transactional
+	public Report sync(Resource catalog) throws IOException {
+		long start = System.nanoTime();
+		String location = catalog.getDescription();
+		String fileHash = hash(catalog);
+		CatalogSyncState fileState = catalogStateRepo.findById(location).orElse(null);
+		if (fileState != null && fileState.getContentHash().equals(fileHash)) {
+			log.info("Course catalog {} unchanged since {}, skipped", location, fileState.getSyncedAt());
+			return new Report(true, 0, 0, List.of(), 0, elapsed(start));
+		}
+
+		// Hash what is actually applied, in case the file changed since the first read
+		MessageDigest digest = sha256();
+		Diff diff = new Diff();
+		CourseCatalogReader.Result result;
+		try (InputStream in = new DigestInputStream(catalog.getInputStream(), digest)) {
+			result = reader.read(in, location, diff::apply);
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		catalogStateRepo.save(new CatalogSyncState(location, hex(digest), Instant.now()));
+
+		if (diff.added + diff.updated > 0) {
+			events.publishEvent(new CourseCatalogChangedEvent());
+		}
+		long elapsedMs = elapsed(start);
+		if (!result.duplicateIds().isEmpty()) {
+			log.warn("Course catalog {} repeats course ids {}; kept the first of each",
+					location, result.duplicateIds());
+		}
+		log.info("Synced course catalog {} in {} ms: {} added, {} updated, {} unchanged",
+				location, elapsedMs, diff.added, diff.updated, diff.unchanged);
+		return new Report(false, diff.added, diff.updated, result.duplicateIds(), result.skipped(), elapsedMs);
+	}
+
+	/** Applies one chunk of courses at a time */
+	private class Diff {
+
+		int added;
+		int updated;
+		int unchanged;
+
+		void apply(List<Course> chunk) {
+			List<Long> ids = chunk.stream().map(Course::getCourseId).toList();
+			Map<Long, CourseSyncState> states = courseStateRepo.findAllById(ids).stream()
+					.collect(Collectors.toMap(CourseSyncState::getCourseId, Function.identity()));
+			Set<Long> existing = new HashSet<>(courseRepo.findExistingIds(ids));
+
+			List<Course> inserts = new ArrayList<>();
+			List<Object[]> updates = new ArrayList<>();
+			List<Object[]> resizes = new ArrayList<>();
+			for (Course course : chunk) {
+				String hash = contentHash(course);
+				CourseSyncState state = states.get(course.getCourseId());
+				boolean rowExists = existing.contains(course.getCourseId());
+				if (rowExists && state != null && state.getContentHash().equals(hash)) {
+					unchanged++;
+					continue;
+				}
+
+				if (!rowExists) {
+					inserts.add(course);
+					added++;
+				} else {
+					updates.add(new Object[] { course.getCourseName(), course.getDuration(), course.getFees(),
+							course.getCourseId() });
+					if (state != null && !state.getCapacity().equals(course.getAvailableSeats())) {
+						resizes.add(new Object[] { course.getAvailableSeats(), course.getCourseId() });
+					}
+					updated++;
+				}
+
+				if (state == null) {
+					entityManager.persist(new CourseSyncState(course.getCourseId(), hash, course.getAvailableSeats()));
+				} else {
+					state.setContentHash(hash);
+					state.setCapacity(course.getAvailableSeats());
+				}
+			}
+
+			if (!inserts.isEmpty()) {
+				jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, course) -> {
+					ps.setLong(1, course.getCourseId());
+					ps.setString(2, course.getCourseName());
+					ps.setString(3, course.getDuration());
+					ps.setDouble(4, course.getFees());
+					ps.setLong(5, course.getAvailableSeats());
+				});
+			}
+			if (!updates.isEmpty()) {
+				jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+			}
+			if (!resizes.isEmpty()) {
+				resize(resizes);
+			}
+			// keep the persistence context small on large catalogs
+			entityManager.flush();
+			entityManager.clear();
+		}
+	}
+
+	/**
+	 * Sets the available seats of courses whose capacity changed
+	 * @param resizes - new capacity and course id of each
+	 */
+	private void resize(List<Object[]> resizes) {
+		if (seatLedger == null) {
+			jdbcTemplate.batchUpdate(CLEAR_SHARDS_SQL, resizes.stream().map(r -> new Object[] { r[1] }).toList());
+			jdbcTemplate.batchUpdate(RESIZE_SQL, resizes);
+			return;
+		}
+		// the ledger owns live seat counts; it writes them back on its next flush
+		Map<Long, Long> enrolled = enrollmentRepo
+				.countEnrolledByCourseIds(resizes.stream().map(r -> (Long) r[1]).toList()).stream()
+				.collect(Collectors.toMap(CourseEnrolled::getCourseId, CourseEnrolled::getEnrolled));
+		for (Object[] r : resizes) {
+			Long courseId = (Long) r[1];
+			seatLedger.resize(courseId, Math.max((Long) r[0] - enrolled.getOrDefault(courseId, 0L), 0));
+		}
+	}
+
+	private static String contentHash(Course course) {
+		MessageDigest digest = sha256();
+		String content = String.join("\n", course.getCourseName(), course.getDuration(),
+				Double.toString(course.getFees()), Objects.toString(course.getAvailableSeats()));
+		digest.update(content.getBytes(StandardCharsets.UTF_8));
+		return hex(digest);
+	}
+
+	private static String hash(Resource catalog) throws IOException {
+		MessageDigest digest = sha256();
+		try (InputStream in = new DigestInputStream(catalog.getInputStream(), digest)) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return hex(digest);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	private static String hex(MessageDigest digest) {
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static long elapsed(long start) {
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.enrollment.course.courseloader;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Syncs catalog files as they are edited, without a restart.
+ *
+ * Watches one directory and runs {@link CourseCatalogSync} for every *.json
+ * file created or modified in it. Events are collected until the directory
+ * has been quiet for the debounce interval, so an editor's save (often a
+ * truncate and several writes) is applied once. A file that fails to parse
+ * is logged and picked up again on its next change.
+ * Enable with enrollment.course-catalog.watch-dir=/path/to/catalog.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.course-catalog", name = "watch-dir")
+public class CourseCatalogWatcher {
+
+	private final CourseCatalogSync sync;
+	private final Path directory;
+	private final long debounceMs;
+
+	private WatchService watchService;
+
+	public CourseCatalogWatcher(CourseCatalogSync sync,
+			@Value("${enrollment.course-catalog.watch-dir}") Path directory,
+			@Value("${enrollment.course-catalog.watch-debounce-ms:500}") long debounceMs) {
+		this.sync = sync;
+		this.directory = directory;
+		this.debounceMs = debounceMs;
+	}
+
+	/**
+	 * Starts watching once the startup load is done
+	 * @throws IOException when the directory cannot be watched
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+		watchService = directory.getFileSystem().newWatchService();
+		directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		Thread thread = new Thread(this::watch, "course-catalog-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		log.info("Watching {} for course catalog changes", directory);
+	}
+
+	@PreDestroy
+	public synchronized void stop() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+	}
+
+	private void watch() {
+		WatchService service = watchService;
+		try {
+			while (true) {
+				Set<Path> changed = new LinkedHashSet<>();
+				collect(service.take(), changed);
+				// wait for the writer to finish
+				WatchKey key;
+				while ((key = service.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) {
+					collect(key, changed);
+				}
+				changed.forEach(this::apply);
+			}
+		} catch (ClosedWatchServiceException ex) {
+			log.debug("Course catalog watcher stopped");
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void collect(WatchKey key, Set<Path> changed) {
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.context() instanceof Path name && name.toString().endsWith(".json")) {
+				changed.add(directory.resolve(name));
+			}
+		}
+		key.reset();
+	}
+
+	private void apply(Path file) {
+		try {
+			sync.sync(new FileSystemResource(file));
+		} catch (Exception ex) {
+			log.warn("Could not sync course catalog {}, waiting for its next change", file, ex);
+		}
+	}
+}
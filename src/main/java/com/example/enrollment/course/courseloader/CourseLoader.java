@@ -1,44 +1,52 @@
 package com.example.enrollment.course.courseloader;
 
-import java.io.InputStream;
-import java.util.Set;
-
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
-import com.example.enrollment.course.entity.Course;
-import com.example.enrollment.course.repository.CourseRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import lombok.AllArgsConstructor;
-
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+
+/**
+ * Loads the course catalog at startup.
+ *
+ * enrollment.course-catalog.location takes any Spring resource location,
+ * e.g. classpath:courses.json (the default) or file:/srv/catalog/courses.json.
+ * enrollment.course-catalog.mode picks how it is applied:
+ *  - sync (default): only what changed since the last start, live seats kept
+ *  - import: every course overwritten, available seats included
+ */
 @Component
-@AllArgsConstructor
 public class CourseLoader implements CommandLineRunner {
 
-	private final CourseRepository courseRepository;
-	// Spring Boot auto-configures objectMapper.
-	private final ObjectMapper objectMapper; 
+	private final CourseCatalogImporter importer;
+	private final CourseCatalogSync sync;
+	private final ApplicationEventPublisher events;
+	private final Resource catalog;
+	private final String mode;
+
+	public CourseLoader(CourseCatalogImporter importer, CourseCatalogSync sync, ApplicationEventPublisher events,
+			@Value("${enrollment.course-catalog.location:classpath:courses.json}") Resource catalog,
+			@Value("${enrollment.course-catalog.mode:sync}") String mode) {
+		this.importer = importer;
+		this.sync = sync;
+		this.events = events;
+		this.catalog = catalog;
+		this.mode = mode;
+	}
 
 	@Override
 	public void run(String... args) throws Exception {
-
-		// ClassPathResource - Spring utility class. It finds a file located
-		// inside src/main/resources and returns the path.
-		ClassPathResource resource = new ClassPathResource("courses.json");
-
-		// InputStream -> Reads the content of the file.
-		// resource.getInputStream() - opens the file for reading.
-		try (InputStream inputStream = resource.getInputStream()) {
-			// objectMapper.readValue(...) — reads the JSON data from the inputStream 
-			// and converts it into a Java object.
-			// new TypeReference<Set<Course>>() {} -> deserializing json and returns a train list.
-			Set<Course> courses = objectMapper.readValue(inputStream, new TypeReference<Set<Course>>() {});
-			for (Course course : courses) {
-				courseRepository.save(course);
+		switch (mode) {
+			case "sync" -> sync.sync(catalog);
+			case "import" -> {
+				importer.importCatalog(catalog);
+				// Anything caching the catalog has to reload it
+				events.publishEvent(new CourseCatalogChangedEvent());
 			}
+			default -> throw new IllegalStateException(
+					"Unknown enrollment.course-catalog.mode '" + mode + "', expected sync or import");
 		}
 	}
-}
\ No newline at end of file
+}
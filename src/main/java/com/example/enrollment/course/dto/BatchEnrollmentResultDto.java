@@ -0,0 +1,50 @@
+package com.example.enrollment.course.dto;
+
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Outcome of one pair of a bulk enrollment request.
+ * Either status is set, or error explains why the pair was rejected.
+ */
+@Schema(
+		description = "BatchEnrollmentResultDto Model Information"
+		)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class BatchEnrollmentResultDto {
+
+	@Schema(description = "Student Id")
+	private Long studentId;
+
+	@Schema(description = "Course Id")
+	private Long courseId;
+
+	@Schema(description = "Enrollment Id (if created)")
+	private Long enrollmentId;
+
+	@Schema(description = "Enrollment Status (if created)")
+	private EnrollmentStatus status;
+
+	@Schema(description = "Waitlist Number (if any)")
+	private Long waitlistPosition;
+
+	@Schema(description = "Reason the pair was rejected (if any)")
+	private String error;
+
+	public static BatchEnrollmentResultDto rejected(EnrollmentRequestDto request, String error) {
+		return new BatchEnrollmentResultDto(
+				request.getStudentId(), request.getCourseId(), null, null, null, error);
+	}
+}
@@ -1,5 +1,7 @@
 package com.example.enrollment.course.dto;
 
+import java.time.Instant;
+
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
 import com.example.enrollment.course.entity.enums.PaymentStatus;
 
@@ -55,6 +57,10 @@ public class EnrollmentDto {
     /** PENDING until payment is done, then COMPLETED */
 	@Schema(description = "Payment Status")
     private PaymentStatus paymentStatus;
+
+    /** Seat is released at this time unless paid; null if not held */
+	@Schema(description = "Pay before (if held)")
+    private Instant holdExpiresAt;
     
 
     
@@ -0,0 +1,33 @@
+package com.example.enrollment.course.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One (student, course) pair of a bulk enrollment request
+ */
+@Schema(
+		description = "EnrollmentRequestDto Model Information"
+		)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class EnrollmentRequestDto {
+
+	@NotNull
+	@Schema(description = "Student Id")
+	private Long studentId;
+
+	@NotNull
+	@Schema(description = "Course Id")
+	private Long courseId;
+}
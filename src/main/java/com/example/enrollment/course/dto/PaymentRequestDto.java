@@ -0,0 +1,34 @@
+package com.example.enrollment.course.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Payment confirmation for one enrollment, as sent by the payment provider
+ */
+@Schema(
+		description = "PaymentRequestDto Model Information"
+		)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class PaymentRequestDto {
+
+	@NotNull
+	@Schema(description = "Enrollment Id")
+	private Long enrollmentId;
+
+	@NotBlank
+	@Schema(description = "Payment Method")
+	private String paymentMethod;
+}
@@ -0,0 +1,33 @@
+package com.example.enrollment.course.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Seats and waitlist of one course, as pushed to seat stream subscribers
+ */
+@Schema(
+		description = "SeatAvailabilityDto Model Information"
+		)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class SeatAvailabilityDto {
+
+	@Schema(description = "Course Id")
+	private Long courseId;
+
+	@Schema(description = "Seats still free in the course")
+	private long availableSeats;
+
+	@Schema(description = "Students waiting for a seat")
+	private long waitlistDepth;
+}
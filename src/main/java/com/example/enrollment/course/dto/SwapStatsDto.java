@@ -0,0 +1,39 @@
+package com.example.enrollment.course.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Course swap counters since startup
+ */
+@Schema(
+		description = "SwapStatsDto Model Information"
+		)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class SwapStatsDto {
+
+	@Schema(description = "Swap transactions started, retries included")
+	private long attempts;
+
+	@Schema(description = "Attempts repeated after a deadlock or lock timeout")
+	private long retries;
+
+	@Schema(description = "Swaps that still failed after the last attempt")
+	private long exhausted;
+
+	@Schema(description = "Average time spent acquiring course locks, in milliseconds")
+	private double averageLockWaitMs;
+
+	@Schema(description = "Longest time spent acquiring course locks, in milliseconds")
+	private double maxLockWaitMs;
+}
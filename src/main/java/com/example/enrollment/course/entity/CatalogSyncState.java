@@ -0,0 +1,35 @@
+package com.example.enrollment.course.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Hash of a catalog file as last synced, so an unchanged file is skipped
+ */
+@Entity
+@Table(name = "catalog_sync_state")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode(of = "location")
+@ToString
+public class CatalogSyncState {
+
+    @Id
+    @Column(length = 512)
+    private String location;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "synced_at", nullable = false)
+    private Instant syncedAt;
+}
@@ -0,0 +1,53 @@
+package com.example.enrollment.course.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One of the counter rows a sharded course's seats are spread across.
+ * The course's available seats are the sum of its shards plus whatever
+ * is still on the courses row.
+ */
+@Entity
+@Table(name = "course_seat_shards")
+@IdClass(CourseSeatShard.Key.class)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode(of = { "courseId", "shardNo" })
+@ToString
+public class CourseSeatShard {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Id
+    @Column(name = "shard_no")
+    private Integer shardNo;
+
+    @Column(name = "available_seats", nullable = false)
+    private Long availableSeats;
+
+    /** Primary key of a shard */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long courseId;
+        private Integer shardNo;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.enrollment.course.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * What the catalog said about a course when it was last synced
+ */
+@Entity
+@Table(name = "course_sync_state")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode(of = "courseId")
+@ToString
+public class CourseSyncState {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    /** Hash of name, duration, fees and capacity as last applied */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /** Seat capacity as last applied; a different capacity recounts the available seats */
+    @Column(nullable = false)
+    private Long capacity;
+}
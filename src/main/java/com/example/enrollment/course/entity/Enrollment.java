@@ -1,5 +1,7 @@
 package com.example.enrollment.course.entity;
 
+import java.time.Instant;
+
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
 import com.example.enrollment.course.entity.enums.PaymentStatus;
 
@@ -7,13 +9,17 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -27,13 +33,19 @@ import lombok.ToString;
 @Entity
 @Table(
   name = "enrollments",
-  uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id"})
+  uniqueConstraints = @UniqueConstraint(
+      name = Enrollment.UNIQUE_STUDENT_COURSE, columnNames = {"student_id", "course_id"})
 )
-@Getter @Setter @NoArgsConstructor @AllArgsConstructor 
+@Getter @Setter @NoArgsConstructor
 @EqualsAndHashCode(of = "enrollmentId")
 @ToString
 public class Enrollment {
 
+    /** Constraint names, used to map insert failures back to API errors */
+    public static final String UNIQUE_STUDENT_COURSE = "uk_enrollment_student_course";
+    public static final String FK_STUDENT = "fk_enrollment_student";
+    public static final String FK_COURSE = "fk_enrollment_course";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "enrollment_id")
@@ -54,7 +66,10 @@ public class Enrollment {
     @Column(nullable = false)
     private EnrollmentStatus status;
 
-    /** Null when ENROLLED; stores queue position otherwise */
+    /**
+     * Null when ENROLLED; otherwise the waitlist ticket number, which only grows
+     * per course. The live queue position is derived from it by WaitlistIndex.
+     */
     @Column(name = "waitlist_number")
     private Long waitlistPosition;
 
@@ -63,4 +78,35 @@ public class Enrollment {
     @Enumerated(EnumType.STRING)
     @Column(name = "payment_status", nullable = false)
     private PaymentStatus paymentStatus;
+
+    /**
+     * When an unpaid seat is given up; null while waitlisted, once paid,
+     * or when seat holds are disabled
+     */
+    @Column(name = "hold_expires_at")
+    private Instant holdExpiresAt;
+
+    /** Read-only link; only here so student_id gets its foreign key */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id", insertable = false, updatable = false,
+        foreignKey = @ForeignKey(name = FK_STUDENT))
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) @ToString.Exclude
+    private Student student;
+
+    /** Read-only link; only here so course_id gets its foreign key */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "course_id", insertable = false, updatable = false,
+        foreignKey = @ForeignKey(name = FK_COURSE))
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) @ToString.Exclude
+    private Course course;
+
+    public Enrollment(Long enrollmentId, Long studentId, Long courseId, EnrollmentStatus status,
+            Long waitlistPosition, PaymentStatus paymentStatus) {
+        this.enrollmentId = enrollmentId;
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.status = status;
+        this.waitlistPosition = waitlistPosition;
+        this.paymentStatus = paymentStatus;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.enrollment.course.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * The response first given to a request sent with an Idempotency-Key.
+ * A row without a status is a request still being processed.
+ */
+@Entity
+@Table(
+  name = "idempotency_keys",
+  indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+)
+@Getter @Setter @NoArgsConstructor
+@EqualsAndHashCode(of = "idempotencyKey")
+@ToString(exclude = "responseBody")
+public class IdempotencyRecord {
+
+    /** Longest accepted Idempotency-Key */
+    public static final int MAX_KEY_LENGTH = 64;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    /** Method and path the key was first used for, e.g. "POST /api/v1/enroll/1/student/2" */
+    @Column(nullable = false, updatable = false)
+    private String request;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    /** When the first request claimed the key; a claim without a response lapses after the in-progress lease */
+    @Column(name = "claimed_at", nullable = false, updatable = false)
+    private Instant claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
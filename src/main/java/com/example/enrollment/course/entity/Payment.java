@@ -1,37 +1,69 @@
 package com.example.enrollment.course.entity;
 
+import java.time.Instant;
+
 import com.example.enrollment.course.entity.enums.PaymentStatus;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 
 /**
- * Payment details for an enrollment.
- * Not implemented yet; Status -> Pending by default.
+ * A confirmed payment for an enrollment.
+ * Kept after the enrollment is dropped, so there is no foreign key to it.
  */
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
-@EqualsAndHashCode
+@Entity
+@Table(
+  name = "payments",
+  uniqueConstraints = @UniqueConstraint(
+      name = Payment.UNIQUE_IDEMPOTENCY_KEY, columnNames = "idempotency_key")
+)
+@Getter @Setter @NoArgsConstructor
+@EqualsAndHashCode(of = "paymentId")
+@ToString
 public class Payment {
-	
 
-    @NotNull
+    public static final String UNIQUE_IDEMPOTENCY_KEY = "uk_payment_idempotency_key";
+
+    /** Longest accepted Idempotency-Key */
+    public static final int MAX_KEY_LENGTH = 64;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "payment_id")
     private Long paymentId;
 
     @NotNull
+    @Column(name = "enrollment_id", nullable = false, updatable = false)
     private Long enrollmentId;
 
     @NotBlank
+    @Column(name = "payment_method", nullable = false, updatable = false)
     private String paymentMethod;
 
     @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
     private PaymentStatus paymentStatus;
-    
-}
\ No newline at end of file
+
+    /** Client-chosen key; a confirmation sent again with it returns this payment */
+    @NotBlank
+    @Column(name = "idempotency_key", nullable = false, updatable = false, length = MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    @Column(name = "confirmed_at")
+    private Instant confirmedAt;
+}
@@ -1,12 +1,17 @@
 package com.example.enrollment.course.entity;
 
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -35,4 +40,14 @@ public class Student {
 
 	@Column(name = "contact_number")
 	private String contactNumber;
+
+	/** Tier the registrar gave the student; decides their place on every waitlist they join */
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(name = "waitlist_priority", nullable = false, length = 16)
+	private WaitlistPriority waitlistPriority = WaitlistPriority.STANDARD;
+
+	public Student(Long studentId, String firstName, String lastName, String contactNumber) {
+		this(studentId, firstName, lastName, contactNumber, WaitlistPriority.STANDARD);
+	}
 }
\ No newline at end of file
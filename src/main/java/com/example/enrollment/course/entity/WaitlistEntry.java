@@ -2,8 +2,12 @@ package com.example.enrollment.course.entity;
 
 import java.time.Instant;
 
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -46,4 +50,17 @@ public class WaitlistEntry {
     @NotNull
     @Column(nullable = false, updatable = false)
     private Instant timestamp;
+
+    /**
+     * The student's tier when they joined; stored as its ordinal so that
+     * ORDER BY priority_tier, timestamp is promotion order
+     */
+    @NotNull
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "priority_tier", nullable = false, updatable = false)
+    private WaitlistPriority priority = WaitlistPriority.STANDARD;
+
+    public WaitlistEntry(Long entryId, Long courseId, Long enrollmentId, Instant timestamp) {
+        this(entryId, courseId, enrollmentId, timestamp, WaitlistPriority.STANDARD);
+    }
 }
\ No newline at end of file
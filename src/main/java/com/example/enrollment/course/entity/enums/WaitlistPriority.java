@@ -0,0 +1,12 @@
+package com.example.enrollment.course.entity.enums;
+
+/**
+ * Waitlist tiers, in promotion order: every waiting senior is promoted
+ * before any program major, and every program major before anyone else.
+ * Within a tier students are promoted in the order they joined.
+ */
+public enum WaitlistPriority {
+	SENIOR,
+	PROGRAM_MAJOR,
+	STANDARD
+}
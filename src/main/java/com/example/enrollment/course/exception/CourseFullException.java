@@ -0,0 +1,14 @@
+package com.example.enrollment.course.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CourseFullException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public CourseFullException(String message) {
+		super(message);
+	}
+
+}
@@ -48,6 +48,20 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 		return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(CourseFullException.class)
+	public ResponseEntity<ErrorDetails> handleCourseFull(
+			CourseFullException e,
+			WebRequest wr
+			) {
+		ErrorDetails errorDetails = new ErrorDetails(
+				LocalDateTime.now(),
+				e.getMessage(),
+				wr.getDescription(false),
+				"COURSE FULL"
+				);
+		return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<ErrorDetails> handleGlobalException(
 			Exception e, WebRequest wr
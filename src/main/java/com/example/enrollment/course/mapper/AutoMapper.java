@@ -1,6 +1,7 @@
 package com.example.enrollment.course.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 import com.example.enrollment.course.dto.CourseDto;
@@ -23,7 +24,12 @@ public interface AutoMapper {
 	StudentDto mapToStudentDto(Student student);
 	//Convert Models -> Dto
 	Course mapToCourse(CourseDto courseDto);
+	// The key and confirmation time are set when the payment is confirmed, never by the caller
+	@Mapping(target = "idempotencyKey", ignore = true)
+	@Mapping(target = "confirmedAt", ignore = true)
 	Payment mapToPayment(PaymentDto paymentDto);
 	Enrollment enrollment(EnrollmentDto enrollmentDto);
+	// Priority tiers are granted by the registrar, so a student payload keeps the default
+	@Mapping(target = "waitlistPriority", ignore = true)
 	Student mapToStudent(StudentDto studentDto);
 }
@@ -0,0 +1,10 @@
+package com.example.enrollment.course.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.enrollment.course.entity.CatalogSyncState;
+
+@Repository
+public interface CatalogSyncStateRepository extends JpaRepository<CatalogSyncState, String> {
+}
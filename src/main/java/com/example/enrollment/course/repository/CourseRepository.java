@@ -1,8 +1,11 @@
 package com.example.enrollment.course.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import com.example.enrollment.course.entity.Course;
 
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -31,4 +35,30 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("UPDATE Course c SET c.availableSeats = c.availableSeats + 1 "
          + "WHERE c.courseId = :courseId")
     int incrementSeat(@Param("courseId") Long courseId);
+
+    /** Add delta (may be negative) to the available seats, returns # of rows updated */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Course c SET c.availableSeats = c.availableSeats + :delta "
+         + "WHERE c.courseId = :courseId")
+    int adjustSeats(@Param("courseId") Long courseId, @Param("delta") long delta);
+
+    /** Fetch a course and hold its row lock until the transaction ends */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.courseId = :courseId")
+    Optional<Course> findByIdForUpdate(@Param("courseId") Long courseId);
+
+    /** Which of the given ids exist */
+    @Query("SELECT c.courseId FROM Course c WHERE c.courseId IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /** Available seats of every course, without the rest of the row */
+    @Query("SELECT c.courseId AS courseId, c.availableSeats AS availableSeats FROM Course c")
+    List<CourseSeats> findAllSeats();
+
+    /** Seats on the row of one course */
+    interface CourseSeats {
+        Long getCourseId();
+        Long getAvailableSeats();
+    }
 }
@@ -0,0 +1,69 @@
+package com.example.enrollment.course.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.enrollment.course.entity.CourseSeatShard;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface CourseSeatShardRepository extends JpaRepository<CourseSeatShard, CourseSeatShard.Key> {
+
+    /** Take up to count seats from one shard if it holds that many, returns # of rows updated */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseSeatShard s SET s.availableSeats = s.availableSeats - :count "
+         + "WHERE s.courseId = :courseId AND s.shardNo = :shardNo AND s.availableSeats >= :count")
+    int takeSeats(@Param("courseId") Long courseId, @Param("shardNo") int shardNo, @Param("count") long count);
+
+    /** Add seats to one shard, returns # of rows updated */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CourseSeatShard s SET s.availableSeats = s.availableSeats + :count "
+         + "WHERE s.courseId = :courseId AND s.shardNo = :shardNo")
+    int addSeats(@Param("courseId") Long courseId, @Param("shardNo") int shardNo, @Param("count") long count);
+
+    /** Shards of the course that still hold seats, fullest first */
+    @Query("SELECT s.shardNo AS shardNo, s.availableSeats AS availableSeats FROM CourseSeatShard s "
+         + "WHERE s.courseId = :courseId AND s.availableSeats > 0 ORDER BY s.availableSeats DESC, s.shardNo")
+    List<ShardSeats> findNonEmpty(@Param("courseId") Long courseId);
+
+    /** The shard of the course holding the fewest seats */
+    Optional<ShardSeats> findFirstByCourseIdOrderByAvailableSeatsAscShardNoAsc(Long courseId);
+
+    /** Seats held by the shards of every sharded course */
+    @Query("SELECT s.courseId AS courseId, SUM(s.availableSeats) AS availableSeats FROM CourseSeatShard s "
+         + "GROUP BY s.courseId")
+    List<CourseSeats> sumByCourse();
+
+    /** Seats held by the shards of one course, 0 when it is not sharded */
+    @Query("SELECT COALESCE(SUM(s.availableSeats), 0) FROM CourseSeatShard s WHERE s.courseId = :courseId")
+    long sumByCourseId(@Param("courseId") Long courseId);
+
+    /** Every course that has shards */
+    @Query("SELECT DISTINCT s.courseId FROM CourseSeatShard s")
+    List<Long> findShardedCourseIds();
+
+    /** Shard numbers the course already has */
+    @Query("SELECT s.shardNo FROM CourseSeatShard s WHERE s.courseId = :courseId")
+    List<Integer> findShardNos(@Param("courseId") Long courseId);
+
+    /** Number and seats of one shard */
+    interface ShardSeats {
+        Integer getShardNo();
+        Long getAvailableSeats();
+    }
+
+    /** Seats held by the shards of one course */
+    interface CourseSeats {
+        Long getCourseId();
+        Long getAvailableSeats();
+    }
+}
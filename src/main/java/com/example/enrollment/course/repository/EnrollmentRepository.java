@@ -1,13 +1,24 @@
 package com.example.enrollment.course.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.enrollment.course.entity.Enrollment;
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
@@ -15,13 +26,139 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 	/** Find all enrollments of a student */
 	List<Enrollment> findByStudentId(Long studentId);
 
+	/** One page of enrollments in id order, starting after the given id */
+	List<Enrollment> findByEnrollmentIdGreaterThanOrderByEnrollmentIdAsc(Long after, Limit limit);
+
 	/** Find one enrollment by student & course */
 	Optional<Enrollment> 
 	findByStudentIdAndCourseId(Long studentId, Long courseId);
 
+	/**
+	 * Find and row-lock one enrollment by student & course, so a concurrent
+	 * promotion or removal of the same row is seen before acting on its status
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT e FROM Enrollment e WHERE e.studentId = :studentId AND e.courseId = :courseId")
+	Optional<Enrollment> findByStudentIdAndCourseIdForUpdate(@Param("studentId") Long studentId,
+			@Param("courseId") Long courseId);
+
 	/** Find all enrollments for a course (used for cleanup or reporting) */
 	List<Enrollment> findByCourseId(Long courseId);
 
 	/** Get all waitlisted enrollments for a course (status = WAITLISTED) */
 	List<Enrollment> findByCourseIdAndStatusOrderByWaitlistPositionAsc(Long courseId, EnrollmentStatus status);
+
+	/** Promote a waitlisted enrollment to ENROLLED in place, returns # of rows updated */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Enrollment e SET e.status = "
+	     + "com.example.enrollment.course.entity.enums.EnrollmentStatus.ENROLLED, "
+	     + "e.waitlistPosition = null, e.holdExpiresAt = :holdExpiresAt WHERE e.enrollmentId = :enrollmentId "
+	     + "AND e.status = com.example.enrollment.course.entity.enums.EnrollmentStatus.WAITLISTED")
+	int promoteFromWaitlist(@Param("enrollmentId") Long enrollmentId,
+			@Param("holdExpiresAt") Instant holdExpiresAt);
+
+	/** Promote many waitlisted enrollments in one statement, returns # of rows updated */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Enrollment e SET e.status = "
+	     + "com.example.enrollment.course.entity.enums.EnrollmentStatus.ENROLLED, "
+	     + "e.waitlistPosition = null, e.holdExpiresAt = :holdExpiresAt WHERE e.enrollmentId IN :enrollmentIds "
+	     + "AND e.status = com.example.enrollment.course.entity.enums.EnrollmentStatus.WAITLISTED")
+	int promoteAllFromWaitlist(@Param("enrollmentIds") Collection<Long> enrollmentIds,
+			@Param("holdExpiresAt") Instant holdExpiresAt);
+
+	/**
+	 * Enrollments of the given students, without loading the entities.
+	 * The rows are locked, so seats freed by a concurrent deregistration are not counted twice.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT e.enrollmentId AS enrollmentId, e.courseId AS courseId, e.status AS status, "
+	     + "e.waitlistPosition AS ticket FROM Enrollment e WHERE e.studentId IN :studentIds")
+	List<EnrollmentSlot> findSlotsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+	/**
+	 * Those of the given enrollments that still hold an unpaid seat past its
+	 * deadline, locked so a concurrent payment or drop waits for the release
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT e.enrollmentId AS enrollmentId, e.courseId AS courseId, e.status AS status, "
+	     + "e.waitlistPosition AS ticket FROM Enrollment e WHERE e.enrollmentId IN :enrollmentIds "
+	     + "AND e.status = com.example.enrollment.course.entity.enums.EnrollmentStatus.ENROLLED "
+	     + "AND e.paymentStatus = com.example.enrollment.course.entity.enums.PaymentStatus.PENDING "
+	     + "AND e.holdExpiresAt <= :now")
+	List<EnrollmentSlot> findExpiredHolds(@Param("enrollmentIds") Collection<Long> enrollmentIds,
+			@Param("now") Instant now);
+
+	/** Seat holds of enrollments after the given id, in id order */
+	@Query("SELECT e.enrollmentId AS enrollmentId, e.holdExpiresAt AS holdExpiresAt FROM Enrollment e "
+	     + "WHERE e.enrollmentId > :after AND e.holdExpiresAt IS NOT NULL ORDER BY e.enrollmentId")
+	List<HoldDeadline> findHoldsAfter(@Param("after") Long after, Limit limit);
+
+	/**
+	 * Status and payment status of the given enrollments, locked so a seat
+	 * hold cannot expire while its payment is being recorded
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT e.enrollmentId AS enrollmentId, e.status AS status, e.paymentStatus AS paymentStatus "
+	     + "FROM Enrollment e WHERE e.enrollmentId IN :enrollmentIds")
+	List<PaymentTarget> findPaymentTargets(@Param("enrollmentIds") Collection<Long> enrollmentIds);
+
+	/** Mark many enrollments paid in one statement, ending their seat holds; returns # of rows updated */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Enrollment e SET e.paymentStatus = "
+	     + "com.example.enrollment.course.entity.enums.PaymentStatus.COMPLETED, "
+	     + "e.holdExpiresAt = null WHERE e.enrollmentId IN :enrollmentIds")
+	int completePayments(@Param("enrollmentIds") Collection<Long> enrollmentIds);
+
+	/** Store a re-issued waitlist ticket */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Enrollment e SET e.waitlistPosition = :ticket WHERE e.enrollmentId = :enrollmentId")
+	int updateWaitlistTicket(@Param("enrollmentId") Long enrollmentId, @Param("ticket") Long ticket);
+
+	/** Existing (student, course) pairs among the given students and courses */
+	@Query("SELECT e.studentId AS studentId, e.courseId AS courseId FROM Enrollment e "
+	     + "WHERE e.courseId IN :courseIds AND e.studentId IN :studentIds")
+	List<StudentCourse> findPairs(@Param("studentIds") Collection<Long> studentIds,
+			@Param("courseIds") Collection<Long> courseIds);
+
+	/** ENROLLED students per course, for the given courses that have any */
+	@Query("SELECT e.courseId AS courseId, COUNT(e) AS enrolled FROM Enrollment e WHERE e.courseId IN :courseIds "
+	     + "AND e.status = com.example.enrollment.course.entity.enums.EnrollmentStatus.ENROLLED GROUP BY e.courseId")
+	List<CourseEnrolled> countEnrolledByCourseIds(@Param("courseIds") Collection<Long> courseIds);
+
+	/** What an enrollment holds: a seat, or a waitlist ticket */
+	interface EnrollmentSlot {
+		Long getEnrollmentId();
+		Long getCourseId();
+		EnrollmentStatus getStatus();
+		Long getTicket();
+	}
+
+	/** Deadline of one unpaid seat */
+	interface HoldDeadline {
+		Long getEnrollmentId();
+		Instant getHoldExpiresAt();
+	}
+
+	/** What a payment confirmation needs to know about its enrollment */
+	interface PaymentTarget {
+		Long getEnrollmentId();
+		EnrollmentStatus getStatus();
+		PaymentStatus getPaymentStatus();
+	}
+
+	/** Number of ENROLLED students of one course */
+	interface CourseEnrolled {
+		Long getCourseId();
+		Long getEnrolled();
+	}
+
+	/** A student id and course id pair */
+	interface StudentCourse {
+		Long getStudentId();
+		Long getCourseId();
+	}
 }
@@ -0,0 +1,50 @@
+package com.example.enrollment.course.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.enrollment.course.entity.IdempotencyRecord;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	/** Record the response of a claimed key, returns # of rows updated */
+	@Modifying
+	@Transactional
+	@Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.contentType = :contentType, "
+		 + "r.responseBody = :body WHERE r.idempotencyKey = :key AND r.responseStatus IS NULL")
+	int complete(@Param("key") String key, @Param("status") int status,
+			@Param("contentType") String contentType, @Param("body") byte[] body);
+
+	/** Give up a claimed key that has no response yet, so a retry runs again */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.responseStatus IS NULL")
+	int release(@Param("key") String key);
+
+	/** Drop one key if it has expired, returns # of rows deleted */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt <= :now")
+	int deleteIfExpired(@Param("key") String key, @Param("now") Instant now);
+
+	/** Drop one key still without a response if it was claimed before the given time, returns # of rows deleted */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.responseStatus IS NULL "
+		 + "AND r.claimedAt <= :claimedBefore")
+	int deleteIfAbandoned(@Param("key") String key, @Param("claimedBefore") Instant claimedBefore);
+
+	/** Drop every expired key in one statement, returns # of rows deleted */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+	int deleteExpired(@Param("now") Instant now);
+}
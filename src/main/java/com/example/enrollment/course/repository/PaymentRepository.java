@@ -0,0 +1,16 @@
+package com.example.enrollment.course.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.enrollment.course.entity.Payment;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+	/** Payments already recorded under any of the given idempotency keys */
+	List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+}
@@ -1,11 +1,44 @@
 package com.example.enrollment.course.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+
+import jakarta.transaction.Transactional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
+	/** Which of the given ids exist */
+	@Query("SELECT s.studentId FROM Student s WHERE s.studentId IN :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+	/** Keyset page: the next students after the given id, in id order */
+	List<Student> findByStudentIdGreaterThanOrderByStudentIdAsc(Long studentId, Limit limit);
+
+	/** Every student outside the given tier, usually STANDARD, with their tier */
+	@Query("SELECT s.studentId AS studentId, s.waitlistPriority AS priority FROM Student s "
+	     + "WHERE s.waitlistPriority <> :priority")
+	List<StudentPriority> findPrioritiesOtherThan(@Param("priority") WaitlistPriority priority);
+
+	/** Sets the student's waitlist tier in a single statement, returns # of rows updated */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Student s SET s.waitlistPriority = :priority WHERE s.studentId = :studentId")
+	int updateWaitlistPriority(@Param("studentId") Long studentId, @Param("priority") WaitlistPriority priority);
+
+	/** Id and waitlist tier of one student */
+	interface StudentPriority {
+		Long getStudentId();
+		WaitlistPriority getPriority();
+	}
 }
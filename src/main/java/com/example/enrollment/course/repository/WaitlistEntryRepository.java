@@ -1,27 +1,61 @@
 package com.example.enrollment.course.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.enrollment.course.entity.WaitlistEntry;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
 
+import jakarta.transaction.Transactional;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
 
-	/** All waitlist entries for a course, ordered oldest -> newest */
+	/** All waitlist entries for a course in promotion order: by tier, then oldest -> newest */
 	List<WaitlistEntry> 
-	findByCourseIdOrderByTimestampAsc(Long courseId);
+	findByCourseIdOrderByPriorityAscTimestampAsc(Long courseId);
 
 	/** First (next) entry in the waitlist for a course */
 	Optional<WaitlistEntry> 
-	findFirstByCourseIdOrderByTimestampAsc(Long courseId);
+	findFirstByCourseIdOrderByPriorityAscTimestampAsc(Long courseId);
 
 	/** Count how many are waiting */
 	Long countByCourseId(Long courseId);
 
 	/** Remove entry by enrollment FK */
 	void deleteByEnrollmentId(Long enrollmentId);
+
+	/** Remove entry by enrollment FK in a single statement, returns # of rows deleted */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM WaitlistEntry w WHERE w.enrollmentId = :enrollmentId")
+	int removeByEnrollmentId(@Param("enrollmentId") Long enrollmentId);
+
+	/** Remove the entries of many enrollments in a single statement, returns # of rows deleted */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM WaitlistEntry w WHERE w.enrollmentId IN :enrollmentIds")
+	int removeByEnrollmentIds(@Param("enrollmentIds") Collection<Long> enrollmentIds);
+
+	/** Every waitlisted ticket with its tier, grouped by course and in arrival order */
+	@Query("SELECT w.courseId AS courseId, w.enrollmentId AS enrollmentId, e.waitlistPosition AS ticket, "
+	     + "w.priority AS priority "
+	     + "FROM WaitlistEntry w, Enrollment e WHERE e.enrollmentId = w.enrollmentId "
+	     + "ORDER BY w.courseId, w.timestamp, w.entryId")
+	List<WaitlistTicket> findAllTicketsInOrder();
+
+	/** Course, enrollment, ticket number and tier of one waitlist entry */
+	interface WaitlistTicket {
+		Long getCourseId();
+		Long getEnrollmentId();
+		Long getTicket();
+		WaitlistPriority getPriority();
+	}
 }
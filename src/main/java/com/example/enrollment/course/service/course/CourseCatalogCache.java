@@ -0,0 +1,272 @@
+package com.example.enrollment.course.service.course;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.mapper.AutoMapper;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.seat.SeatShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Versioned, pre-serialized snapshot of the course catalog.
+ *
+ * The catalog is read from the database once. Committed seat changes are
+ * applied to in-memory counters and bump the version; the next read renders
+ * a new immutable snapshot (JSON and gzipped JSON) and every read after it
+ * hands out the same bytes until the next change. A full reload happens when
+ * the catalog itself changes and on a slow timer, as a safety net against drift.
+ * Timed reloads read the course details from a read replica when those are
+ * enabled; seat counts, which move with every enrollment, always come from
+ * the primary.
+ *
+ * A seat change committed while a load runs may or may not be in what the
+ * load read, so a load that overlapped one is thrown away and read again,
+ * up to LOAD_ATTEMPTS times; the last attempt is kept either way.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseCatalogCache {
+
+	/** Loads tried before one that raced a seat change is kept anyway */
+	static final int LOAD_ATTEMPTS = 3;
+
+	private final CourseRepository courseRepo;
+	private final ObjectMapper objectMapper;
+
+	/** In-memory seat ledger, present only when enrollment.seat-ledger.enabled=true */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	/** Seat counter rows of hot courses, present only when enrollment.seat-shards.enabled=true */
+	@Autowired(required = false)
+	private SeatShards seatShards;
+
+	/** Read replicas, present only when enrollment.read-replicas.enabled=true */
+	@Autowired(required = false)
+	private ReplicaReads replicaReads;
+
+	/** Set by the timed reload; a reload after a known change has to read the primary */
+	private volatile boolean reloadFromReplica;
+
+	/** Tells apart ETags of different application runs */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final AtomicLong version = new AtomicLong(1);
+
+	/** Course rows as last loaded, seat counts excluded; null until loaded */
+	private volatile List<CourseDto> courses;
+
+	/** Live seat count per loaded course, replaced as a whole by each load */
+	private volatile Map<Long, AtomicLong> seats = Map.of();
+
+	/** Seat changes begun and finished applying; a load compares them to spot a race */
+	private final AtomicLong changesStarted = new AtomicLong();
+	private final AtomicLong changesFinished = new AtomicLong();
+
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Current catalog, rendered again only if something changed since the last read
+	 * @return immutable snapshot
+	 */
+	public Snapshot current() {
+		Snapshot current = snapshot;
+		if (current != null && current.version() == version.get()) {
+			return current;
+		}
+		synchronized (this) {
+			// read the version before the counters, so a change made while
+			// rendering leaves this snapshot stale
+			long renderVersion = version.get();
+			if (snapshot != null && snapshot.version() == renderVersion) {
+				return snapshot;
+			}
+			List<CourseDto> rows = courses;
+			if (rows == null) {
+				rows = load();
+			}
+			snapshot = render(rows, renderVersion);
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Live seat count of one course, loading the catalog if needed
+	 * @param courseId
+	 * @return available seats, or null if the course is not in the catalog
+	 */
+	public Long availableSeats(Long courseId) {
+		if (courses == null) {
+			synchronized (this) {
+				if (courses == null) {
+					load();
+				}
+			}
+		}
+		AtomicLong counter = seats.get(courseId);
+		return counter == null ? null : counter.get();
+	}
+
+	/**
+	 * Applies a committed seat change without touching the database
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSeatsChanged(CourseSeatsChangedEvent event) {
+		changesStarted.incrementAndGet();
+		try {
+			AtomicLong counter = seats.get(event.courseId());
+			if (counter == null) {
+				// a course this snapshot has never seen
+				invalidate();
+				return;
+			}
+			counter.addAndGet(event.delta());
+			version.incrementAndGet();
+		} finally {
+			changesFinished.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Drops everything so the next read reloads from the database
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCatalogChanged(CourseCatalogChangedEvent event) {
+		invalidate();
+	}
+
+	/** Periodic full reload, catching writes that bypassed the events */
+	@Scheduled(fixedDelayString = "${enrollment.course-cache.refresh-interval-ms:60000}",
+			initialDelayString = "${enrollment.course-cache.refresh-interval-ms:60000}")
+	public void refresh() {
+		invalidate();
+		reloadFromReplica = true;
+	}
+
+	/**
+	 * Drops everything so the next read reloads from the primary
+	 */
+	public void invalidate() {
+		reloadFromReplica = false;
+		courses = null;
+		version.incrementAndGet();
+	}
+
+	private List<CourseDto> load() {
+		boolean fromReplica = reloadFromReplica && replicaReads != null;
+		reloadFromReplica = false;
+		for (int attempt = 1; ; attempt++) {
+			// finished before started: a change begun in between counts as a race
+			long finished = changesFinished.get();
+			long started = changesStarted.get();
+			Rows rows = readRows(fromReplica);
+			List<CourseDto> loaded = rows.courses().stream()
+					.map(AutoMapper.MAPPER::mapToCourseDto)
+					.sorted(Comparator.comparing(CourseDto::getCourseId))
+					.toList();
+			Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+			for (CourseDto course : loaded) {
+				Long live = seatLedger == null ? null : seatLedger.availableSeats(course.getCourseId());
+				counters.put(course.getCourseId(), new AtomicLong(live != null ? live
+						: rows.seats().getOrDefault(course.getCourseId(), course.getAvailableSeats())));
+			}
+			seats = counters;
+			courses = loaded;
+			// a change in flight when the load began, or begun since, may be counted twice or not at all
+			boolean raced = started != finished || changesStarted.get() != started;
+			if (!raced || attempt == LOAD_ATTEMPTS) {
+				log.debug("Course catalog cache loaded {} courses{}", loaded.size(),
+						raced ? " while seats kept changing" : "");
+				return loaded;
+			}
+		}
+	}
+
+	/** Course rows and the free seats of each course: its row plus the sum of its shards */
+	private record Rows(List<Course> courses, Map<Long, Long> seats) {
+	}
+
+	private Rows readRows(boolean fromReplica) {
+		List<Course> rows = fromReplica ? replicaReads.read(courseRepo::findAll) : courseRepo.findAll();
+		Map<Long, Long> seats = new HashMap<>();
+		if (fromReplica) {
+			// a lagging replica would put back seats that have been taken since
+			courseRepo.findAllSeats().forEach(course -> seats.put(course.getCourseId(), course.getAvailableSeats()));
+		} else {
+			rows.forEach(course -> seats.put(course.getCourseId(), course.getAvailableSeats()));
+		}
+		if (seatShards != null) {
+			seatShards.shardedSeats().forEach((courseId, sharded) -> seats.merge(courseId, sharded, Long::sum));
+		}
+		return new Rows(rows, seats);
+	}
+
+	private Snapshot render(List<CourseDto> rows, long renderVersion) {
+		List<CourseDto> view = rows.stream()
+				.map(course -> new CourseDto(course.getCourseId(), course.getCourseName(),
+						course.getDuration(), course.getFees(), seats.get(course.getCourseId()).get()))
+				.toList();
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(view);
+			ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+				gzip.write(json);
+			}
+			String etag = "W/\"" + epoch + "-" + renderVersion + "\"";
+			return new Snapshot(renderVersion, etag, view, json, gzipped.toByteArray());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * One immutable rendering of the catalog. The byte arrays are shared by
+	 * every reader and must not be modified.
+	 * @param version - catalog version this snapshot was rendered from
+	 * @param etag - weak entity tag for the version
+	 * @param courses - the courses, ordered by id
+	 * @param json - courses serialized as a JSON array
+	 * @param gzip - the same JSON, gzipped
+	 */
+	public record Snapshot(long version, String etag, List<CourseDto> courses, byte[] json, byte[] gzip) {
+
+		/**
+		 * Whether an If-None-Match header already names this snapshot
+		 * @param ifNoneMatch - header value, may be null
+		 */
+		public boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) {
+				return false;
+			}
+			for (String tag : ifNoneMatch.split(",")) {
+				String candidate = tag.trim();
+				if (candidate.equals("*") || candidate.equals(etag) || ("W/" + candidate).equals(etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.example.enrollment.course.service.course;
+
+/**
+ * Published when courses are added, removed or rewritten wholesale,
+ * so anything derived from the catalog reloads it.
+ */
+public record CourseCatalogChangedEvent() {
+}
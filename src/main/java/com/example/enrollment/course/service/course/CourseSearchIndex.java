@@ -0,0 +1,387 @@
+package com.example.enrollment.course.service.course;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseSearchQuery.Sort;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.seat.SeatShards;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory search over the course catalog.
+ *
+ * Courses are numbered 0..n-1 in id order. Course names are split into
+ * lower-cased words, kept in a sorted array with the courses containing
+ * each, so a word prefix is two binary searches and a union of postings.
+ * Fees and durations are kept as course numbers sorted by value: a range
+ * is two binary searches, and walking an order array yields sorted results
+ * directly. Filters are combined as bit sets, so a search costs a few
+ * microseconds for catalogs of thousands of courses and never a query.
+ *
+ * Seat counts are live counters moved by committed seat changes. The index
+ * is rebuilt from the database when the catalog changes and on the same slow
+ * timer as the catalog cache; timed rebuilds read the course details from a
+ * read replica when those are enabled, and the seat counts from the primary.
+ * Like a catalog load, a rebuild that overlapped a seat change is done again,
+ * up to CourseCatalogCache.LOAD_ATTEMPTS times.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseSearchIndex {
+
+	private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+	private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(day|week|month|year)s?",
+			Pattern.CASE_INSENSITIVE);
+
+	private final CourseRepository courseRepo;
+
+	/** In-memory seat ledger, present only when enrollment.seat-ledger.enabled=true */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	/** Seat counter rows of hot courses, present only when enrollment.seat-shards.enabled=true */
+	@Autowired(required = false)
+	private SeatShards seatShards;
+
+	/** Read replicas, present only when enrollment.read-replicas.enabled=true */
+	@Autowired(required = false)
+	private ReplicaReads replicaReads;
+
+	/** Set by the timed rebuild; a rebuild after a known change has to read the primary */
+	private volatile boolean rebuildFromReplica;
+
+	/** Null until built; every search builds it first */
+	private volatile Index index;
+
+	/** Seat changes begun and finished applying; a rebuild compares them to spot a race */
+	private final AtomicLong changesStarted = new AtomicLong();
+	private final AtomicLong changesFinished = new AtomicLong();
+
+	/** One page of results and how many courses matched in all */
+	public record Page(List<CourseDto> courses, int total) {
+	}
+
+	/**
+	 * Runs a search
+	 * @param query - filters, order and page
+	 * @return the requested page of matching courses
+	 */
+	public Page search(CourseSearchQuery query) {
+		Index current = index;
+		if (current == null) {
+			current = build();
+		}
+		return current.search(query);
+	}
+
+	/**
+	 * Moves a course's live seat count once the seat change has committed
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSeatsChanged(CourseSeatsChangedEvent event) {
+		changesStarted.incrementAndGet();
+		try {
+			Index current = index;
+			if (current != null && !current.addSeats(event.courseId(), event.delta())) {
+				// a course the index has never seen
+				invalidate();
+			}
+		} finally {
+			changesFinished.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Drops the index so the next search rebuilds it
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCatalogChanged(CourseCatalogChangedEvent event) {
+		invalidate();
+	}
+
+	/** Periodic rebuild, catching writes that bypassed the events */
+	@Scheduled(fixedDelayString = "${enrollment.course-cache.refresh-interval-ms:60000}",
+			initialDelayString = "${enrollment.course-cache.refresh-interval-ms:60000}")
+	public void refresh() {
+		invalidate();
+		rebuildFromReplica = true;
+	}
+
+	/**
+	 * Drops the index so the next search rebuilds it from the primary
+	 */
+	public void invalidate() {
+		rebuildFromReplica = false;
+		index = null;
+	}
+
+	private synchronized Index build() {
+		Index current = index;
+		if (current != null) {
+			return current;
+		}
+		boolean fromReplica = rebuildFromReplica && replicaReads != null;
+		rebuildFromReplica = false;
+		for (int attempt = 1; ; attempt++) {
+			long finished = changesFinished.get();
+			long started = changesStarted.get();
+			current = read(fromReplica);
+			index = current;
+			boolean raced = started != finished || changesStarted.get() != started;
+			if (!raced || attempt == CourseCatalogCache.LOAD_ATTEMPTS) {
+				return current;
+			}
+		}
+	}
+
+	private Index read(boolean fromReplica) {
+		List<Course> courses = new ArrayList<>(
+				fromReplica ? replicaReads.read(courseRepo::findAll) : courseRepo.findAll());
+		courses.sort(Comparator.comparing(Course::getCourseId));
+		// a sharded course's seats are its row plus the sum of its shards
+		Map<Long, Long> seats = new HashMap<>();
+		if (fromReplica) {
+			// names and fees may lag a little, seat counts may not
+			courseRepo.findAllSeats().forEach(course -> seats.put(course.getCourseId(), course.getAvailableSeats()));
+		} else {
+			courses.forEach(course -> seats.put(course.getCourseId(), course.getAvailableSeats()));
+		}
+		if (seatShards != null) {
+			seatShards.shardedSeats().forEach((courseId, sharded) -> seats.merge(courseId, sharded, Long::sum));
+		}
+		log.debug("Course search index built over {} courses", courses.size());
+		return new Index(courses, seatLedger, seats);
+	}
+
+	/**
+	 * Duration in days, months counted as 30 and years as 365
+	 * @return days, or -1 if the text names no duration
+	 */
+	static int durationDays(String duration) {
+		Matcher matcher = duration == null ? null : DURATION.matcher(duration);
+		if (matcher == null || !matcher.find()) {
+			return -1;
+		}
+		int count = Integer.parseInt(matcher.group(1));
+		return switch (matcher.group(2).toLowerCase(Locale.ROOT)) {
+			case "day" -> count;
+			case "week" -> count * 7;
+			case "month" -> count * 30;
+			default -> count * 365;
+		};
+	}
+
+	/** Lower-cased words of a text, in order, duplicates kept */
+	static List<String> words(String text) {
+		List<String> words = new ArrayList<>();
+		if (text != null) {
+			Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+			while (matcher.find()) {
+				words.add(matcher.group());
+			}
+		}
+		return words;
+	}
+
+	/** Immutable structures over one load of the catalog, plus the live seat counts */
+	private static final class Index {
+
+		private final Course[] courses;
+		private final int[] days;
+		private final AtomicLongArray seats;
+		private final Map<Long, Integer> numberOf = new HashMap<>();
+
+		/** Every distinct name word, sorted, and the courses containing each */
+		private final String[] words;
+		private final BitSet[] postings;
+
+		/** Course numbers ordered by name, fees and duration; by id is the identity */
+		private final int[] byName;
+		private final int[] byFees;
+		private final int[] byDays;
+
+		Index(List<Course> loaded, SeatLedger seatLedger, Map<Long, Long> free) {
+			int n = loaded.size();
+			courses = loaded.toArray(new Course[0]);
+			days = new int[n];
+			seats = new AtomicLongArray(n);
+			Map<String, BitSet> byWord = new HashMap<>();
+			for (int i = 0; i < n; i++) {
+				Course course = courses[i];
+				numberOf.put(course.getCourseId(), i);
+				days[i] = durationDays(course.getDuration());
+				Long live = seatLedger == null ? null : seatLedger.availableSeats(course.getCourseId());
+				seats.set(i, live != null ? live : free.getOrDefault(course.getCourseId(), course.getAvailableSeats()));
+				for (String word : words(course.getCourseName())) {
+					byWord.computeIfAbsent(word, w -> new BitSet(n)).set(i);
+				}
+			}
+			words = new TreeSet<>(byWord.keySet()).toArray(new String[0]);
+			postings = new BitSet[words.length];
+			for (int w = 0; w < words.length; w++) {
+				postings[w] = byWord.get(words[w]);
+			}
+			byName = order(n, Comparator.comparing((Integer i) -> courses[i].getCourseName(), String.CASE_INSENSITIVE_ORDER));
+			byFees = order(n, Comparator.comparingDouble((Integer i) -> courses[i].getFees()));
+			byDays = order(n, Comparator.comparingInt((Integer i) -> days[i]));
+		}
+
+		boolean addSeats(Long courseId, long delta) {
+			Integer number = numberOf.get(courseId);
+			if (number == null) {
+				return false;
+			}
+			seats.addAndGet(number, delta);
+			return true;
+		}
+
+		Page search(CourseSearchQuery query) {
+			int n = courses.length;
+			BitSet matches = new BitSet(n);
+			matches.set(0, n);
+			for (String word : words(query.text())) {
+				matches.and(withPrefix(word));
+			}
+			if (query.minFees() != null || query.maxFees() != null) {
+				matches.and(range(byFees, i -> courses[i].getFees(),
+						query.minFees() == null ? Double.NEGATIVE_INFINITY : query.minFees(),
+						query.maxFees() == null ? Double.POSITIVE_INFINITY : query.maxFees()));
+			}
+			if (query.minDays() != null || query.maxDays() != null) {
+				// courses without a readable duration never match a duration filter
+				matches.and(range(byDays, i -> days[i],
+						query.minDays() == null ? 0 : query.minDays(),
+						query.maxDays() == null ? Integer.MAX_VALUE : query.maxDays()));
+			}
+			if (query.withSeats()) {
+				for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+					if (seats.get(i) <= 0) {
+						matches.clear(i);
+					}
+				}
+			}
+
+			int total = matches.cardinality();
+			int size = Math.min(Math.max(query.size(), 1), CourseSearchQuery.MAX_PAGE_SIZE);
+			long from = (long) Math.max(query.page(), 0) * size;
+			List<CourseDto> page = new ArrayList<>(size);
+			if (from < total) {
+				int[] ordered = ordered(matches, total, query.sort() == null ? Sort.ID : query.sort());
+				for (int k = (int) from; k < total && page.size() < size; k++) {
+					page.add(toDto(ordered[query.descending() ? total - 1 - k : k]));
+				}
+			}
+			return new Page(page, total);
+		}
+
+		/** Courses having a name word that starts with the given prefix */
+		private BitSet withPrefix(String prefix) {
+			BitSet found = new BitSet(courses.length);
+			int first = Arrays.binarySearch(words, prefix);
+			if (first < 0) {
+				first = -first - 1;
+			}
+			for (int w = first; w < words.length && words[w].startsWith(prefix); w++) {
+				found.or(postings[w]);
+			}
+			return found;
+		}
+
+		/** Courses whose value, read through the given order, lies within [min, max] */
+		private BitSet range(int[] order, IntToDoubleFunction value, double min, double max) {
+			BitSet found = new BitSet(courses.length);
+			int lo = 0;
+			int hi = order.length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (value.applyAsDouble(order[mid]) < min) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			for (int k = lo; k < order.length && value.applyAsDouble(order[k]) <= max; k++) {
+				found.set(order[k]);
+			}
+			return found;
+		}
+
+		/** The matching course numbers in the requested order */
+		private int[] ordered(BitSet matches, int total, Sort sort) {
+			int[] result = new int[total];
+			if (sort == Sort.SEATS) {
+				// seats move all the time, so this order is the only one sorted per search
+				Integer[] boxed = matches.stream().boxed().toArray(Integer[]::new);
+				Arrays.sort(boxed, Comparator.comparingLong((Integer i) -> seats.get(i)).thenComparingInt(i -> i));
+				for (int k = 0; k < total; k++) {
+					result[k] = boxed[k];
+				}
+				return result;
+			}
+			int[] order = switch (sort) {
+				case NAME -> byName;
+				case FEES -> byFees;
+				case DURATION -> byDays;
+				default -> null;
+			};
+			int k = 0;
+			if (order == null) {
+				for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+					result[k++] = i;
+				}
+			} else {
+				for (int i : order) {
+					if (matches.get(i)) {
+						result[k++] = i;
+					}
+				}
+			}
+			return result;
+		}
+
+		private CourseDto toDto(int i) {
+			Course course = courses[i];
+			return new CourseDto(course.getCourseId(), course.getCourseName(), course.getDuration(),
+					course.getFees(), seats.get(i));
+		}
+
+		/** Course numbers sorted by the given comparator, ties in id order */
+		private static int[] order(int n, Comparator<Integer> comparator) {
+			Integer[] boxed = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				boxed[i] = i;
+			}
+			Arrays.sort(boxed, comparator.thenComparingInt(i -> i));
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = boxed[i];
+			}
+			return order;
+		}
+	}
+}
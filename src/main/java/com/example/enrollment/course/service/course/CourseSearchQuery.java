@@ -0,0 +1,25 @@
+package com.example.enrollment.course.service.course;
+
+/**
+ * Filters, order and page of a course search; null filters match everything
+ * @param text - words that must all start a word of the course name, e.g. "spring bo"
+ * @param minFees - lowest fee, inclusive
+ * @param maxFees - highest fee, inclusive
+ * @param minDays - shortest duration in days, inclusive
+ * @param maxDays - longest duration in days, inclusive
+ * @param withSeats - only courses with a free seat
+ * @param sort - order of the results
+ * @param descending - reverse the order
+ * @param page - zero-based page number
+ * @param size - courses per page
+ */
+public record CourseSearchQuery(String text, Double minFees, Double maxFees, Integer minDays, Integer maxDays,
+		boolean withSeats, Sort sort, boolean descending, int page, int size) {
+
+	/** Largest page served */
+	public static final int MAX_PAGE_SIZE = 100;
+
+	public enum Sort {
+		ID, NAME, FEES, DURATION, SEATS
+	}
+}
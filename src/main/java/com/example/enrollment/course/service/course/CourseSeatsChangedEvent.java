@@ -0,0 +1,10 @@
+package com.example.enrollment.course.service.course;
+
+/**
+ * Published when a write changes a course's available seats.
+ * Listeners see it once the writing transaction has committed.
+ * @param courseId - course whose seat count changed
+ * @param delta - seats given back (positive) or taken (negative)
+ */
+public record CourseSeatsChangedEvent(Long courseId, long delta) {
+}
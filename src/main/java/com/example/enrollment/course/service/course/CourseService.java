@@ -2,6 +2,8 @@ package com.example.enrollment.course.service.course;
 
 import java.util.Collection;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import com.example.enrollment.course.dto.CourseDto;
 
 public interface CourseService {
@@ -9,4 +11,13 @@ public interface CourseService {
 	/** List all available courses */
     Collection<CourseDto> searchCourses();
 
+    /** Current pre-serialized catalog, for conditional and compressed responses */
+    CourseCatalogCache.Snapshot courseCatalog();
+
+    /** One page of the courses matching the query, served from the search index */
+    CourseSearchIndex.Page searchCourses(CourseSearchQuery query);
+
+    /** Server-Sent Events of the seats and waitlist depth of the given courses */
+    SseEmitter watchSeats(Collection<Long> courseIds);
+
 }
@@ -1,12 +1,12 @@
 package com.example.enrollment.course.service.course;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.enrollment.course.dto.CourseDto;
-import com.example.enrollment.course.mapper.AutoMapper;
-import com.example.enrollment.course.repository.CourseRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -17,15 +17,44 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CourseServiceImpl implements CourseService {
 
-    private final CourseRepository courseRepository;
+    private final CourseCatalogCache catalogCache;
+    private final CourseSearchIndex searchIndex;
+    private final SeatAvailabilityStream seatStream;
 
     /**
-     * Lists all courses as DTOs.
+     * Lists all courses as DTOs, served from the catalog cache.
+     * Seat counts follow committed writes (and the seat ledger when enabled)
+     * without a database read per call.
      */
     @Override
     public List<CourseDto> searchCourses() {
-        return courseRepository.findAll().stream()
-                .map(AutoMapper.MAPPER::mapToCourseDto)
+        return catalogCache.current().courses().stream()
+                .map(course -> new CourseDto(course.getCourseId(), course.getCourseName(),
+                        course.getDuration(), course.getFees(), course.getAvailableSeats()))
                 .toList();
     }
+
+    /**
+     * Returns the cached catalog snapshot, JSON bytes and ETag included
+     */
+    @Override
+    public CourseCatalogCache.Snapshot courseCatalog() {
+        return catalogCache.current();
+    }
+
+    /**
+     * Filters, sorts and pages the catalog in memory, without a database read
+     */
+    @Override
+    public CourseSearchIndex.Page searchCourses(CourseSearchQuery query) {
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Subscribes to coalesced seat and waitlist changes instead of polling the catalog
+     */
+    @Override
+    public SseEmitter watchSeats(Collection<Long> courseIds) {
+        return seatStream.subscribe(courseIds);
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.enrollment.course.service.course;
+
+/**
+ * Published when a write adds students to a course's waitlist or takes them off it.
+ * Listeners see it once the writing transaction has committed.
+ * @param courseId - course whose waitlist changed
+ */
+public record CourseWaitlistChangedEvent(Long courseId) {
+}
@@ -0,0 +1,343 @@
+package com.example.enrollment.course.service.course;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.enrollment.course.dto.SeatAvailabilityDto;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-Sent Events of seat availability, for clients that would otherwise
+ * poll the catalog waiting for a seat.
+ *
+ * Committed seat and waitlist changes only mark their course dirty. Every
+ * coalesce-ms the dirty courses that somebody watches are read from the
+ * catalog cache and the waitlist index, and a course whose seats or waitlist
+ * depth differ from what was last sent is serialized once and handed to each
+ * of its subscribers, however many changes it saw in between.
+ *
+ * Each subscriber has a bounded buffer drained by a small sender pool. A
+ * subscriber whose buffer is full is too slow to keep up and is disconnected;
+ * EventSource clients reconnect and start again from a fresh snapshot.
+ *
+ * A write blocks while the client does not read. A subscriber whose write
+ * has not finished after write-timeout-ms is disconnected the same way, and
+ * the pool gets a thread in place of the one stuck in that write until the
+ * write returns, so clients that stop reading never hold up the others.
+ */
+@Slf4j
+@Component
+public class SeatAvailabilityStream {
+
+	static final String EVENT_NAME = "seats";
+
+	private final CourseCatalogCache catalogCache;
+	private final WaitlistIndex waitlistIndex;
+	private final ObjectMapper objectMapper;
+	private final int bufferSize;
+	private final int maxCourses;
+	private final int maxSubscribers;
+	private final long timeoutMs;
+	private final long writeTimeoutNanos;
+	private final ThreadPoolExecutor senders;
+
+	/** Subscribers of every watched course */
+	private final Map<Long, Set<Subscriber>> watchers = new ConcurrentHashMap<>();
+
+	private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+	/** What was last sent per course, so changes that cancel out send nothing */
+	private final Map<Long, SeatAvailabilityDto> lastSent = new ConcurrentHashMap<>();
+
+	private final AtomicInteger subscribers = new AtomicInteger();
+
+	/** Subscribers with a write in progress */
+	private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+
+	public SeatAvailabilityStream(
+			CourseCatalogCache catalogCache,
+			WaitlistIndex waitlistIndex,
+			ObjectMapper objectMapper,
+			@Value("${enrollment.seat-stream.buffer-size:32}") int bufferSize,
+			@Value("${enrollment.seat-stream.max-courses:100}") int maxCourses,
+			@Value("${enrollment.seat-stream.max-subscribers:10000}") int maxSubscribers,
+			@Value("${enrollment.seat-stream.timeout-ms:1800000}") long timeoutMs,
+			@Value("${enrollment.seat-stream.write-timeout-ms:5000}") long writeTimeoutMs,
+			@Value("${enrollment.seat-stream.sender-threads:2}") int senderThreads) {
+		this.catalogCache = catalogCache;
+		this.waitlistIndex = waitlistIndex;
+		this.objectMapper = objectMapper;
+		this.bufferSize = bufferSize;
+		this.maxCourses = maxCourses;
+		this.maxSubscribers = maxSubscribers;
+		this.timeoutMs = timeoutMs;
+		this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+		AtomicInteger threadNo = new AtomicInteger();
+		this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), task -> {
+					Thread thread = new Thread(task, "seat-stream-sender-" + threadNo.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Opens a stream for the given courses, starting with their current state
+	 * @param courseIds - courses to watch, at most enrollment.seat-stream.max-courses
+	 * @return emitter sending a "seats" event whenever a watched course changes
+	 */
+	public SseEmitter subscribe(Collection<Long> courseIds) {
+		Set<Long> courses = new LinkedHashSet<>(courseIds);
+		if (courses.isEmpty() || courses.size() > maxCourses) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Watch between 1 and " + maxCourses + " courses");
+		}
+		List<SeatAvailabilityDto> initial = new ArrayList<>(courses.size());
+		for (Long courseId : courses) {
+			SeatAvailabilityDto state = read(courseId);
+			if (state == null) {
+				throw new ResourceNotFoundException("Course Not Found with id: " + courseId);
+			}
+			initial.add(state);
+		}
+		if (subscribers.incrementAndGet() > maxSubscribers) {
+			subscribers.decrementAndGet();
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many seat stream subscribers");
+		}
+
+		Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), courses, new ArrayBlockingQueue<>(bufferSize));
+		subscriber.emitter.onCompletion(() -> remove(subscriber));
+		subscriber.emitter.onTimeout(() -> remove(subscriber));
+		subscriber.emitter.onError(ex -> remove(subscriber));
+		for (Long courseId : courses) {
+			watchers.computeIfAbsent(courseId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+		}
+		for (SeatAvailabilityDto state : initial) {
+			offer(subscriber, event(state));
+		}
+		return subscriber.emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSeatsChanged(CourseSeatsChangedEvent event) {
+		markDirty(event.courseId());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onWaitlistChanged(CourseWaitlistChangedEvent event) {
+		markDirty(event.courseId());
+	}
+
+	/**
+	 * Sends the state of every watched course that changed since the last flush,
+	 * after disconnecting the subscribers stuck in a write
+	 */
+	@Scheduled(fixedDelayString = "${enrollment.seat-stream.coalesce-ms:250}")
+	public void flush() {
+		dropStalledWrites();
+		for (Long courseId : List.copyOf(dirty)) {
+			dirty.remove(courseId);
+			Set<Subscriber> watching = watchers.get(courseId);
+			if (watching == null || watching.isEmpty()) {
+				continue;
+			}
+			SeatAvailabilityDto state = read(courseId);
+			if (state == null) {
+				// the catalog is reloading; try again on the next flush
+				dirty.add(courseId);
+				continue;
+			}
+			if (state.equals(lastSent.put(courseId, state))) {
+				continue;
+			}
+			Set<DataWithMediaType> event = event(state);
+			for (Subscriber subscriber : watching) {
+				offer(subscriber, event);
+			}
+		}
+	}
+
+	/** Number of open streams */
+	public int size() {
+		return subscribers.get();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		senders.shutdownNow();
+	}
+
+	private void markDirty(Long courseId) {
+		if (watchers.containsKey(courseId)) {
+			dirty.add(courseId);
+		}
+	}
+
+	private SeatAvailabilityDto read(Long courseId) {
+		Long seats = catalogCache.availableSeats(courseId);
+		return seats == null ? null : new SeatAvailabilityDto(courseId, seats, waitlistIndex.size(courseId));
+	}
+
+	private Set<DataWithMediaType> event(SeatAvailabilityDto state) {
+		try {
+			return SseEmitter.event()
+					.name(EVENT_NAME)
+					.data(objectMapper.writeValueAsString(state), MediaType.APPLICATION_JSON)
+					.build();
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Buffers an event for the subscriber, disconnecting it if its buffer is full
+	 */
+	private void offer(Subscriber subscriber, Set<DataWithMediaType> event) {
+		if (subscriber.closed.get()) {
+			return;
+		}
+		if (!subscriber.buffer.offer(event)) {
+			log.debug("Seat stream subscriber fell {} events behind, disconnecting", bufferSize);
+			remove(subscriber);
+		}
+		// completing waits for a write in progress, so the sender ends a dropped stream
+		schedule(subscriber);
+	}
+
+	private void schedule(Subscriber subscriber) {
+		if (subscriber.draining.compareAndSet(false, true)) {
+			senders.execute(() -> drain(subscriber));
+		}
+	}
+
+	private void drain(Subscriber subscriber) {
+		try {
+			Set<DataWithMediaType> event;
+			while (!subscriber.closed.get() && (event = subscriber.buffer.poll()) != null) {
+				subscriber.writeStartedNanos = System.nanoTime();
+				subscriber.write.set(Subscriber.WRITING);
+				writing.add(subscriber);
+				try {
+					subscriber.emitter.send(event);
+				} finally {
+					writing.remove(subscriber);
+					if (!subscriber.write.compareAndSet(Subscriber.WRITING, Subscriber.IDLE)) {
+						// given up on while writing; the stand-in thread is no longer needed
+						resizeSenders(-1);
+					}
+				}
+			}
+			if (subscriber.closed.get()) {
+				subscriber.emitter.complete();
+			}
+		} catch (IOException | IllegalStateException ex) {
+			// the client went away
+			subscriber.emitter.completeWithError(ex);
+			remove(subscriber);
+		} finally {
+			subscriber.draining.set(false);
+		}
+		// an event offered after the last poll but before the flag was cleared
+		if (!subscriber.closed.get() && !subscriber.buffer.isEmpty()) {
+			schedule(subscriber);
+		}
+	}
+
+	/**
+	 * Disconnects every subscriber whose write has taken longer than
+	 * write-timeout-ms and adds a sender thread for each, so the other
+	 * subscribers are not left waiting for the write to return
+	 */
+	private void dropStalledWrites() {
+		long now = System.nanoTime();
+		for (Subscriber subscriber : writing) {
+			if (subscriber.write.get() == Subscriber.WRITING && now - subscriber.writeStartedNanos > writeTimeoutNanos
+					&& subscriber.write.compareAndSet(Subscriber.WRITING, Subscriber.STALLED)) {
+				log.debug("Seat stream subscriber stopped reading, disconnecting");
+				remove(subscriber);
+				resizeSenders(1);
+			}
+		}
+	}
+
+	private synchronized void resizeSenders(int delta) {
+		int size = senders.getCorePoolSize() + delta;
+		if (delta > 0) {
+			senders.setMaximumPoolSize(size);
+			senders.setCorePoolSize(size);
+		} else {
+			senders.setCorePoolSize(size);
+			senders.setMaximumPoolSize(size);
+		}
+	}
+
+	private void remove(Subscriber subscriber) {
+		if (!subscriber.closed.compareAndSet(false, true)) {
+			return;
+		}
+		subscribers.decrementAndGet();
+		subscriber.buffer.clear();
+		for (Long courseId : subscriber.courses) {
+			watchers.computeIfPresent(courseId, (id, watching) -> {
+				watching.remove(subscriber);
+				if (watching.isEmpty()) {
+					lastSent.remove(courseId);
+					return null;
+				}
+				return watching;
+			});
+		}
+	}
+
+	/** One open stream and the events waiting to be written to it */
+	private static final class Subscriber {
+
+		final SseEmitter emitter;
+		final Set<Long> courses;
+		final BlockingQueue<Set<DataWithMediaType>> buffer;
+		final AtomicBoolean draining = new AtomicBoolean();
+		final AtomicBoolean closed = new AtomicBoolean();
+		static final int IDLE = 0;
+		static final int WRITING = 1;
+		/** A write took too long; the subscriber is closed and a stand-in sender runs */
+		static final int STALLED = 2;
+
+		final AtomicInteger write = new AtomicInteger(IDLE);
+		volatile long writeStartedNanos;
+
+		Subscriber(SseEmitter emitter, Set<Long> courses, BlockingQueue<Set<DataWithMediaType>> buffer) {
+			this.emitter = emitter;
+			this.courses = courses;
+			this.buffer = buffer;
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.util.List;
+
+import com.example.enrollment.course.dto.BatchEnrollmentResultDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.EnrollmentRequestDto;
+
+/**
+ * Bulk enrollment for advisors and the SIS sync job
+ */
+public interface BatchEnrollmentService {
+
+	/**
+	 * Enrolls or waitlists every pair, in request order within each course
+	 * @param requests - (studentId, courseId) pairs
+	 * @return one result per request, in the same order
+	 */
+	List<BatchEnrollmentResultDto> enrollStudents(List<EnrollmentRequestDto> requests);
+
+	/**
+	 * Enrolls or waitlists students of one course in arrival order, with the
+	 * same set-based writes; used by the per-course write pipeline
+	 * @param courseId
+	 * @param studentIds - students in arrival order
+	 * @return one enrollment per student, in the same order; null where the
+	 * pair was rejected (unknown student or course, or already enrolled)
+	 */
+	List<EnrollmentDto> enrollInCourse(Long courseId, List<Long> studentIds);
+}
@@ -0,0 +1,438 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.dto.BatchEnrollmentResultDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.EnrollmentRequestDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.StudentCourse;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
+import com.example.enrollment.course.service.course.CourseWaitlistChangedEvent;
+import com.example.enrollment.course.service.hold.SeatHolds;
+import com.example.enrollment.course.service.metrics.EnrollmentMetrics;
+import com.example.enrollment.course.service.readmodel.EnrollmentReadModel;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.seat.SeatShards;
+import com.example.enrollment.course.service.util.Chunks;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Set-based bulk enrollment.
+ *
+ * Students, courses and existing enrollments are checked with IN lookups,
+ * seats are taken once per course, and enrollment and waitlist rows are
+ * written with JDBC batches. Within a course, pairs are served in request order.
+ * A pair that a concurrent request enrolls after the check is reported as
+ * already enrolled instead of failing the batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchEnrollmentServiceImpl implements BatchEnrollmentService {
+
+	private static final String INSERT_ENROLLMENT_SQL =
+			"INSERT INTO enrollments (student_id, course_id, status, waitlist_number, payment_status, hold_expires_at) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_WAITLIST_ENTRY_SQL =
+			"INSERT INTO waitlist_entries (course_id, enrollment_id, timestamp, priority_tier) VALUES (?, ?, ?, ?)";
+
+	private final StudentRepository studentRepo;
+	private final CourseRepository courseRepo;
+	private final EnrollmentRepository enrollmentRepo;
+	private final WaitlistIndex waitlistIndex;
+	private final JdbcTemplate jdbcTemplate;
+	private final ApplicationEventPublisher events;
+
+	/** In-memory seat ledger, present only when enrollment.seat-ledger.enabled=true */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	/** Seat counter rows of hot courses, present only when enrollment.seat-shards.enabled=true */
+	@Autowired(required = false)
+	private SeatShards seatShards;
+
+	/** Time limit on unpaid seats, present only when enrollment.seat-hold.enabled=true */
+	@Autowired(required = false)
+	private SeatHolds seatHolds;
+
+	/** Enrollment meters, present when a MeterRegistry is */
+	@Autowired(required = false)
+	private EnrollmentMetrics metrics;
+
+	/** In-memory enrollments per student, present only when enrollment.read-model.enabled=true */
+	@Autowired(required = false)
+	private EnrollmentReadModel readModel;
+
+	/** Waitlist tiers of the students; arrival order alone when absent */
+	@Autowired(required = false)
+	private WaitlistPriorities priorities;
+
+	/** Read-your-writes over the read replicas, present only when enrollment.read-replicas.enabled=true */
+	@Autowired(required = false)
+	private ReplicaReads replicaReads;
+
+	@Override
+	@Transactional
+	public List<BatchEnrollmentResultDto> enrollStudents(List<EnrollmentRequestDto> requests) {
+		BatchEnrollmentResultDto[] results = new BatchEnrollmentResultDto[requests.size()];
+		List<PendingEnrollment> rows = write(requests,
+				(index, error) -> results[index] = BatchEnrollmentResultDto.rejected(requests.get(index), error));
+		for (PendingEnrollment row : rows) {
+			results[row.index] = new BatchEnrollmentResultDto(
+					row.studentId, row.courseId, row.enrollmentId, row.status,
+					waitlistIndex.positionOf(row.courseId, row.ticket), null);
+		}
+		return Arrays.asList(results);
+	}
+
+	@Override
+	@Transactional
+	public List<EnrollmentDto> enrollInCourse(Long courseId, List<Long> studentIds) {
+		List<EnrollmentRequestDto> requests = studentIds.stream()
+				.map(studentId -> new EnrollmentRequestDto(studentId, courseId))
+				.toList();
+		EnrollmentDto[] enrolled = new EnrollmentDto[requests.size()];
+		for (PendingEnrollment row : write(requests, (index, error) -> { })) {
+			enrolled[row.index] = new EnrollmentDto(row.enrollmentId, row.studentId, row.courseId, row.status,
+					waitlistIndex.positionOf(row.courseId, row.ticket), PaymentStatus.PENDING, row.holdExpiresAt);
+		}
+		return Arrays.asList(enrolled);
+	}
+
+	/**
+	 * Validates the pairs, takes seats once per course and writes the
+	 * accepted pairs with JDBC batches
+	 * @param reject - told the index and reason of every rejected pair
+	 * @return the written pairs
+	 */
+	private List<PendingEnrollment> write(List<EnrollmentRequestDto> requests, BiConsumer<Integer, String> reject) {
+		// Validate every id of the batch with set-based lookups
+		Set<Long> studentIds = new HashSet<>();
+		Set<Long> courseIds = new HashSet<>();
+		for (EnrollmentRequestDto request : requests) {
+			if (request.getStudentId() != null && request.getCourseId() != null) {
+				studentIds.add(request.getStudentId());
+				courseIds.add(request.getCourseId());
+			}
+		}
+		Set<Long> knownStudents = findExisting(studentIds, studentRepo::findExistingIds);
+		Set<Long> knownCourses = findExisting(courseIds, courseRepo::findExistingIds);
+		Set<Pair> taken = findEnrolledPairs(knownStudents, knownCourses);
+
+		// Group the accepted pairs by course, keeping arrival order
+		Map<Long, List<PendingEnrollment>> byCourse = new LinkedHashMap<>();
+		for (int i = 0; i < requests.size(); i++) {
+			EnrollmentRequestDto request = requests.get(i);
+			Long studentId = request.getStudentId();
+			Long courseId = request.getCourseId();
+			if (studentId == null || courseId == null) {
+				reject.accept(i, "Student Id and Course Id are required");
+			} else if (!knownStudents.contains(studentId)) {
+				reject.accept(i, "Student Not Found with id: " + studentId);
+			} else if (!knownCourses.contains(courseId)) {
+				reject.accept(i, "Course Not Found with id: " + courseId);
+			} else if (!taken.add(new Pair(studentId, courseId))) {
+				reject.accept(i, "Enrollment Already Exists with studentId: " + studentId + ", courseId: " + courseId);
+			} else {
+				byCourse.computeIfAbsent(courseId, id -> new ArrayList<>())
+						.add(new PendingEnrollment(i, studentId, courseId));
+			}
+		}
+
+		// Take each course's seats at once; the rest of the course's pairs are waitlisted
+		Instant deadline = seatHolds == null ? null : seatHolds.newDeadline();
+		List<PendingEnrollment> rows = new ArrayList<>();
+		for (Map.Entry<Long, List<PendingEnrollment>> course : byCourse.entrySet()) {
+			List<PendingEnrollment> pairs = course.getValue();
+			long granted = takeSeats(course.getKey(), pairs.size());
+			for (int j = 0; j < pairs.size(); j++) {
+				PendingEnrollment row = pairs.get(j);
+				if (j < granted) {
+					row.status = EnrollmentStatus.ENROLLED;
+					row.holdExpiresAt = deadline;
+				} else {
+					row.status = EnrollmentStatus.WAITLISTED;
+					row.ticket = waitlistIndex.nextTicket(row.courseId);
+					row.priority = priorities == null ? WaitlistPriority.STANDARD : priorities.priorityOf(row.studentId);
+				}
+				rows.add(row);
+			}
+		}
+
+		rows = insertEnrollments(rows, reject);
+		if (metrics != null) {
+			rows.forEach(row -> metrics.recordOutcome(row.courseId, row.status));
+		}
+		if (seatHolds != null) {
+			seatHolds.track(rows.stream()
+					.filter(row -> row.status == EnrollmentStatus.ENROLLED)
+					.map(row -> row.enrollmentId)
+					.toList(), deadline);
+		}
+		List<PendingEnrollment> waitlisted = rows.stream()
+				.filter(row -> row.status == EnrollmentStatus.WAITLISTED)
+				.toList();
+		insertWaitlistEntries(waitlisted);
+		waitlisted.forEach(row -> waitlistIndex.add(row.courseId, row.ticket, row.priority, row.enrollmentId));
+		waitlisted.stream().map(row -> row.courseId).distinct()
+				.forEach(courseId -> events.publishEvent(new CourseWaitlistChangedEvent(courseId)));
+		if (replicaReads != null) {
+			rows.stream().map(row -> row.studentId).distinct().forEach(replicaReads::wrote);
+		}
+		if (readModel != null) {
+			readModel.added(rows.stream()
+					.map(row -> new EnrollmentReadModel.Row(row.enrollmentId, row.studentId, row.courseId, row.status,
+							row.ticket, PaymentStatus.PENDING, row.holdExpiresAt))
+					.toList());
+		}
+		return rows;
+	}
+
+	/**
+	 * Takes up to the requested seats of a course: one locked read and one
+	 * UPDATE, or a single ledger reservation when the ledger is enabled,
+	 * or one UPDATE per shard drawn on when the course is sharded
+	 * @return number of seats taken
+	 */
+	private long takeSeats(Long courseId, int requested) {
+		long granted;
+		if (seatLedger != null) {
+			granted = seatLedger.tryReserve(courseId, requested);
+		} else if (seatShards != null) {
+			granted = seatShards.tryTake(courseId, requested);
+		} else {
+			long available = courseRepo.findByIdForUpdate(courseId)
+					.map(Course::getAvailableSeats)
+					.orElse(0L);
+			granted = Math.min(available, requested);
+			if (granted > 0) {
+				courseRepo.adjustSeats(courseId, -granted);
+			}
+		}
+		if (granted > 0) {
+			events.publishEvent(new CourseSeatsChangedEvent(courseId, -granted));
+		}
+		return granted;
+	}
+
+	/**
+	 * Inserts the enrollments chunk by chunk, each chunk behind a savepoint.
+	 * A pair enrolled by a concurrent request since the check makes its
+	 * chunk hit the unique (student, course) key; that chunk is rolled back
+	 * and retried row by row, the pair is reported as already enrolled, and
+	 * its seat, if it got one, passes to the course's next waitlisted pair
+	 * of the batch or goes back to the course.
+	 * @return the rows that were inserted
+	 */
+	private List<PendingEnrollment> insertEnrollments(List<PendingEnrollment> rows, BiConsumer<Integer, String> reject) {
+		List<PendingEnrollment> inserted = new ArrayList<>(rows.size());
+		for (List<PendingEnrollment> chunk : Chunks.partition(rows)) {
+			try {
+				withSavepoint(() -> insertBatch(chunk));
+				inserted.addAll(chunk);
+			} catch (DuplicateKeyException batchFailure) {
+				log.debug("Enrollment batch of {} hit an existing pair, inserting it row by row", chunk.size());
+				for (PendingEnrollment row : chunk) {
+					try {
+						withSavepoint(() -> insertBatch(List.of(row)));
+						inserted.add(row);
+					} catch (DuplicateKeyException ex) {
+						reject.accept(row.index, "Enrollment Already Exists with studentId: " + row.studentId
+								+ ", courseId: " + row.courseId);
+						if (row.status == EnrollmentStatus.ENROLLED) {
+							passOnSeat(row, rows);
+						}
+					}
+				}
+			}
+		}
+		return inserted;
+	}
+
+	/**
+	 * Runs the inserts behind a JDBC savepoint of the current transaction,
+	 * so a failed batch leaves none of its rows behind
+	 */
+	private void withSavepoint(Runnable inserts) {
+		Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+		try {
+			inserts.run();
+		} catch (DataAccessException ex) {
+			jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+				con.rollback(savepoint);
+				return null;
+			});
+			throw ex;
+		}
+		jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+			con.releaseSavepoint(savepoint);
+			return null;
+		});
+	}
+
+	/**
+	 * Gives the seat of a rejected row to the next waitlisted row of its
+	 * course; rows of a course are contiguous with the enrolled ones first,
+	 * so that row is still to be inserted. Without one the seat is released.
+	 */
+	private void passOnSeat(PendingEnrollment rejected, List<PendingEnrollment> rows) {
+		for (PendingEnrollment row : rows.subList(rows.indexOf(rejected) + 1, rows.size())) {
+			if (row.courseId.equals(rejected.courseId) && row.status == EnrollmentStatus.WAITLISTED) {
+				row.status = EnrollmentStatus.ENROLLED;
+				row.holdExpiresAt = rejected.holdExpiresAt;
+				row.ticket = null;
+				row.priority = null;
+				return;
+			}
+		}
+		if (seatLedger != null) {
+			seatLedger.release(rejected.courseId, 1);
+		} else if (seatShards != null) {
+			seatShards.release(rejected.courseId, 1);
+		} else {
+			courseRepo.adjustSeats(rejected.courseId, 1);
+		}
+		events.publishEvent(new CourseSeatsChangedEvent(rejected.courseId, 1));
+	}
+
+	private void insertBatch(List<PendingEnrollment> chunk) {
+		KeyHolder keys = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(
+				con -> con.prepareStatement(INSERT_ENROLLMENT_SQL, Statement.RETURN_GENERATED_KEYS),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						PendingEnrollment row = chunk.get(i);
+						ps.setLong(1, row.studentId);
+						ps.setLong(2, row.courseId);
+						ps.setString(3, row.status.name());
+						if (row.ticket == null) {
+							ps.setNull(4, Types.BIGINT);
+						} else {
+							ps.setLong(4, row.ticket);
+						}
+						ps.setString(5, PaymentStatus.PENDING.name());
+						if (row.holdExpiresAt == null) {
+							ps.setNull(6, Types.TIMESTAMP);
+						} else {
+							ps.setTimestamp(6, Timestamp.from(row.holdExpiresAt));
+						}
+					}
+
+					@Override
+					public int getBatchSize() {
+						return chunk.size();
+					}
+				},
+				keys);
+		List<Map<String, Object>> generated = keys.getKeyList();
+		for (int i = 0; i < chunk.size(); i++) {
+			Number id = (Number) generated.get(i).values().iterator().next();
+			chunk.get(i).enrollmentId = id.longValue();
+		}
+	}
+
+	private void insertWaitlistEntries(List<PendingEnrollment> rows) {
+		Timestamp now = Timestamp.from(Instant.now());
+		for (List<PendingEnrollment> chunk : Chunks.partition(rows)) {
+			jdbcTemplate.batchUpdate(INSERT_WAITLIST_ENTRY_SQL, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					PendingEnrollment row = chunk.get(i);
+					ps.setLong(1, row.courseId);
+					ps.setLong(2, row.enrollmentId);
+					ps.setTimestamp(3, now);
+					ps.setInt(4, row.priority.ordinal());
+				}
+
+				@Override
+				public int getBatchSize() {
+					return chunk.size();
+				}
+			});
+		}
+	}
+
+	private Set<Long> findExisting(Set<Long> ids, Function<Collection<Long>, List<Long>> lookup) {
+		Set<Long> found = new HashSet<>();
+		for (List<Long> chunk : Chunks.partition(ids)) {
+			found.addAll(lookup.apply(chunk));
+		}
+		return found;
+	}
+
+	private Set<Pair> findEnrolledPairs(Set<Long> studentIds, Set<Long> courseIds) {
+		Set<Pair> pairs = new HashSet<>();
+		for (List<Long> students : Chunks.partition(studentIds)) {
+			for (List<Long> courses : Chunks.partition(courseIds)) {
+				for (StudentCourse row : enrollmentRepo.findPairs(students, courses)) {
+					pairs.add(new Pair(row.getStudentId(), row.getCourseId()));
+				}
+			}
+		}
+		return pairs;
+	}
+
+	private record Pair(Long studentId, Long courseId) {
+	}
+
+	/** A pair accepted for insert, filled in as the batch progresses */
+	private static final class PendingEnrollment {
+		private final int index;
+		private final Long studentId;
+		private final Long courseId;
+		private EnrollmentStatus status;
+		private Long ticket;
+		private WaitlistPriority priority;
+		private Long enrollmentId;
+		private Instant holdExpiresAt;
+
+		private PendingEnrollment(int index, Long studentId, Long courseId) {
+			this.index = index;
+			this.studentId = studentId;
+			this.courseId = courseId;
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-course single-writer queue for enrollment writes.
+ *
+ * Every command for a course goes onto that course's lane. At most one
+ * writer drains a lane at a time, taking up to max-batch-size commands in
+ * arrival order and running them in one transaction, so writes to a hot
+ * course become sequential batched work instead of row-lock waits.
+ * Consecutive enrollments of a batch are decided together: the course's
+ * seats are taken once, the first students in arrival order are ENROLLED,
+ * the rest WAITLISTED, and all their rows go out as one JDBC batch.
+ * Callers get a future that completes after the batch commits.
+ *
+ * If any command of a batch fails, the batch is rolled back and its commands
+ * are replayed one transaction each, so one bad request never fails the others.
+ * Enrollments the batch rejects (unknown ids, already enrolled) are replayed
+ * the same way, so they fail with the exception a direct call would throw.
+ *
+ * A lane holds at most max-queued commands; past that, commands fail right
+ * away with a RejectedExecutionException. A lane is dropped once its queue
+ * is empty, so only courses with queued writes have one. A caller may cancel
+ * its future while the command is still queued, and the command never runs;
+ * once it has started, cancelling fails and the write goes on, each
+ * transaction bounded by transaction-timeout-ms.
+ * Enable with enrollment.pipeline.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.pipeline", name = "enabled", havingValue = "true")
+public class CourseWritePipeline {
+
+	private final TransactionTemplate transactionTemplate;
+	private final BatchEnrollmentService batchEnrollment;
+	private final int maxBatchSize;
+	private final int maxQueued;
+	private final ExecutorService writers;
+	private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+	public CourseWritePipeline(
+			PlatformTransactionManager transactionManager,
+			BatchEnrollmentService batchEnrollment,
+			@Value("${enrollment.pipeline.max-batch-size:64}") int maxBatchSize,
+			@Value("${enrollment.pipeline.writer-threads:4}") int writerThreads,
+			@Value("${enrollment.pipeline.max-queued:1000}") int maxQueued,
+			@Value("${enrollment.pipeline.transaction-timeout-ms:10000}") long transactionTimeoutMs) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(transactionTimeoutMs)));
+		this.batchEnrollment = batchEnrollment;
+		this.maxBatchSize = maxBatchSize;
+		this.maxQueued = maxQueued;
+		AtomicInteger threadNo = new AtomicInteger();
+		this.writers = Executors.newFixedThreadPool(writerThreads, task -> {
+			Thread thread = new Thread(task, "course-writer-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a write for the course
+	 * @param courseId - lane to queue on
+	 * @param command - transactional work, run on a writer thread
+	 * @return future completed with the command's result once its batch commits;
+	 * cancelling it succeeds only while the command has not started
+	 */
+	public <T> CompletableFuture<T> submit(Long courseId, Supplier<T> command) {
+		return queue(courseId, new Command<>(command, null));
+	}
+
+	/**
+	 * Queues an enrollment, written together with the lane's other enrollments
+	 * @param courseId - lane to queue on
+	 * @param studentId - student to enroll
+	 * @param alone - the same enrollment as a single write, run when the batch
+	 * rejects it or fails, or when nothing else is queued with it
+	 * @return future completed with the enrollment once its batch commits
+	 */
+	public CompletableFuture<EnrollmentDto> submitEnrollment(Long courseId, Long studentId, Supplier<EnrollmentDto> alone) {
+		return queue(courseId, new Command<>(alone, studentId));
+	}
+
+	/** Number of courses with queued or running writes */
+	public int activeLanes() {
+		return lanes.size();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		writers.shutdown();
+	}
+
+	private <T> CompletableFuture<T> queue(Long courseId, Command<T> command) {
+		// added under the map's lock for the course, so an idle lane is never dropped with a command on it
+		Lane lane = lanes.compute(courseId, (id, existing) -> {
+			Lane queuedOn = existing == null ? new Lane(id) : existing;
+			if (queuedOn.queued.get() < maxQueued) {
+				queuedOn.queued.incrementAndGet();
+				queuedOn.queue.add(command);
+			} else {
+				command.future.completeExceptionally(new RejectedExecutionException(
+						"Write queue of course " + id + " is full"));
+			}
+			return existing == null && queuedOn.queue.isEmpty() ? null : queuedOn;
+		});
+		if (lane != null) {
+			schedule(lane);
+		}
+		return command.future;
+	}
+
+	private void schedule(Lane lane) {
+		if (!lane.queue.isEmpty() && lane.draining.compareAndSet(false, true)) {
+			writers.execute(() -> drain(lane));
+		}
+	}
+
+	/**
+	 * Runs one batch of the lane, then hands the lane back to the pool so a
+	 * busy course cannot starve the others
+	 */
+	private void drain(Lane lane) {
+		try {
+			List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+			Command<?> next;
+			while (batch.size() < maxBatchSize && (next = lane.queue.poll()) != null) {
+				lane.queued.decrementAndGet();
+				// a command its caller gave up on is dropped unrun
+				if (next.start()) {
+					batch.add(next);
+				}
+			}
+			if (!batch.isEmpty()) {
+				runBatch(lane.courseId, batch);
+			}
+		} finally {
+			lane.draining.set(false);
+			lanes.computeIfPresent(lane.courseId,
+					(id, current) -> current == lane && lane.queue.isEmpty() && !lane.draining.get() ? null : current);
+			schedule(lane);
+		}
+	}
+
+	private void runBatch(Long courseId, List<Command<?>> batch) {
+		Object[] results = new Object[batch.size()];
+		boolean[] rejected = new boolean[batch.size()];
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				List<Integer> enrollments = new ArrayList<>();
+				for (int i = 0; i < batch.size(); i++) {
+					Command<?> command = batch.get(i);
+					if (command.studentId != null) {
+						enrollments.add(i);
+						continue;
+					}
+					// Keep arrival order: enrollments queued before this command go first
+					enroll(courseId, batch, enrollments, results, rejected);
+					results[i] = command.work.get();
+				}
+				enroll(courseId, batch, enrollments, results, rejected);
+			});
+		} catch (RuntimeException batchFailure) {
+			if (batch.size() == 1) {
+				batch.get(0).future.completeExceptionally(batchFailure);
+			} else {
+				log.debug("Batch of {} failed, replaying one by one", batch.size(), batchFailure);
+				batch.forEach(this::runAlone);
+			}
+			return;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			if (rejected[i]) {
+				runAlone(batch.get(i));
+			} else {
+				batch.get(i).complete(results[i]);
+			}
+		}
+	}
+
+	/**
+	 * Writes a run of consecutive enrollments with one seat reservation and
+	 * batched inserts; a lone enrollment takes the direct path, which needs no pre-checks
+	 * @param enrollments - batch indexes of the run, cleared once written
+	 */
+	private void enroll(Long courseId, List<Command<?>> batch, List<Integer> enrollments,
+			Object[] results, boolean[] rejected) {
+		if (enrollments.size() == 1) {
+			int index = enrollments.get(0);
+			results[index] = batch.get(index).work.get();
+		} else if (!enrollments.isEmpty()) {
+			List<Long> studentIds = enrollments.stream().map(index -> batch.get(index).studentId).toList();
+			List<EnrollmentDto> written = batchEnrollment.enrollInCourse(courseId, studentIds);
+			for (int j = 0; j < enrollments.size(); j++) {
+				int index = enrollments.get(j);
+				results[index] = written.get(j);
+				rejected[index] = written.get(j) == null;
+			}
+		}
+		enrollments.clear();
+	}
+
+	private void runAlone(Command<?> command) {
+		try {
+			command.complete(transactionTemplate.execute(status -> command.work.get()));
+		} catch (RuntimeException ex) {
+			command.future.completeExceptionally(ex);
+		}
+	}
+
+	/** Commands of one course plus whether a writer currently owns them */
+	private static final class Lane {
+		private final Long courseId;
+		private final Queue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+		/** Size of the queue, which a ConcurrentLinkedQueue cannot tell cheaply */
+		private final AtomicInteger queued = new AtomicInteger();
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		private Lane(Long courseId) {
+			this.courseId = courseId;
+		}
+	}
+
+	/** Queued work; studentId is set for enrollments, which can be written as a batch */
+	private static final class Command<T> {
+		/** Queued; can still be cancelled */
+		private static final int QUEUED = 0;
+		/** Taken by a writer; will run */
+		private static final int STARTED = 1;
+		private static final int CANCELLED = 2;
+
+		private final Supplier<T> work;
+		private final Long studentId;
+		private final AtomicInteger state = new AtomicInteger(QUEUED);
+		private final CompletableFuture<T> future = new CompletableFuture<>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				return state.compareAndSet(QUEUED, CANCELLED) && super.cancel(mayInterruptIfRunning);
+			}
+		};
+
+		private Command(Supplier<T> work, Long studentId) {
+			this.work = work;
+			this.studentId = studentId;
+		}
+
+		/** Claims the command for a writer, false if its caller cancelled it */
+		private boolean start() {
+			return state.compareAndSet(QUEUED, STARTED);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void complete(Object result) {
+			future.complete((T) result);
+		}
+	}
+}
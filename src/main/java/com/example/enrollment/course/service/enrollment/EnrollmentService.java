@@ -1,21 +1,28 @@
 package com.example.enrollment.course.service.enrollment;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.SwapStatsDto;
 
 /**
  * Core enrollment operations:
  *  - enroll or waitlist
  *  - deregister from a course
- *  - deregister student entirely
- *  - swap courses
+ *  - deregister student entirely, one or many at a time
+ *  - give up unpaid seats whose hold ran out
+ *  - swap courses, and report how swaps contend
  *  - list a student’s enrollments
  */
 public interface EnrollmentService {
     EnrollmentDto enrollStudent(Long courseId, Long studentId);
     void deregisterCourse(Long courseId, Long studentId);
     void deregisterStudent(Long studentId);
+    int deregisterStudents(Collection<Long> studentIds);
+    int releaseExpiredHolds(Collection<Long> enrollmentIds, Instant now);
     EnrollmentDto updateCourseEnrollment(Long studentId, Long oldCourseId, Long newCourseId);
     List<EnrollmentDto> retrieveEnrollments(Long studentId);
+    SwapStatsDto swapStats();
 }
@@ -1,19 +1,34 @@
 package com.example.enrollment.course.service.enrollment;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.enrollment.course.dto.EnrollmentDto;
-import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.dto.SwapStatsDto;
 import com.example.enrollment.course.exception.ResourceNotFoundException;
-import com.example.enrollment.course.mapper.AutoMapper;
 import com.example.enrollment.course.repository.CourseRepository;
 import com.example.enrollment.course.repository.EnrollmentRepository;
 import com.example.enrollment.course.repository.StudentRepository;
 import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.hold.SeatHolds;
+import com.example.enrollment.course.service.metrics.EnrollmentMetrics;
+import com.example.enrollment.course.service.readmodel.EnrollmentReadModel;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.seat.SeatShards;
+import com.example.enrollment.course.service.util.Chunks;
 import com.example.enrollment.course.service.util.EnrollmentUtil;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,6 +43,39 @@ public class EnrollmentServiceImpl implements EnrollmentService {
 	private final CourseRepository courseRepo;
 	private final StudentRepository studentRepo;
 	private final WaitlistEntryRepository waitlistRepo;
+	private final WaitlistIndex waitlistIndex;
+	private final ApplicationEventPublisher events;
+	private final ExistenceIndex existenceIndex;
+	private final SwapRetryTemplate swapRetry;
+	private final SwapStats swapStats;
+
+	/** In-memory seat ledger, present only when enrollment.seat-ledger.enabled=true */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	/** Seat counter rows of hot courses, present only when enrollment.seat-shards.enabled=true */
+	@Autowired(required = false)
+	private SeatShards seatShards;
+
+	/** Enrollment meters, present when a MeterRegistry is */
+	@Autowired(required = false)
+	private EnrollmentMetrics metrics;
+
+	/** Time limit on unpaid seats, present only when enrollment.seat-hold.enabled=true */
+	@Autowired(required = false)
+	private SeatHolds seatHolds;
+
+	/** In-memory enrollments per student, present only when enrollment.read-model.enabled=true */
+	@Autowired(required = false)
+	private EnrollmentReadModel readModel;
+
+	/** Waitlist tiers of the students; arrival order alone when absent */
+	@Autowired(required = false)
+	private WaitlistPriorities priorities;
+
+	/** Read-your-writes over the read replicas, present only when enrollment.read-replicas.enabled=true */
+	@Autowired(required = false)
+	private ReplicaReads replicaReads;
 
 	/**
 	 * Enroll Student to the given course by course_id
@@ -38,9 +86,8 @@ public class EnrollmentServiceImpl implements EnrollmentService {
 	@Override
 	@Transactional
 	public EnrollmentDto enrollStudent(Long courseId, Long studentId) {
-		return new EnrollmentUtil(
-				enrollmentRepo, courseRepo, studentRepo, waitlistRepo
-				).enrollStudent(courseId, studentId);
+		wrote(studentId);
+		return enrollmentUtil().enrollStudent(courseId, studentId);
 	}
 
 	/**
@@ -51,9 +98,8 @@ public class EnrollmentServiceImpl implements EnrollmentService {
 	@Override
 	@Transactional
 	public void deregisterCourse(Long courseId, Long studentId) {
-		new EnrollmentUtil(
-				enrollmentRepo, courseRepo, studentRepo, waitlistRepo
-				).deRegisterCourse(courseId, studentId);
+		wrote(studentId);
+		enrollmentUtil().deRegisterCourse(courseId, studentId);
 	}
 
 	/**
@@ -64,62 +110,136 @@ public class EnrollmentServiceImpl implements EnrollmentService {
 	@Transactional
 	public void deregisterStudent(Long studentId) {
 		// Validate Student Existence
-		if (!studentRepo.existsById(studentId)) {
+		if (!existenceIndex.studentExists(studentId)) {
 			throw new ResourceNotFoundException("Student Not Found with id: " + studentId);
 		}
-		// Extract all the enrollments of the student
-		List<Enrollment> list = enrollmentRepo.findByStudentId(studentId);
-		// Deregister each enrollment associated with the student
-		list.forEach(e -> new EnrollmentUtil(
-				enrollmentRepo, courseRepo, studentRepo, waitlistRepo
-				).deRegisterCourse(e.getCourseId(), studentId));
+		// Deregister all the student's enrollments in a few set-based statements
+		enrollmentUtil().deregisterStudents(List.of(studentId));
 
 		// Delete student from the system
-		studentRepo.deleteById(studentId);
+		studentRepo.deleteAllByIdInBatch(List.of(studentId));
+		existenceIndex.studentRemoved(studentId);
+		if (readModel != null) {
+			readModel.studentsRemoved(List.of(studentId));
+		}
+	}
+
+	/**
+	 * Delete many Student Records, e.g. for end-of-term cleanup.
+	 * Unknown ids are skipped.
+	 * @param studentIds - students to remove
+	 * @return number of students removed
+	 */
+	@Override
+	@Transactional
+	public int deregisterStudents(Collection<Long> studentIds) {
+		// Only act on students that exist
+		List<Long> known = new ArrayList<>();
+		for (List<Long> chunk : Chunks.partition(new LinkedHashSet<>(studentIds))) {
+			known.addAll(studentRepo.findExistingIds(chunk));
+		}
+		if (known.isEmpty()) {
+			return 0;
+		}
+
+		enrollmentUtil().deregisterStudents(known);
+		for (List<Long> chunk : Chunks.partition(known)) {
+			studentRepo.deleteAllByIdInBatch(chunk);
+		}
+		known.forEach(existenceIndex::studentRemoved);
+		if (readModel != null) {
+			readModel.studentsRemoved(known);
+		}
+		return known.size();
+	}
+
+	/**
+	 * Give up the seats of unpaid enrollments whose hold ran out; their
+	 * seats go to the heads of the waitlists. Paid or dropped ones are skipped.
+	 * @param enrollmentIds - holds that came due
+	 * @param now - time the holds are checked against
+	 * @return number of enrollments removed
+	 */
+	@Override
+	@Transactional
+	public int releaseExpiredHolds(Collection<Long> enrollmentIds, Instant now) {
+		return enrollmentUtil().releaseExpiredHolds(enrollmentIds, now);
 	}
 
 	/**
-	 * Swap Enrolled Course of the student
+	 * Swap Enrolled Course of the student.
+	 * Runs in its own transaction, retried when it loses a lock race.
 	 * @param studentId - Fetch Student Record from the system
 	 * @param oldCourseId - Course to be swapped
 	 * @param newCourseId - New Course to be enrolled
 	 * @return Updated EnrollmentDto to the user
 	 */
 	@Override
-	@Transactional
 	public EnrollmentDto updateCourseEnrollment(
 			Long studentId, Long oldCourseId, Long newCourseId) {
-		// Validate Old & New Courses Existence.
-		if (!courseRepo.existsById(oldCourseId)) {
-			throw new ResourceNotFoundException("Course Not Found with id: " + oldCourseId);
-		}
-		if (!courseRepo.existsById(newCourseId)) {
-			throw new ResourceNotFoundException("Course Not Found with id: " + newCourseId);
-		}
-		// De-register old course
-		new EnrollmentUtil(
-				enrollmentRepo, courseRepo, studentRepo, waitlistRepo
-				).deRegisterCourse(oldCourseId, studentId);
-		// Enroll new course
-		return new EnrollmentUtil(
-				enrollmentRepo, courseRepo, studentRepo, waitlistRepo
-				).enrollStudent(newCourseId, studentId);
+		// Course existence is checked by the row locks taken inside the swap
+		return swapRetry.execute(() -> {
+			wrote(studentId);
+			return enrollmentUtil().swapCourse(studentId, oldCourseId, newCourseId);
+		});
+	}
+
+	/**
+	 * @return course swap counters since startup
+	 */
+	@Override
+	public SwapStatsDto swapStats() {
+		return swapStats.snapshot();
 	}
 
 	/**
-	 * Retrieve all the enrollments of the student
+	 * Retrieve all the enrollments of the student.
+	 * Read from a replica when they are enabled, unless the student wrote recently.
 	 * @param studentId - Fetches Student Record
 	 * @return List of EnrollmentDto to the user
 	 */
 	@Override
 	public List<EnrollmentDto> retrieveEnrollments(Long studentId) {
+		if (replicaReads != null) {
+			return replicaReads.readFor(studentId, () -> loadEnrollments(studentId));
+		}
+		return loadEnrollments(studentId);
+	}
+
+	private List<EnrollmentDto> loadEnrollments(Long studentId) {
 		// Ensure Student Exists
-		if (!studentRepo.existsById(studentId)) {
+		if (!existenceIndex.studentExists(studentId)) {
 			throw new ResourceNotFoundException("Student Not Found with id: " + studentId);
 		}
 
+		if (readModel != null) {
+			return readModel.enrollmentsOf(studentId);
+		}
+		EnrollmentUtil util = enrollmentUtil();
 		return enrollmentRepo.findByStudentId(studentId).stream()
-				.map(AutoMapper.MAPPER::mapToEnrollmentDto)
+				.map(util::toDto)
 				.toList();
 	}
+
+	/** Keeps the student's reads on the primary for a while once this write commits */
+	private void wrote(Long studentId) {
+		if (replicaReads != null) {
+			replicaReads.wrote(studentId);
+		}
+	}
+
+	/**
+	 * Builds the enrollment utility with the optional collaborators that are enabled
+	 */
+	private EnrollmentUtil enrollmentUtil() {
+		return new EnrollmentUtil(enrollmentRepo, courseRepo, waitlistRepo, waitlistIndex)
+				.withSeatLedger(seatLedger)
+				.withSeatShards(seatShards)
+				.withEventPublisher(events)
+				.withSwapStats(swapStats)
+				.withMetrics(metrics)
+				.withSeatHolds(seatHolds)
+				.withReadModel(readModel)
+				.withWaitlistPriorities(priorities);
+	}
 }
@@ -0,0 +1,124 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.SwapStatsDto;
+
+/**
+ * Enrollment service that runs enroll and deregister through the
+ * per-course {@link CourseWritePipeline}.
+ *
+ * Methods here are deliberately not transactional: the caller only waits
+ * for the writer's batch, it never holds a connection while queued.
+ * Swaps, student removals and hold expiry touch several courses and stay on the direct path.
+ * A caller waits at most enrollment.pipeline.await-timeout-ms for its batch.
+ * A write still queued by then is cancelled and the caller gets a 503, so a
+ * retry starts from scratch; a write already running is waited for, so the
+ * caller gets its real outcome. A course whose queue is full also gets a 503.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(prefix = "enrollment.pipeline", name = "enabled", havingValue = "true")
+public class PipelinedEnrollmentService implements EnrollmentService {
+
+	private final EnrollmentServiceImpl delegate;
+	private final CourseWritePipeline pipeline;
+	private final long awaitTimeoutMs;
+
+	public PipelinedEnrollmentService(
+			EnrollmentServiceImpl delegate,
+			CourseWritePipeline pipeline,
+			@Value("${enrollment.pipeline.await-timeout-ms:5000}") long awaitTimeoutMs) {
+		this.delegate = delegate;
+		this.pipeline = pipeline;
+		this.awaitTimeoutMs = awaitTimeoutMs;
+	}
+
+	@Override
+	public EnrollmentDto enrollStudent(Long courseId, Long studentId) {
+		return await(pipeline.submitEnrollment(courseId, studentId, () -> delegate.enrollStudent(courseId, studentId)));
+	}
+
+	@Override
+	public void deregisterCourse(Long courseId, Long studentId) {
+		await(pipeline.submit(courseId, () -> {
+			delegate.deregisterCourse(courseId, studentId);
+			return null;
+		}));
+	}
+
+	@Override
+	public void deregisterStudent(Long studentId) {
+		delegate.deregisterStudent(studentId);
+	}
+
+	@Override
+	public int deregisterStudents(Collection<Long> studentIds) {
+		return delegate.deregisterStudents(studentIds);
+	}
+
+	@Override
+	public int releaseExpiredHolds(Collection<Long> enrollmentIds, Instant now) {
+		return delegate.releaseExpiredHolds(enrollmentIds, now);
+	}
+
+	@Override
+	public EnrollmentDto updateCourseEnrollment(Long studentId, Long oldCourseId, Long newCourseId) {
+		return delegate.updateCourseEnrollment(studentId, oldCourseId, newCourseId);
+	}
+
+	@Override
+	public List<EnrollmentDto> retrieveEnrollments(Long studentId) {
+		return delegate.retrieveEnrollments(studentId);
+	}
+
+	@Override
+	public SwapStatsDto swapStats() {
+		return delegate.swapStats();
+	}
+
+	/**
+	 * Waits for the writer and rethrows its failure as-is, so the usual
+	 * exception handlers still apply
+	 */
+	private <T> T await(CompletableFuture<T> result) {
+		try {
+			try {
+				return result.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException ex) {
+				if (result.cancel(false)) {
+					throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+							"Course writer did not start the write within " + awaitTimeoutMs + " ms; nothing was written");
+				}
+				// started: the writer's transaction timeout bounds this wait
+				return result.get();
+			}
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RejectedExecutionException full) {
+				throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, full.getMessage());
+			}
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the course writer");
+		}
+	}
+}
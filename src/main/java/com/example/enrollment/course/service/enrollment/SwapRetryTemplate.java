@@ -0,0 +1,83 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a swap in its own transaction and starts over when the database
+ * picks it as a deadlock victim or a lock wait times out.
+ *
+ * Backoff is exponential with full jitter, so colliding swaps spread out
+ * instead of meeting again. Inside an outer transaction the work runs
+ * once: the outer transaction is already doomed and only its owner can retry.
+ */
+@Slf4j
+@Component
+public class SwapRetryTemplate {
+
+	private final TransactionTemplate transactionTemplate;
+	private final SwapStats stats;
+	private final int maxAttempts;
+	private final long backoffMs;
+	private final long maxBackoffMs;
+
+	public SwapRetryTemplate(
+			PlatformTransactionManager transactionManager,
+			SwapStats stats,
+			@Value("${enrollment.swap.max-attempts:5}") int maxAttempts,
+			@Value("${enrollment.swap.backoff-ms:20}") long backoffMs,
+			@Value("${enrollment.swap.max-backoff-ms:500}") long maxBackoffMs) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.stats = stats;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoffMs = backoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+	}
+
+	/**
+	 * @param work - transactional work, re-run from scratch on every attempt
+	 * @return the work's result
+	 */
+	public <T> T execute(Supplier<T> work) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			stats.recordAttempt();
+			return work.get();
+		}
+		for (int attempt = 1; ; attempt++) {
+			stats.recordAttempt();
+			try {
+				return transactionTemplate.execute(status -> work.get());
+			} catch (PessimisticLockingFailureException ex) {
+				if (attempt >= maxAttempts) {
+					stats.recordExhausted();
+					throw ex;
+				}
+				stats.recordRetry();
+				log.debug("Swap attempt {} lost a lock race, retrying", attempt, ex);
+				sleep(attempt);
+			}
+		}
+	}
+
+	private void sleep(int attempt) {
+		long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+		if (ceiling <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new PessimisticLockingFailureException("Interrupted while backing off", ex);
+		}
+	}
+}
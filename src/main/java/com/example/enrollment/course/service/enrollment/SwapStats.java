@@ -0,0 +1,86 @@
+package com.example.enrollment.course.service.enrollment;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.dto.SwapStatsDto;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Counters for course swaps, used to tune the retry and backoff settings.
+ * Also published as enrollment.swap.* meters when a MeterRegistry is present.
+ */
+@Component
+public class SwapStats implements MeterBinder {
+
+	private final LongAdder attempts = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder exhausted = new LongAdder();
+	private final LongAdder lockWaits = new LongAdder();
+	private final LongAdder lockWaitNanos = new LongAdder();
+	private final LongAccumulator maxLockWaitNanos = new LongAccumulator(Math::max, 0);
+
+	void recordAttempt() {
+		attempts.increment();
+	}
+
+	void recordRetry() {
+		retries.increment();
+	}
+
+	void recordExhausted() {
+		exhausted.increment();
+	}
+
+	/**
+	 * Time one swap spent acquiring its course locks
+	 * @param nanos
+	 */
+	public void recordLockWait(long nanos) {
+		lockWaits.increment();
+		lockWaitNanos.add(nanos);
+		maxLockWaitNanos.accumulate(nanos);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("enrollment.swap.attempts", attempts, LongAdder::sum)
+				.description("Swap transactions started, retries included")
+				.register(registry);
+		FunctionCounter.builder("enrollment.swap.retries", retries, LongAdder::sum)
+				.description("Swaps retried after a lock failure")
+				.register(registry);
+		FunctionCounter.builder("enrollment.swap.exhausted", exhausted, LongAdder::sum)
+				.description("Swaps that failed after the last retry")
+				.register(registry);
+		FunctionTimer.builder("enrollment.swap.lock.wait", this,
+				stats -> stats.lockWaits.sum(), stats -> stats.lockWaitNanos.sum(), TimeUnit.NANOSECONDS)
+				.description("Time swaps spent acquiring their course locks")
+				.register(registry);
+		Gauge.builder("enrollment.swap.lock.wait.max", maxLockWaitNanos, max -> max.get() / 1e9)
+				.description("Longest lock wait since startup")
+				.baseUnit("seconds")
+				.register(registry);
+	}
+
+	/**
+	 * @return the counters since startup
+	 */
+	public SwapStatsDto snapshot() {
+		long waits = lockWaits.sum();
+		return new SwapStatsDto(
+				attempts.sum(),
+				retries.sum(),
+				exhausted.sum(),
+				waits == 0 ? 0.0 : lockWaitNanos.sum() / (double) waits / TimeUnit.MILLISECONDS.toNanos(1),
+				maxLockWaitNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+	}
+}
@@ -0,0 +1,133 @@
+package com.example.enrollment.course.service.existence;
+
+import java.util.function.LongPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory sets of every student id and course id, so the hot paths can
+ * answer "does it exist" without a query.
+ *
+ * A hit is trusted. A miss is confirmed against the database (and the id
+ * remembered if it turns out to exist), so the index can never produce a
+ * false negative: it only ever learns ids late and forgets them early.
+ * Ids are added once their insert commits and dropped as soon as their
+ * delete runs.
+ */
+@Slf4j
+@Component
+public class ExistenceIndex {
+
+	private static final String STUDENT_IDS_SQL = "SELECT student_id FROM students";
+	private static final String COURSE_IDS_SQL = "SELECT course_id FROM courses";
+
+	private final StudentRepository studentRepo;
+	private final CourseRepository courseRepo;
+	private final JdbcTemplate jdbcTemplate;
+	private final int fetchSize;
+
+	/** Null until loaded; every lookup goes to the database before that */
+	private volatile LongHashSet students;
+	private volatile LongHashSet courses;
+
+	public ExistenceIndex(StudentRepository studentRepo, CourseRepository courseRepo, JdbcTemplate jdbcTemplate,
+			@Value("${enrollment.existence-index.fetch-size:1000}") int fetchSize) {
+		this.studentRepo = studentRepo;
+		this.courseRepo = courseRepo;
+		this.jdbcTemplate = jdbcTemplate;
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Loads both id sets once the catalog loader has run
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		students = load(STUDENT_IDS_SQL);
+		courses = load(COURSE_IDS_SQL);
+		log.info("Existence index loaded {} students and {} courses", students.size(), courses.size());
+	}
+
+	/** Reloads the course ids after catalog writes */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCatalogChanged(CourseCatalogChangedEvent event) {
+		courses = load(COURSE_IDS_SQL);
+	}
+
+	/**
+	 * @param studentId
+	 * @return true if the student exists
+	 */
+	public boolean studentExists(Long studentId) {
+		return exists(students, studentId, id -> studentRepo.existsById(id));
+	}
+
+	/**
+	 * @param courseId
+	 * @return true if the course exists
+	 */
+	public boolean courseExists(Long courseId) {
+		return exists(courses, courseId, id -> courseRepo.existsById(id));
+	}
+
+	/**
+	 * Remembers a new student once the surrounding transaction commits
+	 * @param studentId
+	 */
+	public void studentAdded(Long studentId) {
+		LongHashSet set = students;
+		if (set != null && studentId != null) {
+			TransactionCallbacks.afterCommit(() -> set.add(studentId));
+		}
+	}
+
+	/**
+	 * Forgets a student right away; a rollback only costs a database lookup later
+	 * @param studentId
+	 */
+	public void studentRemoved(Long studentId) {
+		LongHashSet set = students;
+		if (set != null && studentId != null) {
+			set.remove(studentId);
+		}
+	}
+
+	private static boolean exists(LongHashSet set, Long id, LongPredicate database) {
+		if (id == null) {
+			return false;
+		}
+		if (set != null && set.contains(id)) {
+			return true;
+		}
+		boolean found = database.test(id);
+		if (found && set != null) {
+			// the row may belong to the caller's own uncommitted insert
+			TransactionCallbacks.afterCommit(() -> set.add(id));
+		}
+		return found;
+	}
+
+	private LongHashSet load(String sql) {
+		LongHashSet set = new LongHashSet(1024);
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement(sql);
+			ps.setFetchSize(fetchSize);
+			return ps;
+		}, rs -> {
+			set.add(rs.getLong(1));
+		});
+		return set;
+	}
+}
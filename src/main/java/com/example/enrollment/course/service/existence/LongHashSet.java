@@ -0,0 +1,142 @@
+package com.example.enrollment.course.service.existence;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Open-addressing hash set of primitive longs.
+ *
+ * Linear probing with backward-shift deletion, so no tombstones pile up.
+ * Costs about 16 bytes per id at the maximum load factor of one half,
+ * against roughly 50 for a HashSet of Long.
+ */
+final class LongHashSet {
+
+	/** Marks an empty slot; a real 0 is tracked separately */
+	private static final long EMPTY = 0L;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private long[] slots;
+	private int size;
+	private boolean containsZero;
+
+	LongHashSet(int expected) {
+		slots = new long[capacityFor(expected)];
+	}
+
+	boolean contains(long value) {
+		lock.readLock().lock();
+		try {
+			if (value == EMPTY) {
+				return containsZero;
+			}
+			int mask = slots.length - 1;
+			for (int i = mix(value) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+				if (slots[i] == value) {
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	void add(long value) {
+		lock.writeLock().lock();
+		try {
+			if (value == EMPTY) {
+				containsZero = true;
+				return;
+			}
+			if ((size + 1) * 2 > slots.length) {
+				rehash(slots.length * 2);
+			}
+			if (insert(slots, value)) {
+				size++;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void remove(long value) {
+		lock.writeLock().lock();
+		try {
+			if (value == EMPTY) {
+				containsZero = false;
+				return;
+			}
+			int mask = slots.length - 1;
+			int i = mix(value) & mask;
+			while (slots[i] != value) {
+				if (slots[i] == EMPTY) {
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			// shift back every later entry of the probe run that may move into the hole
+			int hole = i;
+			for (int j = (hole + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+				int home = mix(slots[j]) & mask;
+				if (((j - home) & mask) >= ((j - hole) & mask)) {
+					slots[hole] = slots[j];
+					hole = j;
+				}
+			}
+			slots[hole] = EMPTY;
+			size--;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	int size() {
+		lock.readLock().lock();
+		try {
+			return size + (containsZero ? 1 : 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void rehash(int capacity) {
+		long[] grown = new long[capacity];
+		for (long value : slots) {
+			if (value != EMPTY) {
+				insert(grown, value);
+			}
+		}
+		slots = grown;
+	}
+
+	private static boolean insert(long[] table, long value) {
+		int mask = table.length - 1;
+		int i = mix(value) & mask;
+		while (table[i] != EMPTY) {
+			if (table[i] == value) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		return true;
+	}
+
+	/** Spreads sequential ids over the table (murmur3 finalizer) */
+	private static int mix(long value) {
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	private static int capacityFor(int expected) {
+		int capacity = 16;
+		while (capacity < expected * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
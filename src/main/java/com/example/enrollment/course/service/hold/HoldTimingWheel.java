@@ -0,0 +1,176 @@
+package com.example.enrollment.course.service.hold;
+
+/**
+ * Hierarchical timing wheel of seat-hold deadlines.
+ *
+ * Four levels of 64 slots; a slot of level n spans 64^n ticks, so the wheel
+ * covers 64^4 ticks (194 days at one-second ticks) with 256 slots in all.
+ * Adding a hold is O(1), and every hold moves down at most three levels
+ * before it expires, so advancing costs O(ticks + expired holds) no matter
+ * how many holds are pending. Deadlines past the horizon wait in the top
+ * level and are filed again when their slot comes round.
+ *
+ * Holds are stored as pairs of primitive longs, about 16 bytes each.
+ * Nothing is ever cancelled: holds that were paid or dropped in the
+ * meantime simply come out as due, and the caller checks them against
+ * the database.
+ */
+public final class HoldTimingWheel {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+
+	/** Ticks covered by all levels together */
+	private static final long HORIZON = 1L << (SLOT_BITS * LEVELS);
+
+	private static final long[] NONE = new long[0];
+
+	private final long tickMillis;
+	private final Bucket[][] levels = new Bucket[LEVELS][SLOTS];
+
+	/** Holds added with a deadline the wheel has already passed */
+	private final Bucket overdue = new Bucket();
+
+	/** Next tick to process; everything before it has been handed out */
+	private long nextTick;
+	private int size;
+
+	/**
+	 * @param tickMillis - resolution; holds come out at most one tick late, never early
+	 * @param startMillis - current time, the wheel's first tick
+	 */
+	public HoldTimingWheel(long tickMillis, long startMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+		}
+		this.tickMillis = tickMillis;
+		this.nextTick = Math.floorDiv(startMillis, tickMillis);
+		for (Bucket[] level : levels) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				level[slot] = new Bucket();
+			}
+		}
+	}
+
+	/**
+	 * Schedules a hold; a deadline already passed comes out on the next advance
+	 * @param id - enrollment id
+	 * @param deadlineMillis - epoch millis at which the hold expires
+	 */
+	public synchronized void add(long id, long deadlineMillis) {
+		// round up, so a hold never comes out before its deadline
+		long deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+		if (deadlineTick < nextTick) {
+			overdue.add(id, deadlineTick);
+		} else {
+			file(id, deadlineTick);
+		}
+		size++;
+	}
+
+	/**
+	 * Moves the wheel up to the given time
+	 * @param nowMillis - current epoch millis
+	 * @return ids of all holds due by then, in deadline order by tick
+	 */
+	public synchronized long[] advance(long nowMillis) {
+		long nowTick = Math.floorDiv(nowMillis, tickMillis);
+		if (size == 0) {
+			nextTick = Math.max(nextTick, nowTick + 1);
+			return NONE;
+		}
+		Bucket due = new Bucket();
+		for (int i = 0; i < overdue.count; i++) {
+			due.add(overdue.entries[2 * i], overdue.entries[2 * i + 1]);
+		}
+		size -= overdue.count;
+		overdue.clear();
+		while (nextTick <= nowTick && size > 0) {
+			int slot = (int) (nextTick & MASK);
+			if (slot == 0) {
+				cascade(1);
+			}
+			Bucket bucket = levels[0][slot];
+			for (int i = 0; i < bucket.count; i++) {
+				due.add(bucket.entries[2 * i], nextTick);
+			}
+			size -= bucket.count;
+			bucket.clear();
+			nextTick++;
+		}
+		nextTick = Math.max(nextTick, nowTick + 1);
+		long[] ids = new long[due.count];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = due.entries[2 * i];
+		}
+		return ids;
+	}
+
+	/** Number of holds scheduled and not yet handed out */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Files the current slot of the given level into the levels below it,
+	 * after doing the same for the level above when this one wrapped round
+	 */
+	private void cascade(int level) {
+		if (level >= LEVELS) {
+			return;
+		}
+		int slot = (int) ((nextTick >>> (SLOT_BITS * level)) & MASK);
+		if (slot == 0) {
+			cascade(level + 1);
+		}
+		Bucket bucket = levels[level][slot];
+		long[] entries = bucket.entries;
+		int count = bucket.count;
+		bucket.clear();
+		for (int i = 0; i < count; i++) {
+			file(entries[2 * i], entries[2 * i + 1]);
+		}
+	}
+
+	/** Files a hold due at or after the next tick into the level its distance calls for */
+	private void file(long id, long deadlineTick) {
+		long delta = deadlineTick - nextTick;
+		if (delta >= HORIZON) {
+			// parked in the top level; filed again when that slot comes round
+			long parkedTick = nextTick + HORIZON - 1;
+			levels[LEVELS - 1][(int) ((parkedTick >>> (SLOT_BITS * (LEVELS - 1))) & MASK)].add(id, deadlineTick);
+			return;
+		}
+		int level = 0;
+		while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		levels[level][(int) ((deadlineTick >>> (SLOT_BITS * level)) & MASK)].add(id, deadlineTick);
+	}
+
+	/** Growable list of (id, deadline tick) pairs */
+	private static final class Bucket {
+
+		long[] entries = NONE;
+		int count;
+
+		void add(long id, long deadlineTick) {
+			if (2 * count == entries.length) {
+				long[] grown = new long[Math.max(8, entries.length * 2)];
+				System.arraycopy(entries, 0, grown, 0, entries.length);
+				entries = grown;
+			}
+			entries[2 * count] = id;
+			entries[2 * count + 1] = deadlineTick;
+			count++;
+		}
+
+		/** Drops the entries, letting go of the array so an emptied slot holds no memory */
+		void clear() {
+			entries = NONE;
+			count = 0;
+		}
+	}
+}
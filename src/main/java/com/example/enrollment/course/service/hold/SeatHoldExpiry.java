@@ -0,0 +1,91 @@
+package com.example.enrollment.course.service.hold;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.HoldDeadline;
+import com.example.enrollment.course.service.enrollment.EnrollmentService;
+import com.example.enrollment.course.service.util.Chunks;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Releases the seats of unpaid enrollments whose hold ran out.
+ *
+ * Every tick the due holds are taken from {@link SeatHolds} and released
+ * in bulk, a chunk per transaction; their seats go to the heads of the
+ * waitlists. The schedule is rebuilt from the enrollments table before the
+ * application starts serving requests, so holds survive a restart.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.seat-hold", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SeatHoldExpiry implements SmartInitializingSingleton {
+
+	private final SeatHolds seatHolds;
+	private final EnrollmentRepository enrollmentRepo;
+	private final EnrollmentService enrollmentService;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	/**
+	 * Schedules every hold stored on an enrollment, reading them a page at a
+	 * time in id order. Holds that ran out while the application was down
+	 * are released on the first tick.
+	 */
+	public void rebuild() {
+		long after = 0;
+		int holds = 0;
+		List<HoldDeadline> page;
+		do {
+			page = enrollmentRepo.findHoldsAfter(after, Limit.of(Chunks.SIZE));
+			for (HoldDeadline hold : page) {
+				seatHolds.load(hold.getEnrollmentId(), hold.getHoldExpiresAt());
+				after = hold.getEnrollmentId();
+			}
+			holds += page.size();
+		} while (page.size() == Chunks.SIZE);
+		log.info("Seat holds loaded {} pending holds", holds);
+	}
+
+	@Scheduled(fixedDelayString = "${enrollment.seat-hold.tick-ms:1000}")
+	public void expireDue() {
+		expire(Instant.now());
+	}
+
+	/**
+	 * Releases every hold due by the given time.
+	 * A chunk that fails is scheduled again for the next tick.
+	 * @param now - current time
+	 * @return number of seats released or handed to the waitlist
+	 */
+	public int expire(Instant now) {
+		List<Long> due = Arrays.stream(seatHolds.due(now)).boxed().toList();
+		int released = 0;
+		for (List<Long> chunk : Chunks.partition(due)) {
+			try {
+				released += enrollmentService.releaseExpiredHolds(chunk, now);
+			} catch (RuntimeException ex) {
+				chunk.forEach(id -> seatHolds.load(id, now));
+				log.warn("Releasing {} expired seat holds failed, will retry", chunk.size(), ex);
+			}
+		}
+		if (released > 0) {
+			log.info("Released {} expired seat holds", released);
+		}
+		return released;
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.enrollment.course.service.hold;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+/**
+ * Time limit on unpaid seats.
+ *
+ * Every seat taken (enrolled, promoted from the waitlist or swapped into)
+ * is held for enrollment.seat-hold.ttl-ms while its payment is PENDING.
+ * The deadline is stored on the enrollment, and scheduled here in a
+ * {@link HoldTimingWheel} once the transaction that took the seat commits;
+ * {@link SeatHoldExpiry} releases the seats that come due.
+ * Enable with enrollment.seat-hold.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(prefix = "enrollment.seat-hold", name = "enabled", havingValue = "true")
+public class SeatHolds {
+
+	private final long ttlMillis;
+	private final HoldTimingWheel wheel;
+
+	public SeatHolds(@Value("${enrollment.seat-hold.ttl-ms:1800000}") long ttlMillis,
+			@Value("${enrollment.seat-hold.tick-ms:1000}") long tickMillis) {
+		this.ttlMillis = ttlMillis;
+		this.wheel = new HoldTimingWheel(tickMillis, System.currentTimeMillis());
+	}
+
+	/**
+	 * @return deadline of a seat taken now
+	 */
+	public Instant newDeadline() {
+		return Instant.now().plusMillis(ttlMillis);
+	}
+
+	/**
+	 * Schedules the hold once the surrounding transaction commits
+	 * @param enrollmentId
+	 * @param deadline - as stored on the enrollment
+	 */
+	public void track(Long enrollmentId, Instant deadline) {
+		TransactionCallbacks.afterCommit(() -> wheel.add(enrollmentId, deadline.toEpochMilli()));
+	}
+
+	/**
+	 * Schedules several holds with the same deadline once the surrounding transaction commits
+	 * @param enrollmentIds
+	 * @param deadline - as stored on the enrollments
+	 */
+	public void track(Collection<Long> enrollmentIds, Instant deadline) {
+		TransactionCallbacks.afterCommit(() -> enrollmentIds.forEach(id -> wheel.add(id, deadline.toEpochMilli())));
+	}
+
+	/**
+	 * Schedules a hold read back from the database, or one to retry, right away
+	 * @param enrollmentId
+	 * @param deadline
+	 */
+	public void load(Long enrollmentId, Instant deadline) {
+		wheel.add(enrollmentId, deadline.toEpochMilli());
+	}
+
+	/**
+	 * Takes the holds that are due out of the schedule
+	 * @param now - current time
+	 * @return enrollment ids whose hold may have expired
+	 */
+	public long[] due(Instant now) {
+		return wheel.advance(now.toEpochMilli());
+	}
+
+	/**
+	 * @return number of holds still scheduled, paid ones included
+	 */
+	public int scheduled() {
+		return wheel.size();
+	}
+}
@@ -0,0 +1,117 @@
+package com.example.enrollment.course.service.idempotency;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.enrollment.course.entity.IdempotencyRecord;
+import com.example.enrollment.course.exception.ErrorDetails;
+import com.example.enrollment.course.service.idempotency.IdempotentResponses.Claim;
+import com.example.enrollment.course.service.idempotency.IdempotentResponses.StoredResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Answers a retried enroll, deregister, swap or other mutating request with
+ * the response its Idempotency-Key got the first time, without running it
+ * again.
+ *
+ * The key is bound to the method and path it was first sent with; the same
+ * key on another request is rejected with 400. Status, content type and body
+ * are replayed. Server errors are not kept, so a retry after a 5xx runs again.
+ * Payment confirmations are left to their own key handling in the payments
+ * table.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String KEY_HEADER = "Idempotency-Key";
+
+	/** Set on a response that is a replay of the first one */
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private final IdempotentResponses responses;
+	private final ObjectMapper objectMapper;
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		HttpMethod method = HttpMethod.valueOf(request.getMethod());
+		return request.getHeader(KEY_HEADER) == null
+				|| method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS
+				|| request.getRequestURI().endsWith("/payments");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String key = request.getHeader(KEY_HEADER).trim();
+		if (key.isEmpty() || key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+			sendError(request, response, HttpStatus.BAD_REQUEST, "INVALID IDEMPOTENCY KEY",
+					KEY_HEADER + " must be 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters");
+			return;
+		}
+		String target = request.getMethod() + " " + request.getRequestURI()
+				+ (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+
+		Claim claim = responses.claim(key, target);
+		switch (claim.outcome()) {
+			case REPLAY -> replay(claim.response(), response);
+			case KEY_REUSED -> sendError(request, response, HttpStatus.BAD_REQUEST, "DUPLICATE RESOURCE FOUND",
+					KEY_HEADER + " " + key + " was already used for " + claim.response().request());
+			case IN_PROGRESS -> sendError(request, response, HttpStatus.CONFLICT, "REQUEST IN PROGRESS",
+					"The request with " + KEY_HEADER + " " + key + " is still being processed, retry later");
+			case CLAIMED -> run(key, target, request, response, chain);
+		}
+	}
+
+	private void run(String key, String target, HttpServletRequest request, HttpServletResponse response,
+			FilterChain chain) throws ServletException, IOException {
+		ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+		boolean kept = false;
+		try {
+			chain.doFilter(request, recorded);
+			if (recorded.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+				responses.complete(key, new StoredResponse(target, recorded.getStatus(),
+						recorded.getContentType(), recorded.getContentAsByteArray()));
+				kept = true;
+			}
+		} finally {
+			if (!kept) {
+				responses.release(key);
+			}
+			recorded.copyBodyToResponse();
+		}
+	}
+
+	private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+		response.setStatus(stored.status());
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (stored.contentType() != null) {
+			response.setContentType(stored.contentType());
+		}
+		if (stored.body() != null && stored.body().length > 0) {
+			response.setContentLength(stored.body().length);
+			response.getOutputStream().write(stored.body());
+		}
+	}
+
+	private void sendError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+			String errorCode, String message) throws IOException {
+		ErrorDetails details = new ErrorDetails(LocalDateTime.now(), message, "uri=" + request.getRequestURI(), errorCode);
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), details);
+	}
+}
@@ -0,0 +1,248 @@
+package com.example.enrollment.course.service.idempotency;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.IdempotencyRecord;
+import com.example.enrollment.course.repository.IdempotencyRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Responses kept by Idempotency-Key, so a retried request gets the first
+ * response instead of running again.
+ *
+ * The last enrollment.idempotency.max-cached responses are kept in an LRU
+ * map; every response is also stored in the idempotency_keys table for
+ * enrollment.idempotency.ttl-ms, so replays survive eviction, restarts and
+ * other instances. A key is claimed by inserting its row before the request
+ * runs: a retry arriving meanwhile on this instance waits for the first
+ * response, one arriving on another instance is told the request is still
+ * in progress.
+ *
+ * A claim that gets no response, because its instance died or storing the
+ * response failed, is taken over by the next retry once it is older than
+ * enrollment.idempotency.in-progress-lease-ms. The lease must outlast the
+ * slowest request, or a retry on another instance runs it a second time.
+ */
+@Slf4j
+@Component
+public class IdempotentResponses {
+
+	private static final String CLAIM_SQL =
+			"INSERT INTO idempotency_keys (idempotency_key, request, claimed_at, expires_at) VALUES (?, ?, ?, ?)";
+
+	/** A response as first sent for a key */
+	public record StoredResponse(String request, int status, String contentType, byte[] body) {
+	}
+
+	public enum Outcome {
+		/** The caller owns the key; it must run the request, then complete or release it */
+		CLAIMED,
+		/** The key has a response for this request; send it again */
+		REPLAY,
+		/** The key was first used for another request */
+		KEY_REUSED,
+		/** Another instance is still running the first request */
+		IN_PROGRESS
+	}
+
+	/**
+	 * @param outcome - what to do with the request
+	 * @param response - the stored response for REPLAY and KEY_REUSED, else null
+	 */
+	public record Claim(Outcome outcome, StoredResponse response) {
+
+		static final Claim CLAIMED = new Claim(Outcome.CLAIMED, null);
+		static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, null);
+
+		static Claim of(StoredResponse response, String request) {
+			return new Claim(response.request().equals(request) ? Outcome.REPLAY : Outcome.KEY_REUSED, response);
+		}
+	}
+
+	private record Cached(StoredResponse response, long expiresAtMillis) {
+	}
+
+	private final IdempotencyRecordRepository recordRepo;
+	private final JdbcTemplate jdbcTemplate;
+	private final long ttlMillis;
+	private final long leaseMillis;
+	private final Map<String, Cached> recent;
+
+	/** Requests running on this instance; completed with their response, or null when released */
+	private final Map<String, CompletableFuture<StoredResponse>> running = new ConcurrentHashMap<>();
+
+	public IdempotentResponses(IdempotencyRecordRepository recordRepo, JdbcTemplate jdbcTemplate,
+			@Value("${enrollment.idempotency.max-cached:10000}") int maxCached,
+			@Value("${enrollment.idempotency.ttl-ms:86400000}") long ttlMillis,
+			@Value("${enrollment.idempotency.in-progress-lease-ms:60000}") long leaseMillis) {
+		this.recordRepo = recordRepo;
+		this.jdbcTemplate = jdbcTemplate;
+		this.ttlMillis = ttlMillis;
+		this.leaseMillis = leaseMillis;
+		this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+				return size() > maxCached;
+			}
+		};
+	}
+
+	/**
+	 * Claims a key for a request, or finds the response it already has.
+	 * Waits while the same key runs on this instance.
+	 * @param key - Idempotency-Key header
+	 * @param request - method and path of the request
+	 */
+	public Claim claim(String key, String request) {
+		while (true) {
+			StoredResponse cached = cached(key);
+			if (cached != null) {
+				return Claim.of(cached, request);
+			}
+			CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+			CompletableFuture<StoredResponse> first = running.putIfAbsent(key, mine);
+			if (first != null) {
+				StoredResponse response = first.join();
+				if (response != null) {
+					return Claim.of(response, request);
+				}
+				continue;	// released without a response, try to claim it ourselves
+			}
+			Claim claim;
+			try {
+				claim = claimRow(key, request);
+			} catch (RuntimeException ex) {
+				finish(key, null);
+				throw ex;
+			}
+			if (claim.outcome() != Outcome.CLAIMED) {
+				StoredResponse found = claim.response() != null && claim.response().status() > 0 ? claim.response() : null;
+				if (found != null) {
+					cache(key, found);
+				}
+				finish(key, found);
+			}
+			return claim;
+		}
+	}
+
+	/**
+	 * Stores the response of a claimed key and hands it to requests waiting for it
+	 */
+	public void complete(String key, StoredResponse response) {
+		try {
+			recordRepo.complete(key, response.status(), response.contentType(), response.body());
+		} catch (RuntimeException ex) {
+			// retries on this instance are still answered from memory
+			log.warn("Storing the response for Idempotency-Key {} failed", key, ex);
+		} finally {
+			cache(key, response);
+			finish(key, response);
+		}
+	}
+
+	/**
+	 * Gives up a claimed key without a response, e.g. after a server error,
+	 * so the next retry runs the request again
+	 */
+	public void release(String key) {
+		try {
+			recordRepo.release(key);
+		} finally {
+			finish(key, null);
+		}
+	}
+
+	/** Drops expired keys from the table */
+	@Scheduled(fixedDelayString = "${enrollment.idempotency.purge-ms:60000}")
+	public void purgeExpired() {
+		int purged = recordRepo.deleteExpired(Instant.now());
+		if (purged > 0) {
+			log.debug("Purged {} expired idempotency keys", purged);
+		}
+	}
+
+	/**
+	 * Inserts the key's row; if it exists, reads it instead.
+	 * An expired row, or a claim of the same request past its lease, is
+	 * deleted and the insert tried once more.
+	 */
+	private Claim claimRow(String key, String request) {
+		Instant now = Instant.now();
+		boolean retried = false;
+		while (true) {
+			try {
+				jdbcTemplate.update(CLAIM_SQL, key, request, Timestamp.from(now), Timestamp.from(now.plusMillis(ttlMillis)));
+				return Claim.CLAIMED;
+			} catch (DuplicateKeyException taken) {
+				Optional<IdempotencyRecord> found = recordRepo.findById(key);
+				boolean gone = found.isEmpty()
+						|| (!found.get().getExpiresAt().isAfter(now) && recordRepo.deleteIfExpired(key, now) == 1)
+						|| (abandoned(found.get(), request, now)
+								&& recordRepo.deleteIfAbandoned(key, now.minusMillis(leaseMillis)) == 1);
+				if (gone && !retried) {
+					retried = true;
+					continue;
+				}
+				if (gone) {
+					return Claim.IN_PROGRESS;
+				}
+				IdempotencyRecord record = found.get();
+				// status 0 marks a key whose first request has no response yet
+				int status = record.getResponseStatus() == null ? 0 : record.getResponseStatus();
+				if (status == 0 && record.getRequest().equals(request)) {
+					return Claim.IN_PROGRESS;
+				}
+				return Claim.of(new StoredResponse(record.getRequest(), status,
+						record.getContentType(), record.getResponseBody()), request);
+			}
+		}
+	}
+
+	/** A claim of this request with no response that has outlived its lease */
+	private boolean abandoned(IdempotencyRecord record, String request, Instant now) {
+		return record.getResponseStatus() == null
+				&& record.getRequest().equals(request)
+				&& !record.getClaimedAt().plusMillis(leaseMillis).isAfter(now);
+	}
+
+	private StoredResponse cached(String key) {
+		synchronized (recent) {
+			Cached cached = recent.get(key);
+			if (cached == null) {
+				return null;
+			}
+			if (cached.expiresAtMillis() <= System.currentTimeMillis()) {
+				recent.remove(key);
+				return null;
+			}
+			return cached.response();
+		}
+	}
+
+	private void cache(String key, StoredResponse response) {
+		synchronized (recent) {
+			recent.put(key, new Cached(response, System.currentTimeMillis() + ttlMillis));
+		}
+	}
+
+	private void finish(String key, StoredResponse response) {
+		CompletableFuture<StoredResponse> mine = running.remove(key);
+		if (mine != null) {
+			mine.complete(response);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.enrollment.course.service.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for enrollment outcomes, seat contention and waitlists.
+ *
+ * Per-course meters carry a "course" tag, but only for the first
+ * enrollment.metrics.max-course-tags courses seen; every later course is
+ * reported under course="other" so a large catalog cannot flood the registry.
+ */
+@Component
+public class EnrollmentMetrics {
+
+	/** Tag value shared by every course past the tag limit */
+	public static final String OTHER_COURSES = "other";
+
+	private final MeterRegistry registry;
+	private final WaitlistIndex waitlistIndex;
+	private final int maxCourseTags;
+
+	/** Courses that have their own tag value -> that value */
+	private final Map<Long, String> courseTags = new ConcurrentHashMap<>();
+
+	private final Timer promotionTimer;
+
+	public EnrollmentMetrics(MeterRegistry registry, WaitlistIndex waitlistIndex,
+			@Value("${enrollment.metrics.max-course-tags:100}") int maxCourseTags) {
+		this.registry = registry;
+		this.waitlistIndex = waitlistIndex;
+		this.maxCourseTags = maxCourseTags;
+		this.promotionTimer = Timer.builder("enrollment.waitlist.promotion")
+				.description("Time to move waitlisted students into freed seats")
+				.publishPercentileHistogram()
+				.register(registry);
+		Gauge.builder("enrollment.waitlist.depth", this, EnrollmentMetrics::untaggedWaitlistDepth)
+				.description("Students waiting for a seat")
+				.tag("course", OTHER_COURSES)
+				.register(registry);
+	}
+
+	/**
+	 * Counts one enrollment outcome once the surrounding transaction commits
+	 * @param courseId
+	 * @param status - ENROLLED or WAITLISTED
+	 */
+	public void recordOutcome(Long courseId, EnrollmentStatus status) {
+		Counter counter = Counter.builder("enrollment.outcomes")
+				.description("Enrollments by the status they were created with")
+				.tag("outcome", status.name().toLowerCase(Locale.ROOT))
+				.tag("course", courseTag(courseId))
+				.register(registry);
+		TransactionCallbacks.afterCommit(counter::increment);
+	}
+
+	/**
+	 * Counts a seat take that found no free seat: the course was full, or
+	 * concurrent requests took the last seats first
+	 * @param courseId
+	 */
+	public void recordSeatMiss(Long courseId) {
+		Counter.builder("enrollment.seat.misses")
+				.description("Seat decrements that matched no row")
+				.tag("course", courseTag(courseId))
+				.register(registry)
+				.increment();
+	}
+
+	/**
+	 * Starts timing a waitlist promotion
+	 * @return sample to hand to {@link #stopPromotion(Timer.Sample)}
+	 */
+	public Timer.Sample startPromotion() {
+		return Timer.start(registry);
+	}
+
+	public void stopPromotion(Timer.Sample sample) {
+		sample.stop(promotionTimer);
+	}
+
+	/**
+	 * Tag value for a course, claiming one of the limited per-course values
+	 * (and a waitlist depth gauge) for courses seen while any are left
+	 */
+	String courseTag(Long courseId) {
+		String tag = courseTags.get(courseId);
+		if (tag != null) {
+			return tag;
+		}
+		synchronized (courseTags) {
+			tag = courseTags.get(courseId);
+			if (tag != null) {
+				return tag;
+			}
+			if (courseTags.size() >= maxCourseTags) {
+				return OTHER_COURSES;
+			}
+			tag = String.valueOf(courseId);
+			Gauge.builder("enrollment.waitlist.depth", waitlistIndex, index -> index.size(courseId))
+					.description("Students waiting for a seat")
+					.tag("course", tag)
+					.register(registry);
+			courseTags.put(courseId, tag);
+			return tag;
+		}
+	}
+
+	/** Waitlisted students of every course without its own gauge */
+	private double untaggedWaitlistDepth() {
+		long depth = waitlistIndex.totalSize();
+		for (Long courseId : courseTags.keySet()) {
+			depth -= waitlistIndex.size(courseId);
+		}
+		return Math.max(depth, 0);
+	}
+}
@@ -0,0 +1,147 @@
+package com.example.enrollment.course.service.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.enrollment.course.service.metrics.StatementCounter.Tally;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the SQL statements, rows and database time of every HTTP request.
+ *
+ * The numbers go into X-Sql-Statements, X-Sql-Rows and Server-Timing (db)
+ * response headers, set just before the response commits, and into the
+ * http.server.requests.statements summary. Requests over
+ * enrollment.sql.statement-budget statements, or repeating one statement
+ * at least enrollment.sql.repeat-threshold times (the usual N+1 shape),
+ * are logged as warnings.
+ */
+@Slf4j
+@Component
+public class RequestStatementsFilter extends OncePerRequestFilter {
+
+	public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+	public static final String ROWS_HEADER = "X-Sql-Rows";
+	public static final String TIMING_HEADER = "Server-Timing";
+
+	private final MeterRegistry registry;
+	private final int statementBudget;
+	private final int repeatThreshold;
+
+	public RequestStatementsFilter(MeterRegistry registry,
+			@Value("${enrollment.sql.statement-budget:20}") int statementBudget,
+			@Value("${enrollment.sql.repeat-threshold:10}") int repeatThreshold) {
+		this.registry = registry;
+		this.statementBudget = statementBudget;
+		this.repeatThreshold = repeatThreshold;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		StatementCounter.start();
+		StatsHeaderResponse wrapped = new StatsHeaderResponse(response);
+		try {
+			chain.doFilter(request, wrapped);
+		} finally {
+			wrapped.addStatsHeaders();
+			Tally tally = StatementCounter.stop();
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+			DistributionSummary.builder("http.server.requests.statements")
+					.description("SQL statements executed per request")
+					.tag("method", request.getMethod())
+					.tag("uri", uri)
+					.publishPercentileHistogram()
+					.register(registry)
+					.record(tally.statements());
+			checkBudget(request.getMethod() + " " + request.getRequestURI(), tally);
+		}
+	}
+
+	private void checkBudget(String request, Tally tally) {
+		if (tally.statements() > statementBudget) {
+			log.warn("{} ran {} SQL statements (budget {}), {} rows, {} ms", request, tally.statements(),
+					statementBudget, tally.rows(), String.format(Locale.ROOT, "%.1f", tally.millis()));
+		}
+		if (tally.mostRepeatedCount() >= repeatThreshold) {
+			log.warn("{} ran the same statement {} times, likely N+1: {}", request, tally.mostRepeatedCount(),
+					tally.mostRepeatedSql());
+		}
+	}
+
+	/**
+	 * Adds the statement headers once, right before the response commits;
+	 * statements a streaming body runs afterwards are only counted in the metric
+	 */
+	private static final class StatsHeaderResponse extends HttpServletResponseWrapper {
+
+		private boolean added;
+
+		StatsHeaderResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		void addStatsHeaders() {
+			if (added || isCommitted()) {
+				return;
+			}
+			added = true;
+			Tally tally = StatementCounter.peek();
+			setHeader(STATEMENTS_HEADER, String.valueOf(tally.statements()));
+			setHeader(ROWS_HEADER, String.valueOf(tally.rows()));
+			addHeader(TIMING_HEADER, String.format(Locale.ROOT, "db;dur=%.2f", tally.millis()));
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			addStatsHeaders();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			addStatsHeaders();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			addStatsHeaders();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			addStatsHeaders();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			addStatsHeaders();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			addStatsHeaders();
+			super.sendRedirect(location);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.enrollment.course.service.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the JDBC statements, rows and database time of the current thread
+ * between {@link #start()} and {@link #stop()}. Statements run on other
+ * threads (scheduled flushes, pipelined writers) are not attributed to anyone.
+ */
+public final class StatementCounter {
+
+	private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+	private StatementCounter() {
+	}
+
+	/**
+	 * What one thread executed while counting
+	 * @param statements - executed statements, a JDBC batch counts once
+	 * @param rows - rows read through result sets plus rows updated
+	 * @param nanos - time spent inside execute calls
+	 * @param bySql - executions per SQL text, in first-run order
+	 */
+	public record Tally(int statements, long rows, long nanos, Map<String, Integer> bySql) {
+
+		static final Tally EMPTY = new Tally(0, 0, 0, Map.of());
+
+		public double millis() {
+			return nanos / 1_000_000.0;
+		}
+
+		/** The statement executed most often, null if none ran */
+		public String mostRepeatedSql() {
+			String mostRepeated = null;
+			int most = 0;
+			for (Map.Entry<String, Integer> entry : bySql.entrySet()) {
+				if (entry.getValue() > most) {
+					mostRepeated = entry.getKey();
+					most = entry.getValue();
+				}
+			}
+			return mostRepeated;
+		}
+
+		public int mostRepeatedCount() {
+			String sql = mostRepeatedSql();
+			return sql == null ? 0 : bySql.get(sql);
+		}
+	}
+
+	/** Starts counting on this thread, discarding any earlier count */
+	public static void start() {
+		CURRENT.set(new Counts());
+	}
+
+	/**
+	 * @return what this thread executed since {@link #start()}, without stopping
+	 */
+	public static Tally peek() {
+		Counts counts = CURRENT.get();
+		return counts == null ? Tally.EMPTY : counts.tally();
+	}
+
+	/**
+	 * Stops counting on this thread
+	 * @return what was executed since {@link #start()}, all zero if it was never called
+	 */
+	public static Tally stop() {
+		Tally tally = peek();
+		CURRENT.remove();
+		return tally;
+	}
+
+	/** Called by {@link StatementCountingDataSource} after every executed statement */
+	static void executed(String sql, long nanos, long rows) {
+		Counts counts = CURRENT.get();
+		if (counts != null) {
+			counts.statements++;
+			counts.nanos += nanos;
+			counts.rows += rows;
+			if (sql != null) {
+				counts.bySql.merge(sql, 1, Integer::sum);
+			}
+		}
+	}
+
+	/** Called by {@link StatementCountingDataSource} for every row read from a result set */
+	static void rowRead() {
+		Counts counts = CURRENT.get();
+		if (counts != null) {
+			counts.rows++;
+		}
+	}
+
+	private static final class Counts {
+
+		int statements;
+		long rows;
+		long nanos;
+		final Map<String, Integer> bySql = new LinkedHashMap<>();
+
+		Tally tally() {
+			return new Tally(statements, rows, nanos, Collections.unmodifiableMap(new LinkedHashMap<>(bySql)));
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.example.enrollment.course.service.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps the pool's connections so every statement execution is reported to
+ * {@link StatementCounter}: its SQL, the time spent executing it and the rows
+ * it updated or returned. Covers JPA and JdbcTemplate alike; a JDBC batch
+ * counts as one statement, since it is one round trip.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+	public StatementCountingDataSource(DataSource target) {
+		super(target);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return countStatements(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return countStatements(super.getConnection(username, password));
+	}
+
+	private static Connection countStatements(Connection connection) {
+		return proxy(Connection.class, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			// prepareStatement and prepareCall take the SQL up front, createStatement per execute call
+			String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+			if (result instanceof CallableStatement statement) {
+				return countExecutions(statement, CallableStatement.class, sql);
+			}
+			if (result instanceof PreparedStatement statement) {
+				return countExecutions(statement, PreparedStatement.class, sql);
+			}
+			if (result instanceof Statement statement) {
+				return countExecutions(statement, Statement.class, null);
+			}
+			return result;
+		});
+	}
+
+	private static <S extends Statement> S countExecutions(S statement, Class<S> type, String preparedSql) {
+		return proxy(type, (proxy, method, args) -> {
+			String name = method.getName();
+			if (!name.startsWith("execute")) {
+				Object result = invoke(statement, method, args);
+				return name.equals("getResultSet") && result instanceof ResultSet resultSet
+						? countRows(resultSet) : result;
+			}
+			String sql = preparedSql != null ? preparedSql
+					: args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+			long start = System.nanoTime();
+			Object result = null;
+			try {
+				result = invoke(statement, method, args);
+			} finally {
+				// failed statements still cost a round trip
+				StatementCounter.executed(sql, System.nanoTime() - start, updatedRows(result));
+			}
+			return result instanceof ResultSet resultSet ? countRows(resultSet) : result;
+		});
+	}
+
+	private static ResultSet countRows(ResultSet resultSet) {
+		return proxy(ResultSet.class, (proxy, method, args) -> {
+			Object result = invoke(resultSet, method, args);
+			if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+				StatementCounter.rowRead();
+			}
+			return result;
+		});
+	}
+
+	/** Rows reported by executeUpdate and executeBatch; unknown counts are left out */
+	private static long updatedRows(Object result) {
+		if (result instanceof Number count) {
+			return Math.max(count.longValue(), 0);
+		}
+		long rows = 0;
+		if (result instanceof int[] counts) {
+			for (int count : counts) {
+				rows += Math.max(count, 0);
+			}
+		} else if (result instanceof long[] counts) {
+			for (long count : counts) {
+				rows += Math.max(count, 0);
+			}
+		}
+		return rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+				new Class<?>[] { type }, handler);
+	}
+
+	/** Calls the real JDBC object, rethrowing its own exception rather than the reflection wrapper */
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package com.example.enrollment.course.service.payment;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.dto.PaymentDto;
+import com.example.enrollment.course.dto.PaymentRequestDto;
+import com.example.enrollment.course.entity.Payment;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.exception.CourseFullException;
+import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.mapper.AutoMapper;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.PaymentTarget;
+import com.example.enrollment.course.repository.PaymentRepository;
+import com.example.enrollment.course.service.readmodel.EnrollmentReadModel;
+import com.example.enrollment.course.service.util.Chunks;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Confirmation stage for payment callbacks.
+ *
+ * Callbacks queue up here and a single writer applies whatever has queued,
+ * up to enrollment.payments.max-batch-size, in one transaction: one lookup
+ * of the idempotency keys, one locked read of the enrollments, one JDBC
+ * batch of payment rows and one UPDATE of the enrollments' payment status.
+ * A burst at the fee deadline therefore costs a handful of transactions
+ * instead of one per callback. Callers get a future completed after the
+ * batch commits, so an acknowledged payment is never lost.
+ *
+ * A key seen before returns its recorded payment. If the batch fails as a
+ * whole it is rolled back and replayed one confirmation per transaction.
+ */
+@Slf4j
+@Component
+public class PaymentConfirmations {
+
+	private static final String INSERT_PAYMENT_SQL =
+			"INSERT INTO payments (enrollment_id, payment_method, payment_status, idempotency_key, confirmed_at) "
+			+ "VALUES (?, ?, ?, ?, ?)";
+
+	private final PaymentRepository paymentRepo;
+	private final EnrollmentRepository enrollmentRepo;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int maxBatchSize;
+	private final ExecutorService writer;
+	private final Queue<Confirmation> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	/** In-memory enrollments per student, present only when enrollment.read-model.enabled=true */
+	@Autowired(required = false)
+	private EnrollmentReadModel readModel;
+
+	public PaymentConfirmations(PaymentRepository paymentRepo, EnrollmentRepository enrollmentRepo,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${enrollment.payments.max-batch-size:500}") int maxBatchSize) {
+		this.paymentRepo = paymentRepo;
+		this.enrollmentRepo = enrollmentRepo;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.maxBatchSize = maxBatchSize;
+		this.writer = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "payment-confirmer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a payment confirmation
+	 * @param idempotencyKey - client key; the same key always yields the same payment
+	 * @param request - enrollment and payment method
+	 * @return future completed with the recorded payment once its batch commits
+	 */
+	public CompletableFuture<PaymentDto> submit(String idempotencyKey, PaymentRequestDto request) {
+		Confirmation confirmation = new Confirmation(idempotencyKey, request);
+		queue.add(confirmation);
+		schedule();
+		return confirmation.future;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		writer.shutdown();
+	}
+
+	private void schedule() {
+		if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+			writer.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			List<Confirmation> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+			Confirmation next;
+			while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+				batch.add(next);
+			}
+			if (!batch.isEmpty()) {
+				runBatch(batch);
+			}
+		} finally {
+			draining.set(false);
+			schedule();
+		}
+	}
+
+	private void runBatch(List<Confirmation> batch) {
+		List<Object> outcomes;
+		try {
+			outcomes = transactionTemplate.execute(status -> apply(batch));
+		} catch (RuntimeException batchFailure) {
+			if (batch.size() == 1) {
+				batch.get(0).future.completeExceptionally(batchFailure);
+			} else {
+				log.debug("Payment batch of {} failed, replaying one by one", batch.size(), batchFailure);
+				batch.forEach(this::runAlone);
+			}
+			return;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).complete(outcomes.get(i));
+		}
+	}
+
+	private void runAlone(Confirmation confirmation) {
+		try {
+			confirmation.complete(transactionTemplate.execute(status -> apply(List.of(confirmation))).get(0));
+		} catch (RuntimeException ex) {
+			confirmation.future.completeExceptionally(ex);
+		}
+	}
+
+	/**
+	 * Records the payments of one batch with set-based statements
+	 * @return per confirmation, its payment or the exception to fail it with
+	 */
+	private List<Object> apply(List<Confirmation> batch) {
+		// Keys recorded by earlier batches are replays
+		Set<String> keys = new LinkedHashSet<>();
+		Set<Long> enrollmentIds = new LinkedHashSet<>();
+		for (Confirmation confirmation : batch) {
+			keys.add(confirmation.idempotencyKey);
+			enrollmentIds.add(confirmation.request.getEnrollmentId());
+		}
+		Map<String, Payment> recorded = new HashMap<>();
+		for (List<String> chunk : Chunks.partition(keys)) {
+			paymentRepo.findByIdempotencyKeyIn(chunk).forEach(p -> recorded.put(p.getIdempotencyKey(), p));
+		}
+		Map<Long, PaymentTarget> targets = new HashMap<>();
+		for (List<Long> chunk : Chunks.partition(enrollmentIds)) {
+			enrollmentRepo.findPaymentTargets(chunk).forEach(t -> targets.put(t.getEnrollmentId(), t));
+		}
+
+		// Decide each confirmation in arrival order; later duplicates see earlier ones
+		List<Object> outcomes = new ArrayList<>(batch.size());
+		List<Payment> accepted = new ArrayList<>();
+		Set<Long> paid = new HashSet<>();
+		Instant now = Instant.now();
+		for (Confirmation confirmation : batch) {
+			Long enrollmentId = confirmation.request.getEnrollmentId();
+			Payment earlier = recorded.get(confirmation.idempotencyKey);
+			PaymentTarget target = targets.get(enrollmentId);
+			if (earlier != null) {
+				outcomes.add(earlier.getEnrollmentId().equals(enrollmentId) ? earlier
+						: new ResourceAlreadyExistsException("Idempotency-Key " + confirmation.idempotencyKey
+								+ " was already used for enrollmentId: " + earlier.getEnrollmentId()));
+			} else if (target == null) {
+				outcomes.add(new ResourceNotFoundException("Enrollment Not Found with id: " + enrollmentId));
+			} else if (target.getStatus() == EnrollmentStatus.WAITLISTED) {
+				outcomes.add(new CourseFullException("Enrollment " + enrollmentId
+						+ " is waitlisted, there is no seat to pay for yet"));
+			} else if (target.getPaymentStatus() == PaymentStatus.COMPLETED || !paid.add(enrollmentId)) {
+				outcomes.add(new ResourceAlreadyExistsException("Payment Already Exists for enrollmentId: " + enrollmentId));
+			} else {
+				Payment payment = new Payment();
+				payment.setEnrollmentId(enrollmentId);
+				payment.setPaymentMethod(confirmation.request.getPaymentMethod());
+				payment.setPaymentStatus(PaymentStatus.COMPLETED);
+				payment.setIdempotencyKey(confirmation.idempotencyKey);
+				payment.setConfirmedAt(now);
+				recorded.put(confirmation.idempotencyKey, payment);
+				accepted.add(payment);
+				outcomes.add(payment);
+			}
+		}
+
+		insertPayments(accepted);
+		for (List<Long> chunk : Chunks.partition(paid)) {
+			enrollmentRepo.completePayments(chunk);
+		}
+		if (readModel != null) {
+			readModel.paid(paid);
+		}
+		return outcomes;
+	}
+
+	private void insertPayments(List<Payment> payments) {
+		for (List<Payment> chunk : Chunks.partition(payments)) {
+			KeyHolder keys = new GeneratedKeyHolder();
+			jdbcTemplate.batchUpdate(
+					con -> con.prepareStatement(INSERT_PAYMENT_SQL, Statement.RETURN_GENERATED_KEYS),
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							Payment payment = chunk.get(i);
+							ps.setLong(1, payment.getEnrollmentId());
+							ps.setString(2, payment.getPaymentMethod());
+							ps.setString(3, payment.getPaymentStatus().name());
+							ps.setString(4, payment.getIdempotencyKey());
+							ps.setTimestamp(5, Timestamp.from(payment.getConfirmedAt()));
+						}
+
+						@Override
+						public int getBatchSize() {
+							return chunk.size();
+						}
+					},
+					keys);
+			List<Map<String, Object>> generated = keys.getKeyList();
+			for (int i = 0; i < chunk.size(); i++) {
+				Number id = (Number) generated.get(i).values().iterator().next();
+				chunk.get(i).setPaymentId(id.longValue());
+			}
+		}
+	}
+
+	private static final class Confirmation {
+		private final String idempotencyKey;
+		private final PaymentRequestDto request;
+		private final CompletableFuture<PaymentDto> future = new CompletableFuture<>();
+
+		private Confirmation(String idempotencyKey, PaymentRequestDto request) {
+			this.idempotencyKey = idempotencyKey;
+			this.request = request;
+		}
+
+		private void complete(Object outcome) {
+			if (outcome instanceof RuntimeException failure) {
+				future.completeExceptionally(failure);
+			} else {
+				future.complete(AutoMapper.MAPPER.mapToPaymentDto((Payment) outcome));
+			}
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.example.enrollment.course.service.payment;
+
+import com.example.enrollment.course.dto.PaymentDto;
+import com.example.enrollment.course.dto.PaymentRequestDto;
+
+public interface PaymentService {
+
+	/**
+	 * Record a confirmed payment and mark the enrollment paid.
+	 * Sending the same idempotency key again returns the same payment.
+	 */
+	PaymentDto confirmPayment(String idempotencyKey, PaymentRequestDto request);
+
+}
@@ -0,0 +1,50 @@
+package com.example.enrollment.course.service.payment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.stereotype.Service;
+
+import com.example.enrollment.course.dto.PaymentDto;
+import com.example.enrollment.course.dto.PaymentRequestDto;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hands payment confirmations to the batching {@link PaymentConfirmations}
+ * stage and waits for the batch to commit.
+ *
+ * Deliberately not transactional: the caller holds no connection while queued.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentServiceImpl implements PaymentService {
+
+	private final PaymentConfirmations confirmations;
+
+	/**
+	 * Confirm the payment of an enrollment
+	 * @param idempotencyKey - key of the provider's callback, unique per payment
+	 * @param request - enrollment and payment method
+	 * @return the recorded payment, the earlier one for a repeated key
+	 */
+	@Override
+	public PaymentDto confirmPayment(String idempotencyKey, PaymentRequestDto request) {
+		return await(confirmations.submit(idempotencyKey, request));
+	}
+
+	/**
+	 * Waits for the batch and rethrows its failure as-is, so the usual
+	 * exception handlers still apply
+	 */
+	private static <T> T await(CompletableFuture<T> result) {
+		try {
+			return result.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+}
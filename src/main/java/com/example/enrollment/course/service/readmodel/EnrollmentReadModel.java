@@ -0,0 +1,242 @@
+package com.example.enrollment.course.service.readmodel;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.service.util.Chunks;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory view of every student's enrollments, serving
+ * GET /enrollments/student/{studentId} without touching the database.
+ *
+ * Views are built from the enrollments table before the application starts
+ * serving requests, and kept current by the write paths of this instance,
+ * which report inserts, removals, promotions and payments once their
+ * transaction commits. Waitlist positions are read live from the
+ * {@link WaitlistIndex} on every call. Writes the view is not told about
+ * (other instances, manual fixes, a refresh racing a commit) show after at
+ * most enrollment.read-model.max-staleness-ms: an older view is reloaded
+ * with one query on its next read.
+ * Enable with enrollment.read-model.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.read-model", name = "enabled", havingValue = "true")
+public class EnrollmentReadModel implements SmartInitializingSingleton {
+
+	/** What a view keeps of one enrollment; the waitlist ticket stands in for the live position */
+	public record Row(Long enrollmentId, Long studentId, Long courseId, EnrollmentStatus status,
+			Long ticket, PaymentStatus paymentStatus, Instant holdExpiresAt) {
+
+		public static Row of(Enrollment enrollment) {
+			return new Row(enrollment.getEnrollmentId(), enrollment.getStudentId(), enrollment.getCourseId(),
+					enrollment.getStatus(), enrollment.getWaitlistPosition(), enrollment.getPaymentStatus(),
+					enrollment.getHoldExpiresAt());
+		}
+	}
+
+	/** One student's enrollments in id order, as of loadedAtMillis plus the changes applied since */
+	private record View(List<Row> rows, long loadedAtMillis) {
+
+		View with(Row added) {
+			List<Row> changed = new ArrayList<>(rows.size() + 1);
+			for (Row row : rows) {
+				if (!row.enrollmentId().equals(added.enrollmentId())) {
+					changed.add(row);
+				}
+			}
+			changed.add(added);
+			changed.sort(BY_ID);
+			return new View(List.copyOf(changed), loadedAtMillis);
+		}
+
+		View change(Collection<Long> enrollmentIds, UnaryOperator<Row> change) {
+			List<Row> changed = new ArrayList<>(rows.size());
+			for (Row row : rows) {
+				Row next = enrollmentIds.contains(row.enrollmentId()) ? change.apply(row) : row;
+				if (next != null) {
+					changed.add(next);
+				}
+			}
+			return new View(List.copyOf(changed), loadedAtMillis);
+		}
+	}
+
+	private static final Comparator<Row> BY_ID = Comparator.comparing(Row::enrollmentId);
+
+	private final EnrollmentRepository enrollmentRepo;
+	private final WaitlistIndex waitlistIndex;
+	private final long maxStalenessMillis;
+
+	private final Map<Long, View> views = new ConcurrentHashMap<>();
+
+	/** Student of every enrollment in a view, for changes that only name the enrollment */
+	private final Map<Long, Long> owners = new ConcurrentHashMap<>();
+
+	public EnrollmentReadModel(EnrollmentRepository enrollmentRepo, WaitlistIndex waitlistIndex,
+			@Value("${enrollment.read-model.max-staleness-ms:300000}") long maxStalenessMillis) {
+		this.enrollmentRepo = enrollmentRepo;
+		this.waitlistIndex = waitlistIndex;
+		this.maxStalenessMillis = maxStalenessMillis;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	/**
+	 * Replaces every view with the enrollments table, read a page at a time in id order
+	 */
+	public void rebuild() {
+		long loadedAt = System.currentTimeMillis();
+		Map<Long, List<Row>> byStudent = new HashMap<>();
+		long after = 0;
+		List<Enrollment> page;
+		do {
+			page = enrollmentRepo.findByEnrollmentIdGreaterThanOrderByEnrollmentIdAsc(after, Limit.of(Chunks.SIZE));
+			for (Enrollment enrollment : page) {
+				byStudent.computeIfAbsent(enrollment.getStudentId(), id -> new ArrayList<>()).add(Row.of(enrollment));
+				after = enrollment.getEnrollmentId();
+			}
+		} while (page.size() == Chunks.SIZE);
+
+		views.clear();
+		owners.clear();
+		byStudent.forEach((studentId, rows) -> install(studentId, rows, loadedAt));
+		log.info("Enrollment read model loaded {} students, {} enrollments", byStudent.size(), owners.size());
+	}
+
+	/**
+	 * Enrollments of a student, from memory unless the view is missing or too old
+	 * @param studentId - an existing student
+	 * @return EnrollmentDtos with live waitlist positions
+	 */
+	public List<EnrollmentDto> enrollmentsOf(Long studentId) {
+		long now = System.currentTimeMillis();
+		View view = views.get(studentId);
+		if (view == null || now - view.loadedAtMillis() > maxStalenessMillis) {
+			view = reload(studentId, now);
+		}
+		List<EnrollmentDto> dtos = new ArrayList<>(view.rows().size());
+		for (Row row : view.rows()) {
+			dtos.add(new EnrollmentDto(row.enrollmentId(), row.studentId(), row.courseId(), row.status(),
+					row.status() == EnrollmentStatus.WAITLISTED ? waitlistIndex.positionOf(row.courseId(), row.ticket()) : null,
+					row.paymentStatus(), row.holdExpiresAt()));
+		}
+		return dtos;
+	}
+
+	/**
+	 * Adds new enrollments to their students' views once the surrounding transaction commits
+	 */
+	public void added(Collection<Row> rows) {
+		TransactionCallbacks.afterCommit(() -> rows.forEach(row -> {
+			// a student without a view is loaded whole on its next read
+			if (views.computeIfPresent(row.studentId(), (id, view) -> view.with(row)) != null) {
+				owners.put(row.enrollmentId(), row.studentId());
+			}
+		}));
+	}
+
+	/**
+	 * Drops deleted enrollments once the surrounding transaction commits
+	 */
+	public void removed(Collection<Long> enrollmentIds) {
+		TransactionCallbacks.afterCommit(() -> {
+			change(enrollmentIds, row -> null);
+			enrollmentIds.forEach(owners::remove);
+		});
+	}
+
+	/**
+	 * Marks waitlisted enrollments ENROLLED once the surrounding transaction commits
+	 * @param holdExpiresAt - hold deadline of the new seats, null when seats are not held
+	 */
+	public void promoted(Collection<Long> enrollmentIds, Instant holdExpiresAt) {
+		TransactionCallbacks.afterCommit(() -> change(enrollmentIds, row -> row.status() != EnrollmentStatus.WAITLISTED ? row
+				: new Row(row.enrollmentId(), row.studentId(), row.courseId(), EnrollmentStatus.ENROLLED,
+						null, row.paymentStatus(), holdExpiresAt)));
+	}
+
+	/**
+	 * Marks enrollments paid, ending their holds, once the surrounding transaction commits
+	 */
+	public void paid(Collection<Long> enrollmentIds) {
+		TransactionCallbacks.afterCommit(() -> change(enrollmentIds, row -> new Row(row.enrollmentId(),
+				row.studentId(), row.courseId(), row.status(), row.ticket(), PaymentStatus.COMPLETED, null)));
+	}
+
+	/**
+	 * Forgets removed students once the surrounding transaction commits
+	 */
+	public void studentsRemoved(Collection<Long> studentIds) {
+		TransactionCallbacks.afterCommit(() -> studentIds.forEach(studentId -> {
+			View view = views.remove(studentId);
+			if (view != null) {
+				view.rows().forEach(row -> owners.remove(row.enrollmentId()));
+			}
+		}));
+	}
+
+	/** Number of students with a view */
+	public int size() {
+		return views.size();
+	}
+
+	private View reload(Long studentId, long now) {
+		List<Row> rows = enrollmentRepo.findByStudentId(studentId).stream()
+				.map(Row::of)
+				.sorted(BY_ID)
+				.toList();
+		View old = views.get(studentId);
+		if (old != null) {
+			old.rows().forEach(row -> owners.remove(row.enrollmentId()));
+		}
+		return install(studentId, rows, now);
+	}
+
+	private View install(Long studentId, List<Row> rows, long loadedAt) {
+		View view = new View(List.copyOf(rows), loadedAt);
+		rows.forEach(row -> owners.put(row.enrollmentId(), studentId));
+		views.put(studentId, view);
+		return view;
+	}
+
+	/**
+	 * Applies a change to the given enrollments, one view update per student
+	 * @param change - new row, or null to drop it
+	 */
+	private void change(Collection<Long> enrollmentIds, UnaryOperator<Row> change) {
+		Map<Long, List<Long>> byStudent = new HashMap<>();
+		for (Long enrollmentId : enrollmentIds) {
+			Long studentId = owners.get(enrollmentId);
+			if (studentId != null) {
+				byStudent.computeIfAbsent(studentId, id -> new ArrayList<>()).add(enrollmentId);
+			}
+		}
+		byStudent.forEach((studentId, ids) -> views.computeIfPresent(studentId, (id, view) -> view.change(ids, change)));
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.enrollment.course.service.replica;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The way into the replica routing: runs reads in read-only transactions
+ * marked for a replica, keeps read-your-writes and checks the replicas.
+ *
+ * Once a student's write commits, that student's reads go to the primary for
+ * sticky-ms, so an enrollment shows up right away however far the replicas
+ * lag, as long as they lag less than that. Windows are kept per instance;
+ * other students keep reading from the replicas.
+ * Enable with enrollment.read-replicas.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.read-replicas", name = "enabled", havingValue = "true")
+public class ReplicaReads {
+
+	private final ReplicaRoutingDataSource routing;
+	private final TransactionTemplate readOnly;
+	private final long stickyNanos;
+
+	/** When each student's last write committed, by System.nanoTime() */
+	private final Map<Long, Long> lastWrite = new ConcurrentHashMap<>();
+
+	public ReplicaReads(
+			DataSource dataSource,
+			PlatformTransactionManager transactionManager,
+			@Value("${enrollment.read-replicas.sticky-ms:5000}") long stickyMs) throws SQLException {
+		this.routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+		this.readOnly = new TransactionTemplate(transactionManager);
+		this.readOnly.setReadOnly(true);
+		this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMs);
+	}
+
+	/**
+	 * Sends the student's reads to the primary for a while, starting when the
+	 * surrounding transaction commits
+	 * @param studentId
+	 */
+	public void wrote(Long studentId) {
+		TransactionCallbacks.afterCommit(() -> lastWrite.put(studentId, System.nanoTime()));
+	}
+
+	/**
+	 * Runs a read in a read-only transaction on a replica
+	 * @param read - work to run
+	 * @return the work's result
+	 */
+	public <T> T read(Supplier<T> read) {
+		return ReplicaRoutingDataSource.onReplica(() -> readOnly.execute(status -> read.get()));
+	}
+
+	/**
+	 * Runs a read of the student's data, as it is on the primary if the student wrote recently
+	 * @param studentId
+	 * @param read - work to run
+	 * @return the work's result
+	 */
+	public <T> T readFor(Long studentId, Supplier<T> read) {
+		Long at = lastWrite.get(studentId);
+		if (at != null && System.nanoTime() - at < stickyNanos) {
+			return read.get();
+		}
+		return read(read);
+	}
+
+	/** Checks the replicas and forgets windows that have closed */
+	@Scheduled(fixedDelayString = "${enrollment.read-replicas.health-check-ms:5000}")
+	public void checkHealth() {
+		routing.checkHealth();
+		long now = System.nanoTime();
+		lastWrite.values().removeIf(at -> now - at >= stickyNanos);
+	}
+
+	@PreDestroy
+	public void close() {
+		try {
+			routing.close();
+		} catch (Exception ex) {
+			log.warn("Closing the read replica pools failed", ex);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.example.enrollment.course.service.replica;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out replica connections to read-only transactions run through
+ * {@link #onReplica(Supplier)} and primary connections to everything else.
+ *
+ * Reads opt in explicitly: the components that load in-memory state (seat
+ * ledger, waitlist and existence indexes, idempotency records) must see the
+ * primary, and so must any read-only transaction nobody marked. The decision
+ * is made when a connection is first needed, which requires this data source
+ * to sit behind a LazyConnectionDataSourceProxy.
+ *
+ * Replicas take turns. One that fails to hand out a connection or a health
+ * check is skipped, and its reads go to the primary, until a later check
+ * finds it healthy again.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	/** Set while the current thread runs a read that may see replica lag */
+	private static final ThreadLocal<Boolean> ON_REPLICA = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final int validationTimeoutSeconds;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, int validationTimeoutSeconds) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	/**
+	 * Runs a read whose read-only transactions may take replica connections.
+	 * A transaction that already holds a connection keeps it.
+	 * @param read - work to run
+	 * @return the work's result
+	 */
+	public static <T> T onReplica(Supplier<T> read) {
+		Boolean outer = ON_REPLICA.get();
+		ON_REPLICA.set(Boolean.TRUE);
+		try {
+			return read.get();
+		} finally {
+			if (outer == null) {
+				ON_REPLICA.remove();
+			}
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (routesToReplica()) {
+			for (int tries = 0; tries < replicas.size(); tries++) {
+				Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+				if (!replica.healthy) {
+					continue;
+				}
+				try {
+					return replica.dataSource.getConnection();
+				} catch (SQLException ex) {
+					replica.markDown(ex);
+				}
+			}
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+
+	/**
+	 * Validates one connection of every replica, taking failed ones out of
+	 * rotation and putting recovered ones back
+	 */
+	public void checkHealth() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (connection.isValid(validationTimeoutSeconds)) {
+					replica.markUp();
+				} else {
+					replica.markDown(null);
+				}
+			} catch (SQLException ex) {
+				replica.markDown(ex);
+			}
+		}
+	}
+
+	/** Number of replicas currently taking reads */
+	public int healthyReplicas() {
+		return (int) replicas.stream().filter(replica -> replica.healthy).count();
+	}
+
+	@Override
+	public void close() throws Exception {
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private static boolean routesToReplica() {
+		return ON_REPLICA.get() != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	/** One replica and whether it takes reads */
+	private static final class Replica {
+
+		final DataSource dataSource;
+		volatile boolean healthy = true;
+
+		Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		void markDown(SQLException cause) {
+			if (healthy) {
+				healthy = false;
+				log.warn("Read replica {} is unavailable, reading from the primary", dataSource, cause);
+			}
+		}
+
+		void markUp() {
+			if (!healthy) {
+				healthy = true;
+				log.info("Read replica {} is back", dataSource);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.enrollment.course.service.replica;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Puts the application's DataSource, as the primary, behind a
+ * {@link ReplicaRoutingDataSource} over the configured replicas.
+ *
+ * Runs before the other DataSource post processors, so statement counting
+ * sees replica and primary statements alike.
+ */
+@Component
+@ConditionalOnProperty(prefix = "enrollment.read-replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+	private final List<String> urls;
+	private final String username;
+	private final String password;
+	private final int validationTimeoutSeconds;
+	private final long connectionTimeoutMs;
+
+	/**
+	 * Reads its settings from the Environment, since placeholders are not
+	 * resolved yet when post processors are created
+	 */
+	public ReplicaRoutingPostProcessor(Environment environment) {
+		this.urls = Arrays.stream(environment.getProperty("enrollment.read-replicas.urls", String[].class, new String[0]))
+				.map(String::trim)
+				.filter(url -> !url.isEmpty())
+				.toList();
+		this.username = environment.getProperty("enrollment.read-replicas.username",
+				environment.getProperty("spring.datasource.username", ""));
+		this.password = environment.getProperty("enrollment.read-replicas.password",
+				environment.getProperty("spring.datasource.password", ""));
+		this.validationTimeoutSeconds = environment.getProperty(
+				"enrollment.read-replicas.validation-timeout-s", Integer.class, 2);
+		this.connectionTimeoutMs = environment.getProperty(
+				"enrollment.read-replicas.connection-timeout-ms", Long.class, 2000L);
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource primary && !(bean instanceof DelegatingDataSource)
+				&& !(bean instanceof ReplicaRoutingDataSource) && !urls.isEmpty()) {
+			List<DataSource> replicas = IntStream.range(0, urls.size())
+					.mapToObj(i -> (DataSource) replica(i + 1, urls.get(i)))
+					.toList();
+			// connections are fetched on first use, once the transaction is known to be read-only
+			return new LazyConnectionDataSourceProxy(
+					new ReplicaRoutingDataSource(primary, replicas, validationTimeoutSeconds));
+		}
+		return bean;
+	}
+
+	/** A pool that gives up quickly, so an unreachable replica falls back to the primary fast */
+	private HikariDataSource replica(int number, String url) {
+		HikariDataSource pool = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(url)
+				.username(username)
+				.password(password)
+				.build();
+		pool.setPoolName("replica-" + number);
+		pool.setConnectionTimeout(connectionTimeoutMs);
+		return pool;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+}
@@ -0,0 +1,209 @@
+package com.example.enrollment.course.service.seat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory seat ledger kept in front of the courses table.
+ *
+ * Each course owns its own atomic counter, so reservations on different
+ * courses never contend and reservations on the same course are a CAS
+ * instead of a row lock. Committed changes are written back to
+ * courses.available_seats in JDBC batches on a fixed delay.
+ *
+ * The ledger is authoritative for seat counts while it is enabled, which
+ * assumes a single application instance owns the courses table.
+ * Enable with enrollment.seat-ledger.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.seat-ledger", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SeatLedger {
+
+	private static final String ADJUST_SEATS_SQL =
+			"UPDATE courses SET available_seats = available_seats + ? WHERE course_id = ?";
+
+	private final CourseRepository courseRepo;
+	private final JdbcTemplate jdbcTemplate;
+
+	/** Live seat count per course */
+	private final Map<Long, AtomicLong> seats = new ConcurrentHashMap<>();
+
+	/** Committed seat deltas per course not yet written to the database */
+	private final Map<Long, AtomicLong> pending = new ConcurrentHashMap<>();
+
+	/** Seats per course reserved by transactions that have not completed yet */
+	private final Map<Long, AtomicLong> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Loads every course's seat count from the database.
+	 * Runs after the catalog loader so the counters start from the loaded values.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		flush();
+		seats.clear();
+		for (Course course : courseRepo.findAll()) {
+			seats.put(course.getCourseId(), new AtomicLong(course.getAvailableSeats()));
+		}
+		log.info("Seat ledger loaded {} courses", seats.size());
+	}
+
+	/**
+	 * Takes one seat of the course if any is left
+	 * @param courseId
+	 * @return true if the seat was taken
+	 */
+	public boolean tryReserve(Long courseId) {
+		return tryReserve(courseId, 1) == 1;
+	}
+
+	/**
+	 * Takes up to the requested number of seats of the course.
+	 * The seats are returned to the ledger if the surrounding transaction rolls back.
+	 * @param courseId
+	 * @param requested - seats wanted
+	 * @return number of seats actually taken, never more than were available
+	 */
+	public long tryReserve(Long courseId, long requested) {
+		AtomicLong counter = counter(courseId);
+		if (counter == null || requested <= 0) {
+			return 0;
+		}
+		// counted as in flight before the seats leave the counter, so a resize never misses them
+		AtomicLong reserving = inFlight.computeIfAbsent(courseId, id -> new AtomicLong());
+		reserving.addAndGet(requested);
+		long current;
+		long granted;
+		do {
+			current = counter.get();
+			granted = Math.min(current, requested);
+			if (granted == 0) {
+				reserving.addAndGet(-requested);
+				return 0;
+			}
+		} while (!counter.compareAndSet(current, current - granted));
+		reserving.addAndGet(granted - requested);
+
+		long taken = granted;
+		TransactionCallbacks.afterRollback(() -> {
+			counter.addAndGet(taken);
+			reserving.addAndGet(-taken);
+		});
+		TransactionCallbacks.afterCommit(() -> {
+			reserving.addAndGet(-taken);
+			recordPending(courseId, -taken);
+		});
+		return taken;
+	}
+
+	/**
+	 * Gives seats back to the course once the surrounding transaction commits.
+	 * Released seats are not reusable before the commit, so a rollback can never
+	 * leave a seat counted twice.
+	 * @param courseId
+	 * @param count - seats to give back
+	 */
+	public void release(Long courseId, long count) {
+		AtomicLong counter = counter(courseId);
+		if (counter == null || count <= 0) {
+			return;
+		}
+		TransactionCallbacks.afterCommit(() -> {
+			counter.addAndGet(count);
+			recordPending(courseId, count);
+		});
+	}
+
+	/**
+	 * Sets the course's committed seat count once the surrounding transaction
+	 * commits, e.g. after its capacity changed. Seats reserved by transactions
+	 * still in flight stay taken.
+	 * @param courseId
+	 * @param seats - capacity minus the committed enrollments
+	 */
+	public void resize(Long courseId, long seats) {
+		AtomicLong counter = counter(courseId);
+		if (counter == null) {
+			return;
+		}
+		TransactionCallbacks.afterCommit(() -> {
+			AtomicLong reserving = inFlight.computeIfAbsent(courseId, id -> new AtomicLong());
+			long current;
+			long next;
+			do {
+				current = counter.get();
+				next = Math.max(seats - reserving.get(), 0);
+			} while (!counter.compareAndSet(current, next));
+			recordPending(courseId, next - current);
+		});
+	}
+
+	/**
+	 * Current seat count as seen by the ledger
+	 * @param courseId
+	 * @return available seats, or null if the course is unknown
+	 */
+	public Long availableSeats(Long courseId) {
+		AtomicLong counter = counter(courseId);
+		return counter == null ? null : counter.get();
+	}
+
+	/**
+	 * Writes all committed deltas back to the courses table in one JDBC batch.
+	 * Deltas that fail to write are kept for the next run.
+	 */
+	@Scheduled(fixedDelayString = "${enrollment.seat-ledger.flush-interval-ms:200}")
+	@PreDestroy
+	public synchronized void flush() {
+		List<Long> courseIds = new ArrayList<>();
+		List<Object[]> batch = new ArrayList<>();
+		pending.forEach((courseId, delta) -> {
+			long value = delta.getAndSet(0);
+			if (value != 0) {
+				courseIds.add(courseId);
+				batch.add(new Object[] { value, courseId });
+			}
+		});
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			jdbcTemplate.batchUpdate(ADJUST_SEATS_SQL, batch);
+		} catch (RuntimeException ex) {
+			for (int i = 0; i < batch.size(); i++) {
+				recordPending(courseIds.get(i), (Long) batch.get(i)[0]);
+			}
+			log.warn("Seat ledger flush failed for {} courses, will retry", batch.size(), ex);
+		}
+	}
+
+	private AtomicLong counter(Long courseId) {
+		return seats.computeIfAbsent(courseId, id -> courseRepo.findByCourseId(id)
+				.map(course -> new AtomicLong(course.getAvailableSeats()))
+				.orElse(null));
+	}
+
+	private void recordPending(Long courseId, long delta) {
+		pending.computeIfAbsent(courseId, id -> new AtomicLong()).addAndGet(delta);
+	}
+}
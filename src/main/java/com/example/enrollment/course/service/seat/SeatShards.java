@@ -0,0 +1,257 @@
+package com.example.enrollment.course.service.seat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.CourseSeatShardRepository;
+import com.example.enrollment.course.repository.CourseSeatShardRepository.CourseSeats;
+import com.example.enrollment.course.repository.CourseSeatShardRepository.ShardSeats;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Seats of hot courses spread across several counter rows.
+ *
+ * A course with at least min-seats seats has them moved from its courses
+ * row into shard-count rows of course_seat_shards. Taking a seat updates a
+ * random shard, so concurrent enrollments on one course, from any number of
+ * instances, mostly lock different rows; when that shard is empty the
+ * others are tried fullest first, then the courses row. Seats are given back
+ * to the least-full shard.
+ *
+ * The available seats of a course are its courses row plus the sum of its
+ * shards. The row keeps taking capacity changes from the catalog sync, and
+ * whatever lands on it is spread again on the next catalog change. A full
+ * catalog import overwrites the row and so must run with sharding off.
+ *
+ * Has no effect while the seat ledger is enabled, which already keeps seats
+ * off the database. Enable with enrollment.seat-shards.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "enrollment.seat-shards", name = "enabled", havingValue = "true")
+public class SeatShards {
+
+	/** Moves the row's seats out only if nobody changed them since they were read */
+	private static final String EMPTY_COURSE_SQL =
+			"UPDATE courses SET available_seats = 0 WHERE course_id = ? AND available_seats = ?";
+
+	private static final String INSERT_SHARD_SQL =
+			"INSERT INTO course_seat_shards (course_id, shard_no, available_seats) VALUES (?, ?, ?)";
+
+	private static final String ADD_TO_SHARD_SQL =
+			"UPDATE course_seat_shards SET available_seats = available_seats + ? WHERE course_id = ? AND shard_no = ?";
+
+	private final CourseRepository courseRepo;
+	private final CourseSeatShardRepository shardRepo;
+	private final JdbcTemplate jdbcTemplate;
+	private final ApplicationEventPublisher events;
+	private final TransactionTemplate transactionTemplate;
+	private final int shardCount;
+	private final long minSeats;
+
+	/** In-memory seat ledger; nothing is spread while it is enabled */
+	@Autowired(required = false)
+	private SeatLedger seatLedger;
+
+	/** Courses known to have shards; others try their courses row first */
+	private final Set<Long> sharded = ConcurrentHashMap.newKeySet();
+
+	public SeatShards(
+			CourseRepository courseRepo,
+			CourseSeatShardRepository shardRepo,
+			JdbcTemplate jdbcTemplate,
+			ApplicationEventPublisher events,
+			PlatformTransactionManager transactionManager,
+			@Value("${enrollment.seat-shards.count:8}") int shardCount,
+			@Value("${enrollment.seat-shards.min-seats:100}") long minSeats) {
+		this.courseRepo = courseRepo;
+		this.shardRepo = shardRepo;
+		this.jdbcTemplate = jdbcTemplate;
+		this.events = events;
+		// catalog changes are handled after their transaction committed
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.shardCount = Math.max(1, shardCount);
+		this.minSeats = Math.max(1, minSeats);
+	}
+
+	/**
+	 * Spreads the seats of every course that qualifies.
+	 * Runs after the catalog loader, and again whenever the catalog changes.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void spreadAll() {
+		if (seatLedger != null) {
+			log.warn("Seat shards are ignored while the seat ledger is enabled");
+			return;
+		}
+		sharded.addAll(shardRepo.findShardedCourseIds());
+		int spread = 0;
+		for (Course course : courseRepo.findAll()) {
+			long seats = course.getAvailableSeats();
+			boolean qualifies = sharded.contains(course.getCourseId()) ? seats > 0 : seats >= minSeats;
+			if (qualifies && spread(course.getCourseId(), seats)) {
+				spread++;
+			}
+		}
+		if (spread > 0) {
+			log.info("Spread the seats of {} courses across {} shards each", spread, shardCount);
+			// the caches read the row and the shards apart, so have them read both again.
+			// Published in a transaction of its own so it is delivered on commit even when
+			// this runs after another transaction committed; the spread it triggers finds nothing to do.
+			transactionTemplate.executeWithoutResult(status -> events.publishEvent(new CourseCatalogChangedEvent()));
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCatalogChanged(CourseCatalogChangedEvent event) {
+		spreadAll();
+	}
+
+	/**
+	 * Moves a course's row seats into its shards, creating the shards if needed
+	 * @param courseId
+	 * @param seats - seats on the courses row as last read
+	 * @return false if the row changed since it was read
+	 */
+	boolean spread(Long courseId, long seats) {
+		Boolean moved = transactionTemplate.execute(status -> {
+			// the row stays locked until commit, so only one spread per course runs at a time
+			if (jdbcTemplate.update(EMPTY_COURSE_SQL, courseId, seats) == 0) {
+				return false;
+			}
+			Set<Integer> existing = new HashSet<>(shardRepo.findShardNos(courseId));
+			List<Object[]> inserts = new ArrayList<>();
+			List<Object[]> updates = new ArrayList<>();
+			for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+				long share = seats / shardCount + (shardNo < seats % shardCount ? 1 : 0);
+				if (!existing.contains(shardNo)) {
+					inserts.add(new Object[] { courseId, shardNo, share });
+				} else if (share > 0) {
+					updates.add(new Object[] { share, courseId, shardNo });
+				}
+			}
+			jdbcTemplate.batchUpdate(INSERT_SHARD_SQL, inserts);
+			jdbcTemplate.batchUpdate(ADD_TO_SHARD_SQL, updates);
+			return true;
+		});
+		if (Boolean.TRUE.equals(moved)) {
+			sharded.add(courseId);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Takes one seat of the course if any is left
+	 * @param courseId
+	 * @return true if the seat was taken
+	 */
+	public boolean tryTake(Long courseId) {
+		return tryTake(courseId, 1) == 1;
+	}
+
+	/**
+	 * Takes up to the requested number of seats of the course, in the caller's transaction
+	 * @param courseId
+	 * @param requested - seats wanted
+	 * @return number of seats actually taken
+	 */
+	public long tryTake(Long courseId, long requested) {
+		if (requested <= 0) {
+			return 0;
+		}
+		if (!sharded.contains(courseId)) {
+			long taken = takeFromCourse(courseId, requested);
+			return taken == requested ? taken : taken + takeFromShards(courseId, requested - taken);
+		}
+		if (shardRepo.takeSeats(courseId, ThreadLocalRandom.current().nextInt(shardCount), requested) > 0) {
+			return requested;
+		}
+		long taken = takeFromShards(courseId, requested);
+		return taken == requested ? taken : taken + takeFromCourse(courseId, requested - taken);
+	}
+
+	/**
+	 * Gives seats back to the least-full shard of the course, or to its row if it has none
+	 * @param courseId
+	 * @param count - seats to give back
+	 */
+	public void release(Long courseId, long count) {
+		if (count <= 0) {
+			return;
+		}
+		if (sharded.contains(courseId)) {
+			ShardSeats least = shardRepo.findFirstByCourseIdOrderByAvailableSeatsAscShardNoAsc(courseId).orElse(null);
+			if (least != null && shardRepo.addSeats(courseId, least.getShardNo(), count) > 0) {
+				return;
+			}
+		}
+		courseRepo.adjustSeats(courseId, count);
+	}
+
+	/**
+	 * Seats held in shards, to be added to the courses row
+	 * @return seats per sharded course
+	 */
+	public Map<Long, Long> shardedSeats() {
+		Map<Long, Long> seats = new HashMap<>();
+		for (CourseSeats row : shardRepo.sumByCourse()) {
+			seats.put(row.getCourseId(), row.getAvailableSeats());
+		}
+		return seats;
+	}
+
+	/** Takes what the shards hold, fullest shard first */
+	private long takeFromShards(Long courseId, long requested) {
+		long taken = 0;
+		for (ShardSeats shard : shardRepo.findNonEmpty(courseId)) {
+			sharded.add(courseId);
+			long wanted = Math.min(shard.getAvailableSeats(), requested - taken);
+			if (shardRepo.takeSeats(courseId, shard.getShardNo(), wanted) > 0) {
+				taken += wanted;
+				if (taken == requested) {
+					break;
+				}
+			}
+		}
+		return taken;
+	}
+
+	/** Takes what the courses row holds, under its row lock when more than one seat is wanted */
+	private long takeFromCourse(Long courseId, long requested) {
+		if (requested == 1) {
+			return courseRepo.decrementSeat(courseId);
+		}
+		long granted = courseRepo.findByIdForUpdate(courseId)
+				.map(course -> Math.min(Math.max(course.getAvailableSeats(), 0), requested))
+				.orElse(0L);
+		if (granted > 0) {
+			courseRepo.adjustSeats(courseId, -granted);
+		}
+		return granted;
+	}
+}
@@ -1,14 +1,32 @@
 package com.example.enrollment.course.service.student;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 
 import com.example.enrollment.course.dto.StudentDto;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
 
 import jakarta.validation.Valid;
 
 public interface StudentService {
+    /** Largest page a single listStudents call returns */
+    int MAX_PAGE_SIZE = 1000;
+
     /** Add a new student to the system */
     StudentDto addStudent(@Valid StudentDto student);
-    /** List all students */
-    Collection<StudentDto> listStudents();
+    /** List one keyset page of students, ordered by id, starting after the given id */
+    StudentPage listStudents(Long after, int limit);
+    /** Write every student to the stream, as NDJSON or as one JSON array */
+    void streamStudents(OutputStream out, boolean ndjson) throws IOException;
+    /** Set the tier the student waits in on every waitlist they join from now on */
+    void changeWaitlistPriority(Long studentId, WaitlistPriority priority);
+
+    /**
+     * One page of students
+     * @param students - the page, ordered by id
+     * @param nextAfter - cursor of the next page, null when this is the last one
+     */
+    record StudentPage(List<StudentDto> students, Long nextAfter) {
+    }
 }
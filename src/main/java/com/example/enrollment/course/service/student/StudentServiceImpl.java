@@ -1,14 +1,30 @@
 package com.example.enrollment.course.service.student;
 
 import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import com.example.enrollment.course.dto.StudentDto;
 import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
 import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
 import com.example.enrollment.course.mapper.AutoMapper;
 import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
 import java.util.List;
 
 /**
@@ -18,7 +34,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StudentServiceImpl implements StudentService {
 
+	private static final String STREAM_SQL =
+			"SELECT student_id, first_name, last_name, contact_number FROM students ORDER BY student_id";
+
 	private final StudentRepository studentRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final ExistenceIndex existenceIndex;
+
+	/**
+	 * Rows per round trip while streaming. MySQL only honours it as a real
+	 * cursor with useCursorFetch=true on the JDBC URL.
+	 */
+	@Value("${enrollment.students.stream-fetch-size:500}")
+	private int streamFetchSize;
+
+	/** In-memory waitlist tiers, told about every change */
+	@Autowired(required = false)
+	private WaitlistPriorities waitlistPriorities;
+
+	/** Read-your-writes over the read replicas, present only when enrollment.read-replicas.enabled=true */
+	@Autowired(required = false)
+	private ReplicaReads replicaReads;
 
 	/**
 	 * Adds a new student. If the DTO carries an ID that already exists,
@@ -27,25 +64,102 @@ public class StudentServiceImpl implements StudentService {
 	@Override
 	public StudentDto addStudent(StudentDto studentDto) {
 		Long dtoId = studentDto.getStudentId();
-		if (dtoId != null && studentRepository.existsById(dtoId)) {
+		if (dtoId != null && existenceIndex.studentExists(dtoId)) {
 			throw new ResourceAlreadyExistsException(
 					"Student Already Exists with id: " + dtoId);
 		}
 
 		Student toSave = AutoMapper.MAPPER.mapToStudent(studentDto);
 		Student saved  = studentRepository.save(toSave);
+		existenceIndex.studentAdded(saved.getStudentId());
+		if (replicaReads != null) {
+			replicaReads.wrote(saved.getStudentId());
+		}
 
 		return AutoMapper.MAPPER.mapToStudentDto(saved);
 	}
 
 	/**
-	 * Returns all students as DTOs.
-	 * If you ever need pagination, swap to Pageable + Page<StudentDto>.
+	 * Returns one page of students ordered by id.
+	 * Seeks past the cursor on the primary key, so every page costs the same
+	 * however deep into the table it is. Read from a replica when they are enabled.
+	 * One row past the page is read to tell whether another page follows.
+	 * @param after - last student id of the previous page, null for the first page
+	 * @param limit - page size, clamped to 1..MAX_PAGE_SIZE
 	 */
 	@Override
-	public List<StudentDto> listStudents() {
-		return studentRepository.findAll().stream()
+	public StudentPage listStudents(Long after, int limit) {
+		if (replicaReads != null) {
+			return replicaReads.read(() -> loadStudents(after, limit));
+		}
+		return loadStudents(after, limit);
+	}
+
+	private StudentPage loadStudents(Long after, int limit) {
+		int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<StudentDto> students = studentRepository
+				.findByStudentIdGreaterThanOrderByStudentIdAsc(after == null ? 0L : after, Limit.of(size + 1))
+				.stream()
 				.map(AutoMapper.MAPPER::mapToStudentDto)
-				.collect(java.util.stream.Collectors.toList());
+				.toList();
+		if (students.size() <= size) {
+			return new StudentPage(students, null);
+		}
+		List<StudentDto> page = students.subList(0, size);
+		return new StudentPage(page, page.get(size - 1).getStudentId());
+	}
+
+	/**
+	 * Writes all students straight from a forward-only, read-only JDBC cursor.
+	 * Rows are serialized one at a time and never become entities, so heap
+	 * use does not grow with the table.
+	 * @param out - response body; left open
+	 * @param ndjson - one JSON object per line when true, otherwise a JSON array
+	 */
+	@Override
+	public void streamStudents(OutputStream out, boolean ndjson) throws IOException {
+		try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+			json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			if (!ndjson) {
+				json.writeStartArray();
+			}
+			jdbcTemplate.query(
+					con -> {
+						var ps = con.prepareStatement(STREAM_SQL,
+								ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+						ps.setFetchSize(streamFetchSize);
+						return ps;
+					},
+					rs -> {
+						try {
+							json.writeObject(new StudentDto(rs.getLong(1), rs.getString(2),
+									rs.getString(3), rs.getString(4)));
+							if (ndjson) {
+								json.writeRaw('\n');
+							}
+						} catch (IOException ex) {
+							throw new UncheckedIOException(ex);
+						}
+					});
+			if (!ndjson) {
+				json.writeEndArray();
+			}
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	/**
+	 * Changes the student's waitlist tier in one statement. Waitlists the
+	 * student is already on keep the tier they were joined with.
+	 */
+	@Override
+	public void changeWaitlistPriority(Long studentId, WaitlistPriority priority) {
+		if (studentRepository.updateWaitlistPriority(studentId, priority) == 0) {
+			throw new ResourceNotFoundException("Student Not Found with id: " + studentId);
+		}
+		if (waitlistPriorities != null) {
+			waitlistPriorities.changed(studentId, priority);
+		}
 	}
 }
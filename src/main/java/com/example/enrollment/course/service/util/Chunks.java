@@ -0,0 +1,38 @@
+package com.example.enrollment.course.service.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits id lists for IN clauses and JDBC batches, keeping each statement
+ * under the parameter limits of the database drivers.
+ */
+public final class Chunks {
+
+	/** Upper bound for IN lists and JDBC batches */
+	public static final int SIZE = 1000;
+
+	private Chunks() {
+	}
+
+	/**
+	 * @param items - list to split; chunks are views of it
+	 * @return consecutive chunks of at most {@link #SIZE} items
+	 */
+	public static <T> List<List<T>> partition(List<T> items) {
+		List<List<T>> chunks = new ArrayList<>();
+		for (int i = 0; i < items.size(); i += SIZE) {
+			chunks.add(items.subList(i, Math.min(i + SIZE, items.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * @param items - collection to split
+	 * @return consecutive chunks of at most {@link #SIZE} items
+	 */
+	public static <T> List<List<T>> partition(Collection<T> items) {
+		return partition(new ArrayList<>(items));
+	}
+}
@@ -1,21 +1,45 @@
 package com.example.enrollment.course.service.util;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import com.example.enrollment.course.dto.EnrollmentDto;
 import com.example.enrollment.course.entity.Enrollment;
 import com.example.enrollment.course.entity.WaitlistEntry;
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
 import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.exception.CourseFullException;
 import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
 import com.example.enrollment.course.exception.ResourceNotFoundException;
 import com.example.enrollment.course.mapper.AutoMapper;
 import com.example.enrollment.course.repository.CourseRepository;
 import com.example.enrollment.course.repository.EnrollmentRepository;
-import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.EnrollmentSlot;
 import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
+import com.example.enrollment.course.service.course.CourseWaitlistChangedEvent;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.hold.SeatHolds;
+import com.example.enrollment.course.service.metrics.EnrollmentMetrics;
+import com.example.enrollment.course.service.readmodel.EnrollmentReadModel;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.seat.SeatShards;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
@@ -27,43 +51,196 @@ public class EnrollmentUtil {
 	
 	private final EnrollmentRepository enrollmentRepo;
 	private final CourseRepository courseRepo;
-	private final StudentRepository studentRepo;
 	private final WaitlistEntryRepository waitlistRepo;
+	private final WaitlistIndex waitlistIndex;
+
+	/** Optional in-memory seat ledger; seats go straight to the courses table when null */
+	private SeatLedger seatLedger;
+
+	/** Optional seat counter rows of hot courses; used only without the ledger */
+	private SeatShards seatShards;
+
+	/** Optional publisher for seat changes; nothing is announced when null */
+	private ApplicationEventPublisher events;
+
+	/** Optional sink for swap lock-wait times */
+	private SwapStats swapStats;
+
+	/** Optional meters for outcomes, seat misses and promotions */
+	private EnrollmentMetrics metrics;
+
+	/** Optional time limit on unpaid seats; seats are kept until dropped when null */
+	private SeatHolds seatHolds;
+
+	/** Optional per-student view of enrollments to keep current */
+	private EnrollmentReadModel readModel;
+
+	/** Optional waitlist tiers; everyone waits in the standard tier when null */
+	private WaitlistPriorities priorities;
+
+	/**
+	 * Routes seat reservations through the in-memory ledger
+	 * @param seatLedger - ledger to use, or null for direct database updates
+	 * @return this utility
+	 */
+	public EnrollmentUtil withSeatLedger(SeatLedger seatLedger) {
+		this.seatLedger = seatLedger;
+		return this;
+	}
+
+	/**
+	 * Spreads seat updates of sharded courses across their counter rows
+	 * @param seatShards - shards to use, or null to update the courses row only
+	 * @return this utility
+	 */
+	public EnrollmentUtil withSeatShards(SeatShards seatShards) {
+		this.seatShards = seatShards;
+		return this;
+	}
+
+	/**
+	 * Announces every seat change as a {@link CourseSeatsChangedEvent}
+	 * and every waitlist change as a {@link CourseWaitlistChangedEvent}
+	 * @param events - publisher to use, or null to stay silent
+	 * @return this utility
+	 */
+	public EnrollmentUtil withEventPublisher(ApplicationEventPublisher events) {
+		this.events = events;
+		return this;
+	}
+
+	/**
+	 * Records how long swaps wait for their course locks
+	 * @param swapStats - stats to update, or null to skip timing
+	 * @return this utility
+	 */
+	public EnrollmentUtil withSwapStats(SwapStats swapStats) {
+		this.swapStats = swapStats;
+		return this;
+	}
+
+	/**
+	 * Reports enrollment outcomes, seat misses and promotion times
+	 * @param metrics - meters to update, or null to skip them
+	 * @return this utility
+	 */
+	public EnrollmentUtil withMetrics(EnrollmentMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Holds every seat taken for a limited time until it is paid
+	 * @param seatHolds - hold schedule, or null to keep seats until dropped
+	 * @return this utility
+	 */
+	public EnrollmentUtil withSeatHolds(SeatHolds seatHolds) {
+		this.seatHolds = seatHolds;
+		return this;
+	}
 
 	/**
-	 * Enrolls student -> course
+	 * Reports every enrollment change to the read model once it commits
+	 * @param readModel - view to keep current, or null when there is none
+	 * @return this utility
+	 */
+	public EnrollmentUtil withReadModel(EnrollmentReadModel readModel) {
+		this.readModel = readModel;
+		return this;
+	}
+
+	/**
+	 * Places waitlisted students by their tier before their arrival
+	 * @param priorities - tiers to use, or null to keep arrival order only
+	 * @return this utility
+	 */
+	public EnrollmentUtil withWaitlistPriorities(WaitlistPriorities priorities) {
+		this.priorities = priorities;
+		return this;
+	}
+
+	/**
+	 * Enrolls student -> course.
+	 * Runs no pre-checks: the seat decrement picks the status, and the insert
+	 * relies on the unique (student, course) constraint and the student/course
+	 * foreign keys. Two statements when a seat is free, three when waitlisted.
 	 * @param courseId
 	 * @param studentId
 	 * @return EnrollmentDto to the user
 	 */
 	@Transactional
 	public EnrollmentDto enrollStudent(Long courseId, Long studentId) {
-		// Validate student, course, enrollment
-		ensureStudentExists(studentId);
-		ensureCourseExists(courseId);
-		ensureNotAlreadyEnrolled(studentId, courseId);
+		// Try seat decrement; an unknown course has no seat and fails on insert
+		Enrollment enrollment = insert(courseId, studentId, takeSeat(courseId));
+		if (metrics != null) {
+			metrics.recordOutcome(courseId, enrollment.getStatus());
+		}
+		return toDto(enrollment);
+	}
+
+	/**
+	 * Moves a student from one course to another.
+	 * Both course rows are locked in ascending id order first, so swaps in
+	 * opposite directions queue up behind each other instead of deadlocking.
+	 * The new course must have a free seat; otherwise nothing changes and the
+	 * student keeps the old course.
+	 * @param studentId
+	 * @param oldCourseId - course to leave
+	 * @param newCourseId - course to join
+	 * @return the new enrollment
+	 */
+	@Transactional
+	public EnrollmentDto swapCourse(Long studentId, Long oldCourseId, Long newCourseId) {
+		// Lock both courses in a fixed order
+		long waitStart = System.nanoTime();
+		lockCourse(Math.min(oldCourseId, newCourseId));
+		if (!oldCourseId.equals(newCourseId)) {
+			lockCourse(Math.max(oldCourseId, newCourseId));
+		}
+		if (swapStats != null) {
+			swapStats.recordLockWait(System.nanoTime() - waitStart);
+		}
+
+		// Take the new seat first; a full course leaves the old enrollment untouched
+		if (!takeSeat(newCourseId)) {
+			throw new CourseFullException("Course Full with id: " + newCourseId
+					+ ", student " + studentId + " keeps course " + oldCourseId);
+		}
+		Enrollment moved = insert(newCourseId, studentId, true);
+
+		// Then leave the old course, handing its seat to the next in line
+		deRegisterCourse(oldCourseId, studentId);
+		return toDto(moved);
+	}
 
+	/**
+	 * Saves a new enrollment, enqueuing it when no seat was taken
+	 * @param seated - whether a seat of the course was taken for it
+	 */
+	private Enrollment insert(Long courseId, Long studentId, boolean seated) {
 		// Initiate Enrollment record
 		Enrollment enrollment = new Enrollment();
 		enrollment.setStudentId(studentId);
 		enrollment.setCourseId(courseId);
 		enrollment.setPaymentStatus(PaymentStatus.PENDING);
-
-		// Try seat decrement
-		int rows = courseRepo.decrementSeat(courseId);
-		if (rows > 0) {
-			// seat successfully taken
+		if (seated) {
+			// seat successfully taken, held until paid
 			enrollment.setStatus(EnrollmentStatus.ENROLLED);
 			enrollment.setWaitlistPosition(null);
+			enrollment.setHoldExpiresAt(seatHolds == null ? null : seatHolds.newDeadline());
 		} else {
-			// no seat available -> waitlist
+			// no seat available -> waitlist with the next ticket number
 			enrollment.setStatus(EnrollmentStatus.WAITLISTED);
-			long pos = waitlistRepo.countByCourseId(courseId) + 1;
-			enrollment.setWaitlistPosition(pos);
+			enrollment.setWaitlistPosition(waitlistIndex.nextTicket(courseId));
 		}
 
-		// Save/Create enrollment
-		Enrollment saved = enrollmentRepo.save(enrollment);
+		// Save/Create enrollment; a violated constraint rolls the seat back with the transaction
+		Enrollment saved;
+		try {
+			saved = enrollmentRepo.save(enrollment);
+		} catch (DataIntegrityViolationException ex) {
+			throw translate(ex, studentId, courseId);
+		}
 
 		// If waitlisted, enqueue
 		if (saved.getStatus() == EnrollmentStatus.WAITLISTED) {
@@ -71,11 +248,38 @@ public class EnrollmentUtil {
 			entry.setCourseId(courseId);
 			entry.setEnrollmentId(saved.getEnrollmentId());
 			entry.setTimestamp(Instant.now());
+			entry.setPriority(priorities == null ? WaitlistPriority.STANDARD : priorities.priorityOf(studentId));
 			waitlistRepo.save(entry);
+			waitlistIndex.add(courseId, saved.getWaitlistPosition(), entry.getPriority(), saved.getEnrollmentId());
+			waitlistChanged(courseId);
+		} else if (seatHolds != null) {
+			seatHolds.track(saved.getEnrollmentId(), saved.getHoldExpiresAt());
+		}
+		if (readModel != null) {
+			readModel.added(List.of(EnrollmentReadModel.Row.of(saved)));
 		}
+		return saved;
+	}
 
-		// Convert Enrollment Entity and Return EnrollmentDto
-		return AutoMapper.MAPPER.mapToEnrollmentDto(saved);
+	private void lockCourse(Long courseId) {
+		if (courseRepo.findByIdForUpdate(courseId).isEmpty()) {
+			throw new ResourceNotFoundException("Course Not Found with id: " + courseId);
+		}
+	}
+
+	/**
+	 * Converts an enrollment to its DTO with the live waitlist position
+	 * in place of the stored ticket number
+	 * @param enrollment
+	 * @return EnrollmentDto to the user
+	 */
+	public EnrollmentDto toDto(Enrollment enrollment) {
+		EnrollmentDto dto = AutoMapper.MAPPER.mapToEnrollmentDto(enrollment);
+		if (enrollment.getStatus() == EnrollmentStatus.WAITLISTED) {
+			dto.setWaitlistPosition(waitlistIndex.positionOf(
+					enrollment.getCourseId(), enrollment.getWaitlistPosition()));
+		}
+		return dto;
 	}
 
 	/**
@@ -87,69 +291,274 @@ public class EnrollmentUtil {
 	public void deRegisterCourse(Long courseId, Long studentId) {
 		// Validate Enrollment Existence
 		Enrollment e = enrollmentRepo
-				.findByStudentIdAndCourseId(studentId, courseId)
+				.findByStudentIdAndCourseIdForUpdate(studentId, courseId)
 				.orElseThrow(() -> new ResourceNotFoundException(
 						"Enrollment for student " + studentId + " in course " + courseId));
 		// Delete Enrollment by Id from Enrollment Repository
 		enrollmentRepo.deleteById(e.getEnrollmentId());
+		if (readModel != null) {
+			readModel.removed(List.of(e.getEnrollmentId()));
+		}
 
-		// Free up seat -> Increase seat availability for the given course
-		courseRepo.incrementSeat(courseId);
+		// A waitlisted student holds no seat, only their place in the queue
+		if (e.getStatus() == EnrollmentStatus.WAITLISTED) {
+			waitlistRepo.removeByEnrollmentId(e.getEnrollmentId());
+			if (e.getWaitlistPosition() != null) {
+				waitlistIndex.remove(courseId, e.getWaitlistPosition());
+			}
+			waitlistChanged(courseId);
+			return;
+		}
 
-		// Promote next waitlisted
-		waitlistRepo.findFirstByCourseIdOrderByTimestampAsc(courseId)
-		.ifPresent(this::promoteWaitlist);
+		// Hand the seat straight to the next in line; release it only if nobody is waiting
+		if (!promoteWaitlist(courseId)) {
+			releaseSeat(courseId);
+		}
 	}
 	
-		private void ensureStudentExists(Long studentId) {
-		if (!studentRepo.existsById(studentId)) {
-			throw new ResourceNotFoundException("Student Not Found with id: " + studentId);
+	/**
+	 * Deregisters every enrollment of the given students with set-based
+	 * statements: one read and one delete per table for all of them, then
+	 * per course at most one promotion batch and one seat update.
+	 * The student rows themselves are left to the caller.
+	 * @param studentIds
+	 */
+	@Transactional
+	public void deregisterStudents(Collection<Long> studentIds) {
+		List<EnrollmentSlot> held = new ArrayList<>();
+		for (List<Long> chunk : Chunks.partition(studentIds)) {
+			held.addAll(enrollmentRepo.findSlotsByStudentIds(chunk));
+		}
+		if (held.isEmpty()) {
+			return;
+		}
+
+		// Waitlisted students leave their queues; enrolled ones free a seat per course
+		List<Long> waitlisted = new ArrayList<>();
+		Set<Long> shortenedWaitlists = new LinkedHashSet<>();
+		Map<Long, Long> freedSeats = new LinkedHashMap<>();
+		for (EnrollmentSlot slot : held) {
+			if (slot.getStatus() == EnrollmentStatus.WAITLISTED) {
+				waitlisted.add(slot.getEnrollmentId());
+				if (slot.getTicket() != null) {
+					waitlistIndex.remove(slot.getCourseId(), slot.getTicket());
+				}
+				shortenedWaitlists.add(slot.getCourseId());
+			} else {
+				freedSeats.merge(slot.getCourseId(), 1L, Long::sum);
+			}
 		}
+		for (List<Long> chunk : Chunks.partition(waitlisted)) {
+			waitlistRepo.removeByEnrollmentIds(chunk);
+		}
+		shortenedWaitlists.forEach(this::waitlistChanged);
+		// Only the rows counted above; one enrolled since makes the student delete fail instead of losing its seat
+		List<Long> deleted = held.stream().map(EnrollmentSlot::getEnrollmentId).toList();
+		for (List<Long> chunk : Chunks.partition(deleted)) {
+			enrollmentRepo.deleteAllByIdInBatch(chunk);
+		}
+		if (readModel != null) {
+			readModel.removed(deleted);
+		}
+		handOverSeats(freedSeats);
 	}
 
-	private void ensureCourseExists(Long courseId) {
-		if (!courseRepo.existsById(courseId)) {
-			throw new ResourceNotFoundException("Course Not Found with id: " + courseId);
+	/**
+	 * Gives up the seats of unpaid enrollments whose hold ran out, with the
+	 * same set-based statements as {@link #deregisterStudents(Collection)}.
+	 * Enrollments that were paid, dropped or re-held in the meantime are left alone.
+	 * @param enrollmentIds - holds that came due
+	 * @param now - time the holds are checked against
+	 * @return number of enrollments removed
+	 */
+	@Transactional
+	public int releaseExpiredHolds(Collection<Long> enrollmentIds, Instant now) {
+		List<Long> expired = new ArrayList<>();
+		Map<Long, Long> freedSeats = new LinkedHashMap<>();
+		for (List<Long> chunk : Chunks.partition(enrollmentIds)) {
+			for (EnrollmentSlot slot : enrollmentRepo.findExpiredHolds(chunk, now)) {
+				expired.add(slot.getEnrollmentId());
+				freedSeats.merge(slot.getCourseId(), 1L, Long::sum);
+			}
+		}
+		for (List<Long> chunk : Chunks.partition(expired)) {
+			enrollmentRepo.deleteAllByIdInBatch(chunk);
 		}
+		if (readModel != null) {
+			readModel.removed(expired);
+		}
+		handOverSeats(freedSeats);
+		return expired.size();
+	}
+
+	/**
+	 * Freed seats go straight to the heads of each waitlist; only the rest is released
+	 * @param freedSeats - seats freed per course
+	 */
+	private void handOverSeats(Map<Long, Long> freedSeats) {
+		freedSeats.forEach((courseId, freed) -> {
+			long promoted = promoteHeads(courseId, freed);
+			if (promoted < freed) {
+				releaseSeats(courseId, freed - promoted);
+			}
+		});
 	}
 
-	private void ensureNotAlreadyEnrolled(Long studentId, Long courseId) {
-		if (enrollmentRepo.findByStudentIdAndCourseId(studentId, courseId).isPresent()) {
-			throw new ResourceAlreadyExistsException(
+	/**
+	 * Maps a failed enrollment insert to the error the API reports for it
+	 */
+	private RuntimeException translate(DataIntegrityViolationException ex, Long studentId, Long courseId) {
+		String violated = violatedConstraint(ex);
+		if (violated.contains(Enrollment.UNIQUE_STUDENT_COURSE)) {
+			return new ResourceAlreadyExistsException(
 					"Enrollment Already Exists with studentId: " + studentId + ", courseId: " + courseId);
 		}
+		if (violated.contains(Enrollment.FK_STUDENT)) {
+			return new ResourceNotFoundException("Student Not Found with id: " + studentId);
+		}
+		if (violated.contains(Enrollment.FK_COURSE)) {
+			return new ResourceNotFoundException("Course Not Found with id: " + courseId);
+		}
+		return ex;
 	}
-	
+
+	/** Constraint name reported by Hibernate plus the driver message, lower-cased */
+	private static String violatedConstraint(DataIntegrityViolationException ex) {
+		String name = ex.getCause() instanceof ConstraintViolationException violation
+				? violation.getConstraintName() : null;
+		return (name + " " + ex.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+	}
+
 	/**
-	 * Process waitlist and promote the next position in the waitlist entry
-	 * @param waitlistEntry 
+	 * Takes one seat of the course, from the ledger or the shards when enabled
+	 * @return true if a seat was available
 	 */
-	private void promoteWaitlist(WaitlistEntry entry) {
-		// Remove from waitlist
-		waitlistRepo.deleteById(entry.getEntryId());
+	private boolean takeSeat(Long courseId) {
+		boolean taken;
+		if (seatLedger != null) {
+			taken = seatLedger.tryReserve(courseId);
+		} else if (seatShards != null) {
+			taken = seatShards.tryTake(courseId);
+		} else {
+			taken = courseRepo.decrementSeat(courseId) > 0;
+		}
+		if (taken) {
+			seatsChanged(courseId, -1);
+		} else if (metrics != null) {
+			metrics.recordSeatMiss(courseId);
+		}
+		return taken;
+	}
 
-		// Occupy freed seat -> Decrease seat availability for the given course 
-		courseRepo.decrementSeat(entry.getCourseId());
+	/**
+	 * Gives one seat back to the course, through the ledger or the shards when enabled
+	 */
+	private void releaseSeat(Long courseId) {
+		if (seatLedger != null) {
+			seatLedger.release(courseId, 1);
+		} else if (seatShards != null) {
+			seatShards.release(courseId, 1);
+		} else {
+			courseRepo.incrementSeat(courseId);
+		}
+		seatsChanged(courseId, 1);
+	}
 
-		// Validate & Update the enrollment record
-		Enrollment enrl = enrollmentRepo.findById(entry.getEnrollmentId())
-				.orElseThrow(() -> new ResourceNotFoundException(
-						"Enrollment Not Exists with id: " + entry.getEnrollmentId()));
-		enrl.setStatus(EnrollmentStatus.ENROLLED);
-		enrl.setWaitlistPosition(null);
-		enrl.setPaymentStatus(PaymentStatus.PENDING);
-		enrollmentRepo.save(enrl);
+	/**
+	 * Gives several seats back to the course in one update
+	 */
+	private void releaseSeats(Long courseId, long count) {
+		if (seatLedger != null) {
+			seatLedger.release(courseId, count);
+		} else if (seatShards != null) {
+			seatShards.release(courseId, count);
+		} else {
+			courseRepo.adjustSeats(courseId, count);
+		}
+		seatsChanged(courseId, count);
+	}
 
-		// Re-compute positions for remaining waitlist
-		List<WaitlistEntry> remaining = 
-				waitlistRepo.findByCourseIdOrderByTimestampAsc(entry.getCourseId());
-		long position = 1;
-		for (WaitlistEntry we : remaining) {
-			Enrollment wEn = enrollmentRepo.findById(we.getEnrollmentId())
-					.orElseThrow();
-			wEn.setWaitlistPosition(position++);
-			enrollmentRepo.save(wEn);
+	private void seatsChanged(Long courseId, long delta) {
+		if (events != null) {
+			events.publishEvent(new CourseSeatsChangedEvent(courseId, delta));
 		}
 	}
 
+	private void waitlistChanged(Long courseId) {
+		if (events != null) {
+			events.publishEvent(new CourseWaitlistChangedEvent(courseId));
+		}
+	}
+
+	/**
+	 * Promote the head of the course's waitlist into the freed seat.
+	 * Positions of everyone behind it are derived from the waitlist index,
+	 * so no other row is touched.
+	 * The seat is handed over as is, so the course row is not touched either.
+	 * @param courseId
+	 * @return true if someone was promoted
+	 */
+	private boolean promoteWaitlist(Long courseId) {
+		Timer.Sample sample = metrics == null ? null : metrics.startPromotion();
+		Instant deadline = seatHolds == null ? null : seatHolds.newDeadline();
+		Long enrollmentId;
+		while ((enrollmentId = waitlistIndex.pollHead(courseId)) != null) {
+			// Remove from waitlist
+			waitlistRepo.removeByEnrollmentId(enrollmentId);
+			waitlistChanged(courseId);
+
+			// Update the enrollment record; skip entries whose enrollment is gone
+			if (enrollmentRepo.promoteFromWaitlist(enrollmentId, deadline) == 0) {
+				continue;
+			}
+			if (seatHolds != null) {
+				seatHolds.track(enrollmentId, deadline);
+			}
+			if (readModel != null) {
+				readModel.promoted(List.of(enrollmentId), deadline);
+			}
+
+			if (sample != null) {
+				metrics.stopPromotion(sample);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Promotes up to the given number of waitlist heads into seats that were
+	 * freed without being released, one delete and one update per round
+	 * @return number of students promoted
+	 */
+	private long promoteHeads(Long courseId, long seats) {
+		Timer.Sample sample = metrics == null ? null : metrics.startPromotion();
+		Instant deadline = seatHolds == null ? null : seatHolds.newDeadline();
+		long promoted = 0;
+		while (promoted < seats) {
+			List<Long> heads = new ArrayList<>();
+			Long head;
+			while (heads.size() < seats - promoted && (head = waitlistIndex.pollHead(courseId)) != null) {
+				heads.add(head);
+			}
+			if (heads.isEmpty()) {
+				break;
+			}
+			waitlistRepo.removeByEnrollmentIds(heads);
+			waitlistChanged(courseId);
+			// heads whose enrollment is gone are skipped, the next round refills;
+			// their holds are scheduled anyway and come out as no-ops
+			promoted += enrollmentRepo.promoteAllFromWaitlist(heads, deadline);
+			if (seatHolds != null) {
+				seatHolds.track(heads, deadline);
+			}
+			if (readModel != null) {
+				readModel.promoted(heads, deadline);
+			}
+		}
+		if (sample != null && promoted > 0) {
+			metrics.stopPromotion(sample);
+		}
+		return promoted;
+	}
 }
@@ -0,0 +1,89 @@
+package com.example.enrollment.course.service.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects until the surrounding transaction settles,
+ * so caches and counters never get ahead of (or drift from) the database.
+ * Outside a transaction the callbacks behave as if it committed immediately.
+ */
+public final class TransactionCallbacks {
+
+	/** Resource key of the current transaction's compensations */
+	private static final Object COMPENSATIONS = new Object();
+
+	private TransactionCallbacks() {
+	}
+
+	/**
+	 * Runs the action once the current transaction commits
+	 * @param action - side effect to apply
+	 */
+	public static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	/**
+	 * Runs the compensation if the current transaction rolls back.
+	 * Compensations run in reverse registration order, so undoing a change
+	 * that was itself applied on top of an earlier one restores the earlier state.
+	 * @param compensation - undo step for a change that was applied eagerly
+	 */
+	@SuppressWarnings("unchecked")
+	public static void afterRollback(Runnable compensation) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		Deque<Runnable> compensations = (Deque<Runnable>) TransactionSynchronizationManager.getResource(COMPENSATIONS);
+		if (compensations == null) {
+			compensations = new ArrayDeque<>();
+			TransactionSynchronizationManager.bindResource(COMPENSATIONS, compensations);
+			TransactionSynchronizationManager.registerSynchronization(new Compensations(compensations));
+		}
+		compensations.push(compensation);
+	}
+
+	/**
+	 * The compensations of one transaction. Unbound while the transaction is
+	 * suspended so an inner transaction collects its own.
+	 */
+	private static final class Compensations implements TransactionSynchronization {
+
+		private final Deque<Runnable> stack;
+
+		Compensations(Deque<Runnable> stack) {
+			this.stack = stack;
+		}
+
+		@Override
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResource(COMPENSATIONS);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(COMPENSATIONS, stack);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(COMPENSATIONS);
+			if (status == STATUS_ROLLED_BACK) {
+				stack.forEach(Runnable::run);
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.enrollment.course.service.waitlist;
+
+/**
+ * Binary indexed tree of 0/1 counts over ticket numbers 1..capacity.
+ * Grows on demand; all operations are O(log n).
+ * Not thread-safe, callers synchronize.
+ */
+class FenwickTree {
+
+	private int[] tree;
+
+	FenwickTree(int capacity) {
+		tree = new int[Math.max(capacity, 16) + 1];
+	}
+
+	/** Adds delta at index i (1-based) */
+	void add(int i, int delta) {
+		ensureCapacity(i);
+		for (; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/** Sum of counts at indexes 1..i */
+	int prefixSum(int i) {
+		int sum = 0;
+		for (i = Math.min(i, tree.length - 1); i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Smallest index whose prefix sum reaches k
+	 * @return the index, or 0 if the total is below k
+	 */
+	int lowerBound(int k) {
+		int pos = 0;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = pos + step;
+			if (next < tree.length && tree[next] < k) {
+				pos = next;
+				k -= tree[next];
+			}
+		}
+		return pos + 1 < tree.length ? pos + 1 : 0;
+	}
+
+	int capacity() {
+		return tree.length - 1;
+	}
+
+	private void ensureCapacity(int i) {
+		if (i < tree.length) {
+			return;
+		}
+		int size = tree.length - 1;
+		int newSize = Math.max(size * 2, i);
+		// Rebuild from point values: Fenwick nodes cover different ranges after resizing
+		int[] values = new int[size + 1];
+		for (int j = 1; j <= size; j++) {
+			values[j] = prefixSum(j) - prefixSum(j - 1);
+		}
+		tree = new int[newSize + 1];
+		for (int j = 1; j <= size; j++) {
+			if (values[j] != 0) {
+				add(j, values[j]);
+			}
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package com.example.enrollment.course.service.waitlist;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+/**
+ * In-memory rank structure over every course's waitlist.
+ *
+ * Each waitlisted enrollment holds a per-course ticket number that only ever
+ * grows (stored in enrollments.waitlist_number) and a {@link WaitlistPriority}
+ * tier. Promotion order is (tier, ticket). Every tier keeps a Fenwick tree
+ * over its live tickets, so "what is my position" is the sizes of the tiers
+ * ahead plus a prefix sum in the own tier, and "who is next" is a search in
+ * the first non-empty tier: O(log n) with a constant number of tiers, and
+ * promotions never renumber the rows behind them.
+ *
+ * Mutations are applied immediately, so concurrent transactions cannot claim
+ * the same head, and are undone if the surrounding transaction rolls back.
+ */
+@Component
+public class WaitlistIndex {
+
+	private static final WaitlistPriority[] TIERS = WaitlistPriority.values();
+
+	private final Map<Long, CourseWaitlist> courses = new ConcurrentHashMap<>();
+
+	/**
+	 * Hands out the next ticket number for the course's waitlist
+	 * @param courseId
+	 * @return a ticket greater than every ticket issued before
+	 */
+	public long nextTicket(Long courseId) {
+		CourseWaitlist waitlist = courses.get(courseId);
+		if (waitlist != null) {
+			return waitlist.nextTicket();
+		}
+		CourseWaitlist created = new CourseWaitlist();
+		waitlist = courses.putIfAbsent(courseId, created);
+		if (waitlist != null) {
+			return waitlist.nextTicket();
+		}
+		long ticket = created.nextTicket();
+		// The insert of an unknown course fails its foreign key; keep no waitlist for it
+		TransactionCallbacks.afterRollback(() -> courses.computeIfPresent(courseId,
+				(id, current) -> current == created && created.unusedSince(ticket) ? null : current));
+		return ticket;
+	}
+
+	/**
+	 * Adds a waitlisted enrollment to the standard tier of the course's waitlist
+	 * @param courseId
+	 * @param ticket - ticket issued by {@link #nextTicket(Long)}
+	 * @param enrollmentId
+	 */
+	public void add(Long courseId, long ticket, Long enrollmentId) {
+		add(courseId, ticket, WaitlistPriority.STANDARD, enrollmentId);
+	}
+
+	/**
+	 * Adds a waitlisted enrollment to the course's waitlist
+	 * @param courseId
+	 * @param ticket - ticket issued by {@link #nextTicket(Long)}
+	 * @param priority - tier of the student
+	 * @param enrollmentId
+	 */
+	public void add(Long courseId, long ticket, WaitlistPriority priority, Long enrollmentId) {
+		CourseWaitlist waitlist = waitlist(courseId);
+		waitlist.add(ticket, priority.ordinal(), enrollmentId);
+		TransactionCallbacks.afterRollback(() -> waitlist.remove(ticket));
+	}
+
+	/**
+	 * Removes a ticket from the course's waitlist
+	 * @param courseId
+	 * @param ticket
+	 * @return true if the ticket was on the waitlist
+	 */
+	public boolean remove(Long courseId, long ticket) {
+		CourseWaitlist waitlist = courses.get(courseId);
+		Entry removed = waitlist == null ? null : waitlist.remove(ticket);
+		if (removed == null) {
+			return false;
+		}
+		TransactionCallbacks.afterRollback(() -> waitlist.add(ticket, removed.tier(), removed.enrollmentId()));
+		return true;
+	}
+
+	/**
+	 * Takes the first enrollment of the highest non-empty tier off the course's waitlist
+	 * @param courseId
+	 * @return enrollment id of the promoted entry, or null if nobody is waiting
+	 */
+	public Long pollHead(Long courseId) {
+		CourseWaitlist waitlist = courses.get(courseId);
+		if (waitlist == null) {
+			return null;
+		}
+		Entry head = waitlist.pollHead();
+		if (head == null) {
+			return null;
+		}
+		TransactionCallbacks.afterRollback(() -> waitlist.add(head.ticket(), head.tier(), head.enrollmentId()));
+		return head.enrollmentId();
+	}
+
+	/**
+	 * Live 1-based position of a ticket in the course's waitlist
+	 * @param courseId
+	 * @param ticket - stored waitlist number, may be null
+	 * @return the position, or null if the ticket is not waiting
+	 */
+	public Long positionOf(Long courseId, Long ticket) {
+		if (ticket == null) {
+			return null;
+		}
+		CourseWaitlist waitlist = courses.get(courseId);
+		long position = waitlist == null ? 0 : waitlist.position(ticket);
+		return position == 0 ? null : position;
+	}
+
+	/**
+	 * Number of enrollments waiting for the course
+	 * @param courseId
+	 */
+	public long size(Long courseId) {
+		CourseWaitlist waitlist = courses.get(courseId);
+		return waitlist == null ? 0 : waitlist.size();
+	}
+
+	/**
+	 * Number of enrollments waiting across all courses
+	 */
+	public long totalSize() {
+		long total = 0;
+		for (CourseWaitlist waitlist : courses.values()) {
+			total += waitlist.size();
+		}
+		return total;
+	}
+
+	/**
+	 * Loads a persisted ticket while rebuilding; bypasses transaction callbacks
+	 */
+	void load(Long courseId, long ticket, WaitlistPriority priority, Long enrollmentId) {
+		waitlist(courseId).add(ticket, priority.ordinal(), enrollmentId);
+	}
+
+	/** Drops every waitlist before a rebuild */
+	void clear() {
+		courses.clear();
+	}
+
+	private CourseWaitlist waitlist(Long courseId) {
+		return courses.computeIfAbsent(courseId, id -> new CourseWaitlist());
+	}
+
+	/** One waitlisted ticket */
+	private record Entry(long ticket, int tier, long enrollmentId) {
+	}
+
+	/**
+	 * One course's waitlist: live tickets in a Fenwick tree per tier, plus
+	 * the enrollment id and tier behind each ticket.
+	 *
+	 * Slot i of the arrays holds ticket base + i. Tickets only grow, so the
+	 * window slides forward past tickets that have left whenever it runs out
+	 * of room, and starts over when the waitlist drains: memory follows the
+	 * tickets still waiting, not every ticket ever issued.
+	 */
+	private static final class CourseWaitlist {
+
+		private static final int INITIAL_SLOTS = 64;
+
+		private final FenwickTree[] trees = new FenwickTree[TIERS.length];
+		private final int[] sizes = new int[TIERS.length];
+		private long[] enrollmentIds = new long[INITIAL_SLOTS + 1];
+		private byte[] tiers = new byte[INITIAL_SLOTS + 1];
+		private long base;
+		private long lastTicket;
+		private int size;
+
+		synchronized long nextTicket() {
+			return ++lastTicket;
+		}
+
+		/** Whether nothing happened since the ticket was issued */
+		synchronized boolean unusedSince(long ticket) {
+			return size == 0 && lastTicket == ticket;
+		}
+
+		synchronized void add(long ticket, int tier, long enrollmentId) {
+			lastTicket = Math.max(lastTicket, ticket);
+			if (size == 0) {
+				base = ticket - 1;
+			} else if (ticket <= base || ticket - base >= enrollmentIds.length) {
+				// A compensation can bring back a ticket in front of the window
+				slide(Math.min(ticket, firstTicket()) - 1, ticket);
+			}
+			int i = Math.toIntExact(ticket - base);
+			if (enrollmentIds[i] != 0) {
+				return;
+			}
+			enrollmentIds[i] = enrollmentId;
+			tiers[i] = (byte) tier;
+			if (trees[tier] == null) {
+				trees[tier] = new FenwickTree(enrollmentIds.length - 1);
+			}
+			trees[tier].add(i, 1);
+			sizes[tier]++;
+			size++;
+		}
+
+		synchronized Entry remove(long ticket) {
+			int i = slotOf(ticket);
+			if (i == 0) {
+				return null;
+			}
+			Entry removed = new Entry(ticket, tiers[i], enrollmentIds[i]);
+			enrollmentIds[i] = 0;
+			trees[removed.tier()].add(i, -1);
+			sizes[removed.tier()]--;
+			size--;
+			if (size == 0 && enrollmentIds.length > INITIAL_SLOTS + 1) {
+				enrollmentIds = new long[INITIAL_SLOTS + 1];
+				tiers = new byte[INITIAL_SLOTS + 1];
+				Arrays.fill(trees, null);
+			}
+			return removed;
+		}
+
+		synchronized Entry pollHead() {
+			for (int tier = 0; tier < sizes.length; tier++) {
+				if (sizes[tier] > 0) {
+					return remove(base + trees[tier].lowerBound(1));
+				}
+			}
+			return null;
+		}
+
+		synchronized long position(long ticket) {
+			int i = slotOf(ticket);
+			if (i == 0) {
+				return 0;
+			}
+			long ahead = 0;
+			for (int tier = 0; tier < tiers[i]; tier++) {
+				ahead += sizes[tier];
+			}
+			return ahead + trees[tiers[i]].prefixSum(i);
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		/** Slot of a waiting ticket, or 0 if the ticket is not waiting */
+		private int slotOf(long ticket) {
+			long slot = ticket - base;
+			if (slot <= 0 || slot >= enrollmentIds.length) {
+				return 0;
+			}
+			int i = Math.toIntExact(slot);
+			return enrollmentIds[i] == 0 ? 0 : i;
+		}
+
+		/** Lowest waiting ticket; the waitlist must not be empty */
+		private long firstTicket() {
+			int first = Integer.MAX_VALUE;
+			for (int tier = 0; tier < sizes.length; tier++) {
+				if (sizes[tier] > 0) {
+					first = Math.min(first, trees[tier].lowerBound(1));
+				}
+			}
+			return base + first;
+		}
+
+		/**
+		 * Moves the window to start after newBase, with room for every
+		 * waiting ticket and the given one, plus as much again to grow into
+		 */
+		private void slide(long newBase, long ticket) {
+			long last = ticket;
+			for (int i = enrollmentIds.length - 1; i > 0; i--) {
+				if (enrollmentIds[i] != 0) {
+					last = Math.max(last, base + i);
+					break;
+				}
+			}
+			int slots = Math.toIntExact(Math.max(INITIAL_SLOTS, 2 * (last - newBase)));
+			long[] movedIds = new long[slots + 1];
+			byte[] movedTiers = new byte[slots + 1];
+			FenwickTree[] movedTrees = new FenwickTree[TIERS.length];
+			for (int i = 1; i < enrollmentIds.length; i++) {
+				if (enrollmentIds[i] == 0) {
+					continue;
+				}
+				int j = Math.toIntExact(base + i - newBase);
+				movedIds[j] = enrollmentIds[i];
+				movedTiers[j] = tiers[i];
+				if (movedTrees[tiers[i]] == null) {
+					movedTrees[tiers[i]] = new FenwickTree(slots);
+				}
+				movedTrees[tiers[i]].add(j, 1);
+			}
+			enrollmentIds = movedIds;
+			tiers = movedTiers;
+			System.arraycopy(movedTrees, 0, trees, 0, trees.length);
+			base = newBase;
+		}
+	}
+}
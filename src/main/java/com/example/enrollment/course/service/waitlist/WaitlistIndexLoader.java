@@ -0,0 +1,59 @@
+package com.example.enrollment.course.service.waitlist;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository.WaitlistTicket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the {@link WaitlistIndex} from waitlist_entries before the
+ * application starts serving requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitlistIndexLoader implements SmartInitializingSingleton {
+
+	private final WaitlistIndex waitlistIndex;
+	private final WaitlistEntryRepository waitlistRepo;
+	private final EnrollmentRepository enrollmentRepo;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	/**
+	 * Reloads every waitlist in arrival order, each entry into its tier.
+	 * Tickets that do not increase along that order (rows numbered before
+	 * tickets existed) are re-issued behind their predecessor and written back.
+	 */
+	public void rebuild() {
+		waitlistIndex.clear();
+		Long courseId = null;
+		long lastTicket = 0;
+		int entries = 0;
+		for (WaitlistTicket row : waitlistRepo.findAllTicketsInOrder()) {
+			if (!row.getCourseId().equals(courseId)) {
+				courseId = row.getCourseId();
+				lastTicket = 0;
+			}
+			long ticket = row.getTicket() == null ? 0 : row.getTicket();
+			if (ticket <= lastTicket) {
+				ticket = lastTicket + 1;
+				enrollmentRepo.updateWaitlistTicket(row.getEnrollmentId(), ticket);
+			}
+			waitlistIndex.load(courseId, ticket,
+					row.getPriority() == null ? WaitlistPriority.STANDARD : row.getPriority(), row.getEnrollmentId());
+			lastTicket = ticket;
+			entries++;
+		}
+		log.info("Waitlist index loaded {} entries", entries);
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.enrollment.course.service.waitlist;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.StudentRepository.StudentPriority;
+import com.example.enrollment.course.service.util.TransactionCallbacks;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Waitlist tier of every student, kept in memory so that joining a waitlist
+ * costs no extra query.
+ *
+ * Only students outside the STANDARD tier are held, since the registrar
+ * raises few of them. The map is loaded before the application starts
+ * serving requests, updated once a tier change commits and reloaded on a
+ * timer to pick up changes made by other instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitlistPriorities implements SmartInitializingSingleton {
+
+	private final StudentRepository studentRepo;
+
+	private volatile Map<Long, WaitlistPriority> raised = Map.of();
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		reload();
+	}
+
+	/** Replaces the map with the students table */
+	@Scheduled(fixedDelayString = "${enrollment.waitlist.priority-refresh-ms:60000}",
+			initialDelayString = "${enrollment.waitlist.priority-refresh-ms:60000}")
+	public void reload() {
+		Map<Long, WaitlistPriority> loaded = new HashMap<>();
+		for (StudentPriority row : studentRepo.findPrioritiesOtherThan(WaitlistPriority.STANDARD)) {
+			loaded.put(row.getStudentId(), row.getPriority());
+		}
+		raised = loaded;
+		log.debug("Waitlist priorities loaded for {} students", loaded.size());
+	}
+
+	/**
+	 * @param studentId
+	 * @return the student's tier, STANDARD unless the registrar raised it
+	 */
+	public WaitlistPriority priorityOf(Long studentId) {
+		return raised.getOrDefault(studentId, WaitlistPriority.STANDARD);
+	}
+
+	/**
+	 * Records a student's new tier once the surrounding transaction commits
+	 */
+	public void changed(Long studentId, WaitlistPriority priority) {
+		TransactionCallbacks.afterCommit(() -> {
+			synchronized (this) {
+				Map<Long, WaitlistPriority> next = new HashMap<>(raised);
+				if (priority == WaitlistPriority.STANDARD) {
+					next.remove(studentId);
+				} else {
+					next.put(studentId, priority);
+				}
+				raised = next;
+			}
+		});
+	}
+}
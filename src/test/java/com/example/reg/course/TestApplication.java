@@ -0,0 +1,18 @@
+package com.example.reg.course;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.example.enrollment.course.StudentCourseRegistrationProgramApplication;
+
+/**
+ * Test bootstrap. The tests live outside the application's package tree, so
+ * Spring Boot's upward search for a configuration class ends here; this
+ * points component, entity and repository scanning back at the application.
+ */
+@SpringBootApplication(scanBasePackageClasses = StudentCourseRegistrationProgramApplication.class)
+@EntityScan(basePackageClasses = StudentCourseRegistrationProgramApplication.class)
+@EnableJpaRepositories(basePackageClasses = StudentCourseRegistrationProgramApplication.class)
+class TestApplication {
+}
@@ -0,0 +1,134 @@
+package com.example.reg.course.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+/**
+ * Checks the enrollment tables for states no sequence of requests may produce.
+ * Each check returns a description of every violation it finds.
+ */
+class EnrollmentInvariants {
+
+	/** Free seats per course: its courses row plus the rows of its seat shards, if it has any */
+	private static final String FREE_SEATS_SQL = "SELECT c.course_id, c.available_seats + COALESCE("
+			+ "(SELECT SUM(s.available_seats) FROM course_seat_shards s WHERE s.course_id = c.course_id), 0) AS free "
+			+ "FROM courses c";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final WaitlistIndex waitlistIndex;
+
+	EnrollmentInvariants(JdbcTemplate jdbcTemplate, WaitlistIndex waitlistIndex) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.waitlistIndex = waitlistIndex;
+	}
+
+	/**
+	 * @param capacities - seat capacity of every course the scenario created
+	 * @return every violation found, empty if the data is consistent
+	 */
+	List<String> check(Map<Long, Long> capacities) {
+		List<String> violations = new ArrayList<>();
+		noNegativeSeats(violations);
+		seatsAddUpToCapacity(capacities, violations);
+		noDuplicateEnrollments(violations);
+		statusMatchesWaitlist(violations);
+		waitlistPositionsAreGapFree(capacities, violations);
+		nobodyWaitsForAFreeSeat(violations);
+		return violations;
+	}
+
+	private void noNegativeSeats(List<String> violations) {
+		jdbcTemplate.query("SELECT course_id, available_seats FROM courses WHERE available_seats < 0",
+				rs -> {
+					violations.add("course " + rs.getLong(1) + " has " + rs.getLong(2) + " seats");
+				});
+		jdbcTemplate.query("SELECT course_id, shard_no, available_seats FROM course_seat_shards "
+				+ "WHERE available_seats < 0", rs -> {
+					violations.add("course " + rs.getLong(1) + " shard " + rs.getInt(2) + " has "
+							+ rs.getLong(3) + " seats");
+				});
+	}
+
+	private void seatsAddUpToCapacity(Map<Long, Long> capacities, List<String> violations) {
+		Map<Long, Long> enrolled = new HashMap<>();
+		jdbcTemplate.query("SELECT course_id, COUNT(*) FROM enrollments WHERE status = 'ENROLLED' GROUP BY course_id",
+				rs -> {
+					enrolled.put(rs.getLong(1), rs.getLong(2));
+				});
+		Map<Long, Long> free = new HashMap<>();
+		jdbcTemplate.query(FREE_SEATS_SQL, rs -> {
+			free.put(rs.getLong(1), rs.getLong(2));
+		});
+		capacities.forEach((courseId, capacity) -> {
+			long available = free.getOrDefault(courseId, 0L);
+			long taken = enrolled.getOrDefault(courseId, 0L);
+			if (available + taken != capacity) {
+				violations.add("course " + courseId + " has " + available + " free + " + taken
+						+ " enrolled seats, capacity is " + capacity);
+			}
+		});
+	}
+
+	private void noDuplicateEnrollments(List<String> violations) {
+		jdbcTemplate.query("SELECT student_id, course_id, COUNT(*) FROM enrollments "
+				+ "GROUP BY student_id, course_id HAVING COUNT(*) > 1", rs -> {
+					violations.add("student " + rs.getLong(1) + " is enrolled " + rs.getLong(3)
+							+ " times in course " + rs.getLong(2));
+				});
+	}
+
+	private void statusMatchesWaitlist(List<String> violations) {
+		jdbcTemplate.query("SELECT e.enrollment_id, e.status, e.waitlist_number, w.entry_id "
+				+ "FROM enrollments e LEFT JOIN waitlist_entries w ON w.enrollment_id = e.enrollment_id", rs -> {
+					long enrollmentId = rs.getLong(1);
+					boolean waitlisted = "WAITLISTED".equals(rs.getString(2));
+					boolean hasTicket = rs.getObject(3) != null;
+					boolean hasEntry = rs.getObject(4) != null;
+					if (waitlisted != hasTicket || waitlisted != hasEntry) {
+						violations.add("enrollment " + enrollmentId + " is " + rs.getString(2)
+								+ (hasTicket ? " with" : " without") + " a ticket and"
+								+ (hasEntry ? " with" : " without") + " a waitlist entry");
+					}
+				});
+		jdbcTemplate.query("SELECT w.entry_id FROM waitlist_entries w "
+				+ "LEFT JOIN enrollments e ON e.enrollment_id = w.enrollment_id WHERE e.enrollment_id IS NULL",
+				rs -> {
+					violations.add("waitlist entry " + rs.getLong(1) + " has no enrollment");
+				});
+	}
+
+	/** Live positions, as shown to students, must run 1..n in ticket order */
+	private void waitlistPositionsAreGapFree(Map<Long, Long> capacities, List<String> violations) {
+		for (Long courseId : capacities.keySet()) {
+			List<Long> tickets = jdbcTemplate.queryForList("SELECT waitlist_number FROM enrollments "
+					+ "WHERE course_id = ? AND status = 'WAITLISTED' ORDER BY waitlist_number", Long.class, courseId);
+			if (waitlistIndex.size(courseId) != tickets.size()) {
+				violations.add("course " + courseId + " has " + tickets.size() + " waitlisted enrollments but "
+						+ waitlistIndex.size(courseId) + " queued in the waitlist index");
+			}
+			for (int i = 0; i < tickets.size(); i++) {
+				Long position = waitlistIndex.positionOf(courseId, tickets.get(i));
+				if (position == null || position != i + 1) {
+					violations.add("course " + courseId + " ticket " + tickets.get(i) + " is at position "
+							+ position + ", expected " + (i + 1));
+					break;
+				}
+			}
+		}
+	}
+
+	private void nobodyWaitsForAFreeSeat(List<String> violations) {
+		jdbcTemplate.query("SELECT c.course_id, c.free, COUNT(w.entry_id) FROM (" + FREE_SEATS_SQL + ") c "
+				+ "JOIN waitlist_entries w ON w.course_id = c.course_id "
+				+ "WHERE c.free > 0 GROUP BY c.course_id, c.free", rs -> {
+					violations.add("course " + rs.getLong(1) + " has " + rs.getLong(2) + " free seats and "
+							+ rs.getLong(3) + " students waiting");
+				});
+	}
+}
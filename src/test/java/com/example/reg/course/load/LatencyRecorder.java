@@ -0,0 +1,66 @@
+package com.example.reg.course.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and status codes per endpoint, safe to record from many clients
+ */
+class LatencyRecorder {
+
+	private final Map<String, Samples> endpoints = new ConcurrentHashMap<>();
+
+	void record(String endpoint, int status, long nanos) {
+		endpoints.computeIfAbsent(endpoint, e -> new Samples()).add(status, nanos);
+	}
+
+	/**
+	 * @param elapsedNanos - wall time the requests were spread over
+	 * @return one line per endpoint, plus a header
+	 */
+	String report(long elapsedNanos) {
+		StringBuilder out = new StringBuilder(String.format("%-42s %8s %10s %9s %9s %9s  %s%n",
+				"Endpoint", "Requests", "Req/s", "p50 ms", "p99 ms", "p999 ms", "Statuses"));
+		double seconds = elapsedNanos / 1e9;
+		new TreeMap<>(endpoints).forEach((endpoint, samples) -> {
+			long[] sorted = samples.sorted();
+			out.append(String.format("%-42s %8d %10.1f %9.2f %9.2f %9.2f  %s%n", endpoint, sorted.length,
+					sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+					percentile(sorted, 0.999), samples.statuses));
+		});
+		return out.toString();
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+	private static final class Samples {
+
+		private long[] nanos = new long[1024];
+		private int count;
+		private final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+
+		synchronized void add(int status, long latency) {
+			if (count == nanos.length) {
+				nanos = Arrays.copyOf(nanos, count * 2);
+			}
+			nanos[count++] = latency;
+			statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+		}
+
+		synchronized long[] sorted() {
+			long[] copy = Arrays.copyOf(nanos, count);
+			Arrays.sort(copy);
+			return copy;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.reg.course.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape of a simulated registration day.
+ *
+ * Every field can be set as a system property named load.&lt;field&gt;, e.g.
+ * -Dload.students=20000 -Dload.clients=64. load.properties takes extra
+ * comma-separated Spring properties, so the same day can be replayed with
+ * e.g. enrollment.seat-ledger.enabled=true.
+ *
+ * @param students - students registered before the rush
+ * @param hotCourses - oversubscribed courses most students want
+ * @param hotCapacity - seats per hot course
+ * @param coldCourses - courses with room to spare
+ * @param coldCapacity - seats per cold course
+ * @param enrollsPerStudent - enroll requests each student sends in the rush
+ * @param hotShare - share of rush enrolls aimed at a hot course
+ * @param churnOperations - drops, swaps, late enrolls and deletions after the rush
+ * @param dropWeight - relative weight of drops in the churn
+ * @param swapWeight - relative weight of swaps in the churn
+ * @param enrollWeight - relative weight of late enrolls in the churn
+ * @param deleteWeight - relative weight of student deletions in the churn
+ * @param clients - concurrent HTTP clients
+ * @param seed - random seed, for replaying the same day
+ * @param properties - extra Spring properties for the application
+ */
+public record RegistrationDayScenario(
+		int students,
+		int hotCourses,
+		long hotCapacity,
+		int coldCourses,
+		long coldCapacity,
+		int enrollsPerStudent,
+		double hotShare,
+		int churnOperations,
+		int dropWeight,
+		int swapWeight,
+		int enrollWeight,
+		int deleteWeight,
+		int clients,
+		long seed,
+		List<String> properties) {
+
+	/** A full-size day, overridable per field with load.* system properties */
+	public static RegistrationDayScenario fromSystemProperties() {
+		return new RegistrationDayScenario(
+				Integer.getInteger("load.students", 5_000),
+				Integer.getInteger("load.hotCourses", 3),
+				Long.getLong("load.hotCapacity", 200L),
+				Integer.getInteger("load.coldCourses", 20),
+				Long.getLong("load.coldCapacity", 1_000L),
+				Integer.getInteger("load.enrollsPerStudent", 3),
+				Double.parseDouble(System.getProperty("load.hotShare", "0.7")),
+				Integer.getInteger("load.churnOperations", 10_000),
+				Integer.getInteger("load.dropWeight", 4),
+				Integer.getInteger("load.swapWeight", 3),
+				Integer.getInteger("load.enrollWeight", 2),
+				Integer.getInteger("load.deleteWeight", 1),
+				Integer.getInteger("load.clients", 32),
+				Long.getLong("load.seed", 42L),
+				split(System.getProperty("load.properties", "")));
+	}
+
+	/** A day small enough for the test suite that still contends on every course */
+	public static RegistrationDayScenario small() {
+		return new RegistrationDayScenario(200, 2, 10, 3, 60, 3, 0.7, 400, 4, 3, 2, 1, 16, 7L, List.of());
+	}
+
+	/** The same day, run with these Spring properties added */
+	public RegistrationDayScenario withProperties(String... extra) {
+		List<String> all = new ArrayList<>(properties);
+		all.addAll(List.of(extra));
+		return new RegistrationDayScenario(students, hotCourses, hotCapacity, coldCourses, coldCapacity,
+				enrollsPerStudent, hotShare, churnOperations, dropWeight, swapWeight, enrollWeight, deleteWeight,
+				clients, seed, all);
+	}
+
+	private static List<String> split(String properties) {
+		List<String> list = new ArrayList<>();
+		for (String property : properties.split(",")) {
+			if (!property.isBlank()) {
+				list.add(property.trim());
+			}
+		}
+		return list;
+	}
+}
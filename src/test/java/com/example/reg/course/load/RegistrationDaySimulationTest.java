@@ -0,0 +1,33 @@
+package com.example.reg.course.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RegistrationDaySimulationTest {
+
+	@Test
+	void smallRegistrationDay_keepsEveryInvariant() throws Exception {
+		RegistrationDaySimulator.Result result =
+				new RegistrationDaySimulator(RegistrationDayScenario.small()).run();
+
+		assertThat(result.violations()).as(result::report).isEmpty();
+	}
+
+	@Test
+	void smallRegistrationDay_onTheSeatLedger_keepsEveryInvariant() throws Exception {
+		RegistrationDaySimulator.Result result = new RegistrationDaySimulator(RegistrationDayScenario.small()
+				.withProperties("enrollment.seat-ledger.enabled=true")).run();
+
+		assertThat(result.violations()).as(result::report).isEmpty();
+	}
+
+	@Test
+	void smallRegistrationDay_withEveryCourseSharded_keepsEveryInvariant() throws Exception {
+		RegistrationDaySimulator.Result result = new RegistrationDaySimulator(RegistrationDayScenario.small()
+				.withProperties("enrollment.seat-shards.enabled=true", "enrollment.seat-shards.min-seats=1",
+						"enrollment.seat-shards.count=4")).run();
+
+		assertThat(result.violations()).as(result::report).isEmpty();
+	}
+}
@@ -0,0 +1,314 @@
+package com.example.reg.course.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.enrollment.course.StudentCourseRegistrationProgramApplication;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+import com.example.enrollment.course.service.seat.SeatLedger;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays a registration day against the real application over HTTP.
+ *
+ * Starts the application on a random port with an in-memory H2 database in
+ * MySQL mode, registers the students, then runs two phases through
+ * RegistrationController with many concurrent clients:
+ *  - rush: every student enrolls in a few courses, mostly the hot ones
+ *  - churn: drops, swaps, late enrolls and student deletions, mixed
+ * Afterwards it prints throughput and latency percentiles per endpoint and
+ * checks {@link EnrollmentInvariants}.
+ *
+ * Run with mvn -P loadtest verify (see pom.xml), or call {@link #run} from a test.
+ */
+public class RegistrationDaySimulator {
+
+	private static final String API = "/api/v1";
+	private static final long FIRST_COURSE_ID = 50_000L;
+
+	private final RegistrationDayScenario scenario;
+	private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final LatencyRecorder latencies = new LatencyRecorder();
+
+	private String baseUrl;
+	private final Map<Long, Long> capacities = new LinkedHashMap<>();
+	private final List<Long> hotCourses = new ArrayList<>();
+	private final List<Long> coldCourses = new ArrayList<>();
+	private final List<Long> students = Collections.synchronizedList(new ArrayList<>());
+	private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+
+	/** Courses each student got a seat or a ticket in, as far as the client knows */
+	private final Map<Long, List<Long>> holdings = new ConcurrentHashMap<>();
+
+	public RegistrationDaySimulator(RegistrationDayScenario scenario) {
+		this.scenario = scenario;
+	}
+
+	/**
+	 * Outcome of a simulated day
+	 * @param report - throughput and latency per endpoint
+	 * @param violations - broken invariants, empty when the data is consistent
+	 */
+	public record Result(String report, List<String> violations) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Result result = new RegistrationDaySimulator(RegistrationDayScenario.fromSystemProperties()).run();
+		System.out.println(result.report());
+		if (!result.violations().isEmpty()) {
+			System.err.println(result.violations().size() + " invariant violations:");
+			result.violations().stream().limit(50).forEach(v -> System.err.println("  " + v));
+			System.exit(1);
+		}
+		System.out.println("All invariants hold");
+		System.exit(0);
+	}
+
+	/**
+	 * Starts the application, replays the day and stops the application again
+	 * @return report and invariant violations
+	 */
+	public Result run() throws Exception {
+		// Passed as command line arguments so they win over application.properties
+		Map<String, String> properties = new LinkedHashMap<>();
+		for (String property : List.of(
+				"server.port=0",
+				"spring.datasource.url=jdbc:h2:mem:registration-day-" + System.nanoTime()
+						+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"spring.jpa.hibernate.ddl-auto=create-drop",
+				"spring.datasource.hikari.maximum-pool-size=" + Math.max(10, scenario.clients()),
+				"management.server.port=0",
+				"logging.level.root=WARN")) {
+			properties.put(key(property), property);
+		}
+		scenario.properties().forEach(property -> properties.put(key(property), property));
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+				StudentCourseRegistrationProgramApplication.class)
+				.logStartupInfo(false)
+				.run(properties.values().stream().map(property -> "--" + property).toArray(String[]::new))) {
+			baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + API;
+			createCourses(context);
+
+			ExecutorService clients = Executors.newFixedThreadPool(scenario.clients());
+			long start = System.nanoTime();
+			try {
+				registerStudents(clients);
+				rush(clients);
+				churn(clients);
+			} finally {
+				clients.shutdown();
+			}
+			long elapsed = System.nanoTime() - start;
+
+			context.getBeanProvider(SeatLedger.class).ifAvailable(SeatLedger::flush);
+			List<String> violations = new EnrollmentInvariants(context.getBean(JdbcTemplate.class),
+					context.getBean(WaitlistIndex.class)).check(capacities);
+			String report = String.format("Registration day: %d students, %d hot and %d cold courses, "
+					+ "%d clients, %.1f s%n", scenario.students(), scenario.hotCourses(), scenario.coldCourses(),
+					scenario.clients(), elapsed / 1e9) + latencies.report(elapsed);
+			return new Result(report, violations);
+		}
+	}
+
+	/** There is no course endpoint, so courses go straight into the repository */
+	private void createCourses(ConfigurableApplicationContext context) {
+		List<Course> courses = new ArrayList<>();
+		long courseId = FIRST_COURSE_ID;
+		for (int i = 0; i < scenario.hotCourses(); i++, courseId++) {
+			courses.add(new Course(courseId, "Hot " + i, "1 semester", 500.0, scenario.hotCapacity()));
+			hotCourses.add(courseId);
+		}
+		for (int i = 0; i < scenario.coldCourses(); i++, courseId++) {
+			courses.add(new Course(courseId, "Cold " + i, "1 semester", 500.0, scenario.coldCapacity()));
+			coldCourses.add(courseId);
+		}
+		context.getBean(CourseRepository.class).saveAll(courses);
+		courses.forEach(course -> capacities.put(course.getCourseId(), course.getAvailableSeats()));
+		context.publishEvent(new CourseCatalogChangedEvent());
+	}
+
+	private void registerStudents(ExecutorService clients) throws Exception {
+		List<Future<?>> pending = new ArrayList<>();
+		for (int i = 0; i < scenario.students(); i++) {
+			int n = i;
+			pending.add(clients.submit(() -> {
+				String body = "{\"firstName\":\"Student\",\"lastName\":\"" + n + "\",\"contactNumber\":\"555" + n + "\"}";
+				HttpResponse<String> response = send("POST /students",
+						HttpRequest.newBuilder(URI.create(baseUrl + "/students"))
+								.header("Content-Type", "application/json")
+								.POST(HttpRequest.BodyPublishers.ofString(body)));
+				JsonNode student = objectMapper.readTree(response.body());
+				students.add(student.path("studentId").asLong());
+				return null;
+			}));
+		}
+		await(pending);
+	}
+
+	private void rush(ExecutorService clients) throws Exception {
+		Random random = new Random(scenario.seed());
+		List<long[]> requests = new ArrayList<>();
+		for (Long studentId : students) {
+			for (int i = 0; i < scenario.enrollsPerStudent(); i++) {
+				requests.add(new long[] { studentId, pickCourse(random) });
+			}
+		}
+		Collections.shuffle(requests, random);
+
+		List<Future<?>> pending = new ArrayList<>();
+		for (long[] request : requests) {
+			pending.add(clients.submit(() -> {
+				enroll(request[0], request[1]);
+				return null;
+			}));
+		}
+		await(pending);
+	}
+
+	private void churn(ExecutorService clients) throws Exception {
+		int totalWeight = scenario.dropWeight() + scenario.swapWeight() + scenario.enrollWeight()
+				+ scenario.deleteWeight();
+		List<Future<?>> pending = new ArrayList<>();
+		for (int i = 0; i < scenario.churnOperations(); i++) {
+			pending.add(clients.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				Long studentId = pickStudent(random);
+				if (studentId == null) {
+					return null;
+				}
+				int pick = random.nextInt(totalWeight);
+				if ((pick -= scenario.dropWeight()) < 0) {
+					drop(studentId);
+				} else if ((pick -= scenario.swapWeight()) < 0) {
+					swap(studentId, pickCourse(random));
+				} else if ((pick -= scenario.enrollWeight()) < 0) {
+					enroll(studentId, pickCourse(random));
+				} else {
+					delete(studentId);
+				}
+				return null;
+			}));
+		}
+		await(pending);
+	}
+
+	private void enroll(long studentId, long courseId) throws IOException, InterruptedException {
+		HttpResponse<String> response = send("POST /enroll/{course}/student/{id}",
+				HttpRequest.newBuilder(URI.create(baseUrl + "/enroll/" + courseId + "/student/" + studentId))
+						.POST(HttpRequest.BodyPublishers.noBody()));
+		if (response.statusCode() / 100 == 2) {
+			holdings(studentId).add(courseId);
+		}
+	}
+
+	private void drop(long studentId) throws IOException, InterruptedException {
+		Long courseId = anyHolding(studentId);
+		if (courseId == null) {
+			return;
+		}
+		HttpResponse<String> response = send("PUT /deregister/{course}/student/{id}",
+				HttpRequest.newBuilder(URI.create(baseUrl + "/deregister/" + courseId + "/student/" + studentId))
+						.PUT(HttpRequest.BodyPublishers.noBody()));
+		if (response.statusCode() / 100 == 2) {
+			holdings(studentId).remove(courseId);
+		}
+	}
+
+	private void swap(long studentId, long toCourseId) throws IOException, InterruptedException {
+		Long fromCourseId = anyHolding(studentId);
+		if (fromCourseId == null || fromCourseId == toCourseId) {
+			return;
+		}
+		HttpResponse<String> response = send("PATCH /swap/{id}",
+				HttpRequest.newBuilder(URI.create(baseUrl + "/swap/" + studentId
+						+ "?from=" + fromCourseId + "&to=" + toCourseId))
+						.method("PATCH", HttpRequest.BodyPublishers.noBody()));
+		if (response.statusCode() / 100 == 2) {
+			List<Long> held = holdings(studentId);
+			held.remove(fromCourseId);
+			held.add(toCourseId);
+		}
+	}
+
+	private void delete(long studentId) throws IOException, InterruptedException {
+		HttpResponse<String> response = send("DELETE /students/{id}",
+				HttpRequest.newBuilder(URI.create(baseUrl + "/students/" + studentId)).DELETE());
+		if (response.statusCode() / 100 == 2) {
+			deleted.add(studentId);
+		}
+	}
+
+	private HttpResponse<String> send(String endpoint, HttpRequest.Builder request)
+			throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(60)).build(),
+				HttpResponse.BodyHandlers.ofString());
+		latencies.record(endpoint, response.statusCode(), System.nanoTime() - start);
+		return response;
+	}
+
+	/** A student not deleted yet, mostly; gives up after a few tries once most are gone */
+	private Long pickStudent(Random random) {
+		for (int i = 0; i < 8; i++) {
+			Long studentId = students.get(random.nextInt(students.size()));
+			if (!deleted.contains(studentId)) {
+				return studentId;
+			}
+		}
+		return null;
+	}
+
+	private long pickCourse(Random random) {
+		List<Long> courses = random.nextDouble() < scenario.hotShare() || coldCourses.isEmpty()
+				? hotCourses : coldCourses;
+		return courses.get(random.nextInt(courses.size()));
+	}
+
+	private List<Long> holdings(long studentId) {
+		return holdings.computeIfAbsent(studentId, id -> Collections.synchronizedList(new ArrayList<>()));
+	}
+
+	private Long anyHolding(long studentId) {
+		List<Long> held = holdings(studentId);
+		synchronized (held) {
+			return held.isEmpty() ? null : held.get(ThreadLocalRandom.current().nextInt(held.size()));
+		}
+	}
+
+	private static String key(String property) {
+		int equals = property.indexOf('=');
+		return equals < 0 ? property : property.substring(0, equals);
+	}
+
+	private static void await(List<Future<?>> pending) throws Exception {
+		for (Future<?> future : pending) {
+			future.get();
+		}
+	}
+}
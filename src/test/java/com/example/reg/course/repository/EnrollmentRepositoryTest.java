@@ -10,10 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import com.example.enrollment.course.entity.Course;
 import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
 import com.example.enrollment.course.entity.enums.EnrollmentStatus;
 import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
 import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
 
 @DataJpaTest
 class EnrollmentRepositoryTest {
@@ -21,17 +25,29 @@ class EnrollmentRepositoryTest {
     @Autowired
     private EnrollmentRepository repo;
 
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
     @Test
     @DisplayName("findByStudentId and findByCourseId combine correctly")
     void findByStudentAndCourse_andStatus() {
+        // enrollments reference real students and courses
+        Long s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        Long s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        courseRepo.save(new Course(10L, "Java", "1 month", 100.0, 10L));
+        courseRepo.save(new Course(20L, "Spring", "1 month", 100.0, 1L));
+
         // given 3 enrollments: 2 for student 1, course 10; 1 for student 2, course 20
-        Enrollment e1 = new Enrollment(null, 1L, 10L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
-        Enrollment e2 = new Enrollment(null, 1L, 20L, EnrollmentStatus.WAITLISTED, 1L, PaymentStatus.PENDING);
-        Enrollment e3 = new Enrollment(null, 2L, 20L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
+        Enrollment e1 = new Enrollment(null, s1, 10L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
+        Enrollment e2 = new Enrollment(null, s1, 20L, EnrollmentStatus.WAITLISTED, 1L, PaymentStatus.PENDING);
+        Enrollment e3 = new Enrollment(null, s2, 20L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
         repo.saveAll(List.of(e1, e2, e3));
 
         // when findByStudentId(1)
-        List<Enrollment> byStudent = repo.findByStudentId(1L);
+        List<Enrollment> byStudent = repo.findByStudentId(s1);
         assertThat(byStudent).hasSize(2);
 
         // when findByCourseId(10)
@@ -39,10 +55,10 @@ class EnrollmentRepositoryTest {
         assertThat(byCourse).hasSize(2);
 
         // when findByStudentIdAndCourseId
-        Optional<Enrollment> single = repo.findByStudentIdAndCourseId(2L, 20L);
+        Optional<Enrollment> single = repo.findByStudentIdAndCourseId(s2, 20L);
         assertThat(single).isPresent()
                           .get().extracting(Enrollment::getStudentId, Enrollment::getCourseId)
-                          .containsExactly(2L, 20L);
+                          .containsExactly(s2, 20L);
 
         // when findByCourseIdAndStatusOrderByWaitlistPositionAsc
         List<Enrollment> waitlisted = repo.findByCourseIdAndStatusOrderByWaitlistPositionAsc(
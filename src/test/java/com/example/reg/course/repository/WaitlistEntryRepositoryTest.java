@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import com.example.enrollment.course.entity.WaitlistEntry;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
 import com.example.enrollment.course.repository.WaitlistEntryRepository;
 
 import java.time.Instant;
@@ -23,7 +24,7 @@ class WaitlistEntryRepositoryTest {
     private WaitlistEntryRepository repo;
 
     @Test
-    @DisplayName("countByCourseId and findFirstByCourseIdOrderByTimestampAsc")
+    @DisplayName("countByCourseId and findFirstByCourseIdOrderByPriorityAscTimestampAsc")
     void countAndFindFirst() {
         // given: three entries for course 50, timestamps in mixed order
         WaitlistEntry w1 = new WaitlistEntry(null, 50L, 1L, Instant.parse("2025-01-01T00:00:00Z"));
@@ -35,26 +36,42 @@ class WaitlistEntryRepositoryTest {
         assertThat(repo.countByCourseId(50L)).isEqualTo(3L);
 
         // first by timestamp
-        Optional<WaitlistEntry> first = repo.findFirstByCourseIdOrderByTimestampAsc(50L);
+        Optional<WaitlistEntry> first = repo.findFirstByCourseIdOrderByPriorityAscTimestampAsc(50L);
         assertThat(first).isPresent()
                          .get().extracting(WaitlistEntry::getEnrollmentId)
                          .isEqualTo(1L);
     }
 
     @Test
-    @DisplayName("findByCourseIdOrderByTimestampAsc returns sorted list and deleteByEnrollmentId works")
+    @DisplayName("findByCourseIdOrderByPriorityAscTimestampAsc returns sorted list and deleteByEnrollmentId works")
     void findAllAndDeleteByEnrollmentId() {
         WaitlistEntry w1 = new WaitlistEntry(null, 60L, 10L, Instant.parse("2025-02-01T00:00:00Z"));
         WaitlistEntry w2 = new WaitlistEntry(null, 60L, 20L, Instant.parse("2025-02-02T00:00:00Z"));
         repo.saveAll(List.of(w1, w2));
 
-        List<WaitlistEntry> list = repo.findByCourseIdOrderByTimestampAsc(60L);
+        List<WaitlistEntry> list = repo.findByCourseIdOrderByPriorityAscTimestampAsc(60L);
         assertThat(list).extracting(WaitlistEntry::getEnrollmentId).containsExactly(10L, 20L);
 
         // delete by enrollmentId
         repo.deleteByEnrollmentId(10L);
-        assertThat(repo.findByCourseIdOrderByTimestampAsc(60L))
+        assertThat(repo.findByCourseIdOrderByPriorityAscTimestampAsc(60L))
             .extracting(WaitlistEntry::getEnrollmentId)
             .containsExactly(20L);
     }
+
+    @Test
+    @DisplayName("higher tiers come first, each tier oldest -> newest")
+    void promotionOrder_isTierThenTimestamp() {
+        repo.saveAll(List.of(
+            new WaitlistEntry(null, 70L, 1L, Instant.parse("2025-03-01T00:00:00Z"), WaitlistPriority.STANDARD),
+            new WaitlistEntry(null, 70L, 2L, Instant.parse("2025-03-02T00:00:00Z"), WaitlistPriority.PROGRAM_MAJOR),
+            new WaitlistEntry(null, 70L, 3L, Instant.parse("2025-03-03T00:00:00Z"), WaitlistPriority.SENIOR),
+            new WaitlistEntry(null, 70L, 4L, Instant.parse("2025-03-04T00:00:00Z"), WaitlistPriority.PROGRAM_MAJOR)));
+
+        assertThat(repo.findByCourseIdOrderByPriorityAscTimestampAsc(70L))
+            .extracting(WaitlistEntry::getEnrollmentId)
+            .containsExactly(3L, 2L, 4L, 1L);
+        assertThat(repo.findFirstByCourseIdOrderByPriorityAscTimestampAsc(70L))
+            .get().extracting(WaitlistEntry::getEnrollmentId).isEqualTo(3L);
+    }
 }
@@ -0,0 +1,159 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.enrollment.course.dto.BatchEnrollmentResultDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.EnrollmentRequestDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.enrollment.BatchEnrollmentServiceImpl;
+import com.example.enrollment.course.service.metrics.EnrollmentMetrics;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import({ BatchEnrollmentServiceImpl.class, WaitlistIndex.class })
+class BatchEnrollmentServiceImplTest {
+
+    @Autowired
+    private BatchEnrollmentServiceImpl service;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @MockitoSpyBean
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @MockitoBean
+    private EnrollmentMetrics metrics;
+
+    @Test
+    void enrollStudents_groupsByCourse_andReportsEveryPair() {
+        Long s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        Long s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        Long s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        courseRepo.save(new Course(501L, "Hot", "1 month", 100.0, 2L));
+        courseRepo.save(new Course(502L, "Full", "1 month", 100.0, 0L));
+        enrollmentRepo.save(new Enrollment(null, s2, 502L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING));
+        em.flush();
+        em.clear();
+
+        List<BatchEnrollmentResultDto> results = service.enrollStudents(List.of(
+            new EnrollmentRequestDto(s1, 501L),
+            new EnrollmentRequestDto(s2, 501L),
+            new EnrollmentRequestDto(s3, 501L),
+            new EnrollmentRequestDto(s1, 502L),
+            new EnrollmentRequestDto(s1, 501L),
+            new EnrollmentRequestDto(s2, 502L),
+            new EnrollmentRequestDto(-1L, 501L),
+            new EnrollmentRequestDto(s1, 999L)));
+
+        assertThat(results).extracting(BatchEnrollmentResultDto::getStatus).containsExactly(
+            EnrollmentStatus.ENROLLED, EnrollmentStatus.ENROLLED, EnrollmentStatus.WAITLISTED,
+            EnrollmentStatus.WAITLISTED, null, null, null, null);
+        assertThat(results.get(2).getWaitlistPosition()).isEqualTo(1L);
+        assertThat(results.get(3).getWaitlistPosition()).isEqualTo(1L);
+        assertThat(results.get(4).getError()).contains("Already Exists");
+        assertThat(results.get(5).getError()).contains("Already Exists");
+        assertThat(results.get(6).getError()).contains("Student Not Found");
+        assertThat(results.get(7).getError()).contains("Course Not Found");
+        assertThat(results.subList(0, 4)).allSatisfy(r -> assertThat(r.getEnrollmentId()).isNotNull());
+
+        em.clear();
+        assertThat(courseRepo.findByCourseId(501L).orElseThrow().getAvailableSeats()).isZero();
+        assertThat(enrollmentRepo.findByCourseId(501L)).hasSize(3);
+        assertThat(waitlistRepo.findByCourseIdOrderByPriorityAscTimestampAsc(501L))
+            .extracting(w -> w.getEnrollmentId())
+            .containsExactly(results.get(2).getEnrollmentId());
+        assertThat(waitlistRepo.countByCourseId(502L)).isEqualTo(1L);
+        verify(metrics, times(2)).recordOutcome(501L, EnrollmentStatus.ENROLLED);
+        verify(metrics).recordOutcome(501L, EnrollmentStatus.WAITLISTED);
+        verify(metrics).recordOutcome(502L, EnrollmentStatus.WAITLISTED);
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    void enrollInCourse_decidesInArrivalOrder_andLeavesRejectedStudentsNull() {
+        Long s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        Long s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        Long s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        courseRepo.save(new Course(503L, "Hot", "1 month", 100.0, 1L));
+        em.flush();
+        em.clear();
+
+        List<EnrollmentDto> enrolled = service.enrollInCourse(503L, List.of(s2, s1, -1L, s2, s3));
+
+        assertThat(enrolled.get(0).getStatus()).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(enrolled.get(1).getStatus()).isEqualTo(EnrollmentStatus.WAITLISTED);
+        assertThat(enrolled.get(1).getWaitlistPosition()).isEqualTo(1L);
+        assertThat(enrolled.get(2)).isNull();
+        assertThat(enrolled.get(3)).isNull();
+        assertThat(enrolled.get(4).getWaitlistPosition()).isEqualTo(2L);
+        assertThat(enrolled.get(0).getPaymentStatus()).isEqualTo(PaymentStatus.PENDING);
+
+        em.clear();
+        assertThat(courseRepo.findByCourseId(503L).orElseThrow().getAvailableSeats()).isZero();
+        assertThat(enrollmentRepo.findByCourseId(503L)).hasSize(3);
+    }
+
+    @Test
+    void pairEnrolledSinceTheCheck_isReportedAsAlreadyEnrolled_andItsSeatPassesOn() {
+        Long s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        Long s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        Long s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        courseRepo.save(new Course(504L, "Hot", "1 month", 100.0, 2L));
+        // enrolled by a concurrent single request: the check does not see it, the unique key does
+        enrollmentRepo.save(new Enrollment(null, s2, 504L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING));
+        em.flush();
+        em.clear();
+        doReturn(List.of()).when(enrollmentRepo).findPairs(anyCollection(), anyCollection());
+
+        List<BatchEnrollmentResultDto> results = service.enrollStudents(List.of(
+            new EnrollmentRequestDto(s1, 504L),
+            new EnrollmentRequestDto(s2, 504L),
+            new EnrollmentRequestDto(s3, 504L)));
+
+        assertThat(results).extracting(BatchEnrollmentResultDto::getStatus)
+            .containsExactly(EnrollmentStatus.ENROLLED, null, EnrollmentStatus.ENROLLED);
+        assertThat(results.get(1).getError()).contains("Already Exists");
+
+        em.clear();
+        assertThat(courseRepo.findByCourseId(504L).orElseThrow().getAvailableSeats()).isZero();
+        assertThat(enrollmentRepo.findByCourseId(504L)).hasSize(3);
+        assertThat(waitlistRepo.countByCourseId(504L)).isZero();
+        verify(metrics, times(2)).recordOutcome(504L, EnrollmentStatus.ENROLLED);
+        verifyNoMoreInteractions(metrics);
+    }
+}
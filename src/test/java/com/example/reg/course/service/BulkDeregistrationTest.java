@@ -0,0 +1,153 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository.EnrollmentSlot;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ EnrollmentServiceImpl.class, WaitlistIndex.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class })
+class BulkDeregistrationTest {
+
+    @Autowired
+    private EnrollmentServiceImpl service;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @MockitoSpyBean
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    @Autowired
+    private WaitlistIndex waitlistIndex;
+
+    @Autowired
+    private EntityManager em;
+
+    private Long s1, s2, s3, s4;
+
+    @BeforeEach
+    void setUp() {
+        s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        s4 = studentRepo.save(new Student(null, "D", "Four", "4")).getStudentId();
+        courseRepo.save(new Course(701L, "Two seats", "1 month", 100.0, 2L));
+        courseRepo.save(new Course(702L, "One seat", "1 month", 100.0, 1L));
+        em.flush();
+
+        // 701: s1, s2 enrolled; s3, s4 waiting. 702: s1 enrolled; s2 waiting
+        service.enrollStudent(701L, s1);
+        service.enrollStudent(701L, s2);
+        service.enrollStudent(701L, s3);
+        service.enrollStudent(701L, s4);
+        service.enrollStudent(702L, s1);
+        service.enrollStudent(702L, s2);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void deregisterStudents_promotesPerCourse_andRemovesEverything() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int removed = service.deregisterStudents(List.of(s1, s3, -1L));
+        long statements = statistics.getPrepareStatementCount();
+        em.flush();
+        em.clear();
+
+        assertThat(removed).isEqualTo(2);
+        assertThat(studentRepo.findAllById(List.of(s1, s3))).isEmpty();
+        // s1's seats went to the heads of both waitlists; s3 left the queue of 701
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s4, 701L))
+            .get().extracting(Enrollment::getStatus).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s2, 702L))
+            .get().extracting(Enrollment::getStatus).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(courseRepo.findByCourseId(701L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+        assertThat(courseRepo.findByCourseId(702L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+        assertThat(waitlistRepo.count()).isZero();
+        assertThat(waitlistIndex.size(701L)).isZero();
+        assertThat(waitlistIndex.size(702L)).isZero();
+
+        // ids, slots, waitlist delete, enrollment delete, 2 x (waitlist delete + promote), student delete
+        assertThat(statements).isEqualTo(9);
+    }
+
+    @Test
+    void deregisterStudent_releasesSeatsNobodyIsWaitingFor() {
+        service.deregisterStudents(List.of(s1, s3));
+        service.deregisterStudent(s2);
+        em.flush();
+        em.clear();
+
+        assertThat(enrollmentRepo.findByStudentId(s2)).isEmpty();
+        assertThat(courseRepo.findByCourseId(701L)).get().extracting(Course::getAvailableSeats).isEqualTo(1L);
+        assertThat(courseRepo.findByCourseId(702L)).get().extracting(Course::getAvailableSeats).isEqualTo(1L);
+        assertThat(studentRepo.existsById(s2)).isFalse();
+    }
+
+    @Test
+    void enrollmentCommittedAfterTheLockedRead_isNotDeletedWithoutItsSeat() {
+        courseRepo.save(new Course(703L, "Late", "1 month", 100.0, 1L));
+        em.flush();
+        // a concurrent enroll of s1 commits between the locked read and the deletes
+        doAnswer(inv -> {
+            List<EnrollmentSlot> slots = enrollmentRepo.findByStudentId(s1).stream()
+                .map(e -> (EnrollmentSlot) new Slot(e.getEnrollmentId(), e.getCourseId(), e.getStatus(), null))
+                .toList();
+            jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, status, payment_status) "
+                + "VALUES (?, 703, 'ENROLLED', 'PENDING')", s1);
+            return slots;
+        }).when(enrollmentRepo).findSlotsByStudentIds(anyCollection());
+
+        // the student row cannot go while an enrollment the deregistration did not count is left
+        assertThatThrownBy(() -> service.deregisterStudents(List.of(s1)))
+            .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s1, 703L)).isPresent();
+    }
+
+    private record Slot(Long getEnrollmentId, Long getCourseId, EnrollmentStatus getStatus, Long getTicket)
+            implements EnrollmentSlot {
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class CourseCatalogCacheTest {
+
+    @Mock
+    private CourseRepository repo;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CourseCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CourseCatalogCache(repo, objectMapper);
+        when(repo.findAll()).thenReturn(List.of(
+            new Course(102L, "Spring", "20h", 200.0, 0L),
+            new Course(101L, "Java", "10h", 100.0, 5L)));
+    }
+
+    @Test
+    void current_reusesSnapshot_untilSomethingChanges() {
+        CourseCatalogCache.Snapshot first = cache.current();
+        CourseCatalogCache.Snapshot second = cache.current();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.courses()).extracting(CourseDto::getCourseId).containsExactly(101L, 102L);
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    void seatChange_patchesSnapshot_withoutDatabaseRead() throws Exception {
+        CourseCatalogCache.Snapshot before = cache.current();
+
+        cache.onSeatsChanged(new CourseSeatsChangedEvent(101L, -1));
+        CourseCatalogCache.Snapshot after = cache.current();
+
+        assertThat(after.etag()).isNotEqualTo(before.etag());
+        assertThat(before.matches(after.etag())).isFalse();
+        assertThat(after.matches(after.etag())).isTrue();
+        List<CourseDto> fromJson = objectMapper.readValue(after.json(), new TypeReference<>() { });
+        assertThat(fromJson.get(0).getAvailableSeats()).isEqualTo(4L);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(after.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(after.json());
+        }
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    void catalogChange_reloadsFromDatabase() {
+        cache.current();
+        cache.onCatalogChanged(new CourseCatalogChangedEvent());
+        cache.current();
+
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    void seatChangeCommittedDuringALoad_isCountedOnce() {
+        cache.current();
+        cache.refresh();
+        when(repo.findAll())
+            .thenAnswer(read -> {
+                // commits after the rows were read, so they do not have it
+                cache.onSeatsChanged(new CourseSeatsChangedEvent(101L, -1));
+                return List.of(new Course(101L, "Java", "10h", 100.0, 5L));
+            })
+            .thenReturn(List.of(new Course(101L, "Java", "10h", 100.0, 4L)));
+
+        assertThat(cache.availableSeats(101L)).isEqualTo(4L);
+        assertThat(cache.current().courses()).extracting(CourseDto::getAvailableSeats).containsExactly(4L);
+        verify(repo, times(3)).findAll();
+    }
+
+    @Test
+    void matches_acceptsListsAndWildcard() {
+        CourseCatalogCache.Snapshot snapshot = cache.current();
+
+        assertThat(snapshot.matches(null)).isFalse();
+        assertThat(snapshot.matches("\"other\", " + snapshot.etag())).isTrue();
+        assertThat(snapshot.matches(snapshot.etag().substring(2))).isTrue();
+        assertThat(snapshot.matches("*")).isTrue();
+    }
+}
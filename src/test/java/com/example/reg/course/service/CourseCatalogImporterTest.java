@@ -0,0 +1,87 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import com.example.enrollment.course.courseloader.CourseCatalogImporter;
+import com.example.enrollment.course.courseloader.CourseCatalogImporter.Report;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "enrollment.course-catalog.batch-size=2")
+@Import({ CourseCatalogImporter.class, JacksonAutoConfiguration.class })
+class CourseCatalogImporterTest {
+
+    @Autowired
+    private CourseCatalogImporter importer;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shippedCatalog_reportsTheRepeatedCourseId() throws IOException {
+        Report report = importer.importCatalog(new ClassPathResource("courses.json"));
+
+        assertThat(report.duplicateIds()).containsExactly(101L);
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(courseRepo.findByCourseId(101L)).get().extracting(Course::getCourseName).isEqualTo("Core Java");
+    }
+
+    @Test
+    void fileCatalog_isUpsertedInChunks() throws IOException {
+        courseRepo.save(new Course(902L, "Old name", "1 week", 10.0, 1L));
+        em.flush();
+
+        Path file = dir.resolve("catalog.json");
+        Files.writeString(file, """
+                [
+                  {"courseId": 901, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 5},
+                  {"courseId": 902, "courseName": "B", "duration": "2 months", "fees": 200.0, "availableSeats": 6},
+                  {"courseId": 903, "courseName": "C", "duration": "3 months", "fees": 300.0, "availableSeats": 7},
+                  {"courseId": 901, "courseName": "A again", "duration": "1 month", "fees": 1.0, "availableSeats": 1},
+                  {"courseName": "No id", "duration": "1 month", "fees": 1.0, "availableSeats": 1}
+                ]
+                """);
+
+        Report report = importer.importCatalog(new FileSystemResource(file));
+        em.clear();
+
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.duplicateIds()).containsExactly(901L);
+        assertThat(report.skipped()).isEqualTo(1);
+        assertThat(courseRepo.findByCourseId(901L)).get().extracting(Course::getCourseName).isEqualTo("A");
+        assertThat(courseRepo.findByCourseId(902L)).get()
+            .extracting(Course::getCourseName, Course::getAvailableSeats).containsExactly("B", 6L);
+        assertThat(courseRepo.findByCourseId(903L)).isPresent();
+    }
+
+    @Test
+    void nonArrayCatalog_isRejected() throws IOException {
+        Path file = dir.resolve("broken.json");
+        Files.writeString(file, "{\"courseId\": 1}");
+
+        assertThatThrownBy(() -> importer.importCatalog(new FileSystemResource(file)))
+            .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+
+import com.example.enrollment.course.courseloader.CourseCatalogSync;
+import com.example.enrollment.course.courseloader.CourseCatalogSync.Report;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ CourseCatalogSync.class, JacksonAutoConfiguration.class })
+class CourseCatalogSyncTest {
+
+    @Autowired
+    private CourseCatalogSync sync;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("catalog.json");
+        write("""
+                {"courseId": 951, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 5},
+                {"courseId": 952, "courseName": "B", "duration": "2 months", "fees": 200.0, "availableSeats": 2}
+                """);
+        sync.sync(new FileSystemResource(file));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void unchangedFile_isSkippedWithoutWrites() throws IOException {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Report report = sync.sync(new FileSystemResource(file));
+
+        assertThat(report.unchanged()).isTrue();
+        // only the stored file hash is read
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changedFile_appliesOnlyTheDiff_andKeepsTakenSeats() throws IOException {
+        // two seats of 951 and both of 952 were taken in the meantime
+        enroll(951L, 2);
+        enroll(952L, 2);
+        write("""
+                {"courseId": 951, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 8},
+                {"courseId": 952, "courseName": "B, renamed", "duration": "2 months", "fees": 250.0, "availableSeats": 1},
+                {"courseId": 953, "courseName": "C", "duration": "3 months", "fees": 300.0, "availableSeats": 4}
+                """);
+
+        Report report = sync.sync(new FileSystemResource(file));
+        em.flush();
+        em.clear();
+
+        assertThat(report.unchanged()).isFalse();
+        assertThat(report.added()).isEqualTo(1);
+        assertThat(report.updated()).isEqualTo(2);
+        // capacity 8 with two enrolled
+        assertThat(courseRepo.findByCourseId(951L)).get().extracting(Course::getAvailableSeats).isEqualTo(6L);
+        // capacity 1 with two enrolled is full
+        assertThat(courseRepo.findByCourseId(952L)).get()
+            .extracting(Course::getCourseName, Course::getFees, Course::getAvailableSeats)
+            .containsExactly("B, renamed", 250.0, 0L);
+        assertThat(courseRepo.findByCourseId(953L)).get().extracting(Course::getAvailableSeats).isEqualTo(4L);
+    }
+
+    @Test
+    void shrinkThenGrow_countsSeatsFromTheEnrolledStudents() throws IOException {
+        write("""
+                {"courseId": 951, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 10},
+                {"courseId": 952, "courseName": "B", "duration": "2 months", "fees": 200.0, "availableSeats": 2}
+                """);
+        sync.sync(new FileSystemResource(file));
+        enroll(951L, 8);
+
+        // capacity 10 -> 5 leaves the eight enrolled students three over
+        write("""
+                {"courseId": 951, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 5},
+                {"courseId": 952, "courseName": "B", "duration": "2 months", "fees": 200.0, "availableSeats": 2}
+                """);
+        sync.sync(new FileSystemResource(file));
+        em.flush();
+        em.clear();
+        assertThat(courseRepo.findByCourseId(951L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+
+        // back to 10: two free seats, not five
+        write("""
+                {"courseId": 951, "courseName": "A", "duration": "1 month", "fees": 100.0, "availableSeats": 10},
+                {"courseId": 952, "courseName": "B", "duration": "2 months", "fees": 200.0, "availableSeats": 2}
+                """);
+        sync.sync(new FileSystemResource(file));
+        em.flush();
+        em.clear();
+        assertThat(courseRepo.findByCourseId(951L)).get().extracting(Course::getAvailableSeats).isEqualTo(2L);
+    }
+
+    /** Enrolls new students into the course, taking their seats */
+    private void enroll(Long courseId, int students) {
+        for (int i = 0; i < students; i++) {
+            Long studentId = studentRepo.save(new Student(null, "Student", "No. " + i, "555-" + courseId + "-" + i)).getStudentId();
+            enrollmentRepo.save(new Enrollment(null, studentId, courseId, EnrollmentStatus.ENROLLED, null,
+                    PaymentStatus.PENDING));
+        }
+        courseRepo.adjustSeats(courseId, -students);
+        em.flush();
+    }
+
+    private void write(String courses) throws IOException {
+        Files.writeString(file, "[\n" + courses + "]\n");
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.reg.course.service;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+
+import com.example.enrollment.course.courseloader.CourseCatalogSync;
+import com.example.enrollment.course.courseloader.CourseCatalogWatcher;
+
+@ExtendWith(MockitoExtension.class)
+class CourseCatalogWatcherTest {
+
+    @Mock
+    private CourseCatalogSync sync;
+
+    @TempDir
+    Path dir;
+
+    private CourseCatalogWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        watcher = new CourseCatalogWatcher(sync, dir, 50);
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watcher.stop();
+    }
+
+    @Test
+    void editedCatalogFile_isSynced() throws Exception {
+        Files.writeString(dir.resolve("notes.txt"), "ignored");
+        Files.writeString(dir.resolve("catalog.json"), "[]");
+
+        verify(sync, timeout(10_000)).sync(argThat(named("catalog.json")));
+        verify(sync, never()).sync(argThat(named("notes.txt")));
+    }
+
+    private static org.mockito.ArgumentMatcher<Resource> named(String filename) {
+        return resource -> filename.equals(resource.getFilename());
+    }
+}
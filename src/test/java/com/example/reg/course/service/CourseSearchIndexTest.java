@@ -0,0 +1,118 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseCatalogChangedEvent;
+import com.example.enrollment.course.service.course.CourseSearchIndex;
+import com.example.enrollment.course.service.course.CourseSearchQuery;
+import com.example.enrollment.course.service.course.CourseSearchQuery.Sort;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class CourseSearchIndexTest {
+
+    @Mock
+    private CourseRepository repo;
+
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(repo.findAll()).thenReturn(List.of(
+            new Course(104L, "Spring Boot Microservices", "3 months", 450.0, 0L),
+            new Course(101L, "Java Fundamentals", "6 weeks", 200.0, 10L),
+            new Course(102L, "Spring Data JPA", "4 weeks", 300.0, 2L),
+            new Course(103L, "Advanced Java", "2 months", 350.0, 5L),
+            new Course(105L, "Kubernetes", "self paced", 150.0, 1L)));
+        index = new CourseSearchIndex(repo);
+    }
+
+    @Test
+    void words_matchByPrefix_andAllMustMatch() {
+        assertThat(ids(query("spr", null, null, null, null, false, Sort.ID))).containsExactly(102L, 104L);
+        assertThat(ids(query("Spring  bo", null, null, null, null, false, Sort.ID))).containsExactly(104L);
+        assertThat(ids(query("java", null, null, null, null, false, Sort.ID))).containsExactly(101L, 103L);
+        assertThat(ids(query("python", null, null, null, null, false, Sort.ID))).isEmpty();
+    }
+
+    @Test
+    void ranges_areInclusive_andDurationsReadInDays() {
+        assertThat(ids(query(null, 200.0, 350.0, null, null, false, Sort.FEES))).containsExactly(101L, 102L, 103L);
+        assertThat(ids(query(null, null, null, 30, 60, false, Sort.DURATION))).containsExactly(101L, 103L);
+        // a duration that cannot be read only matches when no duration filter is given
+        assertThat(ids(query(null, null, null, 0, null, false, Sort.ID))).doesNotContain(105L);
+    }
+
+    @Test
+    void sortingAndPaging_reportTheTotal() {
+        CourseSearchIndex.Page page = index.search(
+            new CourseSearchQuery(null, null, null, null, null, false, Sort.NAME, true, 1, 2));
+
+        assertThat(page.total()).isEqualTo(5);
+        assertThat(page.courses()).extracting(CourseDto::getCourseName)
+            .containsExactly("Kubernetes", "Java Fundamentals");
+        assertThat(index.search(new CourseSearchQuery(null, null, null, null, null, false, Sort.ID, false, 9, 2))
+            .courses()).isEmpty();
+    }
+
+    @Test
+    void seatChanges_moveTheLiveCounts_withoutReloading() {
+        assertThat(ids(query("spring", null, null, null, null, true, Sort.ID))).containsExactly(102L);
+
+        index.onSeatsChanged(new CourseSeatsChangedEvent(104L, 3));
+        index.onSeatsChanged(new CourseSeatsChangedEvent(102L, -2));
+
+        assertThat(ids(query("spring", null, null, null, null, true, Sort.ID))).containsExactly(104L);
+        assertThat(ids(query(null, null, null, null, null, true, Sort.SEATS)))
+            .containsExactly(105L, 104L, 103L, 101L);
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    void catalogChange_rebuildsOnTheNextSearch() {
+        index.search(query(null, null, null, null, null, false, Sort.ID));
+        when(repo.findAll()).thenReturn(List.of(new Course(106L, "Spring Security", "1 week", 99.0, 3L)));
+
+        index.onCatalogChanged(new CourseCatalogChangedEvent());
+
+        assertThat(ids(query("spring", null, null, null, null, false, Sort.ID))).containsExactly(106L);
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    void seatChangeCommittedDuringARebuild_isNotLost() {
+        when(repo.findAll())
+            .thenAnswer(read -> {
+                // commits after the rows were read, while there is no index to move
+                index.onSeatsChanged(new CourseSeatsChangedEvent(105L, -1));
+                return List.of(new Course(105L, "Kubernetes", "self paced", 150.0, 1L));
+            })
+            .thenReturn(List.of(new Course(105L, "Kubernetes", "self paced", 150.0, 0L)));
+
+        assertThat(ids(query(null, null, null, null, null, true, Sort.ID))).isEmpty();
+        verify(repo, times(2)).findAll();
+    }
+
+    private CourseSearchQuery query(String text, Double minFees, Double maxFees, Integer minDays, Integer maxDays,
+            boolean withSeats, Sort sort) {
+        return new CourseSearchQuery(text, minFees, maxFees, minDays, maxDays, withSeats, sort, false, 0, 20);
+    }
+
+    private List<Long> ids(CourseSearchQuery query) {
+        return index.search(query).courses().stream().map(CourseDto::getCourseId).toList();
+    }
+}
@@ -7,16 +7,19 @@ import static org.mockito.Mockito.when;
 
 import java.util.List;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.example.enrollment.course.dto.CourseDto;
 import com.example.enrollment.course.entity.Course;
 import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.course.CourseSearchIndex;
 import com.example.enrollment.course.service.course.CourseServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @ExtendWith(MockitoExtension.class)
 class CourseServiceImplTest {
@@ -24,9 +27,13 @@ class CourseServiceImplTest {
     @Mock
     private CourseRepository repo;
     
-    @InjectMocks
     private CourseServiceImpl service;
 
+    @BeforeEach
+    void setUp() {
+        service = new CourseServiceImpl(new CourseCatalogCache(repo, new ObjectMapper()), new CourseSearchIndex(repo), null);
+    }
+
     @Test
     void searchCourses_returnsEmpty_whenNoCourses() {
         when(repo.findAll()).thenReturn(List.of());
@@ -0,0 +1,106 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.exception.CourseFullException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import({ EnrollmentServiceImpl.class, WaitlistIndex.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class })
+class CourseSwapTest {
+
+    @Autowired
+    private EnrollmentServiceImpl service;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    private Long s1, s2, s3;
+
+    @BeforeEach
+    void setUp() {
+        s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        courseRepo.save(new Course(801L, "Old", "1 month", 100.0, 1L));
+        courseRepo.save(new Course(802L, "Open", "1 month", 100.0, 2L));
+        courseRepo.save(new Course(803L, "Full", "1 month", 100.0, 1L));
+        em.flush();
+
+        // 801: s1 enrolled, s2 waiting. 803: s3 enrolled
+        service.enrollStudent(801L, s1);
+        service.enrollStudent(801L, s2);
+        service.enrollStudent(803L, s3);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void swapIntoOpenCourse_movesStudent_andPromotesOldWaitlist() {
+        long attempts = service.swapStats().getAttempts();
+
+        EnrollmentDto moved = service.updateCourseEnrollment(s1, 801L, 802L);
+        em.flush();
+        em.clear();
+
+        assertThat(moved.getStatus()).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s1, 801L)).isEmpty();
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s2, 801L))
+            .get().extracting(Enrollment::getStatus).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(courseRepo.findByCourseId(801L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+        assertThat(courseRepo.findByCourseId(802L)).get().extracting(Course::getAvailableSeats).isEqualTo(1L);
+        assertThat(service.swapStats().getAttempts()).isEqualTo(attempts + 1);
+    }
+
+    @Test
+    void swapIntoFullCourse_isRefused_andKeepsOldEnrollment() {
+        assertThatThrownBy(() -> service.updateCourseEnrollment(s1, 801L, 803L))
+            .isInstanceOf(CourseFullException.class);
+        em.flush();
+        em.clear();
+
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s1, 801L))
+            .get().extracting(Enrollment::getStatus).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s1, 803L)).isEmpty();
+        assertThat(courseRepo.findByCourseId(801L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+        assertThat(courseRepo.findByCourseId(803L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+    }
+
+    @Test
+    void swapToUnknownCourse_isNotFound() {
+        assertThatThrownBy(() -> service.updateCourseEnrollment(s1, 801L, -1L))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
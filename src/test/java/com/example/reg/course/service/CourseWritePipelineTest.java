@@ -0,0 +1,210 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.service.enrollment.BatchEnrollmentService;
+import com.example.enrollment.course.service.enrollment.CourseWritePipeline;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CourseWritePipelineTest {
+
+    @Mock
+    private PlatformTransactionManager txManager;
+
+    @Mock
+    private BatchEnrollmentService batchEnrollment;
+
+    private CourseWritePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        when(txManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        pipeline = new CourseWritePipeline(txManager, batchEnrollment, 16, 4, 1000, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void commandsOfOneCourse_runOneAtATime_inArrivalOrder() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            futures.add(pipeline.submit(1L, () -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                order.add(n);
+                active.decrementAndGet();
+                return n;
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).join());
+        }
+        assertEquals(1, maxActive.get());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void failingCommand_failsAlone() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            futures.add(pipeline.submit(2L, () -> {
+                if (n == 7) {
+                    throw new ResourceNotFoundException("Student Not Found with id: " + n);
+                }
+                return "ok-" + n;
+            }));
+        }
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> futures.get(7).join());
+        assertTrue(failure.getCause() instanceof ResourceNotFoundException);
+        for (int i = 0; i < futures.size(); i++) {
+            if (i != 7) {
+                assertEquals("ok-" + i, futures.get(i).join());
+            }
+        }
+    }
+
+    @Test
+    void queuedEnrollments_areWrittenAsOneBatch_andRejectedOnesReplayAlone() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocker = pipeline.submit(3L, () -> {
+            started.countDown();
+            await(release);
+            return "done";
+        });
+        started.await();
+
+        when(batchEnrollment.enrollInCourse(eq(3L), anyList())).thenAnswer(inv -> {
+            List<Long> studentIds = inv.getArgument(1);
+            return studentIds.stream()
+                .map(id -> id == 13L ? null : new EnrollmentDto(id * 10, id, 3L, EnrollmentStatus.ENROLLED, null, null, null))
+                .toList();
+        });
+        List<CompletableFuture<EnrollmentDto>> futures = new ArrayList<>();
+        for (long studentId = 11; studentId <= 15; studentId++) {
+            long id = studentId;
+            futures.add(pipeline.submitEnrollment(3L, id, () -> {
+                throw new ResourceAlreadyExistsException("Enrollment Already Exists with studentId: " + id);
+            }));
+        }
+        release.countDown();
+
+        assertEquals("done", blocker.join());
+        for (int i = 0; i < futures.size(); i++) {
+            long studentId = 11 + i;
+            if (studentId == 13) {
+                CompletionException failure = assertThrows(CompletionException.class, () -> futures.get(2).join());
+                assertTrue(failure.getCause() instanceof ResourceAlreadyExistsException);
+            } else {
+                assertEquals(studentId * 10, futures.get(i).join().getEnrollmentId());
+            }
+        }
+        verify(batchEnrollment, times(1)).enrollInCourse(3L, List.of(11L, 12L, 13L, 14L, 15L));
+    }
+
+    @Test
+    void idleLanes_areDropped_evenForUnknownCourses() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (long courseId = 100; courseId < 150; courseId++) {
+            long id = courseId;
+            futures.add(pipeline.submit(id, () -> {
+                if (id % 2 == 0) {
+                    throw new ResourceNotFoundException("Course Not Found with id: " + id);
+                }
+                return id;
+            }));
+        }
+        futures.forEach(future -> future.handle((result, failure) -> result).join());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pipeline.activeLanes() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pipeline.activeLanes());
+    }
+
+    @Test
+    void fullLane_rejectsMoreCommands_andCancelledOnesNeverRun() throws Exception {
+        pipeline.shutdown();
+        pipeline = new CourseWritePipeline(txManager, batchEnrollment, 16, 4, 3, 10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = pipeline.submit(4L, () -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        started.await();
+
+        AtomicInteger ran = new AtomicInteger();
+        CompletableFuture<String> cancelled = pipeline.submit(4L, () -> "cancelled-" + ran.incrementAndGet());
+        CompletableFuture<String> kept = pipeline.submit(4L, () -> "kept");
+        CompletableFuture<String> third = pipeline.submit(4L, () -> "third");
+        CompletableFuture<String> overflow = pipeline.submit(4L, () -> "overflow");
+
+        CompletionException full = assertThrows(CompletionException.class, overflow::join);
+        assertTrue(full.getCause() instanceof RejectedExecutionException);
+        assertTrue(cancelled.cancel(false));
+        assertFalse(running.cancel(false));
+        release.countDown();
+
+        assertEquals("running", running.join());
+        assertEquals("kept", kept.join());
+        assertEquals("third", third.join());
+        assertTrue(cancelled.isCancelled());
+        assertEquals(0, ran.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
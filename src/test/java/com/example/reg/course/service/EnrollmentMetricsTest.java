@@ -0,0 +1,94 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.service.metrics.EnrollmentMetrics;
+import com.example.enrollment.course.service.metrics.StatementCounter;
+import com.example.enrollment.course.service.metrics.StatementCounter.Tally;
+import com.example.enrollment.course.service.metrics.StatementCountingDataSource;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EnrollmentMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    private WaitlistIndex waitlistIndex;
+
+    private EnrollmentMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        waitlistIndex = new WaitlistIndex();
+        metrics = new EnrollmentMetrics(registry, waitlistIndex, 2);
+    }
+
+    @Test
+    void coursesPastTheTagLimit_shareTheOtherTag() {
+        metrics.recordOutcome(101L, EnrollmentStatus.ENROLLED);
+        metrics.recordOutcome(102L, EnrollmentStatus.WAITLISTED);
+        metrics.recordOutcome(103L, EnrollmentStatus.ENROLLED);
+        metrics.recordOutcome(104L, EnrollmentStatus.ENROLLED);
+        metrics.recordSeatMiss(104L);
+
+        assertEquals(1, outcomes("enrolled", "101"));
+        assertEquals(1, outcomes("waitlisted", "102"));
+        assertEquals(2, outcomes("enrolled", EnrollmentMetrics.OTHER_COURSES));
+        assertEquals(1, registry.get("enrollment.seat.misses")
+                .tag("course", EnrollmentMetrics.OTHER_COURSES).counter().count());
+        assertNull(registry.find("enrollment.outcomes").tag("course", "103").counter());
+    }
+
+    @Test
+    void waitlistDepth_isReportedPerTaggedCourse_andSummedForTheRest() {
+        metrics.recordOutcome(101L, EnrollmentStatus.WAITLISTED);
+        metrics.recordOutcome(102L, EnrollmentStatus.WAITLISTED);
+        waitlistIndex.add(101L, waitlistIndex.nextTicket(101L), 1L);
+        waitlistIndex.add(101L, waitlistIndex.nextTicket(101L), 2L);
+        waitlistIndex.add(102L, waitlistIndex.nextTicket(102L), 3L);
+        waitlistIndex.add(103L, waitlistIndex.nextTicket(103L), 4L);
+        waitlistIndex.add(104L, waitlistIndex.nextTicket(104L), 5L);
+
+        assertEquals(2, depth("101"));
+        assertEquals(1, depth("102"));
+        assertEquals(2, depth(EnrollmentMetrics.OTHER_COURSES));
+    }
+
+    @Test
+    void statementCounter_countsStatementsAndRows_onTheCountingThread() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement-counter;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(new StatementCountingDataSource(h2));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS t (id INT)");
+
+        StatementCounter.start();
+        jdbc.update("INSERT INTO t VALUES (?)", 1);
+        jdbc.batchUpdate("INSERT INTO t VALUES (2)", "INSERT INTO t VALUES (3)");
+        jdbc.queryForList("SELECT id FROM t", Integer.class);
+        jdbc.queryForList("SELECT id FROM t", Integer.class);
+        Tally tally = StatementCounter.stop();
+
+        assertEquals(4, tally.statements());
+        assertEquals(1 + 2 + 3 + 3, tally.rows());
+        assertEquals("SELECT id FROM t", tally.mostRepeatedSql());
+        assertEquals(2, tally.mostRepeatedCount());
+        assertEquals(0, StatementCounter.stop().statements());
+    }
+
+    private double outcomes(String outcome, String course) {
+        return registry.get("enrollment.outcomes").tag("outcome", outcome).tag("course", course).counter().count();
+    }
+
+    private double depth(String course) {
+        return registry.get("enrollment.waitlist.depth").tag("course", course).gauge().value();
+    }
+}
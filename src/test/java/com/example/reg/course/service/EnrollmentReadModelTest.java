@@ -0,0 +1,156 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.readmodel.EnrollmentReadModel;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The read model is updated after commit, so the service runs its own
+ * transactions here and the data is deleted after each test.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "enrollment.read-model.enabled=true",
+        "enrollment.read-model.max-staleness-ms=2000" })
+@Import({ EnrollmentServiceImpl.class, WaitlistIndex.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class, EnrollmentReadModel.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EnrollmentReadModelTest {
+
+    @Autowired
+    private EnrollmentServiceImpl service;
+
+    @Autowired
+    private EnrollmentReadModel readModel;
+
+    @Autowired
+    private ExistenceIndex existenceIndex;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    /** The waitlist index outlives a test, so every test gets courses of its own */
+    private static long nextCourseId = 700;
+
+    private Long a, b, c;
+
+    private Long small, roomy;
+
+    @BeforeEach
+    void setUp() {
+        a = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        b = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        c = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        small = courseRepo.save(new Course(++nextCourseId, "One seat", "1 month", 100.0, 1L)).getCourseId();
+        roomy = courseRepo.save(new Course(++nextCourseId, "Roomy", "1 month", 100.0, 5L)).getCourseId();
+        service.enrollStudent(small, a);
+        service.enrollStudent(small, b);
+        service.enrollStudent(small, c);
+        existenceIndex.rebuild();
+        readModel.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistRepo.deleteAllInBatch();
+        enrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAllInBatch();
+        courseRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void views_followEveryWrite_andAreServedWithoutQueries() {
+        assertThat(retrieveWithoutQueries(c)).singleElement()
+            .satisfies(e -> {
+                assertThat(e.getStatus()).isEqualTo(EnrollmentStatus.WAITLISTED);
+                assertThat(e.getWaitlistPosition()).isEqualTo(2L);
+            });
+
+        // a leaves: b takes the seat and c moves up
+        service.deregisterCourse(small, a);
+        service.enrollStudent(roomy, b);
+
+        assertThat(retrieveWithoutQueries(a)).isEmpty();
+        assertThat(retrieveWithoutQueries(b)).extracting(EnrollmentDto::getCourseId, EnrollmentDto::getStatus)
+            .containsExactly(
+                tuple(small, EnrollmentStatus.ENROLLED),
+                tuple(roomy, EnrollmentStatus.ENROLLED));
+        assertThat(retrieveWithoutQueries(c)).singleElement()
+            .extracting(EnrollmentDto::getWaitlistPosition).isEqualTo(1L);
+
+        // what is served matches the table
+        for (Long student : List.of(a, b, c)) {
+            assertThat(service.retrieveEnrollments(student))
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("holdExpiresAt", "waitlistPosition")
+                .containsExactlyInAnyOrderElementsOf(enrollmentRepo.findByStudentId(student).stream()
+                    .map(e -> new EnrollmentDto(e.getEnrollmentId(), e.getStudentId(), e.getCourseId(),
+                            e.getStatus(), null, e.getPaymentStatus(), null))
+                    .toList());
+        }
+    }
+
+    @Test
+    void writesTheViewIsNotToldAbout_showWithinTheStalenessBound() throws InterruptedException {
+        Long enrollmentId = enrollmentRepo.findByStudentIdAndCourseId(a, small).get().getEnrollmentId();
+        enrollmentRepo.findById(enrollmentId).ifPresent(e -> {
+            e.setPaymentStatus(PaymentStatus.COMPLETED);
+            enrollmentRepo.save(e);
+        });
+
+        assertThat(service.retrieveEnrollments(a)).singleElement()
+            .extracting(EnrollmentDto::getPaymentStatus).isEqualTo(PaymentStatus.PENDING);
+        Thread.sleep(2_100);
+        assertThat(service.retrieveEnrollments(a)).singleElement()
+            .extracting(EnrollmentDto::getPaymentStatus).isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    private List<EnrollmentDto> retrieveWithoutQueries(Long studentId) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<EnrollmentDto> enrollments = service.retrieveEnrollments(studentId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        return enrollments;
+    }
+}
@@ -5,21 +5,24 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.time.Instant;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import com.example.enrollment.course.dto.EnrollmentDto;
 import com.example.enrollment.course.entity.Enrollment;
@@ -32,7 +35,10 @@ import com.example.enrollment.course.repository.CourseRepository;
 import com.example.enrollment.course.repository.EnrollmentRepository;
 import com.example.enrollment.course.repository.StudentRepository;
 import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
 import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
 
 @ExtendWith(MockitoExtension.class)
 class EnrollmentServiceImplTest {
@@ -48,6 +54,15 @@ class EnrollmentServiceImplTest {
     
     @Mock
     WaitlistEntryRepository waitlistRepo;
+
+    @Spy
+    WaitlistIndex waitlistIndex = new WaitlistIndex();
+
+    @Mock
+    ApplicationEventPublisher events;
+
+    @Mock
+    ExistenceIndex existenceIndex;
     
     @InjectMocks
     EnrollmentServiceImpl service;
@@ -55,10 +70,6 @@ class EnrollmentServiceImplTest {
     @Test
     void enrollStudent_enrolledWhenSeatAvailable() {
         long courseId = 1L, studentId = 2L;
-        when(studentRepo.existsById(studentId)).thenReturn(true);
-        when(courseRepo.existsById(courseId)).thenReturn(true);
-        when(enrollmentRepo.findByStudentIdAndCourseId(studentId, courseId))
-            .thenReturn(Optional.empty());
         when(courseRepo.decrementSeat(courseId)).thenReturn(1);
 
         // Simulate save assigns ID
@@ -78,17 +89,20 @@ class EnrollmentServiceImplTest {
         Enrollment saved = cap.getValue();
         assertEquals(PaymentStatus.PENDING, saved.getPaymentStatus());
         verify(waitlistRepo, never()).save(any());
+        // existence and duplicates are left to the constraints
+        verify(existenceIndex, never()).studentExists(any());
+        verify(existenceIndex, never()).courseExists(any());
+        verify(enrollmentRepo, never()).findByStudentIdAndCourseId(any(), any());
     }
 
     @Test
     void enrollStudent_waitlistedWhenNoSeat() {
         long c = 10L, s = 20L;
-        when(studentRepo.existsById(s)).thenReturn(true);
-        when(courseRepo.existsById(c)).thenReturn(true);
-        when(enrollmentRepo.findByStudentIdAndCourseId(s, c))
-            .thenReturn(Optional.empty());
         when(courseRepo.decrementSeat(c)).thenReturn(0);
-        when(waitlistRepo.countByCourseId(c)).thenReturn(3L);
+        // three students already waiting
+        for (long i = 1; i <= 3; i++) {
+            waitlistIndex.add(c, waitlistIndex.nextTicket(c), 100L + i);
+        }
         when(enrollmentRepo.save(any()))
             .thenAnswer(inv -> {
                 Enrollment e = inv.getArgument(0);
@@ -105,7 +119,8 @@ class EnrollmentServiceImplTest {
 
     @Test
     void enrollStudent_throws_whenStudentMissing() {
-        when(studentRepo.existsById(5L)).thenReturn(false);
+        when(courseRepo.decrementSeat(1L)).thenReturn(1);
+        when(enrollmentRepo.save(any())).thenThrow(violation(Enrollment.FK_STUDENT));
         ResourceNotFoundException ex = assertThrows(
             ResourceNotFoundException.class,
             () -> service.enrollStudent(1L, 5L)
@@ -115,48 +130,75 @@ class EnrollmentServiceImplTest {
 
     @Test
     void enrollStudent_throws_whenCourseMissing() {
-        when(studentRepo.existsById(2L)).thenReturn(true);
-        when(courseRepo.existsById(3L)).thenReturn(false);
+        when(courseRepo.decrementSeat(3L)).thenReturn(0);
+        when(enrollmentRepo.save(any())).thenThrow(violation(Enrollment.FK_COURSE));
         ResourceNotFoundException ex = assertThrows(
             ResourceNotFoundException.class,
             () -> service.enrollStudent(3L, 2L)
         );
         assertTrue(ex.getMessage().contains("Course Not Found"));
+        verify(waitlistRepo, never()).save(any());
     }
 
     @Test
     void enrollStudent_throws_whenDuplicateEnrollment() {
-        when(studentRepo.existsById(4L)).thenReturn(true);
-        when(courseRepo.existsById(6L)).thenReturn(true);
-        when(enrollmentRepo.findByStudentIdAndCourseId(4L, 6L))
-            .thenReturn(Optional.of(new Enrollment()));
+        when(courseRepo.decrementSeat(6L)).thenReturn(1);
+        when(enrollmentRepo.save(any())).thenThrow(violation(Enrollment.UNIQUE_STUDENT_COURSE));
         assertThrows(ResourceAlreadyExistsException.class,
             () -> service.enrollStudent(6L, 4L));
     }
 
+    @Test
+    void enrollStudent_rethrowsUnknownViolation() {
+        when(courseRepo.decrementSeat(6L)).thenReturn(1);
+        when(enrollmentRepo.save(any())).thenThrow(violation("ck_something_else"));
+        assertThrows(DataIntegrityViolationException.class,
+            () -> service.enrollStudent(6L, 4L));
+    }
+
     @Test
     void deregisterCourse_promotesNextWaitlisted() {
-        long c = 7L, s = 8L, entryId = 100L, enrolId = 200L;
-        Enrollment e = new Enrollment(enrolId, s, c, null, null, null);
-        when(enrollmentRepo.findByStudentIdAndCourseId(s, c)).thenReturn(Optional.of(e));
-        when(waitlistRepo.findFirstByCourseIdOrderByTimestampAsc(c))
-            .thenReturn(Optional.of(new WaitlistEntry(entryId, c, enrolId, Instant.now())));
-        when(courseRepo.incrementSeat(c)).thenReturn(1);
-        when(courseRepo.decrementSeat(c)).thenReturn(1);
-        when(enrollmentRepo.findById(enrolId))
-            .thenReturn(Optional.of(e));
+        long c = 7L, s = 8L, enrolId = 200L, nextId = 300L, lastId = 400L;
+        Enrollment e = new Enrollment(enrolId, s, c, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
+        waitlistIndex.add(c, waitlistIndex.nextTicket(c), nextId);
+        waitlistIndex.add(c, waitlistIndex.nextTicket(c), lastId);
+        when(enrollmentRepo.findByStudentIdAndCourseIdForUpdate(s, c)).thenReturn(Optional.of(e));
+        when(enrollmentRepo.promoteFromWaitlist(nextId, null)).thenReturn(1);
+
+        service.deregisterCourse(c, s);
+
+        verify(enrollmentRepo).deleteById(enrolId);
+        verify(waitlistRepo).removeByEnrollmentId(nextId);
+        verify(enrollmentRepo).promoteFromWaitlist(nextId, null);
+        // the seat goes straight to the promoted student, the course row stays as it is
+        verify(courseRepo, never()).incrementSeat(c);
+        verify(courseRepo, never()).decrementSeat(c);
+        verify(events, never()).publishEvent(any(CourseSeatsChangedEvent.class));
+        // the student behind moves up without their row being touched
+        assertEquals(1L, waitlistIndex.positionOf(c, 2L));
+        assertEquals(1L, waitlistIndex.size(c));
+        verify(enrollmentRepo, never()).save(any());
+    }
+
+    @Test
+    void deregisterCourse_waitlistedStudent_keepsSeatCount() {
+        long c = 7L, s = 9L, enrolId = 500L;
+        long ticket = waitlistIndex.nextTicket(c);
+        waitlistIndex.add(c, ticket, enrolId);
+        Enrollment e = new Enrollment(enrolId, s, c, EnrollmentStatus.WAITLISTED, ticket, PaymentStatus.PENDING);
+        when(enrollmentRepo.findByStudentIdAndCourseIdForUpdate(s, c)).thenReturn(Optional.of(e));
 
         service.deregisterCourse(c, s);
 
         verify(enrollmentRepo).deleteById(enrolId);
-        verify(courseRepo).incrementSeat(c);
-        verify(waitlistRepo).deleteById(entryId);
-        verify(enrollmentRepo, atLeastOnce()).save(e);
+        verify(waitlistRepo).removeByEnrollmentId(enrolId);
+        verify(courseRepo, never()).incrementSeat(any());
+        assertEquals(0L, waitlistIndex.size(c));
     }
 
     @Test
     void deregisterCourse_throwsWhenMissingEnrollment() {
-        when(enrollmentRepo.findByStudentIdAndCourseId(9L, 9L))
+        when(enrollmentRepo.findByStudentIdAndCourseIdForUpdate(9L, 9L))
             .thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
             () -> service.deregisterCourse(9L, 9L));
@@ -165,20 +207,30 @@ class EnrollmentServiceImplTest {
     @Test
     void retrieveEnrollments_success() {
         long s = 3L;
-        when(studentRepo.existsById(s)).thenReturn(true);
+        when(existenceIndex.studentExists(s)).thenReturn(true);
         Enrollment e1 = new Enrollment(1L, s, 10L, EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING);
         Enrollment e2 = new Enrollment(2L, s, 11L, EnrollmentStatus.WAITLISTED, 2L, PaymentStatus.PENDING);
+        // ticket 1 was promoted earlier, so ticket 2 is now first in line
+        waitlistIndex.add(11L, 2L, 2L);
         when(enrollmentRepo.findByStudentId(s)).thenReturn(List.of(e1, e2));
 
         List<EnrollmentDto> dtos = service.retrieveEnrollments(s);
         assertEquals(2, dtos.size());
         assertEquals(1L, dtos.get(0).getEnrollmentId());
+        assertEquals(1L, dtos.get(1).getWaitlistPosition());
     }
 
     @Test
     void retrieveEnrollments_throwsWhenStudentMissing() {
-        when(studentRepo.existsById(12L)).thenReturn(false);
+        when(existenceIndex.studentExists(12L)).thenReturn(false);
         assertThrows(ResourceNotFoundException.class,
             () -> service.retrieveEnrollments(12L));
     }
+
+    /** What the repository throws when the insert violates the named constraint */
+    private static DataIntegrityViolationException violation(String constraint) {
+        SQLException sql = new SQLException("violation of " + constraint.toUpperCase());
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("could not execute statement", sql, constraint));
+    }
 }
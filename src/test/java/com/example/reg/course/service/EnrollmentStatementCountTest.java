@@ -0,0 +1,145 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.metrics.StatementCountingPostProcessor;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ EnrollmentServiceImpl.class, WaitlistIndex.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class, StatementCountingPostProcessor.class })
+class EnrollmentStatementCountTest {
+
+    @Autowired
+    private EnrollmentServiceImpl service;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private WaitlistIndex waitlistIndex;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private Long studentId;
+
+    private Long holderId;
+
+    @BeforeEach
+    void setUp() {
+        studentId = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        courseRepo.save(new Course(601L, "Open", "1 month", 100.0, 5L));
+        courseRepo.save(new Course(602L, "Full", "1 month", 100.0, 0L));
+        courseRepo.save(new Course(603L, "Last seat", "1 month", 100.0, 1L));
+        courseRepo.save(new Course(604L, "Spare", "1 month", 100.0, 5L));
+        // 603: holder has the only seat, waiting is first in line
+        holderId = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        Long waitingId = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        em.flush();
+        service.enrollStudent(603L, holderId);
+        service.enrollStudent(603L, waitingId);
+        em.flush();
+        em.clear();
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @StatementBudget(2)
+    void enrolled_takesTwoStatements() {
+        EnrollmentDto dto = service.enrollStudent(601L, studentId);
+
+        assertThat(dto.getStatus()).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @StatementBudget(3)
+    void waitlisted_takesThreeStatements() {
+        EnrollmentDto dto = service.enrollStudent(602L, studentId);
+
+        assertThat(dto.getStatus()).isEqualTo(EnrollmentStatus.WAITLISTED);
+        assertThat(dto.getWaitlistPosition()).isEqualTo(1L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @StatementBudget(4)
+    void deregister_handsTheSeatToTheHeadOfTheWaitlist() {
+        // find, delete, waitlist entry delete, promote; the course row is left alone
+        service.deregisterCourse(603L, holderId);
+        em.flush();
+
+        assertThat(waitlistIndex.size(603L)).isZero();
+    }
+
+    @Test
+    @StatementBudget(8)
+    void swap_movesTheSeat() {
+        // two course locks, seat, insert, then the deregistration above
+        EnrollmentDto dto = service.updateCourseEnrollment(holderId, 603L, 604L);
+        em.flush();
+
+        assertThat(dto.getStatus()).isEqualTo(EnrollmentStatus.ENROLLED);
+    }
+
+    @Test
+    @StatementBudget(2)
+    void retrieveEnrollments_checksTheStudent_thenReadsOnce() {
+        // student check, enrollments
+        assertThat(service.retrieveEnrollments(holderId)).hasSize(1);
+    }
+
+    // A failed insert spoils the session, so each violation gets its own test
+
+    @Test
+    void duplicateEnrollment_mapsToAlreadyExists() {
+        service.enrollStudent(601L, studentId);
+
+        assertThatThrownBy(() -> service.enrollStudent(601L, studentId))
+            .isInstanceOf(ResourceAlreadyExistsException.class);
+    }
+
+    @Test
+    void missingStudent_mapsToNotFound() {
+        assertThatThrownBy(() -> service.enrollStudent(601L, -1L))
+            .isInstanceOf(ResourceNotFoundException.class)
+            .hasMessageContaining("Student Not Found");
+    }
+
+    @Test
+    void missingCourse_mapsToNotFound() {
+        assertThatThrownBy(() -> service.enrollStudent(999L, studentId))
+            .isInstanceOf(ResourceNotFoundException.class)
+            .hasMessageContaining("Course Not Found");
+    }
+}
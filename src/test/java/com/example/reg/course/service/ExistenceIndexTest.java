@@ -0,0 +1,105 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+
+@ExtendWith(MockitoExtension.class)
+class ExistenceIndexTest {
+
+    @Mock
+    private StudentRepository studentRepo;
+
+    @Mock
+    private CourseRepository courseRepo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ExistenceIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // every load returns ids 1..3
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.getLong(1)).thenReturn(1L, 2L, 3L, 1L, 2L, 3L);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(rows);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index = new ExistenceIndex(studentRepo, courseRepo, jdbcTemplate, 100);
+        index.rebuild();
+    }
+
+    @Test
+    void loadedIds_needNoQuery() {
+        assertThat(index.studentExists(2L)).isTrue();
+        assertThat(index.courseExists(3L)).isTrue();
+        verify(studentRepo, never()).existsById(anyLong());
+        verify(courseRepo, never()).existsById(anyLong());
+    }
+
+    @Test
+    void miss_isConfirmedAgainstDatabase_andRemembered() {
+        when(studentRepo.existsById(7L)).thenReturn(true);
+
+        assertThat(index.studentExists(7L)).isTrue();
+        assertThat(index.studentExists(7L)).isTrue();
+        assertThat(index.studentExists(8L)).isFalse();
+        verify(studentRepo, times(1)).existsById(7L);
+    }
+
+    @Test
+    void removedStudent_neverReportedMissingWhileRowExists() {
+        when(studentRepo.existsById(1L)).thenReturn(true);
+
+        index.studentRemoved(1L);
+
+        // the delete may still roll back, so the database has the last word
+        assertThat(index.studentExists(1L)).isTrue();
+        verify(studentRepo).existsById(1L);
+    }
+
+    @Test
+    void addAndRemove_survivesGrowthAndChurn() {
+        for (long id = 10; id < 20_000; id++) {
+            index.studentAdded(id);
+        }
+        for (long id = 10; id < 20_000; id += 2) {
+            index.studentRemoved(id);
+        }
+        for (long id = 11; id < 20_000; id += 2) {
+            assertThat(index.studentExists(id)).isTrue();
+        }
+        verify(studentRepo, never()).existsById(anyLong());
+
+        assertThat(index.studentExists(10L)).isFalse();
+        assertThat(index.studentExists(19_998L)).isFalse();
+        verify(studentRepo, times(2)).existsById(anyLong());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.enrollment.course.service.hold.HoldTimingWheel;
+
+class HoldTimingWheelTest {
+
+    @Test
+    void holds_comeOutAtTheirDeadline_acrossLevels() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000, 0);
+        wheel.add(1L, 5_000);
+        wheel.add(2L, 90_000);         // level 1
+        wheel.add(3L, 5_000_000);      // level 2
+        wheel.add(4L, 2_500);          // rounds up to 3s, never early
+        wheel.add(5L, -1_000);         // already due
+
+        assertArrayEquals(new long[] { 5L }, wheel.advance(0));
+        assertArrayEquals(new long[0], wheel.advance(2_999));
+        assertArrayEquals(new long[] { 4L, 1L }, wheel.advance(5_000));
+        assertArrayEquals(new long[0], wheel.advance(89_999));
+        assertArrayEquals(new long[] { 2L }, wheel.advance(90_000));
+        assertEquals(1, wheel.size());
+        assertArrayEquals(new long[] { 3L }, wheel.advance(6_000_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void holdAddedBehindTheWheel_comesOutOnTheNextAdvance() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000, 0);
+        wheel.advance(60_000);
+        wheel.add(8L, 30_000);
+
+        assertArrayEquals(new long[] { 8L }, wheel.advance(1_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void holdsPastTheHorizon_waitInTheTopLevel() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1, 0);
+        long farAway = (1L << 24) * 3 + 17;
+        wheel.add(7L, farAway);
+
+        assertArrayEquals(new long[0], wheel.advance(farAway - 1));
+        assertArrayEquals(new long[] { 7L }, wheel.advance(farAway));
+    }
+
+    @Test
+    void manyHolds_eachComesOutOnce_neverEarly() {
+        int holds = 200_000;
+        long start = 1_700_000_000_000L;
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000, start);
+        long[] deadlines = new long[holds];
+        Random random = new Random(17);
+        for (int id = 0; id < holds; id++) {
+            deadlines[id] = start + random.nextInt(3 * 3_600_000);
+            wheel.add(id, deadlines[id]);
+        }
+
+        int seen = 0;
+        boolean[] out = new boolean[holds];
+        for (long now = start; now < start + 3 * 3_600_000 + 7_919 + 1_000; now += 7_919) {
+            for (long id : wheel.advance(now)) {
+                assertTrue(deadlines[(int) id] <= now, "hold " + id + " came out early");
+                assertTrue(deadlines[(int) id] > now - 7_919 - 1_000, "hold " + id + " came out late");
+                assertTrue(!out[(int) id], "hold " + id + " came out twice");
+                out[(int) id] = true;
+                seen++;
+            }
+        }
+        assertEquals(holds, seen);
+        assertEquals(0, wheel.size());
+    }
+}
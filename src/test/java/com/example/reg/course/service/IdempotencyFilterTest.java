@@ -0,0 +1,201 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.entity.IdempotencyRecord;
+import com.example.enrollment.course.repository.IdempotencyRecordRepository;
+import com.example.enrollment.course.service.idempotency.IdempotencyFilter;
+import com.example.enrollment.course.service.idempotency.IdempotentResponses;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keys are claimed in their own statements, outside any test transaction,
+ * so the table is emptied after each test instead of rolled back.
+ */
+@DataJpaTest(properties = { "enrollment.idempotency.max-cached=1", "enrollment.idempotency.in-progress-lease-ms=60000" })
+@Import(IdempotentResponses.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTest {
+
+    @Autowired
+    private IdempotentResponses responses;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepo;
+
+    private IdempotencyFilter filter;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    /** The LRU outlives a test, so every test uses keys of its own */
+    private final String keyPrefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+
+    /** Stands in for the controller: 201 with a body naming the run */
+    private final FilterChain enroll = (request, response) -> {
+        int run = runs.incrementAndGet();
+        ((HttpServletResponse) response).setStatus(201);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"run\":" + run + "}").getBytes(StandardCharsets.UTF_8));
+    };
+
+    @BeforeEach
+    void setUp() {
+        filter = new IdempotencyFilter(responses, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @AfterEach
+    void tearDown() {
+        recordRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void retriedRequest_getsTheFirstResponse_withoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+        MockHttpServletResponse retry = send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo("{\"run\":1}").isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void evictedFromMemory_isReplayedFromTheTable() throws Exception {
+        send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+        send("POST", "/api/v1/enroll/1/student/3", "k2", enroll);    // pushes k1 out of the LRU
+        MockHttpServletResponse retry = send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+
+        assertThat(runs).hasValue(2);
+        assertThat(retry.getContentAsString()).isEqualTo("{\"run\":1}");
+        assertThat(recordRepo.count()).isEqualTo(2);
+    }
+
+    @Test
+    void keyReusedOnAnotherRequest_isRejected() throws Exception {
+        send("PATCH", "/api/v1/swap/2", "k1", enroll);
+        MockHttpServletResponse other = send("PUT", "/api/v1/deregister/1/student/2", "k1", enroll);
+
+        assertThat(runs).hasValue(1);
+        assertThat(other.getStatus()).isEqualTo(400);
+        assertThat(other.getContentAsString()).contains("was already used for PATCH /api/v1/swap/2");
+    }
+
+    @Test
+    void serverError_isNotKept_soTheRetryRunsAgain() throws Exception {
+        FilterChain failing = (request, response) -> {
+            runs.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(500);
+        };
+        send("POST", "/api/v1/enroll/1/student/2", "k1", failing);
+        MockHttpServletResponse retry = send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+
+        assertThat(runs).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(recordRepo.findById(keyPrefix + "k1")).get().extracting(r -> r.getResponseStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void concurrentRetries_runTheRequestOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            enroll.doFilter(request, response);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MockHttpServletResponse>> calls = new ArrayList<>();
+            calls.add(pool.submit(() -> send("POST", "/api/v1/enroll/1/student/2", "storm", slow)));
+            started.await(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                calls.add(pool.submit(() -> send("POST", "/api/v1/enroll/1/student/2", "storm", slow)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<MockHttpServletResponse> call : calls) {
+                MockHttpServletResponse response = call.get(10, TimeUnit.SECONDS);
+                assertThat(response.getStatus()).isEqualTo(201);
+                assertThat(response.getContentAsString()).isEqualTo("{\"run\":1}");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void claimLeftWithoutAResponse_isTakenOverOnceItsLeaseRunsOut() throws Exception {
+        // claimed by instances that never stored a response
+        claimedElsewhere("k1", "POST /api/v1/enroll/1/student/2", Instant.now().minusSeconds(120));
+        claimedElsewhere("k2", "POST /api/v1/enroll/1/student/3", Instant.now().minusSeconds(5));
+
+        MockHttpServletResponse lapsed = send("POST", "/api/v1/enroll/1/student/2", "k1", enroll);
+        MockHttpServletResponse running = send("POST", "/api/v1/enroll/1/student/3", "k2", enroll);
+
+        assertThat(runs).hasValue(1);
+        assertThat(lapsed.getStatus()).isEqualTo(201);
+        assertThat(running.getStatus()).isEqualTo(409);
+        assertThat(recordRepo.findById(keyPrefix + "k1")).get().extracting(r -> r.getResponseStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void requestsWithoutAKey_passStraightThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/enroll/1/student/2");
+        filter.doFilter(request, new MockHttpServletResponse(), enroll);
+        filter.doFilter(request, new MockHttpServletResponse(), enroll);
+
+        assertThat(runs).hasValue(2);
+        assertThat(recordRepo.count()).isZero();
+    }
+
+    private void claimedElsewhere(String key, String request, Instant claimedAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(keyPrefix + key);
+        record.setRequest(request);
+        record.setClaimedAt(claimedAt);
+        record.setExpiresAt(claimedAt.plusSeconds(86_400));
+        recordRepo.save(record);
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String key, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader(IdempotencyFilter.KEY_HEADER, keyPrefix + key);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.dto.PaymentDto;
+import com.example.enrollment.course.dto.PaymentRequestDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.exception.CourseFullException;
+import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.PaymentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.payment.PaymentConfirmations;
+import com.example.enrollment.course.service.payment.PaymentServiceImpl;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Confirmations are applied on the writer thread, so the test data is
+ * committed rather than rolled back with a test transaction.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ PaymentConfirmations.class, PaymentServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentConfirmationTest {
+
+    private static final int STUDENTS = 200;
+
+    @Autowired
+    private PaymentConfirmations confirmations;
+
+    @Autowired
+    private PaymentServiceImpl service;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private final List<Long> enrolled = new ArrayList<>();
+
+    private Long waitlisted;
+
+    @BeforeEach
+    void setUp() {
+        courseRepo.save(new Course(901L, "Paid course", "1 month", 100.0, 0L));
+        for (int i = 0; i < STUDENTS; i++) {
+            Long studentId = studentRepo.save(new Student(null, "S" + i, "Payer", "9" + i)).getStudentId();
+            enrolled.add(enrollmentRepo.save(new Enrollment(null, studentId, 901L,
+                    EnrollmentStatus.ENROLLED, null, PaymentStatus.PENDING)).getEnrollmentId());
+        }
+        Long late = studentRepo.save(new Student(null, "Late", "Payer", "8")).getStudentId();
+        waitlisted = enrollmentRepo.save(new Enrollment(null, late, 901L,
+                EnrollmentStatus.WAITLISTED, 1L, PaymentStatus.PENDING)).getEnrollmentId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepo.deleteAllInBatch();
+        enrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAllInBatch();
+        courseRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void burstOfCallbacks_isConfirmedInFewTransactions_andRetriesReturnTheSamePayment() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<CompletableFuture<PaymentDto>> first = new ArrayList<>();
+        List<CompletableFuture<PaymentDto>> retries = new ArrayList<>();
+        for (Long enrollmentId : enrolled) {
+            first.add(confirmations.submit("key-" + enrollmentId, new PaymentRequestDto(enrollmentId, "CARD")));
+        }
+        for (Long enrollmentId : enrolled) {
+            retries.add(confirmations.submit("key-" + enrollmentId, new PaymentRequestDto(enrollmentId, "CARD")));
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            assertThat(retries.get(i).join().getPaymentId()).isEqualTo(first.get(i).join().getPaymentId());
+        }
+
+        assertThat(statistics.getTransactionCount()).isLessThan(STUDENTS / 4);
+        assertThat(paymentRepo.count()).isEqualTo(STUDENTS);
+        assertThat(enrollmentRepo.findAllById(enrolled))
+            .allSatisfy(e -> {
+                assertThat(e.getPaymentStatus()).isEqualTo(PaymentStatus.COMPLETED);
+                assertThat(e.getHoldExpiresAt()).isNull();
+            });
+        // a retry arriving later is answered from the payments table
+        PaymentDto late = service.confirmPayment("key-" + enrolled.get(0), new PaymentRequestDto(enrolled.get(0), "CARD"));
+        assertThat(late.getPaymentId()).isEqualTo(first.get(0).join().getPaymentId());
+    }
+
+    @Test
+    void rejectedConfirmations_failAlone() {
+        Long payer = enrolled.get(0);
+        CompletableFuture<PaymentDto> ok = confirmations.submit("a", new PaymentRequestDto(payer, "CARD"));
+        CompletableFuture<PaymentDto> sameKeyOtherEnrollment =
+                confirmations.submit("a", new PaymentRequestDto(enrolled.get(1), "CARD"));
+        CompletableFuture<PaymentDto> secondPayment = confirmations.submit("b", new PaymentRequestDto(payer, "CASH"));
+        CompletableFuture<PaymentDto> unknown = confirmations.submit("c", new PaymentRequestDto(-1L, "CARD"));
+        CompletableFuture<PaymentDto> waiting = confirmations.submit("d", new PaymentRequestDto(waitlisted, "CARD"));
+
+        assertThat(ok.join().getPaymentStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThatThrownBy(sameKeyOtherEnrollment::join).isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ResourceAlreadyExistsException.class);
+        assertThatThrownBy(secondPayment::join).hasCauseInstanceOf(ResourceAlreadyExistsException.class);
+        assertThatThrownBy(unknown::join).hasCauseInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(waiting::join).hasCauseInstanceOf(CourseFullException.class);
+        assertThat(paymentRepo.count()).isEqualTo(1);
+        assertThat(enrollmentRepo.findById(enrolled.get(1))).get()
+            .extracting(Enrollment::getPaymentStatus).isEqualTo(PaymentStatus.PENDING);
+    }
+}
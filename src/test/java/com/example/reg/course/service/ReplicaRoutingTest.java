@@ -0,0 +1,187 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.dto.StudentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.replica.ReplicaReads;
+import com.example.enrollment.course.service.replica.ReplicaRoutingDataSource;
+import com.example.enrollment.course.service.replica.ReplicaRoutingPostProcessor;
+import com.example.enrollment.course.service.student.StudentServiceImpl;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
+
+/**
+ * Two H2 databases: the test database as the primary and a second one as
+ * the replica. Replication is a copy of the primary taken on demand, so
+ * anything written after the copy is lag the routing has to deal with.
+ */
+@DataJpaTest(properties = {
+    "enrollment.read-replicas.enabled=true",
+    "enrollment.read-replicas.urls=" + ReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+    "enrollment.read-replicas.username=sa",
+    "enrollment.read-replicas.password=",
+    "enrollment.read-replicas.sticky-ms=300",
+    "enrollment.read-replicas.connection-timeout-ms=250" })
+@Import({ ReplicaRoutingPostProcessor.class, ReplicaReads.class, EnrollmentServiceImpl.class,
+          StudentServiceImpl.class, CourseCatalogCache.class, WaitlistIndex.class, WaitlistPriorities.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class, JacksonAutoConfiguration.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private EnrollmentServiceImpl enrollments;
+
+    @Autowired
+    private StudentServiceImpl students;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private CourseCatalogCache catalog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private Long studentId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        courseRepo.save(new Course(1L, "Java", "6 weeks", 100.0, 10L));
+        courseRepo.save(new Course(2L, "Spring", "4 weeks", 100.0, 10L));
+        studentId = students.addStudent(new StudentDto(null, "Ada", "Lovelace", "1")).getStudentId();
+        enrollments.enrollStudent(1L, studentId);
+        replicate();
+        dataSource.unwrap(ReplicaRoutingDataSource.class).checkHealth();
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistRepo.deleteAllInBatch();
+        enrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAllInBatch();
+        courseRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void studentReadsTheirOwnWrite_thenTheReplicaOnceTheWindowCloses() throws Exception {
+        enrollments.enrollStudent(2L, studentId);
+
+        assertThat(enrollments.retrieveEnrollments(studentId))
+            .extracting(EnrollmentDto::getCourseId).containsExactlyInAnyOrder(1L, 2L);
+
+        Thread.sleep(400);
+        // the replica has not seen the second enrollment yet
+        assertThat(enrollments.retrieveEnrollments(studentId))
+            .extracting(EnrollmentDto::getCourseId).containsExactly(1L);
+    }
+
+    @Test
+    void onlyMarkedReads_goToTheReplica() {
+        Long late = studentRepo.save(new Student(null, "Late", "Comer", "2")).getStudentId();
+
+        assertThat(students.listStudents(null, 10).students()).extracting(StudentDto::getStudentId).containsExactly(studentId);
+        // repository reads, as the in-memory indexes do them, see the primary
+        assertThat(studentRepo.findAll()).hasSize(2);
+        assertThat(studentRepo.existsById(late)).isTrue();
+        // and so does a read-only transaction nobody marked for a replica
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertThat(readOnly.<Long>execute(status -> studentRepo.count())).isEqualTo(2);
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM students", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void timedCatalogReload_readsTheReplica_aReloadAfterAChangeThePrimary() {
+        courseRepo.save(new Course(3L, "Kotlin", "3 weeks", 100.0, 10L));
+        courseRepo.adjustSeats(2L, -3);
+
+        catalog.refresh();
+        assertThat(catalog.current().courses()).extracting(CourseDto::getCourseId).containsExactly(1L, 2L);
+        // seats taken since the copy are not handed back
+        assertThat(catalog.availableSeats(1L)).isEqualTo(9L);
+        assertThat(catalog.availableSeats(2L)).isEqualTo(7L);
+
+        catalog.invalidate();
+        assertThat(catalog.current().courses()).extracting(CourseDto::getCourseId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void unavailableReplica_fallsBackToThePrimary_untilItRecovers() throws Exception {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        enrollments.enrollStudent(2L, studentId);
+        replica.execute("SHUTDOWN");
+        // past the sticky window, and long enough for the pool to validate its idle connections
+        Thread.sleep(600);
+
+        assertThat(enrollments.retrieveEnrollments(studentId)).hasSize(2);
+        assertThat(routing.healthyReplicas()).isZero();
+        replicaReads.checkHealth();
+        assertThat(routing.healthyReplicas()).isZero();
+
+        replicate();
+        replicaReads.checkHealth();
+        assertThat(routing.healthyReplicas()).isEqualTo(1);
+        assertThat(enrollments.retrieveEnrollments(studentId)).hasSize(2);
+    }
+
+    /** Makes the replica an exact copy of the primary */
+    private void replicate() {
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+}
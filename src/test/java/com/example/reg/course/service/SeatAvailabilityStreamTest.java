@@ -0,0 +1,196 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.course.CourseSeatsChangedEvent;
+import com.example.enrollment.course.service.course.CourseWaitlistChangedEvent;
+import com.example.enrollment.course.service.course.SeatAvailabilityStream;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class SeatAvailabilityStreamTest {
+
+    @Mock
+    private CourseRepository repo;
+
+    private CourseCatalogCache catalog;
+
+    private final WaitlistIndex waitlistIndex = new WaitlistIndex();
+
+    private SeatAvailabilityStream stream;
+
+    private MockMvc mvc;
+
+    /** Emitter of the last stream opened, to stall its client */
+    private SseEmitter lastEmitter;
+
+    @RestController
+    class SeatsController {
+
+        @GetMapping("/seats")
+        SseEmitter seats(@RequestParam List<Long> courseIds) {
+            lastEmitter = stream.subscribe(courseIds);
+            return lastEmitter;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(repo.findAll()).thenReturn(List.of(
+            new Course(1L, "Java", "6 weeks", 100.0, 2L),
+            new Course(2L, "Spring", "4 weeks", 200.0, 5L)));
+        catalog = new CourseCatalogCache(repo, new ObjectMapper());
+        stream = new SeatAvailabilityStream(catalog, waitlistIndex, new ObjectMapper(), 2, 10, 10, 60_000, 300, 2);
+        mvc = MockMvcBuilders.standaloneSetup(new SeatsController()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void subscriber_getsTheCurrentState_thenOneEventPerCoursePerWindow() throws Exception {
+        MockHttpServletResponse response = open("1,2");
+        assertThat(awaitEvents(response, 2)).contains(
+            "data:{\"courseId\":1,\"availableSeats\":2,\"waitlistDepth\":0}",
+            "data:{\"courseId\":2,\"availableSeats\":5,\"waitlistDepth\":0}");
+
+        seatsChanged(1L, -1);
+        seatsChanged(1L, -1);
+        waitlistIndex.add(1L, waitlistIndex.nextTicket(1L), 10L);
+        stream.onWaitlistChanged(new CourseWaitlistChangedEvent(1L));
+        stream.flush();
+
+        assertThat(awaitEvents(response, 3))
+            .endsWith("data:{\"courseId\":1,\"availableSeats\":0,\"waitlistDepth\":1}\n\n");
+
+        // changes that cancel out within a window send nothing
+        seatsChanged(1L, 1);
+        seatsChanged(1L, -1);
+        stream.flush();
+        seatsChanged(2L, -1);
+        stream.flush();
+
+        assertThat(awaitEvents(response, 4))
+            .endsWith("data:{\"courseId\":2,\"availableSeats\":4,\"waitlistDepth\":0}\n\n")
+            .doesNotContain("\"courseId\":1,\"availableSeats\":1");
+    }
+
+    @Test
+    void stalledSubscriber_isDisconnected_withoutHoldingBackTheOthers() throws Exception {
+        MockHttpServletResponse stalled = open("2");
+        awaitEvents(stalled, 1);
+        SseEmitter stalledEmitter = lastEmitter;
+        MockHttpServletResponse healthy = open("2");
+        awaitEvents(healthy, 1);
+        assertThat(stream.size()).isEqualTo(2);
+
+        // holding the emitter's lock blocks every write to the stalled client
+        synchronized (stalledEmitter) {
+            for (int i = 0; i < 5; i++) {
+                seatsChanged(2L, -1);
+                stream.flush();
+                // one window apart, as the scheduler would flush
+                awaitEvents(healthy, i + 2);
+            }
+            assertThat(stream.size()).isEqualTo(1);
+            assertThat(healthy.getContentAsString())
+                .endsWith("data:{\"courseId\":2,\"availableSeats\":0,\"waitlistDepth\":0}\n\n");
+        }
+
+        seatsChanged(2L, 1);
+        stream.flush();
+        assertThat(awaitEvents(healthy, 7)).endsWith("\"availableSeats\":1,\"waitlistDepth\":0}\n\n");
+        assertThat(stalled.getContentAsString()).doesNotContain("\"availableSeats\":1,");
+    }
+
+    @Test
+    void subscribersThatNeverRead_areDroppedAfterTheWriteTimeout_andTheOthersKeepGettingEvents() throws Exception {
+        MockHttpServletResponse first = open("2");
+        awaitEvents(first, 1);
+        SseEmitter firstEmitter = lastEmitter;
+        MockHttpServletResponse second = open("2");
+        awaitEvents(second, 1);
+        SseEmitter secondEmitter = lastEmitter;
+        MockHttpServletResponse healthy = open("2");
+        awaitEvents(healthy, 1);
+
+        // both sender threads end up stuck writing to a client that does not read
+        synchronized (firstEmitter) {
+            synchronized (secondEmitter) {
+                seatsChanged(2L, -1);
+                stream.flush();
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (healthy.getContentAsString().split("event:seats", -1).length - 1 < 2
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                    stream.flush();
+                }
+
+                assertThat(awaitEvents(healthy, 2))
+                    .endsWith("data:{\"courseId\":2,\"availableSeats\":4,\"waitlistDepth\":0}\n\n");
+                assertThat(stream.size()).isEqualTo(1);
+            }
+        }
+
+        seatsChanged(2L, -1);
+        stream.flush();
+        assertThat(awaitEvents(healthy, 3)).endsWith("\"availableSeats\":3,\"waitlistDepth\":0}\n\n");
+    }
+
+    private MockHttpServletResponse open(String courseIds) throws Exception {
+        return mvc.perform(get("/seats").param("courseIds", courseIds))
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+    }
+
+    /** A seat change as seen once its transaction commits */
+    private void seatsChanged(Long courseId, long delta) {
+        CourseSeatsChangedEvent event = new CourseSeatsChangedEvent(courseId, delta);
+        catalog.onSeatsChanged(event);
+        stream.onSeatsChanged(event);
+    }
+
+    /** Waits for the sender thread to write the given number of events */
+    private static String awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String written = completeEvents(response);
+        while (written.split("event:seats", -1).length - 1 < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            written = completeEvents(response);
+        }
+        assertThat(written.split("event:seats", -1).length - 1).isEqualTo(count);
+        return written;
+    }
+
+    /** What was written up to the end of the last whole event */
+    private static String completeEvents(MockHttpServletResponse response) throws Exception {
+        String content = response.getContentAsString();
+        int end = content.lastIndexOf("\n\n");
+        return end < 0 ? "" : content.substring(0, end + 2);
+    }
+}
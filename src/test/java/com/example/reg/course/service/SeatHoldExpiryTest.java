@@ -0,0 +1,121 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.PaymentStatus;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.hold.SeatHoldExpiry;
+import com.example.enrollment.course.service.hold.SeatHolds;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * The test transaction never commits, so holds are scheduled by rebuilding
+ * from the enrollments table, as after a restart.
+ */
+@DataJpaTest(properties = { "enrollment.seat-hold.enabled=true", "enrollment.seat-hold.ttl-ms=60000" })
+@Import({ EnrollmentServiceImpl.class, WaitlistIndex.class, ExistenceIndex.class,
+          SwapRetryTemplate.class, SwapStats.class, SeatHolds.class, SeatHoldExpiry.class })
+class SeatHoldExpiryTest {
+
+    @Autowired
+    private EnrollmentServiceImpl service;
+
+    @Autowired
+    private SeatHoldExpiry expiry;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private WaitlistIndex waitlistIndex;
+
+    @Autowired
+    private EntityManager em;
+
+    private Long s1, s2, s3;
+
+    @BeforeEach
+    void setUp() {
+        s1 = studentRepo.save(new Student(null, "A", "One", "1")).getStudentId();
+        s2 = studentRepo.save(new Student(null, "B", "Two", "2")).getStudentId();
+        s3 = studentRepo.save(new Student(null, "C", "Three", "3")).getStudentId();
+        courseRepo.save(new Course(801L, "One seat", "1 month", 100.0, 1L));
+        courseRepo.save(new Course(802L, "Paid seat", "1 month", 100.0, 1L));
+        em.flush();
+
+        // 801: s1 holds the seat, s2 waits. 802: s3 holds the seat and pays
+        service.enrollStudent(801L, s1);
+        service.enrollStudent(801L, s2);
+        service.enrollStudent(802L, s3);
+        enrollmentRepo.findByStudentIdAndCourseId(s3, 802L).get().setPaymentStatus(PaymentStatus.COMPLETED);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void expiredHold_handsTheSeatToTheWaitlist_andTheNewHolderGetsAHold() {
+        Enrollment held = enrollmentRepo.findByStudentIdAndCourseId(s1, 801L).get();
+        assertThat(held.getHoldExpiresAt()).isNotNull();
+        Instant afterTtl = held.getHoldExpiresAt().plusSeconds(1);
+
+        expiry.rebuild();
+        assertThat(expiry.expire(afterTtl.minusSeconds(2))).isZero();
+        int released = expiry.expire(afterTtl);
+        em.flush();
+        em.clear();
+
+        // the paid seat of 802 is kept although its deadline passed too
+        assertThat(released).isEqualTo(1);
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s1, 801L)).isEmpty();
+        assertThat(enrollmentRepo.findByStudentIdAndCourseId(s3, 802L)).isPresent();
+        Enrollment promoted = enrollmentRepo.findByStudentIdAndCourseId(s2, 801L).get();
+        assertThat(promoted.getStatus()).isEqualTo(EnrollmentStatus.ENROLLED);
+        assertThat(promoted.getHoldExpiresAt()).isAfter(held.getHoldExpiresAt());
+        assertThat(waitlistIndex.size(801L)).isZero();
+        assertThat(courseRepo.findByCourseId(801L)).get().extracting(Course::getAvailableSeats).isEqualTo(0L);
+    }
+
+    /** Moves the shared wheel two minutes ahead, so the next test gets a new one */
+    @Test
+    @DirtiesContext
+    void expiredHold_withNobodyWaiting_releasesTheSeat() {
+        expiry.rebuild();
+        expiry.expire(Instant.now().plusSeconds(61));
+        em.flush();
+        expiry.rebuild();
+        int released = expiry.expire(Instant.now().plusSeconds(122));
+        em.flush();
+        em.clear();
+
+        assertThat(released).isEqualTo(1);
+        assertThat(enrollmentRepo.findByCourseId(801L)).isEmpty();
+        assertThat(courseRepo.findByCourseId(801L)).get().extracting(Course::getAvailableSeats).isEqualTo(1L);
+    }
+}
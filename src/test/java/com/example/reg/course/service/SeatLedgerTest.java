@@ -0,0 +1,125 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.service.seat.SeatLedger;
+
+@ExtendWith(MockitoExtension.class)
+class SeatLedgerTest {
+
+    @Mock
+    private CourseRepository courseRepo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SeatLedger ledger;
+
+    @Test
+    void tryReserve_neverOversells_underConcurrency() throws Exception {
+        when(courseRepo.findByCourseId(1L))
+            .thenReturn(Optional.of(new Course(1L, "Java", "10h", 100.0, 100L)));
+
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 500; i++) {
+            pool.execute(() -> {
+                if (ledger.tryReserve(1L)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+        assertEquals(0L, ledger.availableSeats(1L));
+        assertFalse(ledger.tryReserve(1L));
+    }
+
+    @Test
+    void tryReserve_grantsAtMostAvailable() {
+        when(courseRepo.findByCourseId(2L))
+            .thenReturn(Optional.of(new Course(2L, "Spring", "20h", 200.0, 3L)));
+
+        assertEquals(3L, ledger.tryReserve(2L, 5));
+        assertEquals(0L, ledger.tryReserve(2L, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesNetDeltaInOneBatch() {
+        when(courseRepo.findByCourseId(3L))
+            .thenReturn(Optional.of(new Course(3L, "SQL", "3w", 50.0, 10L)));
+
+        ledger.tryReserve(3L);
+        ledger.tryReserve(3L);
+        ledger.release(3L, 1);
+        ledger.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals(-1L, batch.getValue().get(0)[0]);
+        assertEquals(3L, batch.getValue().get(0)[1]);
+        assertEquals(9L, ledger.availableSeats(3L));
+
+        // nothing left to write on the next run
+        ledger.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resize_setsTheSeatCount_soAShrinkIsNotUndoneByAGrow() {
+        when(courseRepo.findByCourseId(4L))
+            .thenReturn(Optional.of(new Course(4L, "Go", "2w", 80.0, 10L)));
+        assertEquals(8L, ledger.tryReserve(4L, 8));
+
+        // capacity 10 -> 5 with 8 enrolled, then back to 10
+        ledger.resize(4L, 0);
+        assertEquals(0L, ledger.availableSeats(4L));
+        ledger.resize(4L, 2);
+        assertEquals(2L, ledger.availableSeats(4L));
+
+        ledger.flush();
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(-8L, batch.getValue().get(0)[0]);
+    }
+
+    @Test
+    void tryReserve_unknownCourse_takesNothing() {
+        when(courseRepo.findByCourseId(9L)).thenReturn(Optional.empty());
+
+        assertFalse(ledger.tryReserve(9L));
+        ledger.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), ArgumentMatchers.<Object[]>anyList());
+    }
+}
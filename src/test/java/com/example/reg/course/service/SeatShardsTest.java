@@ -0,0 +1,133 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.enrollment.course.dto.CourseDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.CourseSeatShard;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.CourseSeatShardRepository;
+import com.example.enrollment.course.service.course.CourseCatalogCache;
+import com.example.enrollment.course.service.seat.SeatShards;
+
+/**
+ * Shards are spread in transactions of their own, so nothing here runs in a
+ * test transaction and the data is deleted after each test.
+ */
+@DataJpaTest(properties = {
+    "enrollment.seat-shards.enabled=true",
+    "enrollment.seat-shards.count=4",
+    "enrollment.seat-shards.min-seats=20" })
+@Import({ SeatShards.class, CourseCatalogCache.class, JacksonAutoConfiguration.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatShardsTest {
+
+    @Autowired
+    private SeatShards shards;
+
+    @Autowired
+    private CourseCatalogCache catalog;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private CourseSeatShardRepository shardRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        courseRepo.save(new Course(901L, "Intro", "1 month", 100.0, 30L));
+        courseRepo.save(new Course(902L, "Seminar", "1 month", 100.0, 5L));
+        shards.spreadAll();
+        catalog.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRepo.deleteAllInBatch();
+        courseRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void hotCourses_areSpreadEvenly_andStillShowTheirTotal() {
+        assertThat(shardRepo.findAll())
+            .filteredOn(shard -> shard.getCourseId() == 901L)
+            .extracting(CourseSeatShard::getShardNo, CourseSeatShard::getAvailableSeats)
+            .containsExactlyInAnyOrder(
+                tuple(0, 8L), tuple(1, 8L),
+                tuple(2, 7L), tuple(3, 7L));
+        assertThat(courseRepo.findByCourseId(901L).get().getAvailableSeats()).isZero();
+        assertThat(shardRepo.sumByCourseId(902L)).isZero();
+
+        assertThat(catalog.current().courses())
+            .extracting(CourseDto::getCourseId, CourseDto::getAvailableSeats)
+            .contains(tuple(901L, 30L), tuple(902L, 5L));
+    }
+
+    @Test
+    void concurrentTakes_neverOversell_andDrainEveryShard() throws Exception {
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 60; i++) {
+            pool.execute(() -> {
+                if (shards.tryTake(901L)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted.get()).isEqualTo(30);
+        assertThat(shardRepo.sumByCourseId(901L)).isZero();
+        assertThat(shards.tryTake(901L)).isFalse();
+    }
+
+    @Test
+    void releasedSeats_goToTheLeastFullShard_andBatchesDrawOnShardsThenTheRow() {
+        assertThat(shards.tryTake(901L, 7)).isEqualTo(7);
+        shards.release(901L, 2);
+        assertThat(shardRepo.sumByCourseId(901L)).isEqualTo(25);
+        assertThat(shardRepo.findAll())
+            .filteredOn(shard -> shard.getCourseId() == 901L)
+            .extracting(CourseSeatShard::getAvailableSeats)
+            .allSatisfy(seats -> assertThat(seats).isGreaterThanOrEqualTo(1L));
+
+        // capacity added to the row by a catalog sync is spread on the next catalog change
+        courseRepo.adjustSeats(901L, 3);
+        // a batch takes its seats in one transaction, as the batch service does
+        assertThat(new TransactionTemplate(transactionManager).<Long>execute(status -> shards.tryTake(901L, 40)))
+            .isEqualTo(28);
+        assertThat(courseRepo.findByCourseId(901L).get().getAvailableSeats()).isZero();
+        shards.release(901L, 4);
+        shards.spreadAll();
+        assertThat(shardRepo.sumByCourseId(901L)).isEqualTo(4);
+
+        // unsharded courses keep using their row
+        assertThat(new TransactionTemplate(transactionManager).<Long>execute(status -> shards.tryTake(902L, 6)))
+            .isEqualTo(5);
+        shards.release(902L, 1);
+        assertThat(courseRepo.findByCourseId(902L).get().getAvailableSeats()).isEqualTo(1);
+    }
+}
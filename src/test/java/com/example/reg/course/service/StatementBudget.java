@@ -0,0 +1,24 @@
+package com.example.reg.course.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails the test if its body runs more SQL statements than allowed.
+ * Only the test method is counted, not its setup. The test context must
+ * wrap its DataSource, e.g. with @Import(StatementCountingPostProcessor.class),
+ * and the test should flush before it ends so writes Hibernate defers to
+ * commit are counted too.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+@interface StatementBudget {
+
+    /** Most statements the test may run */
+    int value();
+}
@@ -0,0 +1,44 @@
+package com.example.reg.course.service;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.example.enrollment.course.service.metrics.StatementCounter;
+import com.example.enrollment.course.service.metrics.StatementCounter.Tally;
+import com.example.enrollment.course.service.metrics.StatementCountingDataSource;
+
+/**
+ * Counts the statements of a {@link StatementBudget} test and fails it when
+ * the budget is exceeded, listing what ran.
+ */
+class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) throws SQLException {
+        DataSource dataSource = SpringExtension.getApplicationContext(context).getBean(DataSource.class);
+        if (!dataSource.isWrapperFor(StatementCountingDataSource.class)) {
+            throw new IllegalStateException("@StatementBudget needs a counting DataSource, "
+                + "@Import(StatementCountingPostProcessor.class) into the test");
+        }
+        StatementCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Tally tally = StatementCounter.stop();
+        int budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class).value();
+        if (tally.statements() > budget) {
+            StringBuilder message = new StringBuilder(String.format("%s ran %d SQL statements, budget is %d:",
+                context.getDisplayName(), tally.statements(), budget));
+            tally.bySql().forEach((sql, count) -> message.append(String.format("%n  %dx %s", count, sql)));
+            throw new AssertionFailedError(message.toString(), budget, tally.statements());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.reg.course.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -15,11 +16,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import com.example.enrollment.course.dto.StudentDto;
 import com.example.enrollment.course.entity.Student;
 import com.example.enrollment.course.exception.ResourceAlreadyExistsException;
 import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.student.StudentService;
+import com.example.enrollment.course.service.student.StudentService.StudentPage;
 import com.example.enrollment.course.service.student.StudentServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +32,8 @@ class StudentServiceImplTest {
 
     @Mock 
     private StudentRepository repo;
+    @Mock
+    private ExistenceIndex existenceIndex;
     @InjectMocks
     private StudentServiceImpl service;
 
@@ -46,21 +53,22 @@ class StudentServiceImplTest {
     @Test
     void addStudent_success_whenIdNotExists() {
         StudentDto dto = new StudentDto(5L, "Bob", "Builder", "456");
-        when(repo.existsById(5L)).thenReturn(false);
+        when(existenceIndex.studentExists(5L)).thenReturn(false);
         Student saved = new Student(5L, "Bob", "Builder", "456");
         when(repo.save(any())).thenReturn(saved);
 
         StudentDto result = service.addStudent(dto);
 
         assertEquals(5L, result.getStudentId());
-        verify(repo).existsById(5L);
+        verify(existenceIndex).studentExists(5L);
+        verify(existenceIndex).studentAdded(5L);
         verify(repo).save(any());
     }
 
     @Test
     void addStudent_throws_whenDuplicateId() {
         StudentDto dto = new StudentDto(2L, "Eve", "Dup", "789");
-        when(repo.existsById(2L)).thenReturn(true);
+        when(existenceIndex.studentExists(2L)).thenReturn(true);
 
         ResourceAlreadyExistsException ex = assertThrows(
             ResourceAlreadyExistsException.class,
@@ -71,15 +79,29 @@ class StudentServiceImplTest {
     }
 
     @Test
-    void listStudents_returnsAll() {
-        Student s1 = new Student(1L, "X", "Y", "111");
-        Student s2 = new Student(2L, "A", "B", "222");
-        when(repo.findAll()).thenReturn(List.of(s1, s2));
-
-        List<StudentDto> dtos = service.listStudents();
+    void listStudents_seeksPastCursor() {
+        Student s1 = new Student(11L, "X", "Y", "111");
+        Student s2 = new Student(12L, "A", "B", "222");
+        Student s3 = new Student(13L, "C", "D", "333");
+        when(repo.findByStudentIdGreaterThanOrderByStudentIdAsc(10L, Limit.of(3)))
+            .thenReturn(List.of(s1, s2, s3));
+
+        StudentPage page = service.listStudents(10L, 2);
+        List<StudentDto> dtos = page.students();
         assertEquals(2, dtos.size());
         assertEquals("X", dtos.get(0).getFirstName());
         assertEquals("A", dtos.get(1).getFirstName());
-        verify(repo).findAll();
+        assertEquals(12L, page.nextAfter());
+        verify(repo, never()).findAll();
+    }
+
+    @Test
+    void listStudents_firstPage_clampsLimit() {
+        when(repo.findByStudentIdGreaterThanOrderByStudentIdAsc(0L, Limit.of(StudentService.MAX_PAGE_SIZE + 1)))
+            .thenReturn(List.of());
+
+        StudentPage page = service.listStudents(null, 1_000_000);
+        assertTrue(page.students().isEmpty());
+        assertNull(page.nextAfter());
     }
 }
@@ -0,0 +1,85 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.example.enrollment.course.dto.StudentDto;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.student.StudentService.StudentPage;
+import com.example.enrollment.course.service.student.StudentServiceImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import({ StudentServiceImpl.class, ExistenceIndex.class, JacksonAutoConfiguration.class })
+class StudentStreamingTest {
+
+    @Autowired
+    private StudentServiceImpl service;
+
+    @Autowired
+    private StudentRepository repo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = repo.saveAll(List.of(
+                new Student(null, "A", "One", "1"),
+                new Student(null, "B", "Two", "2"),
+                new Student(null, "C", "Three", "3")))
+            .stream().map(Student::getStudentId).toList();
+        em.flush();
+    }
+
+    @Test
+    void listStudents_walksPagesByCursor() {
+        StudentPage first = service.listStudents(null, 2);
+        StudentPage second = service.listStudents(first.nextAfter(), 2);
+
+        assertThat(first.students()).extracting(StudentDto::getStudentId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(first.nextAfter()).isEqualTo(ids.get(1));
+        assertThat(second.students()).extracting(StudentDto::getStudentId).containsExactly(ids.get(2));
+        assertThat(second.nextAfter()).isNull();
+    }
+
+    @Test
+    void streamStudents_ndjson_writesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamStudents(out, true);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines[2], StudentDto.class))
+            .isEqualTo(new StudentDto(ids.get(2), "C", "Three", "3"));
+    }
+
+    @Test
+    void streamStudents_json_writesOneArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamStudents(out, false);
+
+        List<StudentDto> students = objectMapper.readValue(out.toByteArray(), new TypeReference<>() { });
+        assertThat(students).extracting(StudentDto::getFirstName).containsExactly("A", "B", "C");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.example.enrollment.course.dto.SwapStatsDto;
+import com.example.enrollment.course.exception.CourseFullException;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SwapRetryTemplateTest {
+
+    @Mock
+    private PlatformTransactionManager txManager;
+
+    private SwapStats stats;
+
+    private SwapRetryTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        when(txManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        stats = new SwapStats();
+        template = new SwapRetryTemplate(txManager, stats, 3, 1, 2);
+    }
+
+    @Test
+    void lostLockRaces_areRetried_untilTheSwapGoesThrough() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = template.execute(() -> {
+            switch (calls.incrementAndGet()) {
+                case 1: throw new DeadlockLoserDataAccessException("deadlock", null);
+                case 2: throw new CannotAcquireLockException("lock wait timeout");
+                default: return "swapped";
+            }
+        });
+
+        assertEquals("swapped", result);
+        SwapStatsDto snapshot = stats.snapshot();
+        assertEquals(3, snapshot.getAttempts());
+        assertEquals(2, snapshot.getRetries());
+        assertEquals(0, snapshot.getExhausted());
+    }
+
+    @Test
+    void lastAttempt_rethrows() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(DeadlockLoserDataAccessException.class, () -> template.execute(() -> {
+            calls.incrementAndGet();
+            throw new DeadlockLoserDataAccessException("deadlock", null);
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, stats.snapshot().getExhausted());
+    }
+
+    @Test
+    void businessFailures_areNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CourseFullException.class, () -> template.execute(() -> {
+            calls.incrementAndGet();
+            throw new CourseFullException("Course Full with id: 1");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, stats.snapshot().getRetries());
+    }
+}
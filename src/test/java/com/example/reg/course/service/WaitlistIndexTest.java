@@ -0,0 +1,164 @@
+package com.example.reg.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+
+class WaitlistIndexTest {
+
+    private final WaitlistIndex index = new WaitlistIndex();
+
+    @Test
+    void positions_followTicketOrder_andCloseGaps() {
+        for (long i = 1; i <= 5; i++) {
+            index.add(1L, index.nextTicket(1L), 100L + i);
+        }
+        assertEquals(3L, index.positionOf(1L, 3L));
+
+        assertTrue(index.remove(1L, 2L));
+        assertFalse(index.remove(1L, 2L));
+        assertEquals(2L, index.positionOf(1L, 3L));
+        assertNull(index.positionOf(1L, 2L));
+        assertEquals(4L, index.size(1L));
+    }
+
+    @Test
+    void pollHead_promotesInArrivalOrder() {
+        index.add(2L, index.nextTicket(2L), 10L);
+        index.add(2L, index.nextTicket(2L), 20L);
+        index.add(2L, index.nextTicket(2L), 30L);
+        index.remove(2L, 1L);
+
+        assertEquals(20L, index.pollHead(2L));
+        assertEquals(1L, index.positionOf(2L, 3L));
+        assertEquals(30L, index.pollHead(2L));
+        assertNull(index.pollHead(2L));
+        // tickets keep growing after the waitlist drains
+        assertEquals(4L, index.nextTicket(2L));
+    }
+
+    @Test
+    void largeWaitlist_growsAndRanksCorrectly() {
+        int n = 5_000;
+        for (int i = 1; i <= n; i++) {
+            index.add(3L, index.nextTicket(3L), (long) i);
+        }
+        for (long t = 1; t <= n; t += 2) {
+            index.remove(3L, t);
+        }
+        assertEquals(n / 2, index.size(3L));
+        assertEquals(n / 2, index.positionOf(3L, (long) n));
+        assertEquals(2L, index.pollHead(3L));
+        assertEquals(1L, index.positionOf(3L, 4L));
+    }
+
+    @Test
+    void unknownCourse_isEmpty() {
+        assertNull(index.pollHead(99L));
+        assertNull(index.positionOf(99L, 1L));
+        assertEquals(0L, index.size(99L));
+    }
+
+    @Test
+    void tiers_rankAheadOfArrival_andEachKeepsItsOwnOrder() {
+        index.add(4L, index.nextTicket(4L), WaitlistPriority.STANDARD, 1L);
+        index.add(4L, index.nextTicket(4L), WaitlistPriority.PROGRAM_MAJOR, 2L);
+        index.add(4L, index.nextTicket(4L), WaitlistPriority.SENIOR, 3L);
+        index.add(4L, index.nextTicket(4L), WaitlistPriority.PROGRAM_MAJOR, 4L);
+        index.add(4L, index.nextTicket(4L), WaitlistPriority.STANDARD, 5L);
+
+        assertEquals(1L, index.positionOf(4L, 3L));
+        assertEquals(2L, index.positionOf(4L, 2L));
+        assertEquals(3L, index.positionOf(4L, 4L));
+        assertEquals(4L, index.positionOf(4L, 1L));
+        assertEquals(5L, index.positionOf(4L, 5L));
+
+        assertTrue(index.remove(4L, 2L));
+        assertEquals(2L, index.positionOf(4L, 4L));
+        assertEquals(3L, index.positionOf(4L, 1L));
+
+        assertEquals(3L, index.pollHead(4L));
+        assertEquals(4L, index.pollHead(4L));
+        assertEquals(1L, index.pollHead(4L));
+        assertEquals(1L, index.positionOf(4L, 5L));
+        assertEquals(1L, index.size(4L));
+    }
+
+    @Test
+    void window_slidesPastLeftTickets_andHandlesTicketsBeyondIntRange() {
+        // churn through many tickets with only a few waiting at a time
+        for (long t = 1; t <= 200_000; t++) {
+            index.add(5L, index.nextTicket(5L), t);
+            if (t > 3) {
+                assertEquals(t - 3, index.pollHead(5L));
+            }
+        }
+        assertEquals(3L, index.size(5L));
+        assertEquals(1L, index.positionOf(5L, 199_998L));
+        assertEquals(3L, index.positionOf(5L, 200_000L));
+
+        long far = 3_000_000_000L;
+        index.add(6L, far, 1L);
+        index.add(6L, far + 5, 2L);
+        assertEquals(2L, index.positionOf(6L, far + 5));
+        // a ticket that only matches after truncation to int is not waiting
+        assertNull(index.positionOf(6L, far + 5 - (1L << 32)));
+        assertFalse(index.remove(6L, far - (1L << 32)));
+        assertEquals(1L, index.pollHead(6L));
+        assertEquals(far + 6, index.nextTicket(6L));
+    }
+
+    @Test
+    void rolledBackPromotion_returnsInFrontOfTheWindow() throws Exception {
+        for (long t = 1; t <= 100; t++) {
+            index.add(7L, index.nextTicket(7L), t);
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (long t = 1; t <= 99; t++) {
+                index.pollHead(7L);
+            }
+            // another transaction grows the waitlist, sliding the window past the polled tickets
+            Thread other = new Thread(() -> {
+                for (long t = 101; t <= 300; t++) {
+                    index.add(7L, index.nextTicket(7L), t);
+                }
+            });
+            other.start();
+            other.join();
+            rollBack();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(300L, index.size(7L));
+        assertEquals(1L, index.pollHead(7L));
+        assertEquals(99L, index.positionOf(7L, 100L));
+    }
+
+    @Test
+    void firstTicketOfAnUnknownCourse_leavesNoWaitlistOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(1L, index.nextTicket(98L));
+            rollBack();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0L, index.size(98L));
+        assertEquals(1L, index.nextTicket(98L));
+    }
+
+    private static void rollBack() {
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+            TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.reg.course.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.enrollment.course.dto.EnrollmentDto;
+import com.example.enrollment.course.entity.Course;
+import com.example.enrollment.course.entity.Enrollment;
+import com.example.enrollment.course.entity.Student;
+import com.example.enrollment.course.entity.enums.EnrollmentStatus;
+import com.example.enrollment.course.entity.enums.WaitlistPriority;
+import com.example.enrollment.course.exception.ResourceNotFoundException;
+import com.example.enrollment.course.repository.CourseRepository;
+import com.example.enrollment.course.repository.EnrollmentRepository;
+import com.example.enrollment.course.repository.StudentRepository;
+import com.example.enrollment.course.repository.WaitlistEntryRepository;
+import com.example.enrollment.course.service.enrollment.EnrollmentServiceImpl;
+import com.example.enrollment.course.service.enrollment.SwapRetryTemplate;
+import com.example.enrollment.course.service.enrollment.SwapStats;
+import com.example.enrollment.course.service.existence.ExistenceIndex;
+import com.example.enrollment.course.service.student.StudentServiceImpl;
+import com.example.enrollment.course.service.waitlist.WaitlistIndex;
+import com.example.enrollment.course.service.waitlist.WaitlistIndexLoader;
+import com.example.enrollment.course.service.waitlist.WaitlistPriorities;
+
+/**
+ * Tier changes reach the in-memory tiers after commit, so the services run
+ * their own transactions here and the data is deleted after each test.
+ */
+@DataJpaTest
+@Import({ EnrollmentServiceImpl.class, StudentServiceImpl.class, WaitlistIndex.class, WaitlistIndexLoader.class,
+          WaitlistPriorities.class, ExistenceIndex.class, SwapRetryTemplate.class, SwapStats.class,
+          JacksonAutoConfiguration.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WaitlistPriorityTest {
+
+    @Autowired
+    private EnrollmentServiceImpl enrollments;
+
+    @Autowired
+    private StudentServiceImpl students;
+
+    @Autowired
+    private WaitlistIndexLoader loader;
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private CourseRepository courseRepo;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepo;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    /** The waitlist index outlives a test, so every test gets a course of its own */
+    private static long nextCourseId = 800;
+
+    private Long courseId;
+
+    private Long holder, standard, major, senior, late;
+
+    @BeforeEach
+    void setUp() {
+        courseId = courseRepo.save(new Course(++nextCourseId, "One seat", "1 month", 100.0, 1L)).getCourseId();
+        holder = studentRepo.save(new Student(null, "H", "Holder", "1")).getStudentId();
+        standard = studentRepo.save(new Student(null, "S", "Standard", "2")).getStudentId();
+        major = studentRepo.save(new Student(null, "M", "Major", "3")).getStudentId();
+        senior = studentRepo.save(new Student(null, "O", "Senior", "4")).getStudentId();
+        late = studentRepo.save(new Student(null, "L", "Late", "5")).getStudentId();
+        students.changeWaitlistPriority(major, WaitlistPriority.PROGRAM_MAJOR);
+        students.changeWaitlistPriority(senior, WaitlistPriority.SENIOR);
+
+        for (Long student : List.of(holder, standard, major, senior, late)) {
+            enrollments.enrollStudent(courseId, student);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistRepo.deleteAllInBatch();
+        enrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAllInBatch();
+        courseRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void higherTiersWaitAhead_andArePromotedFirst() {
+        assertThat(positions()).containsExactlyInAnyOrderEntriesOf(Map.of(
+            senior, 1L, major, 2L, standard, 3L, late, 4L));
+
+        enrollments.deregisterCourse(courseId, holder);
+
+        assertThat(enrollments.retrieveEnrollments(senior)).singleElement()
+            .extracting(EnrollmentDto::getStatus, EnrollmentDto::getWaitlistPosition)
+            .containsExactly(EnrollmentStatus.ENROLLED, null);
+        assertThat(positions()).containsExactlyInAnyOrderEntriesOf(Map.of(major, 1L, standard, 2L, late, 3L));
+
+        enrollments.deregisterCourse(courseId, major);
+        assertThat(positions()).containsExactlyInAnyOrderEntriesOf(Map.of(standard, 1L, late, 2L));
+        assertThat(waitlistRepo.findFirstByCourseIdOrderByPriorityAscTimestampAsc(courseId))
+            .get().extracting(entry -> entry.getEnrollmentId())
+            .isEqualTo(enrollmentRepo.findByStudentIdAndCourseId(standard, courseId).get().getEnrollmentId());
+    }
+
+    @Test
+    void rebuild_restoresTheTiers_withoutRenumbering() {
+        Map<Long, Long> tickets = enrollmentRepo.findAll().stream()
+            .filter(e -> e.getStatus() == EnrollmentStatus.WAITLISTED)
+            .collect(Collectors.toMap(Enrollment::getStudentId, Enrollment::getWaitlistPosition));
+        Map<Long, Long> before = positions();
+
+        loader.rebuild();
+
+        assertThat(positions()).isEqualTo(before);
+        assertThat(enrollmentRepo.findAll())
+            .filteredOn(e -> e.getStatus() == EnrollmentStatus.WAITLISTED)
+            .extracting(Enrollment::getStudentId, Enrollment::getWaitlistPosition)
+            .containsExactlyInAnyOrderElementsOf(tickets.entrySet().stream()
+                .map(t -> tuple(t.getKey(), t.getValue())).toList());
+    }
+
+    @Test
+    void unknownStudent_cannotBePrioritized() {
+        assertThatThrownBy(() -> students.changeWaitlistPriority(-1L, WaitlistPriority.SENIOR))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    /** Live waitlist position of every waiting student */
+    private Map<Long, Long> positions() {
+        return List.of(standard, major, senior, late).stream()
+            .flatMap(student -> enrollments.retrieveEnrollments(student).stream())
+            .filter(e -> e.getStatus() == EnrollmentStatus.WAITLISTED)
+            .collect(Collectors.toMap(EnrollmentDto::getStudentId, EnrollmentDto::getWaitlistPosition));
+    }
+}